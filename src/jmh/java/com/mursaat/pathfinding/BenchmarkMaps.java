@@ -0,0 +1,173 @@
+package com.mursaat.pathfinding;
+
+import java.util.Random;
+
+/**
+ * Reproducible maps used by the benchmarks : the same type, size and seed always give the same map.
+ * The start position is the top left corner and the end position the bottom right one.
+ */
+final class BenchmarkMaps {
+
+  /**
+   * The seed used by the benchmarks
+   */
+  static final long SEED = 42;
+
+  /**
+   * The kinds of maps
+   */
+  enum MapType {
+    /**
+     * A quarter of the positions blocked at random
+     */
+    RANDOM,
+    /**
+     * A perfect maze with corridors of width 1, the path winds through most of the map
+     */
+    MAZE,
+    /**
+     * No position blocked
+     */
+    OPEN,
+    /**
+     * An open map cut in two by a wall, the end position being on the other side
+     */
+    UNREACHABLE
+  }
+
+  private BenchmarkMaps() {
+  }
+
+  /**
+   * Generate a map
+   *
+   * @param type The kind of map
+   * @param size The width and height of the map
+   * @param seed The seed of the random generator
+   * @return The map
+   */
+  static BitGridMap create(MapType type, int size, long seed) {
+    BitGridMap map = new BitGridMap(size, size);
+    switch (type) {
+      case RANDOM:
+        fillRandom(map, seed);
+        break;
+      case MAZE:
+        carveMaze(map, seed);
+        break;
+      case OPEN:
+        map.fillRect(0, 0, size, size, true);
+        break;
+      case UNREACHABLE:
+        map.fillRect(0, 0, size, size, true);
+        map.fillRect(size / 2, 0, 1, size, false);
+        break;
+    }
+    return map;
+  }
+
+  /**
+   * Returns the start position of the maps
+   */
+  static PathNodePosition start() {
+    return new PathNodePosition(0, 0);
+  }
+
+  /**
+   * Returns the end position of the maps, the last cell of a maze being on a wall
+   */
+  static PathNodePosition end(BitGridMap map, MapType type) {
+    int last = map.getWidth() - 1;
+    return type == MapType.MAZE ? new PathNodePosition(last - 1, last - 1) : new PathNodePosition(last, last);
+  }
+
+  /**
+   * Returns a copy of a map backed by a boolean array, which the built-in enumerators read position by position
+   *
+   * @param map The map to copy
+   * @return The copy
+   */
+  static PathFinderMap toArrayMap(BitGridMap map) {
+    final int width = map.getWidth();
+    final int height = map.getHeight();
+    final boolean[] cells = new boolean[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        cells[y * width + x] = map.isTraversable(x, y);
+      }
+    }
+    return new PathFinderMap() {
+      @Override
+      public boolean isTraversable(int x, int y) {
+        return cells[y * width + x];
+      }
+
+      @Override
+      public int getWidth() {
+        return width;
+      }
+
+      @Override
+      public int getHeight() {
+        return height;
+      }
+    };
+  }
+
+  private static void fillRandom(BitGridMap map, long seed) {
+    Random random = new Random(seed);
+    int size = map.getWidth();
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        map.setTraversable(x, y, random.nextInt(4) != 0);
+      }
+    }
+    // Keep the corners open so that the start and end positions are not walled in
+    map.fillRect(0, 0, 3, 3, true);
+    map.fillRect(size - 3, size - 3, 3, 3, true);
+  }
+
+  /**
+   * Carve a maze with a depth first search on the positions of even coordinates, the odd ones being walls
+   */
+  private static void carveMaze(BitGridMap map, long seed) {
+    Random random = new Random(seed);
+    int cells = map.getWidth() / 2;
+    boolean[] carved = new boolean[cells * cells];
+    int[] stack = new int[cells * cells];
+    int[] directions = new int[4];
+    int stackSize = 0;
+    stack[stackSize++] = 0;
+    carved[0] = true;
+    map.setTraversable(0, 0, true);
+    while (stackSize > 0) {
+      int cell = stack[stackSize - 1];
+      int cx = cell % cells;
+      int cy = cell / cells;
+      int count = 0;
+      if (cx > 0 && !carved[cell - 1]) {
+        directions[count++] = cell - 1;
+      }
+      if (cx < cells - 1 && !carved[cell + 1]) {
+        directions[count++] = cell + 1;
+      }
+      if (cy > 0 && !carved[cell - cells]) {
+        directions[count++] = cell - cells;
+      }
+      if (cy < cells - 1 && !carved[cell + cells]) {
+        directions[count++] = cell + cells;
+      }
+      if (count == 0) {
+        stackSize--;
+        continue;
+      }
+      int next = directions[random.nextInt(count)];
+      int nx = next % cells;
+      int ny = next / cells;
+      carved[next] = true;
+      map.setTraversable(cx + nx, cy + ny, true);
+      map.setTraversable(nx * 2, ny * 2, true);
+      stack[stackSize++] = next;
+    }
+  }
+}
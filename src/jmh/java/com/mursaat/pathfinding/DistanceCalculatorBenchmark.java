@@ -0,0 +1,72 @@
+package com.mursaat.pathfinding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure each built-in {@link DistanceCalculator} on random pairs of positions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceCalculatorBenchmark {
+
+  private static final int PAIRS = 1024;
+
+  @Param({"MANHATTAN", "CHEBYSHEV", "OCTILE", "EUCLIDEAN"})
+  String heuristic;
+
+  private DistanceCalculator calculator;
+
+  private final int[] coordinates = new int[PAIRS * 4];
+
+  @Setup
+  public void setUp() {
+    switch (heuristic) {
+      case "MANHATTAN":
+        calculator = DistanceCalculator.MANHATTAN_DISTANCE;
+        break;
+      case "CHEBYSHEV":
+        calculator = DistanceCalculator.CHEBYSHEV_DISTANCE;
+        break;
+      case "OCTILE":
+        calculator = DistanceCalculator.OCTILE_DISTANCE;
+        break;
+      case "EUCLIDEAN":
+        calculator = DistanceCalculator.EUCLIDEAN_DISTANCE;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown heuristic " + heuristic);
+    }
+    Random random = new Random(BenchmarkMaps.SEED);
+    for (int i = 0; i < coordinates.length; i++) {
+      coordinates[i] = random.nextInt(4096);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PAIRS)
+  public double calculate() {
+    double total = 0;
+    for (int i = 0; i < coordinates.length; i += 4) {
+      total += calculator.calculate(coordinates[i], coordinates[i + 1], coordinates[i + 2], coordinates[i + 3]);
+    }
+    return total;
+  }
+}
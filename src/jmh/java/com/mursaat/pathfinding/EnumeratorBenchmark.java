@@ -0,0 +1,98 @@
+package com.mursaat.pathfinding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the enumeration of the neighbors of every position of a random map, with both the list and the
+ * primitive methods of each built-in {@link NeighborsEnumerator}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnumeratorBenchmark {
+
+  private static final int SIZE = 256;
+
+  @Param({"ORTHO", "ORTHO_DIAG"})
+  String neighbors;
+
+  /**
+   * BITS for a {@link BitGridMap}, ARRAY for a map read position by position
+   */
+  @Param({"BITS", "ARRAY"})
+  String storage;
+
+  private PathFinderMap map;
+
+  private NeighborsEnumerator enumerator;
+
+  private int[] neighborIndexes;
+
+  private double[] neighborCosts;
+
+  /**
+   * Returns the built-in enumerator of a name
+   *
+   * @param name ORTHO or ORTHO_DIAG
+   * @return The enumerator
+   */
+  static NeighborsEnumerator enumerator(String name) {
+    switch (name) {
+      case "ORTHO":
+        return NeighborsEnumerator.ORTHO_NEIGHBORS;
+      case "ORTHO_DIAG":
+        return NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS;
+      default:
+        throw new IllegalArgumentException("Unknown enumerator " + name);
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    BitGridMap bitMap = BenchmarkMaps.create(BenchmarkMaps.MapType.RANDOM, SIZE, BenchmarkMaps.SEED);
+    map = storage.equals("BITS") ? bitMap : BenchmarkMaps.toArrayMap(bitMap);
+    enumerator = enumerator(neighbors);
+    neighborIndexes = new int[enumerator.getMaxNeighbors()];
+    neighborCosts = new double[enumerator.getMaxNeighbors()];
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE * SIZE)
+  public int enumeratePrimitive() {
+    int total = 0;
+    for (int y = 0; y < SIZE; y++) {
+      for (int x = 0; x < SIZE; x++) {
+        total += enumerator.enumerateNeighbors(map, x, y, neighborIndexes, neighborCosts);
+      }
+    }
+    return total;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE * SIZE)
+  public int enumerateList() {
+    int total = 0;
+    for (int y = 0; y < SIZE; y++) {
+      for (int x = 0; x < SIZE; x++) {
+        total += enumerator.enumerateNeighbors(map, new PathNode(new PathNodePosition(x, y), 0, 0)).size();
+      }
+    }
+    return total;
+  }
+}
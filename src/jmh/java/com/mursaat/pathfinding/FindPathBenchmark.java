@@ -0,0 +1,69 @@
+package com.mursaat.pathfinding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure {@link AStar#findPath} and {@link AStar#findGridPath} from one corner of a map to the other one, the flood fill included.
+ * ORTHO uses the manhattan distance and ORTHO_DIAG the octile distance.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindPathBenchmark {
+
+  @Param({"RANDOM", "MAZE", "OPEN", "UNREACHABLE"})
+  BenchmarkMaps.MapType type;
+
+  @Param({"64", "256", "1024", "4096"})
+  int size;
+
+  @Param({"A_STAR", "JUMP_POINT_SEARCH", "BIDIRECTIONAL_A_STAR"})
+  SearchAlgorithm algorithm;
+
+  @Param({"ORTHO", "ORTHO_DIAG"})
+  String neighbors;
+
+  /**
+   * BITS for a {@link BitGridMap}, ARRAY for a map read position by position
+   */
+  @Param({"BITS", "ARRAY"})
+  String storage;
+
+  private AStarParams params;
+
+  @Setup
+  public void setUp() {
+    BitGridMap bitMap = BenchmarkMaps.create(type, size, BenchmarkMaps.SEED);
+    PathFinderMap map = storage.equals("BITS") ? bitMap : BenchmarkMaps.toArrayMap(bitMap);
+    params = new AStarParams(map, BenchmarkMaps.start(), BenchmarkMaps.end(bitMap, type))
+            .setNeighborsEnumerator(EnumeratorBenchmark.enumerator(neighbors))
+            .setHeuristic(neighbors.equals("ORTHO") ? DistanceCalculator.MANHATTAN_DISTANCE : DistanceCalculator.OCTILE_DISTANCE)
+            .setAlgorithm(algorithm);
+  }
+
+  @Benchmark
+  public LinkedList<PathNodePosition> findPath() {
+    return AStar.findPath(params);
+  }
+
+  @Benchmark
+  public GridPath findGridPath() {
+    return AStar.findGridPath(params);
+  }
+}
@@ -0,0 +1,92 @@
+package com.mursaat.pathfinding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the A* loop alone, from one corner of a map to the other one, with two open lists for each loop : the
+ * A* of the double costs with {@link IndexedBinaryHeap} and {@link PriorityQueueOpenList}, and the A* of the
+ * integer costs with {@link IndexedIntHeap} and {@link BucketQueue}. Only the scores of the same costs compare the
+ * open lists, the two loops not expanding the same nodes. The open lists break the ties in their own order, which
+ * on the OPEN maps changes the number of expanded nodes too. ORTHO uses the manhattan distance and ORTHO_DIAG the
+ * octile distance.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenListBenchmark {
+
+  @Param({"RANDOM", "MAZE", "OPEN"})
+  BenchmarkMaps.MapType type;
+
+  @Param({"1024", "4096"})
+  int size;
+
+  @Param({"ORTHO", "ORTHO_DIAG"})
+  String neighbors;
+
+  /**
+   * DOUBLE for the A* loop of {@link SearchContext}, INTEGER for the one of {@link IntegerSearch}
+   */
+  @Param({"DOUBLE", "INTEGER"})
+  String costs;
+
+  /**
+   * HEAP for {@link IndexedBinaryHeap} or {@link IndexedIntHeap}, QUEUE for {@link PriorityQueueOpenList} or
+   * {@link BucketQueue}
+   */
+  @Param({"HEAP", "QUEUE"})
+  String openList;
+
+  private AStarParams params;
+
+  private SearchContext context;
+
+  private IntegerSearch integerSearch;
+
+  private int start;
+
+  private int goal;
+
+  @Setup
+  public void setUp() {
+    BitGridMap map = BenchmarkMaps.create(type, size, BenchmarkMaps.SEED);
+    PathNodePosition startPos = BenchmarkMaps.start();
+    PathNodePosition endPos = BenchmarkMaps.end(map, type);
+    params = new AStarParams(map, startPos, endPos)
+            .setNeighborsEnumerator(EnumeratorBenchmark.enumerator(neighbors))
+            .setHeuristic(neighbors.equals("ORTHO") ? DistanceCalculator.MANHATTAN_DISTANCE : DistanceCalculator.OCTILE_DISTANCE);
+    if (costs.equals("DOUBLE")) {
+      context = new SearchContext(openList.equals("HEAP") ? new IndexedBinaryHeap() : new PriorityQueueOpenList());
+    } else {
+      context = new SearchContext();
+      integerSearch = new IntegerSearch(context, openList.equals("HEAP") ? new IndexedIntHeap() : new BucketQueue());
+    }
+    start = startPos.y * size + startPos.x;
+    goal = endPos.y * size + endPos.x;
+  }
+
+  @Benchmark
+  public int search() {
+    context.setBudget(Integer.MAX_VALUE, 0);
+    if (integerSearch != null) {
+      return integerSearch.search(params, start, goal);
+    }
+    context.begin(params, start, goal);
+    return context.resume(Integer.MAX_VALUE);
+  }
+}
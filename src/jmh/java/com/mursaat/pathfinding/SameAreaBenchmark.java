@@ -0,0 +1,64 @@
+package com.mursaat.pathfinding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the check done before the search, telling if the end position is reachable
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SameAreaBenchmark {
+
+  @Param({"RANDOM", "MAZE", "OPEN", "UNREACHABLE"})
+  BenchmarkMaps.MapType type;
+
+  @Param({"64", "256", "1024", "4096"})
+  int size;
+
+  /**
+   * BITS for a {@link BitGridMap}, ARRAY for a map read position by position
+   */
+  @Param({"BITS", "ARRAY"})
+  String storage;
+
+  /**
+   * Tell if the areas are labelled once with {@link ConnectedComponents} instead of a flood fill for each check
+   */
+  @Param({"false", "true"})
+  boolean components;
+
+  private final SearchContext context = new SearchContext();
+
+  private AStarParams params;
+
+  @Setup
+  public void setUp() {
+    BitGridMap bitMap = BenchmarkMaps.create(type, size, BenchmarkMaps.SEED);
+    PathFinderMap map = storage.equals("BITS") ? bitMap : BenchmarkMaps.toArrayMap(bitMap);
+    params = new AStarParams(map, BenchmarkMaps.start(), BenchmarkMaps.end(bitMap, type));
+    if (components) {
+      params.setConnectedComponents(new ConnectedComponents(map, params.getNeighborsEnumerator()));
+    }
+  }
+
+  @Benchmark
+  public boolean arePosInSameArea() {
+    return context.arePosInSameArea(params);
+  }
+}
@@ -0,0 +1,64 @@
+package com.mursaat.pathfinding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure A* with each {@link TieBreaking} policy, from one corner of a map to the other one, without the flood fill.
+ * ORTHO uses the manhattan distance and ORTHO_DIAG the octile distance.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TieBreakingBenchmark {
+
+  @Param({"RANDOM", "OPEN"})
+  BenchmarkMaps.MapType type;
+
+  @Param({"1024"})
+  int size;
+
+  @Param({"ORTHO", "ORTHO_DIAG"})
+  String neighbors;
+
+  @Param({"false", "true"})
+  boolean integerCosts;
+
+  @Param({"NONE", "HIGHER_G", "CROSS_PRODUCT"})
+  TieBreaking tieBreaking;
+
+  private AStarParams params;
+
+  private SearchContext context;
+
+  @Setup
+  public void setUp() {
+    BitGridMap map = BenchmarkMaps.create(type, size, BenchmarkMaps.SEED);
+    params = new AStarParams(map, BenchmarkMaps.start(), BenchmarkMaps.end(map, type))
+            .setNeighborsEnumerator(EnumeratorBenchmark.enumerator(neighbors))
+            .setHeuristic(neighbors.equals("ORTHO") ? DistanceCalculator.MANHATTAN_DISTANCE : DistanceCalculator.OCTILE_DISTANCE)
+            .setMustCheckPosSameArea(false)
+            .setIntegerCosts(integerCosts)
+            .setTieBreaking(tieBreaking);
+    context = new SearchContext();
+  }
+
+  @Benchmark
+  public GridPath findGridPath() {
+    return context.findGridPath(params);
+  }
+}
@@ -0,0 +1,61 @@
+package com.mursaat.pathfinding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure weighted A* and ARA* for each heuristic weight, from one corner of a map to the other one, without the
+ * flood fill. ARA* is not limited, so it measures the cost of proving the shortest path from the first weight.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeightedSearchBenchmark {
+
+  @Param({"RANDOM", "MAZE", "OPEN"})
+  BenchmarkMaps.MapType type;
+
+  @Param({"1024"})
+  int size;
+
+  @Param({"A_STAR", "ANYTIME_A_STAR"})
+  SearchAlgorithm algorithm;
+
+  @Param({"1", "1.1", "1.2", "1.5", "2"})
+  double heuristicWeight;
+
+  private AStarParams params;
+
+  private SearchContext context;
+
+  @Setup
+  public void setUp() {
+    BitGridMap map = BenchmarkMaps.create(type, size, BenchmarkMaps.SEED);
+    params = new AStarParams(map, BenchmarkMaps.start(), BenchmarkMaps.end(map, type))
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setHeuristic(DistanceCalculator.OCTILE_DISTANCE)
+            .setMustCheckPosSameArea(false)
+            .setAlgorithm(algorithm)
+            .setHeuristicWeight(heuristicWeight);
+    context = new SearchContext();
+  }
+
+  @Benchmark
+  public SearchResult search() {
+    return context.search(params);
+  }
+}
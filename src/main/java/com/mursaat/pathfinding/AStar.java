@@ -1,6 +1,20 @@
 package com.mursaat.pathfinding;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This class allows the users to use the static method {@link AStar#findPath} to
@@ -8,6 +22,36 @@ import java.util.*;
  */
 public final class AStar {
 
+  /**
+   * The search storage of each thread, reused from one call to the next
+   */
+  private static final ThreadLocal<SearchContext> CONTEXTS = new ThreadLocal<SearchContext>() {
+    @Override
+    protected SearchContext initialValue() {
+      return new SearchContext();
+    }
+  };
+
+  /**
+   * The search storages not used by a batch run on an {@link Executor}, whose threads may not live long
+   */
+  private static final ConcurrentLinkedQueue<SearchContext> IDLE_CONTEXTS = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The number of search storages kept in {@link #IDLE_CONTEXTS}, never above {@link #MAX_IDLE_CONTEXTS}
+   */
+  private static final AtomicInteger IDLE_CONTEXT_COUNT = new AtomicInteger();
+
+  /**
+   * The number of idle search storages kept, the others are left to the garbage collector
+   */
+  private static final int MAX_IDLE_CONTEXTS = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * The number of queries of a batch below which a task does not split anymore
+   */
+  private static final int BATCH_SPLIT_THRESHOLD = 16;
+
   private AStar() {
   }
 
@@ -15,108 +59,233 @@ public final class AStar {
    * Use A* algorithm to compute the shortest path between two positions
    * If the end position is unreachable, it will returns an empty List
    * If the start position is not defined as traversable on the map, it will returns an empty List
+   * If the search stops on a budget of the parameters, it will returns a partial path, see {@link #search}
+   * The search storage is kept by the calling thread, use a {@link SearchContext} to manage it yourself
    *
    * @param params The parameters used to compute the path
    * @return A LinkedList containing all positions in the shortest path
    */
   public static LinkedList<PathNodePosition> findPath(AStarParams params) {
-    // If the start position is not traversable, we return an empty list
-    if (!params.getMap().isTraversable(params.getStartPos().x, params.getStartPos().y)) {
-      return new LinkedList<>();
+    return CONTEXTS.get().findPath(params);
+  }
+
+  /**
+   * Compute the shortest path between two positions like {@link #findPath}, returning the positions in a
+   * {@link GridPath} built directly from the search storage instead of a LinkedList
+   *
+   * @param params The parameters used to compute the path
+   * @return The positions of the path without the start position, and its cost
+   */
+  public static GridPath findGridPath(AStarParams params) {
+    return CONTEXTS.get().findGridPath(params);
+  }
+
+  /**
+   * Compute the shortest path between two positions like {@link #findPath}, and tell why the search stopped.
+   * When the parameters limit the expanded nodes or the time, and the limit is reached, the result holds
+   * the path to the position with the lowest heuristic reached so far, so a unit can start moving.
+   * {@link #findPath} returns the same path.
+   *
+   * @param params The parameters used to compute the path
+   * @return The path, and why the search stopped
+   */
+  public static SearchResult search(AStarParams params) {
+    return CONTEXTS.get().search(params);
+  }
+
+  /**
+   * Compute the paths of many independent queries on the common {@link ForkJoinPool}
+   *
+   * @param queries The parameters of each query
+   * @return The path of each query, in the order of the queries
+   * @see #findPaths(Collection, ForkJoinPool)
+   */
+  public static List<LinkedList<PathNodePosition>> findPaths(Collection<AStarParams> queries) {
+    return findPaths(queries, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Compute the paths of many independent queries in parallel, each worker reusing its own search storage.
+   * The maps must not change until the method returns.
+   * When several queries on the same map check if the end position is reachable without giving
+   * {@link ConnectedComponents}, the areas of the map are labelled once and shared by these queries.
+   *
+   * @param queries The parameters of each query
+   * @param pool    The pool running the queries
+   * @return The path of each query, in the order of the queries
+   */
+  public static List<LinkedList<PathNodePosition>> findPaths(Collection<AStarParams> queries, ForkJoinPool pool) {
+    AStarParams[] params = queries.toArray(new AStarParams[0]);
+    ConnectedComponents[] components = shareConnectedComponents(params);
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    LinkedList<PathNodePosition>[] paths = new LinkedList[params.length];
+    pool.invoke(new BatchTask(params, components, paths, 0, params.length));
+    return Arrays.asList(paths);
+  }
+
+  /**
+   * Compute the paths of many independent queries on an executor, for example one creating a virtual thread
+   * per task. The queries are split in chunks, each one borrowing a search storage from a shared pool.
+   * The maps must not change until the method returns.
+   *
+   * @param queries     The parameters of each query
+   * @param executor    The executor running the chunks
+   * @param parallelism The number of chunks to run at the same time
+   * @return The path of each query, in the order of the queries
+   */
+  public static List<LinkedList<PathNodePosition>> findPaths(Collection<AStarParams> queries, Executor executor, int parallelism) {
+    final AStarParams[] params = queries.toArray(new AStarParams[0]);
+    final ConnectedComponents[] components = shareConnectedComponents(params);
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    final LinkedList<PathNodePosition>[] paths = new LinkedList[params.length];
+
+    int chunkCount = Math.max(1, Math.min(params.length, parallelism));
+    final CountDownLatch done = new CountDownLatch(chunkCount);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    for (int chunk = 0; chunk < chunkCount; chunk++) {
+      final int from = (int) ((long) params.length * chunk / chunkCount);
+      final int to = (int) ((long) params.length * (chunk + 1) / chunkCount);
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          SearchContext context = borrowContext();
+          try {
+            for (int i = from; i < to; i++) {
+              paths[i] = context.findPath(params[i], components[i]);
+            }
+          } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+          } finally {
+            releaseContext(context);
+            done.countDown();
+          }
+        }
+      });
     }
 
-    if (params.mustCheckPosSameArea() && !arePosInSameArea(params.getMap(), params.getStartPos(), params.getEndPos())) {
-      return new LinkedList<>();
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the paths", e);
+    }
+    if (failure.get() != null) {
+      throw new IllegalStateException("A path query failed", failure.get());
     }
+    return Arrays.asList(paths);
+  }
 
-    PathNode startNode = new PathNode(params.getStartPos(), 0, 0);
-    HashMap<PathNode, PathNode> closedMap = new HashMap<>();
-    HashMap<PathNode, PathNode> openMap = new HashMap<>();
-    PriorityQueue<PathNode> openSet = new PriorityQueue<>();
-    openMap.put(startNode, startNode);
-    openSet.add(startNode);
-    while (!openSet.isEmpty()) {
-      PathNode u = openSet.poll();
-      openMap.remove(u);
-      if (u.pos.equals(params.getEndPos())) {
-        LinkedList<PathNodePosition> path = new LinkedList<>();
-        PathNode parent = u.parent;
-        while (parent != null) {
-          path.add(parent.pos);
-          parent = parent.parent;
-        }
-        Collections.reverse(path);
-        path.add(params.getEndPos());
-        path.removeFirst();
-        return path;
-      }
+  /**
+   * Returns an idle search storage, or a new one when none is idle
+   *
+   * @return The search storage to use
+   */
+  private static SearchContext borrowContext() {
+    SearchContext context = IDLE_CONTEXTS.poll();
+    if (context == null) {
+      return new SearchContext();
+    }
+    IDLE_CONTEXT_COUNT.decrementAndGet();
+    return context;
+  }
+
+  /**
+   * Keep a search storage for the next batches, unless enough of them are already idle
+   *
+   * @param context The search storage not used anymore
+   */
+  private static void releaseContext(SearchContext context) {
+    if (IDLE_CONTEXT_COUNT.incrementAndGet() <= MAX_IDLE_CONTEXTS) {
+      IDLE_CONTEXTS.offer(context);
+    } else {
+      IDLE_CONTEXT_COUNT.decrementAndGet();
+    }
+  }
 
-      for (PathNode v : params.getNeighborsEnumerator().enumerateNeighbors(params.getMap(), u)) {
-        boolean mustAdd = true;
-        PathNode closed = closedMap.get(v);
-        if (closed != null && closed.cost < v.cost) {
-          mustAdd = false;
+  /**
+   * Returns the number of idle search storages kept for the next batches
+   *
+   * @return The number of idle search storages
+   */
+  static int idleContexts() {
+    return IDLE_CONTEXT_COUNT.get();
+  }
+
+  /**
+   * Returns the connected components used by each query, labelling once the maps shared by several
+   * queries which would otherwise do a flood fill each
+   *
+   * @param params The parameters of each query
+   * @return The connected components of each query, or null
+   */
+  private static ConnectedComponents[] shareConnectedComponents(AStarParams[] params) {
+    ConnectedComponents[] components = new ConnectedComponents[params.length];
+    Map<PathFinderMap, Map<NeighborsEnumerator, List<Integer>>> floodFills = new IdentityHashMap<>();
+    for (int i = 0; i < params.length; i++) {
+      AStarParams query = params[i];
+      components[i] = query.getConnectedComponents();
+      if (query.mustCheckPosSameArea() && (components[i] == null || !components[i].matches(query))) {
+        Map<NeighborsEnumerator, List<Integer>> byEnumerator = floodFills.get(query.getMap());
+        if (byEnumerator == null) {
+          byEnumerator = new HashMap<>();
+          floodFills.put(query.getMap(), byEnumerator);
         }
-        if (mustAdd) {
-          PathNode open = openMap.get(v);
-          if (open != null && open.cost < v.cost) {
-            mustAdd = false;
-          }
-          if (mustAdd) {
-            v.heuristic = v.cost + params.heuristic.calculate(v.pos, params.getEndPos());
-            v.parent = u;
+        List<Integer> indexes = byEnumerator.get(query.getNeighborsEnumerator());
+        if (indexes == null) {
+          indexes = new ArrayList<>();
+          byEnumerator.put(query.getNeighborsEnumerator(), indexes);
+        }
+        indexes.add(i);
+      }
+    }
 
-            openMap.put(v, v);
-            openSet.add(v);
+    for (Map.Entry<PathFinderMap, Map<NeighborsEnumerator, List<Integer>>> byMap : floodFills.entrySet()) {
+      for (Map.Entry<NeighborsEnumerator, List<Integer>> byEnumerator : byMap.getValue().entrySet()) {
+        List<Integer> indexes = byEnumerator.getValue();
+        if (indexes.size() > 1) {
+          ConnectedComponents shared = new ConnectedComponents(byMap.getKey(), byEnumerator.getKey());
+          for (int i : indexes) {
+            components[i] = shared;
           }
         }
       }
-
-      closedMap.put(u, u);
     }
-    return new LinkedList<>();
+    return components;
   }
 
   /**
-   * Allow to detect if two positions belongs to the same area
-   *
-   * @param map
-   * @param p1
-   * @param p2
-   * @return
-   */
-  private static boolean arePosInSameArea(PathFinderMap map, PathNodePosition p1, PathNodePosition p2) {
-    boolean[][] colored = new boolean[map.getHeight()][map.getWidth()];
-
-    Stack<PathNodePosition> positions = new Stack<>();
-    positions.add(p1);
-    while (!positions.isEmpty()) {
-      PathNodePosition currPos = positions.pop();
-
-      if (colored[currPos.y][currPos.x]) continue;
-
-      if (currPos.x == p2.x && currPos.y == p2.y) return true;
-
-      colored[currPos.y][currPos.x] = true;
-
-      if (currPos.x + 1 != map.getWidth() && map.isTraversable(currPos.x + 1, currPos.y))
-        positions.add(new PathNodePosition(currPos.x + 1, currPos.y));
-      if (currPos.x != 0 && map.isTraversable(currPos.x - 1, currPos.y))
-        positions.add(new PathNodePosition(currPos.x - 1, currPos.y));
-      if (currPos.y + 1 != map.getHeight() && map.isTraversable(currPos.x, currPos.y + 1))
-        positions.add(new PathNodePosition(currPos.x, currPos.y + 1));
-      if (currPos.y != 0 && map.isTraversable(currPos.x, currPos.y - 1))
-        positions.add(new PathNodePosition(currPos.x, currPos.y - 1));
-
-      if (currPos.x + 1 != map.getWidth() && currPos.y + 1 != map.getHeight() && map.isTraversable(currPos.x + 1, currPos.y + 1))
-        positions.add(new PathNodePosition(currPos.x + 1, currPos.y + 1));
-      if (currPos.x + 1 != map.getWidth() && currPos.y != 0 && map.isTraversable(currPos.x + 1, currPos.y - 1))
-        positions.add(new PathNodePosition(currPos.x + 1, currPos.y - 1));
-      if (currPos.x != 0 && currPos.y + 1 != map.getHeight() && map.isTraversable(currPos.x - 1, currPos.y + 1))
-        positions.add(new PathNodePosition(currPos.x - 1, currPos.y + 1));
-      if (currPos.x != 0 && currPos.y != 0 && map.isTraversable(currPos.x - 1, currPos.y - 1))
-        positions.add(new PathNodePosition(currPos.x - 1, currPos.y - 1));
+   * Compute a range of the queries of a batch, splitting it while it is large
+   */
+  private static final class BatchTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AStarParams[] params;
+    private final ConnectedComponents[] components;
+    private final LinkedList<PathNodePosition>[] paths;
+    private final int from;
+    private final int to;
+
+    BatchTask(AStarParams[] params, ConnectedComponents[] components, LinkedList<PathNodePosition>[] paths, int from, int to) {
+      this.params = params;
+      this.components = components;
+      this.paths = paths;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= BATCH_SPLIT_THRESHOLD) {
+        SearchContext context = CONTEXTS.get();
+        for (int i = from; i < to; i++) {
+          paths[i] = context.findPath(params[i], components[i]);
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new BatchTask(params, components, paths, from, middle),
+              new BatchTask(params, components, paths, middle, to));
     }
-    return false;
   }
 }
@@ -1,5 +1,7 @@
 package com.mursaat.pathfinding;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Parameters required by {@link AStar#findPath}
  */
@@ -30,11 +32,51 @@ public class AStarParams {
    */
   private boolean mustCheckPosSameArea;
 
+  /**
+   * The areas of the map, used instead of the flood fill when they are given
+   */
+  private ConnectedComponents connectedComponents;
+
   /**
    * The function used when estimating distance between a position and the end position
    */
   DistanceCalculator heuristic;
 
+  /**
+   * The algorithm used to compute the path
+   */
+  private SearchAlgorithm algorithm;
+
+  /**
+   * Tell if the costs are counted with integers, see {@link #setIntegerCosts}
+   */
+  private boolean integerCosts;
+
+  /**
+   * The node expanded first among the nodes of the same estimated cost
+   */
+  private TieBreaking tieBreaking;
+
+  /**
+   * The weight of the heuristic, see {@link #setHeuristicWeight}
+   */
+  private double heuristicWeight;
+
+  /**
+   * Receives the statistics of each search, null when they are not needed
+   */
+  private SearchListener searchListener;
+
+  /**
+   * The number of nodes the search can expand before it stops
+   */
+  private int maxExpandedNodes;
+
+  /**
+   * The time the search can take before it stops, in nanoseconds, 0 if it is not limited
+   */
+  private long timeLimitNanos;
+
   public AStarParams(PathFinderMap map, PathNodePosition startPos, PathNodePosition endPos) {
     this.map = map;
     this.startPos = startPos;
@@ -42,6 +84,11 @@ public class AStarParams {
     this.neighborsEnumerator = NeighborsEnumerator.ORTHO_NEIGHBORS;
     this.heuristic = DistanceCalculator.MANHATTAN_DISTANCE;
     this.mustCheckPosSameArea = true;
+    this.algorithm = SearchAlgorithm.A_STAR;
+    this.tieBreaking = TieBreaking.NONE;
+    this.heuristicWeight = 1;
+    this.maxExpandedNodes = Integer.MAX_VALUE;
+    this.timeLimitNanos = 0;
   }
 
 
@@ -98,4 +145,156 @@ public class AStarParams {
     this.mustCheckPosSameArea = mustCheckPosSameArea;
     return this;
   }
+
+  public ConnectedComponents getConnectedComponents() {
+    return connectedComponents;
+  }
+
+  /**
+   * Give the areas of the map, so checking if the end position is reachable does not need a flood fill anymore.
+   * They are ignored if they were not computed for the map of these parameters.
+   *
+   * @param connectedComponents The areas of the map, or null
+   * @return These parameters
+   */
+  public AStarParams setConnectedComponents(ConnectedComponents connectedComponents) {
+    this.connectedComponents = connectedComponents;
+    return this;
+  }
+
+  public SearchAlgorithm getAlgorithm() {
+    return algorithm;
+  }
+
+  public AStarParams setAlgorithm(SearchAlgorithm algorithm) {
+    this.algorithm = algorithm;
+    return this;
+  }
+
+  public boolean hasIntegerCosts() {
+    return integerCosts;
+  }
+
+  /**
+   * Count the costs with integers : an orthogonal move costs 10 and a diagonal one 14, multiplied by the cost
+   * of the destination on a {@link WeightedGridMap}. The search compares integers only, and the nodes with the same
+   * estimated cost are expanded in an order which only depends on the map and the query, so the same query always
+   * returns the same path. With {@link DistanceCalculator#OCTILE_DISTANCE} and {@link DistanceCalculator#MANHATTAN_DISTANCE},
+   * the open list is a bucket queue, faster than a heap. Since 14 is a little less than 10 times the square
+   * root of 2, a diagonal path may be chosen over a slightly shorter one. The cost of the path is the integer cost
+   * divided by 10.
+   * <p>
+   * It is used by {@link SearchAlgorithm#A_STAR} with {@link NeighborsEnumerator#ORTHO_NEIGHBORS} and
+   * {@link NeighborsEnumerator#ORTHO_DIAG_NEIGHBORS}, on maps without costs or a {@link WeightedGridMap}.
+   * {@link DistanceCalculator#OCTILE_DISTANCE} and {@link DistanceCalculator#MANHATTAN_DISTANCE} are computed
+   * exactly with integers, the other heuristics are scaled and rounded down.
+   *
+   * @param integerCosts true to count the costs with integers, false by default
+   * @return These parameters
+   */
+  public AStarParams setIntegerCosts(boolean integerCosts) {
+    this.integerCosts = integerCosts;
+    return this;
+  }
+
+  public TieBreaking getTieBreaking() {
+    return tieBreaking;
+  }
+
+  /**
+   * Choose which node {@link SearchAlgorithm#A_STAR} expands first among the nodes of the same estimated cost,
+   * see {@link TieBreaking}. The other algorithms ignore it. With {@link #setIntegerCosts}, a policy other than
+   * {@link TieBreaking#NONE} makes the search use a heap instead of the bucket queue.
+   *
+   * @param tieBreaking The policy, {@link TieBreaking#NONE} by default
+   * @return These parameters
+   */
+  public AStarParams setTieBreaking(TieBreaking tieBreaking) {
+    this.tieBreaking = tieBreaking;
+    return this;
+  }
+
+  public double getHeuristicWeight() {
+    return heuristicWeight;
+  }
+
+  /**
+   * Multiply the heuristic by a weight : the estimated cost of a node becomes its cost plus the weight times its
+   * heuristic. The search goes more greedily toward the end position and expands less nodes, and the path found
+   * costs at most the weight times the cost of the shortest path, when the heuristic does not overestimate the
+   * distances. {@link SearchResult#getSuboptimalityBound()} gives the bound proven by the search, often lower.
+   * A node is never expanded twice : when a shorter path to an expanded node is found, the bound accounts for it.
+   * <p>
+   * It is used by {@link SearchAlgorithm#A_STAR}, and is the first weight of {@link SearchAlgorithm#ANYTIME_A_STAR}.
+   * The other algorithms ignore it, and a weight above 1 is searched with double costs even with
+   * {@link #setIntegerCosts}.
+   *
+   * @param heuristicWeight The weight, at least 1, 1 by default
+   * @return These parameters
+   */
+  public AStarParams setHeuristicWeight(double heuristicWeight) {
+    if (!(heuristicWeight >= 1) || Double.isInfinite(heuristicWeight)) {
+      throw new IllegalArgumentException("The weight of the heuristic must be at least 1 : " + heuristicWeight);
+    }
+    this.heuristicWeight = heuristicWeight;
+    return this;
+  }
+
+  public SearchListener getSearchListener() {
+    return searchListener;
+  }
+
+  /**
+   * Give a listener receiving the statistics of each search done with these parameters, the time spent
+   * in each phase being only measured when one is given. It is called by the thread running the search,
+   * so it must be thread safe when the parameters are used by several threads.
+   *
+   * @param searchListener The listener, or null
+   * @return These parameters
+   * @see SearchStatisticsAggregator
+   */
+  public AStarParams setSearchListener(SearchListener searchListener) {
+    this.searchListener = searchListener;
+    return this;
+  }
+
+  public int getMaxExpandedNodes() {
+    return maxExpandedNodes;
+  }
+
+  /**
+   * Limit the number of nodes the search can expand. When the limit is reached, the search stops
+   * and returns a partial path, see {@link AStar#search}.
+   *
+   * @param maxExpandedNodes The number of nodes, Integer.MAX_VALUE by default
+   * @return These parameters
+   */
+  public AStarParams setMaxExpandedNodes(int maxExpandedNodes) {
+    if (maxExpandedNodes < 0) {
+      throw new IllegalArgumentException("The number of expanded nodes can not be negative : " + maxExpandedNodes);
+    }
+    this.maxExpandedNodes = maxExpandedNodes;
+    return this;
+  }
+
+  public long getTimeLimitNanos() {
+    return timeLimitNanos;
+  }
+
+  /**
+   * Limit the time the search can take. When the limit is reached, the search stops and returns
+   * a partial path, see {@link AStar#search}. The clock is read every 256 expanded nodes, and the flood fill
+   * done when {@link #mustCheckPosSameArea()} is true is not limited.
+   *
+   * @param time The time, 0 if it is not limited
+   * @param unit The unit of the time
+   * @return These parameters
+   */
+  public AStarParams setTimeLimit(long time, TimeUnit unit) {
+    if (time < 0) {
+      throw new IllegalArgumentException("The time limit can not be negative : " + time);
+    }
+    this.timeLimitNanos = unit.toNanos(time);
+    return this;
+  }
 }
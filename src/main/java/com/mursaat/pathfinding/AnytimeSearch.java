@@ -0,0 +1,294 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * The Anytime Repairing A* (ARA*) used by {@link SearchContext} when {@link SearchAlgorithm#ANYTIME_A_STAR} is selected.
+ * The costs and the parents are kept in the storage of the context, and are never reset between two iterations.
+ * <p>
+ * Each iteration is a weighted A*, the key of a node being its cost plus the weight times its heuristic, which stops
+ * once no node of the open list has a lower key than the end position. A node whose cost decreases after it has been
+ * expanded in the iteration is not added again to the open list but kept aside as inconsistent. Before the next
+ * iteration, the weight decreases, the inconsistent nodes go back to the open list and the keys are computed again :
+ * an iteration only expands the nodes whose cost decreased, or which the lower weight brings before the end position.
+ * <p>
+ * No path can cost less than the lowest cost plus heuristic of the open and inconsistent nodes, so after each
+ * iteration the bound of the path is its cost divided by this estimate, when it is lower than the weight.
+ */
+final class AnytimeSearch {
+
+  /**
+   * Below this excess of the bound over 1, the next iteration is done with a weight of 1 to prove the shortest path
+   */
+  private static final double MIN_WEIGHT_EXCESS = 0.02;
+
+  /**
+   * The context holding the search storage
+   */
+  private final SearchContext context;
+
+  private final IndexedBinaryHeap openList = new IndexedBinaryHeap();
+
+  /**
+   * The iteration in which each node has been expanded, a node being closed when it is the current iteration
+   */
+  private int iteration = 0;
+  private int[] closed = new int[0];
+
+  /**
+   * The nodes whose cost decreased after they were expanded in the current iteration, and the iteration in which
+   * each node was added to them, so it is added once
+   */
+  private int[] inconsistent = new int[64];
+  private int inconsistentCount;
+  private int[] inconsistentIteration = new int[0];
+
+  private int[] neighbors = new int[8];
+  private double[] neighborCosts = new double[8];
+
+  /**
+   * The state of the current search
+   */
+  private PathFinderMap map;
+  private NeighborsEnumerator neighborsEnumerator;
+  private DistanceCalculator heuristic;
+  private double heuristicScale;
+  private TieBreaking tieBreaking;
+  private int width;
+  private int size;
+  private int goalX;
+  private int goalY;
+  private int startDx;
+  private int startDy;
+
+  /**
+   * The best path found by the current search, and its bound
+   */
+  private GridPath path;
+  private double bound;
+
+  AnytimeSearch(SearchContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Run the iterations until the shortest path is proven or the budget of the context is exhausted
+   *
+   * @param params The parameters used to compute the path, the first weight being their heuristic weight
+   * @param start  The cell index of the start position
+   * @param goal   The cell index of the end position
+   * @return The goal index if a path has been found, see {@link #getPath()}, {@link SearchContext#BUDGET_EXHAUSTED}
+   * if the search stopped on its budget before, -1 if there is no path
+   */
+  int search(AStarParams params, int start, int goal) {
+    map = params.getMap();
+    neighborsEnumerator = params.getNeighborsEnumerator();
+    heuristic = params.getHeuristic();
+    heuristicScale = map instanceof WeightedPathFinderMap ? ((WeightedPathFinderMap) map).getMinCost() : 1;
+    tieBreaking = params.getTieBreaking();
+    width = map.getWidth();
+    size = SearchContext.cellCount(map);
+    goalX = goal % width;
+    goalY = goal / width;
+    startDx = start % width - goalX;
+    startDy = start / width - goalY;
+
+    SearchContext c = context;
+    c.prepare(size, neighborsEnumerator.getMaxNeighbors());
+    prepare();
+    c.visited[start] = c.generation;
+    c.cost[start] = 0;
+    c.parent[start] = -1;
+    double weight = params.getHeuristicWeight();
+    push(start, weight);
+    c.countPush(false, false);
+    path = null;
+    bound = Double.POSITIVE_INFINITY;
+
+    int result;
+    while (true) {
+      result = improvePath(goal, weight);
+      if (result != goal) {
+        break;
+      }
+      path = c.buildPath(map, neighborsEnumerator, start, goal);
+      bound = SearchContext.bound(path.cost(), weight, lowestEstimate());
+      if (bound == 1) {
+        break;
+      }
+      double excess = bound - 1;
+      weight = excess < MIN_WEIGHT_EXCESS ? 1 : 1 + excess / 2;
+      nextIteration(weight);
+    }
+    map = null;
+    heuristic = null;
+    return path != null ? goal : result;
+  }
+
+  /**
+   * Returns the best path found by the last search
+   *
+   * @return The path, without the start position, or null if none was found
+   */
+  GridPath getPath() {
+    return path;
+  }
+
+  /**
+   * Returns the bound of the best path found by the last search
+   *
+   * @return The bound, see {@link SearchResult#getSuboptimalityBound()}
+   */
+  double getBound() {
+    return bound;
+  }
+
+  /**
+   * Expand the nodes whose key is lower than the one of the end position
+   *
+   * @param goal   The cell index of the end position
+   * @param weight The weight of the heuristic in this iteration
+   * @return The goal index if it has been reached, {@link SearchContext#BUDGET_EXHAUSTED} if the search stopped
+   * on its budget, -1 otherwise
+   */
+  private int improvePath(int goal, double weight) {
+    SearchContext c = context;
+    while (!openList.isEmpty()) {
+      if (c.visited[goal] == c.generation && c.cost[goal] <= openList.peekKey()) {
+        return goal;
+      }
+      if (c.isBudgetExhausted()) {
+        return SearchContext.BUDGET_EXHAUSTED;
+      }
+      int u = openList.poll();
+      c.openNodes--;
+      closed[u] = iteration;
+      c.closed[u] = c.generation;
+      c.expandedNodes++;
+
+      double uCost = c.cost[u];
+      int count = neighborsEnumerator.enumerateNeighbors(map, u % width, u / width, neighbors, neighborCosts);
+      c.generatedNodes += count;
+      for (int i = 0; i < count; i++) {
+        int v = neighbors[i];
+        double vCost = uCost + neighborCosts[i];
+        boolean reached = c.visited[v] == c.generation;
+        if (reached && c.cost[v] <= vCost) {
+          continue;
+        }
+        c.visited[v] = c.generation;
+        c.cost[v] = vCost;
+        c.parent[v] = u;
+        if (closed[v] == iteration) {
+          addInconsistent(v);
+          continue;
+        }
+        c.countPush(reached, reached && c.closed[v] == c.generation);
+        c.reached(v, push(v, weight));
+      }
+    }
+    return c.visited[goal] == c.generation ? goal : -1;
+  }
+
+  /**
+   * Add a node to the open list, or lower its key
+   *
+   * @param node   The cell index of the node, whose cost is set
+   * @param weight The weight of the heuristic
+   * @return The heuristic of the node
+   */
+  private double push(int node, double weight) {
+    int x = node % width;
+    int y = node / width;
+    double g = context.cost[node];
+    double h = heuristicScale * heuristic.calculate(x, y, goalX, goalY);
+    if (tieBreaking == TieBreaking.NONE) {
+      openList.insertOrDecrease(node, g + weight * h);
+    } else if (tieBreaking == TieBreaking.HIGHER_G) {
+      openList.insertOrDecrease(node, g + weight * h, -g);
+    } else {
+      openList.insertOrDecrease(node, g + weight * h, SearchContext.crossProduct(x - goalX, y - goalY, startDx, startDy));
+    }
+    return h;
+  }
+
+  private void addInconsistent(int node) {
+    if (inconsistentIteration[node] == iteration) {
+      return;
+    }
+    inconsistentIteration[node] = iteration;
+    if (inconsistentCount == inconsistent.length) {
+      inconsistent = Arrays.copyOf(inconsistent, inconsistentCount * 2);
+    }
+    inconsistent[inconsistentCount++] = node;
+  }
+
+  /**
+   * Returns the lowest cost plus heuristic of the open and inconsistent nodes
+   */
+  private double lowestEstimate() {
+    double[] cost = context.cost;
+    double lowest = Double.POSITIVE_INFINITY;
+    for (int slot = 0; slot < openList.size(); slot++) {
+      int node = openList.node(slot);
+      lowest = Math.min(lowest, cost[node] + heuristicScale * heuristic.calculate(node % width, node / width, goalX, goalY));
+    }
+    for (int i = 0; i < inconsistentCount; i++) {
+      int node = inconsistent[i];
+      lowest = Math.min(lowest, cost[node] + heuristicScale * heuristic.calculate(node % width, node / width, goalX, goalY));
+    }
+    return lowest;
+  }
+
+  /**
+   * Open all the nodes again, and put the open and inconsistent nodes back in the open list with the keys of
+   * the next weight
+   *
+   * @param weight The weight of the next iteration
+   */
+  private void nextIteration(double weight) {
+    SearchContext c = context;
+    for (int i = 0; i < inconsistentCount; i++) {
+      c.countPush(true, true);
+    }
+    for (int slot = 0; slot < openList.size(); slot++) {
+      addInconsistent(openList.node(slot));
+    }
+    openList.clear(size);
+    startIteration();
+    for (int i = 0; i < inconsistentCount; i++) {
+      push(inconsistent[i], weight);
+    }
+    inconsistentCount = 0;
+  }
+
+  /**
+   * Make sure the arrays are large enough, and start the first iteration
+   */
+  private void prepare() {
+    if (closed.length < size) {
+      closed = new int[size];
+      inconsistentIteration = new int[size];
+      iteration = 0;
+    }
+    if (neighbors.length < neighborsEnumerator.getMaxNeighbors()) {
+      neighbors = new int[neighborsEnumerator.getMaxNeighbors()];
+      neighborCosts = new double[neighborsEnumerator.getMaxNeighbors()];
+    }
+    startIteration();
+    inconsistentCount = 0;
+    openList.clear(size);
+  }
+
+  /**
+   * Change the stamp of the iteration, so no node is closed or inconsistent anymore
+   */
+  private void startIteration() {
+    if (iteration == Integer.MAX_VALUE) {
+      Arrays.fill(closed, 0);
+      Arrays.fill(inconsistentIteration, 0);
+      iteration = 0;
+    }
+    iteration++;
+  }
+}
@@ -0,0 +1,274 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * The bidirectional A* used by {@link SearchContext} when {@link SearchAlgorithm#BIDIRECTIONAL_A_STAR} is selected.
+ * The forward search uses the storage of the context, the backward search its own arrays.
+ * <p>
+ * Both searches use the average of the two heuristics as potential : the forward key of a node is its cost
+ * plus (h(node, end) - h(node, start)) / 2, and the backward key its cost plus the opposite.
+ * With these keys, both searches work on the same graph of reduced costs, which are never negative
+ * when the heuristic is consistent. Each time a node reached by one search is reached by the other one,
+ * the cost of the path through it is a candidate, and no path can be shorter than the sum of the lowest
+ * keys of both open lists : the search stops once this sum is not lower than the best candidate.
+ */
+final class BidirectionalSearch {
+
+  /**
+   * The context holding the forward search storage
+   */
+  private final SearchContext context;
+
+  /**
+   * The storage of the backward search, the cost being the one to reach the end position
+   */
+  private int generation = 0;
+  private int[] visited = new int[0];
+  private double[] cost = new double[0];
+  private int[] parent = new int[0];
+
+  private final IndexedBinaryHeap forwardOpen = new IndexedBinaryHeap();
+  private final IndexedBinaryHeap backwardOpen = new IndexedBinaryHeap();
+
+  private int[] neighbors = new int[8];
+  private double[] neighborCosts = new double[8];
+
+  /**
+   * The state of the current search
+   */
+  private PathFinderMap map;
+  private WeightedPathFinderMap weightedMap;
+  private NeighborsEnumerator neighborsEnumerator;
+  private DistanceCalculator heuristic;
+  private double heuristicScale;
+  private int width;
+  private int startX;
+  private int startY;
+  private int goalX;
+  private int goalY;
+
+  /**
+   * The cost of the best path found, and the node where its two halves meet
+   */
+  private double bestCost;
+  private int meeting;
+
+  BidirectionalSearch(SearchContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Tell if the bidirectional search can be used with the given parameters
+   *
+   * @param params The parameters used to compute the path
+   * @return true if the movements allowed are supported
+   */
+  static boolean supports(AStarParams params) {
+    NeighborsEnumerator neighborsEnumerator = params.getNeighborsEnumerator();
+    return neighborsEnumerator == NeighborsEnumerator.ORTHO_NEIGHBORS
+            || neighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS;
+  }
+
+  /**
+   * Run both searches until the shortest path is proven
+   *
+   * @param params The parameters used to compute the path
+   * @param start  The cell index of the start position
+   * @param goal   The cell index of the end position
+   * @return The cell index where the two halves of the path meet, {@link SearchContext#BUDGET_EXHAUSTED} if the
+   * search stopped on its budget, -1 if there is no path
+   */
+  int search(AStarParams params, int start, int goal) {
+    map = params.getMap();
+    weightedMap = map instanceof WeightedPathFinderMap ? (WeightedPathFinderMap) map : null;
+    neighborsEnumerator = params.getNeighborsEnumerator();
+    heuristic = params.getHeuristic();
+    heuristicScale = weightedMap != null ? weightedMap.getMinCost() : 1;
+    width = map.getWidth();
+    startX = start % width;
+    startY = start / width;
+    goalX = goal % width;
+    goalY = goal / width;
+    // The backward search starts on the end position, A* never reaches it when it is not traversable
+    if (!map.isTraversable(goalX, goalY)) {
+      return -1;
+    }
+
+    int size = SearchContext.cellCount(map);
+    SearchContext c = context;
+    c.prepare(size, neighborsEnumerator.getMaxNeighbors());
+    prepareBackward(size);
+    forwardOpen.clear(size);
+    backwardOpen.clear(size);
+
+    c.visited[start] = c.generation;
+    c.cost[start] = 0;
+    c.parent[start] = -1;
+    forwardOpen.insertOrDecrease(start, potential(startX, startY));
+    c.countPush(false, false);
+    visited[goal] = generation;
+    cost[goal] = 0;
+    parent[goal] = -1;
+    backwardOpen.insertOrDecrease(goal, -potential(goalX, goalY));
+    c.countPush(false, false);
+
+    bestCost = Double.POSITIVE_INFINITY;
+    meeting = -1;
+    if (start == goal) {
+      bestCost = 0;
+      meeting = start;
+    }
+
+    while (!forwardOpen.isEmpty() && !backwardOpen.isEmpty()
+            && forwardOpen.peekKey() + backwardOpen.peekKey() < bestCost) {
+      if (c.isBudgetExhausted()) {
+        meeting = SearchContext.BUDGET_EXHAUSTED;
+        break;
+      }
+      // Expand the side with the smallest frontier
+      if (forwardOpen.size() <= backwardOpen.size()) {
+        expandForward();
+      } else {
+        expandBackward();
+      }
+    }
+    map = null;
+    weightedMap = null;
+    return meeting;
+  }
+
+  private void expandForward() {
+    SearchContext c = context;
+    int u = forwardOpen.poll();
+    c.openNodes--;
+    c.closed[u] = c.generation;
+    c.expandedNodes++;
+
+    double uCost = c.cost[u];
+    int count = neighborsEnumerator.enumerateNeighbors(map, u % width, u / width, neighbors, neighborCosts);
+    c.generatedNodes += count;
+    for (int i = 0; i < count; i++) {
+      int v = neighbors[i];
+      double vCost = uCost + neighborCosts[i];
+      boolean reached = c.visited[v] == c.generation;
+      if (reached && c.cost[v] <= vCost) {
+        continue;
+      }
+      c.countPush(reached, reached && c.closed[v] == c.generation);
+      c.visited[v] = c.generation;
+      c.closed[v] = 0;
+      c.cost[v] = vCost;
+      c.parent[v] = u;
+      int vx = v % width;
+      int vy = v / width;
+      double h = heuristicScale * heuristic.calculate(vx, vy, goalX, goalY);
+      c.reached(v, h);
+      forwardOpen.insertOrDecrease(v, vCost + (h - heuristicScale * heuristic.calculate(vx, vy, startX, startY)) / 2);
+      if (visited[v] == generation && vCost + cost[v] < bestCost) {
+        bestCost = vCost + cost[v];
+        meeting = v;
+      }
+    }
+  }
+
+  private void expandBackward() {
+    SearchContext c = context;
+    int v = backwardOpen.poll();
+    c.openNodes--;
+    c.expandedNodes++;
+
+    double vCost = cost[v];
+    int vx = v % width;
+    int vy = v / width;
+    // The movements are symmetric, the neighbors of v are the positions which can move to v
+    double vWeight = weightedMap != null ? weightedMap.getCost(vx, vy) : 1;
+    int count = neighborsEnumerator.enumerateNeighbors(map, vx, vy, neighbors, neighborCosts);
+    c.generatedNodes += count;
+    for (int i = 0; i < count; i++) {
+      int u = neighbors[i];
+      int ux = u % width;
+      int uy = u / width;
+      double step = ux != vx && uy != vy ? NeighborsEnumerator.SQRT_2 : 1;
+      double uCost = vCost + step * vWeight;
+      boolean reached = visited[u] == generation;
+      if (reached && cost[u] <= uCost) {
+        continue;
+      }
+      c.countPush(reached, reached && !backwardOpen.contains(u));
+      visited[u] = generation;
+      cost[u] = uCost;
+      parent[u] = v;
+      backwardOpen.insertOrDecrease(u, uCost - potential(ux, uy));
+      if (c.visited[u] == c.generation && uCost + c.cost[u] < bestCost) {
+        bestCost = uCost + c.cost[u];
+        meeting = u;
+      }
+    }
+  }
+
+  /**
+   * Returns the cost of the path found by the last search
+   *
+   * @return The cost, infinite if there is no path
+   */
+  double getBestCost() {
+    return bestCost;
+  }
+
+  /**
+   * Returns the forward potential of a position, the backward one being its opposite
+   */
+  private double potential(int x, int y) {
+    return heuristicScale * (heuristic.calculate(x, y, goalX, goalY) - heuristic.calculate(x, y, startX, startY)) / 2;
+  }
+
+  /**
+   * Build the path from the forward parents up to the meeting node, then the backward parents down to the goal
+   *
+   * @param width   The width of the map
+   * @param start   The cell index of the start position
+   * @param goal    The cell index of the end position
+   * @param meeting The cell index where the two halves of the path meet
+   * @return The path, without the start position
+   */
+  GridPath buildPath(int width, int start, int goal, int meeting) {
+    int[] forwardParent = context.parent;
+    int forwardLength = 0;
+    for (int node = meeting; node != start; node = forwardParent[node]) {
+      forwardLength++;
+    }
+    int length = forwardLength;
+    for (int node = meeting; node != goal; node = parent[node]) {
+      length++;
+    }
+    int[] cells = new int[length];
+    int i = forwardLength;
+    for (int node = meeting; node != start; node = forwardParent[node]) {
+      cells[--i] = node;
+    }
+    i = forwardLength;
+    for (int node = meeting; node != goal; ) {
+      node = parent[node];
+      cells[i++] = node;
+    }
+    return new GridPath(cells, width, bestCost);
+  }
+
+  /**
+   * Start a new generation of the backward storage, and make sure the arrays are large enough
+   */
+  private void prepareBackward(int size) {
+    if (visited.length < size) {
+      visited = new int[size];
+      cost = new double[size];
+      parent = new int[size];
+      generation = 0;
+    }
+    if (generation == Integer.MAX_VALUE) {
+      Arrays.fill(visited, 0);
+      generation = 0;
+    }
+    generation++;
+  }
+}
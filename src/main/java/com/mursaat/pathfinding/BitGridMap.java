@@ -0,0 +1,300 @@
+package com.mursaat.pathfinding;
+
+/**
+ * A {@link PathFinderMap} storing one bit per position, set when the position is traversable.
+ * Each row starts on a new long, so a 16384 x 16384 map takes 32 MB.
+ * The built-in enumerators, the flood fill and {@link ConnectedComponents} detect it and read
+ * whole words instead of calling {@link #isTraversable} for each position.
+ */
+public final class BitGridMap implements PathFinderMap {
+
+  private final int width;
+
+  private final int height;
+
+  /**
+   * The number of longs used by each row
+   */
+  private final int wordsPerRow;
+
+  /**
+   * The bits of the map, position (x, y) is the bit x % 64 of words[y * wordsPerRow + x / 64]
+   */
+  private final long[] words;
+
+  /**
+   * Create a map where no position is traversable
+   *
+   * @param width  The width of the map
+   * @param height The height of the map
+   */
+  public BitGridMap(int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.wordsPerRow = (width + 63) >>> 6;
+    this.words = new long[wordsPerRow * height];
+  }
+
+  /**
+   * Create a copy of a map
+   *
+   * @param map The map to copy
+   */
+  public BitGridMap(PathFinderMap map) {
+    this(map.getWidth(), map.getHeight());
+    for (int y = 0; y < height; y++) {
+      int row = y * wordsPerRow;
+      for (int x = 0; x < width; x++) {
+        if (map.isTraversable(x, y)) {
+          words[row + (x >>> 6)] |= 1L << x;
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isTraversable(int x, int y) {
+    return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Change if a position is traversable
+   *
+   * @param x           The x position
+   * @param y           The y position
+   * @param traversable true if we can walk at the position
+   */
+  public void setTraversable(int x, int y, boolean traversable) {
+    int index = y * wordsPerRow + (x >>> 6);
+    if (traversable) {
+      words[index] |= 1L << x;
+    } else {
+      words[index] &= ~(1L << x);
+    }
+  }
+
+  /**
+   * Change if all the positions of a rectangle are traversable
+   *
+   * @param x           The x position of the rectangle
+   * @param y           The y position of the rectangle
+   * @param w           The width of the rectangle
+   * @param h           The height of the rectangle
+   * @param traversable true if we can walk in the rectangle
+   */
+  public void fillRect(int x, int y, int w, int h, boolean traversable) {
+    if (w <= 0) {
+      return;
+    }
+    int first = x >>> 6;
+    int last = (x + w - 1) >>> 6;
+    long firstMask = -1L << x;
+    long lastMask = -1L >>> (63 - ((x + w - 1) & 63));
+    for (int row = y * wordsPerRow, end = (y + h) * wordsPerRow; row < end; row += wordsPerRow) {
+      for (int i = first; i <= last; i++) {
+        long mask = -1L;
+        if (i == first) {
+          mask &= firstMask;
+        }
+        if (i == last) {
+          mask &= lastMask;
+        }
+        if (traversable) {
+          words[row + i] |= mask;
+        } else {
+          words[row + i] &= ~mask;
+        }
+      }
+    }
+  }
+
+  /**
+   * Copy a rectangle of positions into the map
+   *
+   * @param x     The x position of the rectangle
+   * @param y     The y position of the rectangle
+   * @param cells The positions to copy, cells[row][column] is true if the position is traversable
+   */
+  public void loadRect(int x, int y, boolean[][] cells) {
+    for (int row = 0; row < cells.length; row++) {
+      int base = (y + row) * wordsPerRow;
+      boolean[] line = cells[row];
+      // Build each word before writing it, instead of writing each bit
+      int column = 0;
+      while (column < line.length) {
+        int cx = x + column;
+        int count = Math.min(64 - (cx & 63), line.length - column);
+        long bits = 0;
+        for (int i = 0; i < count; i++) {
+          if (line[column + i]) {
+            bits |= 1L << i;
+          }
+        }
+        long mask = (count == 64 ? -1L : (1L << count) - 1) << cx;
+        int index = base + (cx >>> 6);
+        words[index] = (words[index] & ~mask) | (bits << cx);
+        column += count;
+      }
+    }
+  }
+
+  /**
+   * Tell if all the positions of a rectangle are traversable
+   *
+   * @param x The x position of the rectangle
+   * @param y The y position of the rectangle
+   * @param w The width of the rectangle
+   * @param h The height of the rectangle
+   * @return true if we can walk everywhere in the rectangle
+   */
+  public boolean isRectTraversable(int x, int y, int w, int h) {
+    for (int row = y; row < y + h; row++) {
+      if (nextBlocked(x, row, x + w) != x + w) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of traversable positions
+   *
+   * @return The number of traversable positions
+   */
+  public long countTraversable() {
+    long count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /**
+   * Find the first traversable position of a row, from a position
+   *
+   * @param x     The x position where to start
+   * @param y     The row
+   * @param limit The x position where to stop, excluded
+   * @return The x position found, or limit if there is none
+   */
+  int nextTraversable(int x, int y, int limit) {
+    return next(x, y, limit, 0L);
+  }
+
+  /**
+   * Find the first position of a row which is not traversable, from a position
+   *
+   * @param x     The x position where to start
+   * @param y     The row
+   * @param limit The x position where to stop, excluded
+   * @return The x position found, or limit if there is none
+   */
+  int nextBlocked(int x, int y, int limit) {
+    return next(x, y, limit, -1L);
+  }
+
+  /**
+   * Scan a row word by word
+   *
+   * @param x      The x position where to start
+   * @param y      The row
+   * @param limit  The x position where to stop, excluded
+   * @param invert 0 to find a set bit, -1 to find a cleared bit
+   * @return The x position of the first bit found, or limit
+   */
+  private int next(int x, int y, int limit, long invert) {
+    if (x >= limit) {
+      return limit;
+    }
+    int row = y * wordsPerRow;
+    int i = x >>> 6;
+    long word = (words[row + i] ^ invert) & (-1L << x);
+    int lastWord = (limit - 1) >>> 6;
+    while (word == 0) {
+      if (++i > lastWord) {
+        return limit;
+      }
+      word = words[row + i] ^ invert;
+    }
+    return Math.min(limit, (i << 6) + Long.numberOfTrailingZeros(word));
+  }
+
+  /**
+   * Find the first position of the run of traversable positions containing a position
+   *
+   * @param x The x position, which must be traversable
+   * @param y The row
+   * @return The x position where the run starts
+   */
+  int runStart(int x, int y) {
+    int row = y * wordsPerRow;
+    int i = x >>> 6;
+    // Keep the bits up to x, and look for the highest cleared one
+    long word = ~words[row + i] & (-1L >>> (63 - (x & 63)));
+    while (word == 0) {
+      if (--i < 0) {
+        return 0;
+      }
+      word = ~words[row + i];
+    }
+    return (i << 6) + 64 - Long.numberOfLeadingZeros(word);
+  }
+
+  /**
+   * Returns the traversable positions around a position, outside of the map counting as blocked.
+   * The bit (dy + 1) * 3 + (dx + 1) is set if the position (x + dx, y + dy) is traversable.
+   *
+   * @param x The x position
+   * @param y The y position
+   * @return The 9 bits mask of the neighborhood
+   */
+  int neighborhood(int x, int y) {
+    return row3(x, y - 1) | row3(x, y) << 3 | row3(x, y + 1) << 6;
+  }
+
+  /**
+   * Returns the bits of the positions x - 1, x and x + 1 of a row
+   */
+  private int row3(int x, int y) {
+    if (y < 0 || y >= height) {
+      return 0;
+    }
+    int row = y * wordsPerRow;
+    int bits = ((int) (words[row + (x >>> 6)] >>> x) & 1) << 1;
+    if (x != 0) {
+      bits |= (int) (words[row + ((x - 1) >>> 6)] >>> (x - 1)) & 1;
+    }
+    if (x + 1 != width) {
+      bits |= ((int) (words[row + ((x + 1) >>> 6)] >>> (x + 1)) & 1) << 2;
+    }
+    return bits;
+  }
+
+  /**
+   * Returns the number of longs used by each row
+   *
+   * @return The number of longs
+   */
+  int getWordsPerRow() {
+    return wordsPerRow;
+  }
+
+  /**
+   * Returns the words holding the bits of the map, without copying them
+   *
+   * @return The words
+   */
+  long[] getWords() {
+    return words;
+  }
+}
@@ -0,0 +1,172 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * An {@link IntOpenList} made of one bucket per estimated cost, for the searches whose heuristic is consistent :
+ * the estimated cost of the polled nodes never decreases, so the first bucket is found by moving forward.
+ * Adding or moving a node costs O(1) instead of O(log n) in a heap.
+ * <p>
+ * The buckets are a ring covering the estimated costs from the first bucket, doubled when a node falls beyond it.
+ * Each bucket is a doubly linked list through the node indexes, polled last in first out : among the nodes of the same
+ * estimated cost, the last added one comes first. It is usually the deepest one, with the highest cost to come,
+ * so on open maps the search goes straight to the end position instead of widening the front.
+ * A node with a lower estimated cost than the first bucket, given by an inconsistent heuristic, moves the first
+ * bucket back, so the order stays correct.
+ */
+final class BucketQueue implements IntOpenList {
+
+  /**
+   * The number of buckets of the ring when it is created, a power of 2
+   */
+  private static final int INITIAL_BUCKETS = 256;
+
+  /**
+   * The last node added in each bucket, -1 if the bucket is empty, the bucket of an estimated cost being at
+   * index cost & mask
+   */
+  private int[] heads = new int[INITIAL_BUCKETS];
+
+  private int mask = INITIAL_BUCKETS - 1;
+
+  /**
+   * The estimated cost of each node, -1 if it is not in the queue
+   */
+  private int[] costs = new int[0];
+
+  /**
+   * The links of the nodes in their bucket, toward the head and toward the tail, -1 at the ends
+   */
+  private int[] previous = new int[0];
+  private int[] next = new int[0];
+
+  /**
+   * The estimated cost of the first bucket which may be not empty, and an upper bound of the highest one
+   */
+  private int first;
+  private int last;
+
+  private int size = 0;
+
+  BucketQueue() {
+    Arrays.fill(heads, -1);
+  }
+
+  @Override
+  public void clear(int capacity) {
+    if (costs.length < capacity) {
+      costs = new int[capacity];
+      previous = new int[capacity];
+      next = new int[capacity];
+      Arrays.fill(costs, -1);
+    } else if (size > 0) {
+      for (int bucket = 0; bucket <= mask; bucket++) {
+        for (int node = heads[bucket]; node >= 0; node = next[node]) {
+          costs[node] = -1;
+        }
+      }
+    }
+    Arrays.fill(heads, -1);
+    size = 0;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void insertOrDecrease(int node, int cost, int secondKey) {
+    if (costs[node] >= 0) {
+      unlink(node);
+    } else {
+      size++;
+    }
+    if (size == 1) {
+      first = cost;
+      last = cost;
+    } else if (cost < first) {
+      first = cost;
+    } else if (cost > last) {
+      last = cost;
+    }
+    if (last - first > mask) {
+      grow(last - first);
+    }
+    costs[node] = cost;
+    link(node, cost & mask);
+  }
+
+  @Override
+  public int poll() {
+    int bucket = first & mask;
+    while (heads[bucket] < 0) {
+      first++;
+      bucket = first & mask;
+    }
+    int node = heads[bucket];
+    unlink(node);
+    costs[node] = -1;
+    size--;
+    return node;
+  }
+
+  private void link(int node, int bucket) {
+    int head = heads[bucket];
+    previous[node] = -1;
+    next[node] = head;
+    if (head >= 0) {
+      previous[head] = node;
+    }
+    heads[bucket] = node;
+  }
+
+  private void unlink(int node) {
+    int before = previous[node];
+    int after = next[node];
+    if (before >= 0) {
+      next[before] = after;
+    } else {
+      heads[costs[node] & mask] = after;
+    }
+    if (after >= 0) {
+      previous[after] = before;
+    }
+  }
+
+  /**
+   * Enlarge the ring so it covers a range of estimated costs, keeping the order of the nodes in each bucket
+   *
+   * @param range The difference between the highest and the lowest estimated costs
+   */
+  private void grow(int range) {
+    int[] oldHeads = heads;
+    int length = oldHeads.length;
+    while (length <= range) {
+      length *= 2;
+    }
+    heads = new int[length];
+    Arrays.fill(heads, -1);
+    mask = length - 1;
+    for (int head : oldHeads) {
+      if (head < 0) {
+        continue;
+      }
+      // Go to the tail, then add the nodes back from it so the last added one stays at the head
+      int node = head;
+      while (next[node] >= 0) {
+        node = next[node];
+      }
+      while (node >= 0) {
+        int before = previous[node];
+        link(node, costs[node] & mask);
+        node = before;
+      }
+    }
+  }
+}
@@ -0,0 +1,554 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Labels the connected areas of a {@link PathFinderMap}, so that two positions can be tested
+ * as reachable from each other in constant time, instead of doing a flood fill for each path.
+ * The map is labelled once, in a single pass, using a union-find on the labels.
+ * The areas follow the movements allowed by the {@link NeighborsEnumerator}, which are supposed to be reversible.
+ * Give it to {@link AStarParams#setConnectedComponents} to use it in {@link AStar#findPath}.
+ * When the map changes, call {@link #setTraversable} for each modified position : the labels are
+ * updated locally instead of labelling the whole map again.
+ */
+public final class ConnectedComponents {
+
+  /**
+   * The label of the positions which are not traversable
+   */
+  public static final int NO_LABEL = -1;
+
+  private final PathFinderMap map;
+
+  private final NeighborsEnumerator neighborsEnumerator;
+
+  private final int width;
+
+  private final int height;
+
+  /**
+   * The label of each cell (y * width + x), or {@link #NO_LABEL}
+   */
+  private final int[] cellLabels;
+
+  /**
+   * The union-find parent of each label, a label is the root of its area if it is its own parent
+   */
+  private int[] labelParents = new int[16];
+
+  /**
+   * The number of labels created
+   */
+  private int labelCount = 0;
+
+  /**
+   * The number of areas
+   */
+  private int componentCount = 0;
+
+  /**
+   * Buffers used to enumerate the neighbors of a cell
+   */
+  private final int[] neighbors;
+  private final double[] neighborCosts;
+
+  /**
+   * The state of the searches done when a position becomes blocked, allocated when first needed.
+   * Each neighbor of the blocked position starts a breadth-first search, they are run in turn
+   * and merged when they meet, until at most one of them has cells left to visit.
+   */
+  private int[] searchStamps;
+  private int[] searchOwners;
+  private int searchStamp = 0;
+  private int[][] searchQueues;
+  private int[] searchHeads;
+  private int[] searchTails;
+  private int[] searchGroups;
+
+  /**
+   * Label the areas of a map
+   *
+   * @param map                 The map to label
+   * @param neighborsEnumerator The movements allowed
+   * @throws IllegalArgumentException If the map has more than Integer.MAX_VALUE cells
+   */
+  public ConnectedComponents(PathFinderMap map, NeighborsEnumerator neighborsEnumerator) {
+    this.map = map;
+    this.neighborsEnumerator = neighborsEnumerator;
+    this.width = map.getWidth();
+    this.height = map.getHeight();
+    this.cellLabels = new int[SearchContext.cellCount(map)];
+    this.neighbors = new int[Math.max(4, neighborsEnumerator.getMaxNeighbors())];
+    this.neighborCosts = new double[neighbors.length];
+
+    if (map instanceof BitGridMap && isOrthoConnected(neighborsEnumerator)) {
+      labelRuns((BitGridMap) map);
+    } else if (isOrthoConnected(neighborsEnumerator)) {
+      labelOrtho();
+    } else {
+      labelWithEnumerator();
+    }
+    flatten();
+  }
+
+  /**
+   * Tell if the areas are only made by orthogonal movements.
+   * This is the case with {@link NeighborsEnumerator#ORTHO_DIAG_NEIGHBORS} too, because a diagonal
+   * movement is only allowed when both orthogonal positions are traversable.
+   *
+   * @param neighborsEnumerator The movements allowed
+   * @return true if the orthogonal neighbors are enough to label the areas
+   */
+  static boolean isOrthoConnected(NeighborsEnumerator neighborsEnumerator) {
+    return neighborsEnumerator == NeighborsEnumerator.ORTHO_NEIGHBORS
+            || neighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS;
+  }
+
+  /**
+   * Label the map by looking at the left and top neighbors of each cell
+   */
+  private void labelOrtho() {
+    for (int y = 0; y < height; y++) {
+      int row = y * width;
+      for (int x = 0; x < width; x++) {
+        int index = row + x;
+        if (!map.isTraversable(x, y)) {
+          cellLabels[index] = NO_LABEL;
+          continue;
+        }
+        int left = x != 0 ? cellLabels[index - 1] : NO_LABEL;
+        int top = y != 0 ? cellLabels[index - width] : NO_LABEL;
+        if (left != NO_LABEL) {
+          cellLabels[index] = left;
+          if (top != NO_LABEL && top != left) {
+            union(left, top);
+          }
+        } else if (top != NO_LABEL) {
+          cellLabels[index] = top;
+        } else {
+          cellLabels[index] = newLabel();
+        }
+      }
+    }
+  }
+
+  /**
+   * Label a bit-packed map by runs of traversable positions, found by scanning the words of each row.
+   * Each run gets the labels of the runs it touches in the previous row.
+   *
+   * @param bits The map
+   */
+  private void labelRuns(BitGridMap bits) {
+    Arrays.fill(cellLabels, NO_LABEL);
+    for (int y = 0; y < height; y++) {
+      int row = y * width;
+      int x = bits.nextTraversable(0, y, width);
+      while (x < width) {
+        int end = bits.nextBlocked(x, y, width);
+        int label = NO_LABEL;
+        if (y != 0) {
+          int px = bits.nextTraversable(x, y - 1, end);
+          while (px < end) {
+            int above = cellLabels[row - width + px];
+            if (label == NO_LABEL) {
+              label = above;
+            } else {
+              union(label, above);
+            }
+            px = bits.nextTraversable(bits.nextBlocked(px, y - 1, end), y - 1, end);
+          }
+        }
+        if (label == NO_LABEL) {
+          label = newLabel();
+        }
+        Arrays.fill(cellLabels, row + x, row + end, label);
+        x = bits.nextTraversable(end, y, width);
+      }
+    }
+  }
+
+  /**
+   * Label the map by looking at the neighbors given by the enumerator which are already labelled
+   */
+  private void labelWithEnumerator() {
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int index = y * width + x;
+        cellLabels[index] = NO_LABEL;
+        if (!map.isTraversable(x, y)) {
+          continue;
+        }
+        int count = neighborsEnumerator.enumerateNeighbors(map, x, y, neighbors, neighborCosts);
+        for (int i = 0; i < count; i++) {
+          int neighbor = neighbors[i];
+          if (neighbor >= index || cellLabels[neighbor] == NO_LABEL) {
+            continue;
+          }
+          if (cellLabels[index] == NO_LABEL) {
+            cellLabels[index] = cellLabels[neighbor];
+          } else {
+            union(cellLabels[index], cellLabels[neighbor]);
+          }
+        }
+        if (cellLabels[index] == NO_LABEL) {
+          cellLabels[index] = newLabel();
+        }
+      }
+    }
+  }
+
+  /**
+   * Replace the label of each cell by the root of its area, so that a query does not need to go up the union-find
+   */
+  private void flatten() {
+    int[] roots = new int[labelCount];
+    Arrays.fill(roots, NO_LABEL);
+    int rootCount = 0;
+    for (int i = 0; i < cellLabels.length; i++) {
+      if (cellLabels[i] != NO_LABEL) {
+        int root = find(cellLabels[i]);
+        if (roots[root] == NO_LABEL) {
+          roots[root] = rootCount++;
+        }
+        cellLabels[i] = roots[root];
+      }
+    }
+    labelCount = rootCount;
+    componentCount = rootCount;
+    labelParents = new int[Math.max(16, rootCount)];
+    for (int label = 0; label < rootCount; label++) {
+      labelParents[label] = label;
+    }
+  }
+
+  private int newLabel() {
+    if (labelCount == labelParents.length) {
+      labelParents = Arrays.copyOf(labelParents, labelCount * 2);
+    }
+    labelParents[labelCount] = labelCount;
+    return labelCount++;
+  }
+
+  /**
+   * Find the root of a label, compressing the path on the way
+   *
+   * @param label The label
+   * @return The root label of its area
+   */
+  private int find(int label) {
+    int root = label;
+    while (labelParents[root] != root) {
+      root = labelParents[root];
+    }
+    while (labelParents[label] != root) {
+      int next = labelParents[label];
+      labelParents[label] = root;
+      label = next;
+    }
+    return root;
+  }
+
+  /**
+   * Merge the areas of two labels
+   *
+   * @param label1 The first label
+   * @param label2 The second label
+   */
+  private void union(int label1, int label2) {
+    int root1 = find(label1);
+    int root2 = find(label2);
+    if (root1 < root2) {
+      labelParents[root2] = root1;
+      componentCount--;
+    } else if (root2 < root1) {
+      labelParents[root1] = root2;
+      componentCount--;
+    }
+  }
+
+  /**
+   * Notify that a position of the map became traversable or not, the map must already be modified.
+   * When a position becomes traversable, the areas around it are merged.
+   * When a position becomes blocked, a search is done from each of its neighbors to detect if
+   * the area is split. It stops as soon as the searches meet, or when all the parts but one have been
+   * fully visited, so its cost depends on the smallest parts and not on the size of the area.
+   *
+   * @param x           The x position
+   * @param y           The y position
+   * @param traversable The new state of the position
+   */
+  public void setTraversable(int x, int y, boolean traversable) {
+    int index = y * width + x;
+    if (traversable == (cellLabels[index] != NO_LABEL)) {
+      return;
+    }
+    if (traversable) {
+      open(index);
+    } else {
+      close(index);
+    }
+    if (labelCount > cellLabels.length) {
+      flatten();
+    }
+  }
+
+  /**
+   * Give a label to a position which became traversable, merging the areas around it
+   *
+   * @param index The cell index of the position
+   */
+  private void open(int index) {
+    int label = NO_LABEL;
+    int count = enumerateLabelledNeighbors(index);
+    for (int i = 0; i < count; i++) {
+      int neighborLabel = cellLabels[neighbors[i]];
+      if (label == NO_LABEL) {
+        label = neighborLabel;
+      } else {
+        union(label, neighborLabel);
+      }
+    }
+    if (label == NO_LABEL) {
+      label = newLabel();
+      componentCount++;
+    }
+    cellLabels[index] = label;
+  }
+
+  /**
+   * Remove the label of a position which became blocked, and give new labels to the parts of its area
+   * which are not connected anymore
+   *
+   * @param index The cell index of the position
+   */
+  private void close(int index) {
+    cellLabels[index] = NO_LABEL;
+    int seedCount = enumerateLabelledNeighbors(index);
+    if (seedCount == 0) {
+      componentCount--;
+      return;
+    }
+    if (seedCount == 1) {
+      return;
+    }
+
+    if (searchStamps == null) {
+      searchStamps = new int[cellLabels.length];
+      searchOwners = new int[cellLabels.length];
+      searchQueues = new int[neighbors.length][16];
+      searchHeads = new int[neighbors.length];
+      searchTails = new int[neighbors.length];
+      searchGroups = new int[neighbors.length];
+    }
+    if (searchStamp == Integer.MAX_VALUE) {
+      Arrays.fill(searchStamps, 0);
+      searchStamp = 0;
+    }
+    int stamp = ++searchStamp;
+
+    int[] seeds = Arrays.copyOf(neighbors, seedCount);
+    for (int g = 0; g < seedCount; g++) {
+      searchGroups[g] = g;
+      searchHeads[g] = 0;
+      searchTails[g] = 0;
+    }
+    for (int g = 0; g < seedCount; g++) {
+      int seed = seeds[g];
+      if (searchStamps[seed] == stamp) {
+        unionGroups(g, searchOwners[seed]);
+      } else {
+        visit(g, seed, stamp);
+      }
+    }
+
+    // Run the searches in turn, until they all met or at most one part still has cells to visit
+    while (countOpenGroups(seedCount) > 1) {
+      for (int g = 0; g < seedCount; g++) {
+        if (searchHeads[g] == searchTails[g]) {
+          continue;
+        }
+        int cell = searchQueues[g][searchHeads[g]++];
+        int count = enumerateLabelledNeighbors(cell);
+        for (int i = 0; i < count; i++) {
+          int neighbor = neighbors[i];
+          if (searchStamps[neighbor] != stamp) {
+            visit(g, neighbor, stamp);
+          } else {
+            unionGroups(g, searchOwners[neighbor]);
+          }
+        }
+      }
+    }
+
+    // The fully visited parts which did not meet another one are new areas,
+    // the part still being visited keeps the label, or the first one if they were all visited
+    boolean oldLabelKept = false;
+    for (int root = 0; root < seedCount; root++) {
+      if (findGroup(root) == root && !isGroupExhausted(root, seedCount)) {
+        oldLabelKept = true;
+      }
+    }
+    for (int root = 0; root < seedCount; root++) {
+      if (findGroup(root) != root || !isGroupExhausted(root, seedCount)) {
+        continue;
+      }
+      if (!oldLabelKept) {
+        oldLabelKept = true;
+        continue;
+      }
+      int label = newLabel();
+      componentCount++;
+      for (int g = 0; g < seedCount; g++) {
+        if (findGroup(g) == root) {
+          int[] queue = searchQueues[g];
+          for (int i = 0; i < searchTails[g]; i++) {
+            cellLabels[queue[i]] = label;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Mark a cell as visited by a search, and add it to its queue
+   */
+  private void visit(int group, int cell, int stamp) {
+    searchStamps[cell] = stamp;
+    searchOwners[cell] = group;
+    if (searchTails[group] == searchQueues[group].length) {
+      searchQueues[group] = Arrays.copyOf(searchQueues[group], searchTails[group] * 2);
+    }
+    searchQueues[group][searchTails[group]++] = cell;
+  }
+
+  private int findGroup(int group) {
+    while (searchGroups[group] != group) {
+      group = searchGroups[group];
+    }
+    return group;
+  }
+
+  private void unionGroups(int group1, int group2) {
+    int root1 = findGroup(group1);
+    int root2 = findGroup(group2);
+    if (root1 < root2) {
+      searchGroups[root2] = root1;
+    } else if (root2 < root1) {
+      searchGroups[root1] = root2;
+    }
+  }
+
+  private boolean isGroupExhausted(int root, int groupCount) {
+    for (int g = 0; g < groupCount; g++) {
+      if (searchHeads[g] != searchTails[g] && findGroup(g) == root) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of distinct parts which still have cells to visit, or 0 if all the parts met
+   */
+  private int countOpenGroups(int groupCount) {
+    int roots = 0;
+    int openRoots = 0;
+    for (int g = 0; g < groupCount; g++) {
+      if (findGroup(g) == g) {
+        roots++;
+        if (!isGroupExhausted(g, groupCount)) {
+          openRoots++;
+        }
+      }
+    }
+    return roots == 1 ? 0 : openRoots;
+  }
+
+  /**
+   * Write in {@link #neighbors} the neighbors of a cell which have a label
+   *
+   * @param index The cell index
+   * @return The number of neighbors written
+   */
+  private int enumerateLabelledNeighbors(int index) {
+    int x = index % width;
+    int y = index / width;
+    int count = 0;
+    if (isOrthoConnected(neighborsEnumerator)) {
+      if (x != 0 && cellLabels[index - 1] != NO_LABEL) {
+        neighbors[count++] = index - 1;
+      }
+      if (x != width - 1 && cellLabels[index + 1] != NO_LABEL) {
+        neighbors[count++] = index + 1;
+      }
+      if (y != 0 && cellLabels[index - width] != NO_LABEL) {
+        neighbors[count++] = index - width;
+      }
+      if (y != height - 1 && cellLabels[index + width] != NO_LABEL) {
+        neighbors[count++] = index + width;
+      }
+      return count;
+    }
+    int total = neighborsEnumerator.enumerateNeighbors(map, x, y, neighbors, neighborCosts);
+    for (int i = 0; i < total; i++) {
+      if (cellLabels[neighbors[i]] != NO_LABEL) {
+        neighbors[count++] = neighbors[i];
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the label of the area of a position
+   * The labels may change when {@link #setTraversable} is called
+   *
+   * @param x The x position
+   * @param y The y position
+   * @return The label, {@link #NO_LABEL} if the position is not traversable
+   */
+  public int getLabel(int x, int y) {
+    int label = cellLabels[y * width + x];
+    return label == NO_LABEL ? NO_LABEL : find(label);
+  }
+
+  /**
+   * Tell if two positions belong to the same area
+   *
+   * @param pos1 The first position
+   * @param pos2 The second position
+   * @return true if a path exists between the two positions
+   */
+  public boolean areConnected(PathNodePosition pos1, PathNodePosition pos2) {
+    int label = getLabel(pos1.x, pos1.y);
+    return label != NO_LABEL && label == getLabel(pos2.x, pos2.y);
+  }
+
+  /**
+   * Returns the number of areas of the map
+   *
+   * @return The number of areas
+   */
+  public int getComponentCount() {
+    return componentCount;
+  }
+
+  /**
+   * Tell if this index can answer for the given parameters
+   *
+   * @param params The parameters used to compute a path
+   * @return true if the map is the same and the movements give the same areas
+   */
+  boolean matches(AStarParams params) {
+    NeighborsEnumerator other = params.getNeighborsEnumerator();
+    return params.getMap() == map
+            && (other == neighborsEnumerator || (isOrthoConnected(other) && isOrthoConnected(neighborsEnumerator)));
+  }
+
+  public PathFinderMap getMap() {
+    return map;
+  }
+
+  public NeighborsEnumerator getNeighborsEnumerator() {
+    return neighborsEnumerator;
+  }
+}
@@ -0,0 +1,364 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+
+/**
+ * Incremental replanning for a unit moving to a fixed goal on a map which changes, with the
+ * @see <a href="http://idm-lab.org/bib/abstracts/papers/aaai02b.pdf">D* Lite</a> algorithm.
+ * The search goes backward from the goal, and keeps the cost to reach the goal from each position it
+ * computed (g) along with the best cost its neighbors give (rhs). When the map changes or the unit moves,
+ * only the positions whose cost is no longer consistent are computed again, instead of searching from scratch.
+ * The movements allowed by the neighbors enumerator must be symmetric, as with the built-in ones, and the heuristic
+ * must never overestimate the cost of a move, for example {@link DistanceCalculator#MANHATTAN_DISTANCE} is only
+ * correct with {@link NeighborsEnumerator#ORTHO_NEIGHBORS}.
+ */
+public final class DStarLite {
+
+  /**
+   * The factor applied to the heuristic. The diagonal cost of the enumerators is rounded below the square root
+   * of 2, the euclidean distance of a diagonal move would be slightly above its cost : the heuristic would not
+   * be consistent anymore, and the search could stop before the positions of the shortest path are processed.
+   */
+  private static final double HEURISTIC_SHRINK = 1 - 1e-9;
+
+  private final PathFinderMap map;
+
+  private final WeightedPathFinderMap weightedMap;
+
+  private final NeighborsEnumerator neighborsEnumerator;
+
+  private final DistanceCalculator heuristic;
+
+  private final int width;
+
+  private final int height;
+
+  private final int goal;
+
+  /**
+   * The current position of the unit, and the one when the heuristic offset was last updated
+   */
+  private int start;
+  private int lastStart;
+
+  /**
+   * The sum of the heuristic between the successive start positions, added to the keys so the keys
+   * already in the open list stay lower bounds after the unit moved
+   */
+  private double keyModifier;
+
+  /**
+   * The scale of the heuristic, the lowest cost of a weighted map
+   */
+  private double heuristicScale;
+
+  /**
+   * The cost to reach the goal from each position, and the one its neighbors give
+   */
+  private final double[] g;
+  private final double[] rhs;
+
+  /**
+   * The positions whose g and rhs differ
+   */
+  private final IndexedPairHeap openList = new IndexedPairHeap();
+
+  private final int[] neighbors;
+  private final double[] neighborCosts;
+  private final int[] reverseNeighbors;
+  private final double[] reverseCosts;
+
+  /**
+   * The number of positions processed by the last computation
+   */
+  private int expandedNodes;
+
+  /**
+   * Prepare the replanning of a unit, the first path is computed by {@link #getPath}
+   *
+   * @param map                 The map which determines where we are able to travel
+   * @param neighborsEnumerator The movements allowed
+   * @param heuristic           The function used to estimate the distance between two positions
+   * @param start               The position of the unit
+   * @param goal                The position to reach
+   * @throws IllegalArgumentException If the map has more than Integer.MAX_VALUE cells
+   */
+  public DStarLite(PathFinderMap map, NeighborsEnumerator neighborsEnumerator, DistanceCalculator heuristic,
+                   PathNodePosition start, PathNodePosition goal) {
+    this.map = map;
+    this.weightedMap = map instanceof WeightedPathFinderMap ? (WeightedPathFinderMap) map : null;
+    this.neighborsEnumerator = neighborsEnumerator;
+    this.heuristic = heuristic;
+    this.width = map.getWidth();
+    this.height = map.getHeight();
+    int size = SearchContext.cellCount(map);
+    this.goal = goal.y * width + goal.x;
+    this.start = start.y * width + start.x;
+    this.g = new double[size];
+    this.rhs = new double[size];
+    int maxNeighbors = neighborsEnumerator.getMaxNeighbors();
+    this.neighbors = new int[maxNeighbors];
+    this.neighborCosts = new double[maxNeighbors];
+    this.reverseNeighbors = new int[maxNeighbors];
+    this.reverseCosts = new double[maxNeighbors];
+    reset();
+  }
+
+  /**
+   * Forget everything computed, and start again from the goal
+   */
+  private void reset() {
+    heuristicScale = HEURISTIC_SHRINK * (weightedMap != null ? weightedMap.getMinCost() : 1);
+    lastStart = start;
+    keyModifier = 0;
+    Arrays.fill(g, Double.POSITIVE_INFINITY);
+    Arrays.fill(rhs, Double.POSITIVE_INFINITY);
+    openList.clear(g.length);
+    if (map.isTraversable(goal % width, goal / width)) {
+      rhs[goal] = 0;
+      openList.insertOrUpdate(goal, h(start, goal), 0);
+    }
+  }
+
+  /**
+   * Tell that the unit moved
+   *
+   * @param position The new position of the unit
+   */
+  public void moveTo(PathNodePosition position) {
+    start = position.y * width + position.x;
+  }
+
+  /**
+   * Tell that positions of the map have changed
+   *
+   * @param x The x position of the rectangle which changed
+   * @param y The y position of the rectangle which changed
+   * @param w The width of the rectangle
+   * @param h The height of the rectangle
+   */
+  public void invalidate(int x, int y, int w, int h) {
+    if (weightedMap != null && HEURISTIC_SHRINK * weightedMap.getMinCost() < heuristicScale) {
+      // The heuristic would not be admissible anymore
+      reset();
+      return;
+    }
+    updateStart();
+    // The moves which may have changed all start or end around the rectangle
+    int fromX = Math.max(0, x - 1);
+    int fromY = Math.max(0, y - 1);
+    int toX = Math.min(width, x + w + 1);
+    int toY = Math.min(height, y + h + 1);
+    for (int cy = fromY; cy < toY; cy++) {
+      for (int cx = fromX; cx < toX; cx++) {
+        int u = cy * width + cx;
+        rhs[u] = computeRhs(u);
+        updateVertex(u);
+      }
+    }
+  }
+
+  /**
+   * Tell that positions of the map have changed
+   *
+   * @param positions The positions which changed
+   */
+  public void invalidate(Collection<PathNodePosition> positions) {
+    for (PathNodePosition pos : positions) {
+      invalidate(pos.x, pos.y, 1, 1);
+    }
+  }
+
+  /**
+   * Tell that the unit moved and that positions of the map have changed, then returns the new path
+   *
+   * @param position  The new position of the unit
+   * @param positions The positions which changed
+   * @return The positions of the path without the start position, empty if the goal is unreachable
+   */
+  public LinkedList<PathNodePosition> replan(PathNodePosition position, Collection<PathNodePosition> positions) {
+    moveTo(position);
+    invalidate(positions);
+    return getPath();
+  }
+
+  /**
+   * Returns the shortest path from the position of the unit to the goal, computing again what the changes require
+   *
+   * @return The positions of the path without the start position, empty if the goal is unreachable
+   */
+  public LinkedList<PathNodePosition> getPath() {
+    updateStart();
+    computeShortestPath();
+    LinkedList<PathNodePosition> path = new LinkedList<>();
+    if (Double.isInfinite(rhs[start]) || !map.isTraversable(start % width, start / width)) {
+      return path;
+    }
+    int node = start;
+    for (int length = 0; node != goal && length < g.length; length++) {
+      int count = neighborsEnumerator.enumerateNeighbors(map, node % width, node / width, neighbors, neighborCosts);
+      int best = -1;
+      double bestCost = Double.POSITIVE_INFINITY;
+      for (int i = 0; i < count; i++) {
+        double cost = neighborCosts[i] + g[neighbors[i]];
+        if (cost < bestCost) {
+          bestCost = cost;
+          best = neighbors[i];
+        }
+      }
+      if (best < 0) {
+        return new LinkedList<>();
+      }
+      node = best;
+      path.addLast(new PathNodePosition(node % width, node / width));
+    }
+    return path;
+  }
+
+  /**
+   * Returns the cost to reach the goal from the position of the unit, as known by the last computation
+   *
+   * @return The cost, infinite if the goal is unreachable
+   */
+  public double getCost() {
+    return rhs[start];
+  }
+
+  /**
+   * Returns the number of positions processed by the last computation
+   *
+   * @return The number of positions
+   */
+  int getExpandedNodes() {
+    return expandedNodes;
+  }
+
+  /**
+   * Add the heuristic between the previous and the current start positions to the keys
+   */
+  private void updateStart() {
+    if (start != lastStart) {
+      keyModifier += h(lastStart, start);
+      lastStart = start;
+    }
+  }
+
+  /**
+   * Process the inconsistent positions until the cost of the start position is known
+   */
+  private void computeShortestPath() {
+    expandedNodes = 0;
+    while (!openList.isEmpty()) {
+      double startCost = Math.min(g[start], rhs[start]);
+      if (!IndexedPairHeap.less(openList.peekFirstKey(), openList.peekSecondKey(), startCost + keyModifier, startCost)
+              && rhs[start] <= g[start]) {
+        break;
+      }
+      int u = openList.peek();
+      double oldFirstKey = openList.peekFirstKey();
+      double oldSecondKey = openList.peekSecondKey();
+      double cost = Math.min(g[u], rhs[u]);
+      double firstKey = cost + h(start, u) + keyModifier;
+      expandedNodes++;
+      if (IndexedPairHeap.less(oldFirstKey, oldSecondKey, firstKey, cost)) {
+        openList.insertOrUpdate(u, firstKey, cost);
+      } else if (g[u] > rhs[u]) {
+        // The position got cheaper, its neighbors may get cheaper through it
+        g[u] = rhs[u];
+        openList.remove(u);
+        int count = neighborsEnumerator.enumerateNeighbors(map, u % width, u / width, reverseNeighbors, reverseCosts);
+        for (int i = 0; i < count; i++) {
+          int s = reverseNeighbors[i];
+          if (s != goal) {
+            double through = moveCost(s, u) + g[u];
+            if (through < rhs[s]) {
+              rhs[s] = through;
+              updateVertex(s);
+            }
+          }
+        }
+      } else {
+        // The position got more expensive, the neighbors which went through it must look again
+        double oldCost = g[u];
+        g[u] = Double.POSITIVE_INFINITY;
+        int count = neighborsEnumerator.enumerateNeighbors(map, u % width, u / width, reverseNeighbors, reverseCosts);
+        for (int i = 0; i < count; i++) {
+          int s = reverseNeighbors[i];
+          if (s != goal && rhs[s] == moveCost(s, u) + oldCost) {
+            rhs[s] = computeRhs(s);
+          }
+          updateVertex(s);
+        }
+        if (u != goal) {
+          rhs[u] = computeRhs(u);
+        }
+        updateVertex(u);
+      }
+    }
+  }
+
+  /**
+   * Put a position in the open list if its g and rhs differ, remove it otherwise
+   */
+  private void updateVertex(int u) {
+    if (g[u] != rhs[u]) {
+      double cost = Math.min(g[u], rhs[u]);
+      openList.insertOrUpdate(u, cost + h(start, u) + keyModifier, cost);
+    } else {
+      openList.remove(u);
+    }
+  }
+
+  /**
+   * Returns the best cost to reach the goal from a position, given by its neighbors
+   */
+  private double computeRhs(int u) {
+    int x = u % width;
+    int y = u / width;
+    if (!map.isTraversable(x, y)) {
+      return Double.POSITIVE_INFINITY;
+    }
+    if (u == goal) {
+      return 0;
+    }
+    double best = Double.POSITIVE_INFINITY;
+    int count = neighborsEnumerator.enumerateNeighbors(map, x, y, neighbors, neighborCosts);
+    for (int i = 0; i < count; i++) {
+      best = Math.min(best, neighborCosts[i] + g[neighbors[i]]);
+    }
+    return best;
+  }
+
+  /**
+   * Returns the cost of moving from a position to one of its neighbors
+   */
+  private double moveCost(int from, int to) {
+    int fromX = from % width;
+    int fromY = from / width;
+    int toX = to % width;
+    int toY = to / width;
+    if (neighborsEnumerator == NeighborsEnumerator.ORTHO_NEIGHBORS || neighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS) {
+      if (!map.isTraversable(toX, toY)) {
+        return Double.POSITIVE_INFINITY;
+      }
+      double step = fromX != toX && fromY != toY ? NeighborsEnumerator.SQRT_2 : 1;
+      return weightedMap != null ? step * weightedMap.getCost(toX, toY) : step;
+    }
+    int count = neighborsEnumerator.enumerateNeighbors(map, fromX, fromY, neighbors, neighborCosts);
+    for (int i = 0; i < count; i++) {
+      if (neighbors[i] == to) {
+        return neighborCosts[i];
+      }
+    }
+    return Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Returns the scaled heuristic between two positions
+   */
+  private double h(int from, int to) {
+    return heuristicScale * heuristic.calculate(from % width, from / width, to % width, to / width);
+  }
+}
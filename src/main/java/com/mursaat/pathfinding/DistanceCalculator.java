@@ -58,7 +58,24 @@ public abstract class DistanceCalculator {
   public static final DistanceCalculator EUCLIDEAN_DISTANCE = new DistanceCalculator() {
     @Override
     public double calculate(int x1, int y1, int x2, int y2) {
-      return Math.sqrt(Math.pow(x2 - x1, 2) + Math.pow(y2 - y1, 2));
+      int dx = x2 - x1;
+      int dy = y2 - y1;
+      return Math.sqrt((double) dx * dx + (double) dy * dy);
+    }
+  };
+
+  /**
+   * Allows to calculate the @see <a href="https://en.wikipedia.org/wiki/Octile_distance">Octile distance</a>,
+   * the length of a path of {@link NeighborsEnumerator#ORTHO_DIAG_NEIGHBORS} without walls.
+   * It uses the same square root of 2 as the diagonal moves, so it never overestimates them, and it is
+   * larger than the euclidean distance : A* expands less nodes with it.
+   */
+  public static final DistanceCalculator OCTILE_DISTANCE = new DistanceCalculator() {
+    @Override
+    public double calculate(int x1, int y1, int x2, int y2) {
+      int dx = Math.abs(x2 - x1);
+      int dy = Math.abs(y2 - y1);
+      return Math.max(dx, dy) + (NeighborsEnumerator.SQRT_2 - 1) * Math.min(dx, dy);
     }
   };
 }
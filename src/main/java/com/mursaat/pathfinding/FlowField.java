@@ -0,0 +1,303 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+
+/**
+ * The cost to reach the nearest of a set of goals from every position of a map, computed once with a
+ * Dijkstra search from the goals. Many units going to the same place can then follow the field :
+ * the next step of a position is its neighbor with the lowest cost, so a path costs its length to get.
+ * The movements allowed by the neighbors enumerator must be symmetric, as with the built-in ones.
+ * <p>
+ * When the map changes, {@link #invalidate} repairs the field around the changed positions.
+ * A field must not be read while it is repaired.
+ */
+public final class FlowField {
+
+  private final PathFinderMap map;
+
+  private final WeightedPathFinderMap weightedMap;
+
+  private final NeighborsEnumerator neighborsEnumerator;
+
+  private final int width;
+
+  private final int height;
+
+  /**
+   * The cell indexes of the goals
+   */
+  private final int[] goals;
+
+  /**
+   * The cost to reach the nearest goal from each position, infinite if no goal is reachable
+   */
+  private final double[] distances;
+
+  /**
+   * The positions whose cost must be computed again during a repair
+   */
+  private final int[] affected;
+  private int affectedGeneration;
+
+  private final IndexedBinaryHeap openList = new IndexedBinaryHeap();
+
+  private int[] neighbors;
+  private double[] neighborCosts;
+  private int[] reverseNeighbors;
+  private double[] reverseCosts;
+
+  /**
+   * Compute the field of a set of goals
+   *
+   * @param map                 The map which determines where we are able to travel
+   * @param neighborsEnumerator The movements allowed
+   * @param goals               The positions to reach
+   * @throws IllegalArgumentException If the map has more than Integer.MAX_VALUE cells
+   */
+  public FlowField(PathFinderMap map, NeighborsEnumerator neighborsEnumerator, Collection<PathNodePosition> goals) {
+    this.map = map;
+    this.weightedMap = map instanceof WeightedPathFinderMap ? (WeightedPathFinderMap) map : null;
+    this.neighborsEnumerator = neighborsEnumerator;
+    this.width = map.getWidth();
+    this.height = map.getHeight();
+    int size = SearchContext.cellCount(map);
+    this.goals = new int[goals.size()];
+    int i = 0;
+    for (PathNodePosition goal : goals) {
+      this.goals[i++] = goal.y * width + goal.x;
+    }
+    this.distances = new double[size];
+    this.affected = new int[size];
+    int maxNeighbors = neighborsEnumerator.getMaxNeighbors();
+    this.neighbors = new int[maxNeighbors];
+    this.neighborCosts = new double[maxNeighbors];
+    this.reverseNeighbors = new int[maxNeighbors];
+    this.reverseCosts = new double[maxNeighbors];
+
+    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    openList.clear(distances.length);
+    for (int goal : this.goals) {
+      if (map.isTraversable(goal % width, goal / width)) {
+        distances[goal] = 0;
+        openList.insertOrDecrease(goal, 0);
+      }
+    }
+    propagate();
+  }
+
+  /**
+   * Compute the field of one goal
+   *
+   * @param map                 The map which determines where we are able to travel
+   * @param neighborsEnumerator The movements allowed
+   * @param goal                The position to reach
+   */
+  public FlowField(PathFinderMap map, NeighborsEnumerator neighborsEnumerator, PathNodePosition goal) {
+    this(map, neighborsEnumerator, Arrays.asList(goal));
+  }
+
+  /**
+   * Returns the cost to reach the nearest goal from a position
+   *
+   * @param x The x position
+   * @param y The y position
+   * @return The cost, infinite if no goal is reachable
+   */
+  public double getDistance(int x, int y) {
+    return distances[y * width + x];
+  }
+
+  /**
+   * Tell if a goal is reachable from a position
+   *
+   * @param x The x position
+   * @param y The y position
+   * @return true if a goal is reachable
+   */
+  public boolean isReachable(int x, int y) {
+    return !Double.isInfinite(distances[y * width + x]);
+  }
+
+  /**
+   * Returns the position to move to from a position, to reach the nearest goal
+   *
+   * @param x The x position
+   * @param y The y position
+   * @return The next position, or null if the position is a goal or if no goal is reachable
+   */
+  public PathNodePosition getNextStep(int x, int y) {
+    int next = nextStep(y * width + x);
+    return next < 0 ? null : new PathNodePosition(next % width, next / width);
+  }
+
+  /**
+   * Returns the path to the nearest goal, like {@link AStar#findPath} would
+   *
+   * @param startPos The start position
+   * @return The positions of the path without the start position, empty if no goal is reachable
+   */
+  public LinkedList<PathNodePosition> getPath(PathNodePosition startPos) {
+    LinkedList<PathNodePosition> path = new LinkedList<>();
+    for (int node = nextStep(startPos.y * width + startPos.x); node >= 0; node = nextStep(node)) {
+      path.addLast(new PathNodePosition(node % width, node / width));
+    }
+    return path;
+  }
+
+  /**
+   * Tell that positions of the map have changed, and repair the field.
+   * Only the positions whose cost went through the changed ones are computed again, before the lower
+   * costs are propagated from them.
+   *
+   * @param x The x position of the rectangle which changed
+   * @param y The y position of the rectangle which changed
+   * @param w The width of the rectangle
+   * @param h The height of the rectangle
+   */
+  public void invalidate(int x, int y, int w, int h) {
+    if (++affectedGeneration == Integer.MAX_VALUE) {
+      Arrays.fill(affected, 0);
+      affectedGeneration = 1;
+    }
+    // The moves which may have changed all start or end around the rectangle
+    int fromX = Math.max(0, x - 1);
+    int fromY = Math.max(0, y - 1);
+    int toX = Math.min(width, x + w + 1);
+    int toY = Math.min(height, y + h + 1);
+    int[] stack = new int[16];
+    int stackSize = 0;
+    for (int cy = fromY; cy < toY; cy++) {
+      for (int cx = fromX; cx < toX; cx++) {
+        int cell = cy * width + cx;
+        affected[cell] = affectedGeneration;
+        if (stackSize == stack.length) {
+          stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = cell;
+      }
+    }
+
+    // The positions whose cost was reached through an affected position are affected too
+    int count = stackSize;
+    int[] cells = stack.clone();
+    while (stackSize > 0) {
+      int v = stack[--stackSize];
+      double vDistance = distances[v];
+      if (Double.isInfinite(vDistance)) {
+        continue;
+      }
+      int neighborCount = neighborsEnumerator.enumerateNeighbors(map, v % width, v / width, reverseNeighbors, reverseCosts);
+      for (int i = 0; i < neighborCount; i++) {
+        int u = reverseNeighbors[i];
+        if (affected[u] != affectedGeneration && distances[u] == vDistance + moveCost(u, v)) {
+          affected[u] = affectedGeneration;
+          if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+          }
+          stack[stackSize++] = u;
+          if (count == cells.length) {
+            cells = Arrays.copyOf(cells, count * 2);
+          }
+          cells[count++] = u;
+        }
+      }
+    }
+
+    for (int i = 0; i < count; i++) {
+      distances[cells[i]] = Double.POSITIVE_INFINITY;
+    }
+    openList.clear(distances.length);
+    for (int goal : goals) {
+      if (affected[goal] == affectedGeneration && map.isTraversable(goal % width, goal / width)) {
+        distances[goal] = 0;
+        openList.insertOrDecrease(goal, 0);
+      }
+    }
+    // Start again from the best costs given by the positions which were not affected
+    for (int i = 0; i < count; i++) {
+      int u = cells[i];
+      if (!map.isTraversable(u % width, u / width)) {
+        continue;
+      }
+      int neighborCount = neighborsEnumerator.enumerateNeighbors(map, u % width, u / width, neighbors, neighborCosts);
+      double best = distances[u];
+      for (int j = 0; j < neighborCount; j++) {
+        int v = neighbors[j];
+        if (affected[v] != affectedGeneration) {
+          best = Math.min(best, neighborCosts[j] + distances[v]);
+        }
+      }
+      if (best < distances[u]) {
+        distances[u] = best;
+        openList.insertOrDecrease(u, best);
+      }
+    }
+    propagate();
+  }
+
+  /**
+   * Run the Dijkstra search from the positions in the open list, going backward along the moves
+   */
+  private void propagate() {
+    while (!openList.isEmpty()) {
+      int v = openList.poll();
+      double vDistance = distances[v];
+      int count = neighborsEnumerator.enumerateNeighbors(map, v % width, v / width, reverseNeighbors, reverseCosts);
+      for (int i = 0; i < count; i++) {
+        int u = reverseNeighbors[i];
+        double uDistance = vDistance + moveCost(u, v);
+        if (uDistance < distances[u]) {
+          distances[u] = uDistance;
+          openList.insertOrDecrease(u, uDistance);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the neighbor of a position with the lowest cost to reach a goal
+   *
+   * @param u The cell index of the position
+   * @return The cell index of the neighbor, or -1 if the position is a goal or if no goal is reachable
+   */
+  private int nextStep(int u) {
+    double uDistance = distances[u];
+    if (uDistance == 0 || Double.isInfinite(uDistance)) {
+      return -1;
+    }
+    int count = neighborsEnumerator.enumerateNeighbors(map, u % width, u / width, neighbors, neighborCosts);
+    int best = -1;
+    double bestDistance = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < count; i++) {
+      double distance = neighborCosts[i] + distances[neighbors[i]];
+      if (distance < bestDistance) {
+        bestDistance = distance;
+        best = neighbors[i];
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns the cost of moving from a position to one of its neighbors
+   */
+  private double moveCost(int from, int to) {
+    int fromX = from % width;
+    int fromY = from / width;
+    int toX = to % width;
+    int toY = to / width;
+    if (neighborsEnumerator == NeighborsEnumerator.ORTHO_NEIGHBORS || neighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS) {
+      double step = fromX != toX && fromY != toY ? NeighborsEnumerator.SQRT_2 : 1;
+      return weightedMap != null ? step * weightedMap.getCost(toX, toY) : step;
+    }
+    int count = neighborsEnumerator.enumerateNeighbors(map, fromX, fromY, neighbors, neighborCosts);
+    for (int i = 0; i < count; i++) {
+      if (neighbors[i] == to) {
+        return neighborCosts[i];
+      }
+    }
+    return Double.POSITIVE_INFINITY;
+  }
+}
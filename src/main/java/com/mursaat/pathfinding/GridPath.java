@@ -0,0 +1,172 @@
+package com.mursaat.pathfinding;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+/**
+ * A path stored as the cell indexes (y * width + x) of its positions, without the start position.
+ * It takes 4 bytes per position where a LinkedList of {@link PathNodePosition} takes two objects,
+ * and its positions are read with {@link #getX} and {@link #getY} without allocating anything.
+ * On a map whose cell indexes do not fit in an int, the path stores the x and y of its positions instead.
+ */
+public final class GridPath implements Iterable<PathNodePosition> {
+
+  private static final int[] NO_CELLS = new int[0];
+
+  /**
+   * The cell indexes of the positions, in the order of the path, null when the path stores the positions
+   */
+  private final int[] cells;
+
+  /**
+   * The x and y of each position one after the other, when the path has no cell indexes
+   */
+  private final int[] positions;
+
+  /**
+   * The width of the map, to decode the cell indexes
+   */
+  private final int width;
+
+  private final double cost;
+
+  GridPath(int[] cells, int width, double cost) {
+    this(cells, null, width, cost);
+  }
+
+  private GridPath(int[] cells, int[] positions, int width, double cost) {
+    this.cells = cells;
+    this.positions = positions;
+    this.width = width;
+    this.cost = cost;
+  }
+
+  /**
+   * Returns a path stored as the x and y of its positions, for a map whose cell indexes do not fit in an int
+   *
+   * @param positions The x and y of each position one after the other
+   * @param width     The width of the map
+   * @param cost      The cost of the path
+   * @return The path
+   */
+  static GridPath ofPositions(int[] positions, int width, double cost) {
+    return new GridPath(null, positions, width, cost);
+  }
+
+  /**
+   * Returns an empty path
+   *
+   * @param width The width of the map
+   * @return The path
+   */
+  static GridPath empty(int width) {
+    return new GridPath(NO_CELLS, width, 0);
+  }
+
+  /**
+   * Returns the number of positions of the path
+   *
+   * @return The number of positions, the start position not being counted
+   */
+  public int length() {
+    return cells != null ? cells.length : positions.length / 2;
+  }
+
+  public boolean isEmpty() {
+    return length() == 0;
+  }
+
+  /**
+   * Returns the cost of the path
+   *
+   * @return The cost to reach the last position of the path, 0 if the path is empty
+   */
+  public double cost() {
+    return cost;
+  }
+
+  /**
+   * Returns a position of the path
+   *
+   * @param i The index of the position, 0 being the one after the start position
+   * @return A new position
+   */
+  public PathNodePosition get(int i) {
+    return new PathNodePosition(getX(i), getY(i));
+  }
+
+  public int getX(int i) {
+    return cells != null ? cells[i] % width : positions[2 * i];
+  }
+
+  public int getY(int i) {
+    return cells != null ? cells[i] / width : positions[2 * i + 1];
+  }
+
+  /**
+   * Returns the cell index of a position of the path
+   *
+   * @param i The index of the position, 0 being the one after the start position
+   * @return The cell index, y * width + x
+   * @throws IllegalStateException If the cell indexes of the map do not fit in an int
+   */
+  public int getCell(int i) {
+    if (cells == null) {
+      throw new IllegalStateException("The cell indexes of the map of this path do not fit in an int");
+    }
+    return cells[i];
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the positions of the path in a new list, as {@link AStar#findPath} does
+   *
+   * @return The positions of the path without the start position
+   */
+  public LinkedList<PathNodePosition> toLinkedList() {
+    LinkedList<PathNodePosition> path = new LinkedList<>();
+    for (int i = 0, length = length(); i < length; i++) {
+      path.addLast(get(i));
+    }
+    return path;
+  }
+
+  /**
+   * Returns an iterator creating the positions as they are read
+   *
+   * @return The iterator
+   */
+  @Override
+  public Iterator<PathNodePosition> iterator() {
+    return new Iterator<PathNodePosition>() {
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return next < length();
+      }
+
+      @Override
+      public PathNodePosition next() {
+        if (next == length()) {
+          throw new NoSuchElementException();
+        }
+        return get(next++);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("A GridPath can not be modified");
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return "GridPath{length=" + length() + ", cost=" + cost + "}";
+  }
+}
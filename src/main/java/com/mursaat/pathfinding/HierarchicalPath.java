@@ -0,0 +1,69 @@
+package com.mursaat.pathfinding;
+
+import java.util.LinkedList;
+
+/**
+ * The result of {@link HierarchicalPathFinder#findPath}
+ */
+public final class HierarchicalPath {
+
+  private final LinkedList<PathNodePosition> path;
+
+  private final int abstractNodes;
+
+  private final double abstractCost;
+
+  private final double refinedCost;
+
+  HierarchicalPath(LinkedList<PathNodePosition> path, int abstractNodes, double abstractCost, double refinedCost) {
+    this.path = path;
+    this.abstractNodes = abstractNodes;
+    this.abstractCost = abstractCost;
+    this.refinedCost = refinedCost;
+  }
+
+  /**
+   * Returns the positions of the path, without the start position like {@link AStar#findPath}
+   *
+   * @return The positions, empty if no path was found
+   */
+  public LinkedList<PathNodePosition> getPath() {
+    return path;
+  }
+
+  /**
+   * Returns the number of entrances the path goes through on the abstract graph
+   *
+   * @return The number of entrances, 0 if the path stays in one cluster
+   */
+  public int getAbstractNodes() {
+    return abstractNodes;
+  }
+
+  /**
+   * Returns the cost found on the abstract graph
+   *
+   * @return The abstract cost, infinite if no path was found
+   */
+  public double getAbstractCost() {
+    return abstractCost;
+  }
+
+  /**
+   * Returns the cost of the positions of the path, once refined
+   *
+   * @return The refined cost, infinite if no path was found
+   */
+  public double getRefinedCost() {
+    return refinedCost;
+  }
+
+  /**
+   * Tell if a path was found
+   *
+   * @return true if the end position is reachable
+   */
+  public boolean isFound() {
+    return !Double.isInfinite(refinedCost);
+  }
+}
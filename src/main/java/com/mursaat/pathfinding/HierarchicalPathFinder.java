@@ -0,0 +1,608 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * Hierarchical path finding (HPA*) on a {@link PathFinderMap}.
+ * The map is split in square clusters. Where two clusters touch, each run of positions traversable on both
+ * sides gives one or two entrances, and the costs between the entrances of a cluster are computed once.
+ * A query searches the graph of the entrances, and only searches the grid in the clusters of the start
+ * and end positions, and between consecutive entrances to refine the path.
+ * The paths found are close to the shortest ones, without being always the shortest.
+ * <p>
+ * When the map changes, call {@link #invalidate} : only the clusters touching the changed positions are
+ * rebuilt, at the next query. An instance must not be shared between threads.
+ */
+public final class HierarchicalPathFinder {
+
+  /**
+   * The runs of traversable positions longer than this get an entrance at each end, the others one in the middle
+   */
+  private static final int LONG_ENTRANCE = 6;
+
+  private final PathFinderMap map;
+
+  private final WeightedPathFinderMap weightedMap;
+
+  private final NeighborsEnumerator neighborsEnumerator;
+
+  private final DistanceCalculator heuristic;
+
+  private final int width;
+
+  private final int height;
+
+  private final int clusterSize;
+
+  private final int clustersX;
+
+  private final Cluster[] clusters;
+
+  /**
+   * Tell if some clusters must be rebuilt before the next query
+   */
+  private boolean dirty;
+
+  /**
+   * The number of clusters rebuilt since the creation
+   */
+  private int rebuiltClusters;
+
+  /**
+   * The id of the first entrance of each cluster in the abstract graph, and the cluster of each entrance
+   */
+  private int[] clusterFirstNode;
+  private int[] nodeCluster = new int[0];
+  private int nodeCount;
+
+  /**
+   * The storage of the searches in a cluster, indexed by the local index of the positions
+   */
+  private final int[] localVisited;
+  private final double[] localCost;
+  private final int[] localParent;
+  private final int[] localEntrance;
+  private final IndexedBinaryHeap localOpen = new IndexedBinaryHeap();
+  private int localGeneration;
+
+  /**
+   * The storage of the searches on the abstract graph
+   */
+  private int[] abstractVisited = new int[0];
+  private double[] abstractCost = new double[0];
+  private int[] abstractParent = new int[0];
+  private final IndexedBinaryHeap abstractOpen = new IndexedBinaryHeap();
+  private int abstractGeneration;
+
+  private int[] neighbors = new int[8];
+  private double[] neighborCosts = new double[8];
+
+  /**
+   * Buffers used to find the entrances of a cluster
+   */
+  private int[] transitionCells = new int[64];
+  private int[] transitionTargets = new int[64];
+  private int transitionCount;
+
+  /**
+   * A square part of the map, with its entrances
+   */
+  private static final class Cluster {
+    final int x;
+    final int y;
+    final int w;
+    final int h;
+
+    /**
+     * The cell indexes of the entrances, sorted
+     */
+    int[] entrances = new int[0];
+
+    /**
+     * The cost from each entrance to each other one, entrances.length x entrances.length, infinite if unreachable
+     */
+    double[] distances = new double[0];
+
+    /**
+     * The moves to the other clusters : the edges of entrance i are between edgeStarts[i] and edgeStarts[i + 1]
+     */
+    int[] edgeStarts = new int[1];
+    int[] edgeTargets = new int[0];
+    double[] edgeCosts = new double[0];
+
+    boolean dirty = true;
+
+    Cluster(int x, int y, int w, int h) {
+      this.x = x;
+      this.y = y;
+      this.w = w;
+      this.h = h;
+    }
+  }
+
+  /**
+   * Split a map in clusters and build the abstract graph
+   *
+   * @param map                 The map which determines where we are able to travel
+   * @param neighborsEnumerator The movements allowed, {@link NeighborsEnumerator#ORTHO_NEIGHBORS} or
+   *                            {@link NeighborsEnumerator#ORTHO_DIAG_NEIGHBORS}
+   * @param clusterSize         The width and height of the clusters
+   * @throws IllegalArgumentException If the map has more than Integer.MAX_VALUE cells
+   */
+  public HierarchicalPathFinder(PathFinderMap map, NeighborsEnumerator neighborsEnumerator, int clusterSize) {
+    if (neighborsEnumerator != NeighborsEnumerator.ORTHO_NEIGHBORS && neighborsEnumerator != NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS) {
+      throw new IllegalArgumentException("Only the built-in neighbors enumerators are supported");
+    }
+    if (clusterSize < 2) {
+      throw new IllegalArgumentException("The cluster size must be at least 2");
+    }
+    this.map = map;
+    this.weightedMap = map instanceof WeightedPathFinderMap ? (WeightedPathFinderMap) map : null;
+    this.neighborsEnumerator = neighborsEnumerator;
+    this.heuristic = neighborsEnumerator == NeighborsEnumerator.ORTHO_NEIGHBORS
+            ? DistanceCalculator.MANHATTAN_DISTANCE : DistanceCalculator.EUCLIDEAN_DISTANCE;
+    // The cells are indexed by an int
+    SearchContext.cellCount(map);
+    this.width = map.getWidth();
+    this.height = map.getHeight();
+    this.clusterSize = clusterSize;
+    this.clustersX = (width + clusterSize - 1) / clusterSize;
+    int clustersY = (height + clusterSize - 1) / clusterSize;
+
+    clusters = new Cluster[clustersX * clustersY];
+    for (int cy = 0; cy < clustersY; cy++) {
+      for (int cx = 0; cx < clustersX; cx++) {
+        int x = cx * clusterSize;
+        int y = cy * clusterSize;
+        clusters[cy * clustersX + cx] = new Cluster(x, y, Math.min(clusterSize, width - x), Math.min(clusterSize, height - y));
+      }
+    }
+    clusterFirstNode = new int[clusters.length + 1];
+
+    localVisited = new int[clusterSize * clusterSize];
+    localCost = new double[clusterSize * clusterSize];
+    localParent = new int[clusterSize * clusterSize];
+    localEntrance = new int[clusterSize * clusterSize];
+
+    dirty = true;
+    rebuild();
+  }
+
+  /**
+   * Tell that positions of the map have changed, the clusters touching them are rebuilt at the next query
+   *
+   * @param x The x position of the rectangle which changed
+   * @param y The y position of the rectangle which changed
+   * @param w The width of the rectangle
+   * @param h The height of the rectangle
+   */
+  public void invalidate(int x, int y, int w, int h) {
+    // The entrances of a cluster depend on the positions just outside of it
+    int fromX = Math.max(0, x - 1) / clusterSize;
+    int fromY = Math.max(0, y - 1) / clusterSize;
+    int toX = Math.min(width - 1, x + w) / clusterSize;
+    int toY = Math.min(height - 1, y + h) / clusterSize;
+    for (int cy = fromY; cy <= toY; cy++) {
+      for (int cx = fromX; cx <= toX; cx++) {
+        clusters[cy * clustersX + cx].dirty = true;
+      }
+    }
+    dirty = true;
+  }
+
+  /**
+   * Compute a path between two positions
+   *
+   * @param startPos The start position
+   * @param endPos   The end position
+   * @return The path with its costs, with an empty path if the end position is unreachable
+   */
+  public HierarchicalPath findPath(PathNodePosition startPos, PathNodePosition endPos) {
+    rebuild();
+    if (!map.isTraversable(startPos.x, startPos.y) || !map.isTraversable(endPos.x, endPos.y)) {
+      return notFound();
+    }
+    int start = startPos.y * width + startPos.x;
+    int goal = endPos.y * width + endPos.x;
+    Cluster startCluster = clusterOf(start);
+    Cluster goalCluster = clusterOf(goal);
+
+    // A path staying in the cluster does not need the abstract graph
+    if (startCluster == goalCluster && searchCluster(startCluster, start, goal, false)) {
+      LinkedList<PathNodePosition> path = new LinkedList<>();
+      double cost = appendLocalPath(startCluster, start, goal, path);
+      return new HierarchicalPath(path, 0, cost, cost);
+    }
+
+    int goalNode = searchAbstract(start, startCluster, goal, goalCluster);
+    if (goalNode < 0) {
+      return notFound();
+    }
+
+    // Collect the entrances from the end, then refine each move
+    int abstractNodes = 0;
+    for (int node = abstractParent[goalNode]; node != nodeCount; node = abstractParent[node]) {
+      abstractNodes++;
+    }
+    int[] entrances = new int[abstractNodes];
+    for (int node = abstractParent[goalNode], i = abstractNodes - 1; node != nodeCount; node = abstractParent[node], i--) {
+      Cluster cluster = clusters[nodeCluster[node]];
+      entrances[i] = cluster.entrances[node - clusterFirstNode[nodeCluster[node]]];
+    }
+
+    LinkedList<PathNodePosition> path = new LinkedList<>();
+    double refinedCost = 0;
+    int previous = start;
+    for (int entrance : entrances) {
+      refinedCost += refine(previous, entrance, path);
+      previous = entrance;
+    }
+    refinedCost += refine(previous, goal, path);
+    return new HierarchicalPath(path, abstractNodes, abstractCost[goalNode], refinedCost);
+  }
+
+  /**
+   * Returns the number of entrances of the abstract graph
+   *
+   * @return The number of entrances
+   */
+  public int getEntranceCount() {
+    rebuild();
+    return nodeCount;
+  }
+
+  public int getClusterSize() {
+    return clusterSize;
+  }
+
+  /**
+   * Returns the number of clusters rebuilt since the creation, including the first build
+   *
+   * @return The number of clusters rebuilt
+   */
+  int getRebuiltClusters() {
+    return rebuiltClusters;
+  }
+
+  private static HierarchicalPath notFound() {
+    return new HierarchicalPath(new LinkedList<PathNodePosition>(), 0, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Add the positions between two positions to the path
+   *
+   * @param from The cell index we come from
+   * @param to   The cell index to reach, in the same cluster or just across its border
+   * @param path The path receiving the positions, after from
+   * @return The cost of the moves added
+   */
+  private double refine(int from, int to, LinkedList<PathNodePosition> path) {
+    Cluster cluster = clusterOf(from);
+    if (cluster != clusterOf(to)) {
+      path.addLast(new PathNodePosition(to % width, to / width));
+      return moveCost(from, to);
+    }
+    searchCluster(cluster, from, to, false);
+    return appendLocalPath(cluster, from, to, path);
+  }
+
+  /**
+   * Add the positions found by the last search in a cluster to the path
+   *
+   * @param cluster The cluster searched
+   * @param from    The cell index the search started from
+   * @param to      The cell index reached
+   * @param path    The path receiving the positions, after from
+   * @return The cost of the moves added
+   */
+  private double appendLocalPath(Cluster cluster, int from, int to, LinkedList<PathNodePosition> path) {
+    LinkedList<PathNodePosition> segment = new LinkedList<>();
+    int local = localIndex(cluster, to);
+    int fromLocal = localIndex(cluster, from);
+    while (local != fromLocal) {
+      segment.addFirst(new PathNodePosition(cluster.x + local % cluster.w, cluster.y + local / cluster.w));
+      local = localParent[local];
+    }
+    path.addAll(segment);
+    return localCost[localIndex(cluster, to)];
+  }
+
+  /**
+   * Search the graph of the entrances, from the entrances reachable from the start position to the
+   * entrances from which the end position is reachable
+   *
+   * @return The id of the end node if the end position has been reached, -1 otherwise
+   */
+  private int searchAbstract(int start, Cluster startCluster, int goal, Cluster goalCluster) {
+    int startNode = nodeCount;
+    int goalNode = nodeCount + 1;
+    if (abstractVisited.length < nodeCount + 2) {
+      abstractVisited = new int[nodeCount + 2];
+      abstractCost = new double[nodeCount + 2];
+      abstractParent = new int[nodeCount + 2];
+      abstractGeneration = 0;
+    }
+    abstractGeneration++;
+    abstractOpen.clear(nodeCount + 2);
+    int goalX = goal % width;
+    int goalY = goal / width;
+    double heuristicScale = weightedMap != null ? weightedMap.getMinCost() : 1;
+
+    // The costs from the entrances of the last cluster to the end position
+    searchCluster(goalCluster, goal, -1, true);
+    double[] goalCosts = new double[goalCluster.entrances.length];
+    for (int i = 0; i < goalCosts.length; i++) {
+      int local = localIndex(goalCluster, goalCluster.entrances[i]);
+      goalCosts[i] = localVisited[local] == localGeneration ? localCost[local] : Double.POSITIVE_INFINITY;
+    }
+
+    searchCluster(startCluster, start, -1, false);
+    int startIndex = clusterIndex(start);
+    for (int i = 0; i < startCluster.entrances.length; i++) {
+      int local = localIndex(startCluster, startCluster.entrances[i]);
+      if (localVisited[local] == localGeneration) {
+        relax(clusterFirstNode[startIndex] + i, localCost[local], startNode, startCluster.entrances[i], goalX, goalY, heuristicScale);
+      }
+    }
+
+    int goalIndex = clusterIndex(goal);
+    while (!abstractOpen.isEmpty()) {
+      int u = abstractOpen.poll();
+      if (u == goalNode) {
+        return u;
+      }
+      int clusterIndex = nodeCluster[u];
+      Cluster cluster = clusters[clusterIndex];
+      int i = u - clusterFirstNode[clusterIndex];
+      double uCost = abstractCost[u];
+      int entranceCount = cluster.entrances.length;
+
+      if (clusterIndex == goalIndex && !Double.isInfinite(goalCosts[i])) {
+        relax(goalNode, uCost + goalCosts[i], u, goal, goalX, goalY, heuristicScale);
+      }
+      for (int j = 0; j < entranceCount; j++) {
+        double distance = cluster.distances[i * entranceCount + j];
+        if (j != i && !Double.isInfinite(distance)) {
+          relax(clusterFirstNode[clusterIndex] + j, uCost + distance, u, cluster.entrances[j], goalX, goalY, heuristicScale);
+        }
+      }
+      for (int e = cluster.edgeStarts[i]; e < cluster.edgeStarts[i + 1]; e++) {
+        int target = cluster.edgeTargets[e];
+        int targetIndex = clusterIndex(target);
+        int j = Arrays.binarySearch(clusters[targetIndex].entrances, target);
+        if (j >= 0) {
+          relax(clusterFirstNode[targetIndex] + j, uCost + cluster.edgeCosts[e], u, target, goalX, goalY, heuristicScale);
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Update the cost of a node of the abstract graph if the given one is lower
+   */
+  private void relax(int node, double cost, int parent, int cell, int goalX, int goalY, double heuristicScale) {
+    if (abstractVisited[node] == abstractGeneration && abstractCost[node] <= cost) {
+      return;
+    }
+    abstractVisited[node] = abstractGeneration;
+    abstractCost[node] = cost;
+    abstractParent[node] = parent;
+    abstractOpen.insertOrDecrease(node, cost + heuristicScale * heuristic.calculate(cell % width, cell / width, goalX, goalY));
+  }
+
+  /**
+   * Search the cheapest moves from a position without leaving its cluster.
+   * The results are kept in the local arrays, indexed by the local index of the positions.
+   *
+   * @param cluster The cluster
+   * @param source  The cell index where the search starts
+   * @param target  The cell index to reach, or -1 to reach all the entrances of the cluster
+   * @param reverse true to compute the cost of moving from each position to the source instead
+   * @return true if the target has been reached, or if there was no target
+   */
+  private boolean searchCluster(Cluster cluster, int source, int target, boolean reverse) {
+    if (++localGeneration == Integer.MAX_VALUE) {
+      Arrays.fill(localVisited, 0);
+      Arrays.fill(localEntrance, 0);
+      localGeneration = 1;
+    }
+    int remaining = 0;
+    if (target < 0) {
+      for (int entrance : cluster.entrances) {
+        localEntrance[localIndex(cluster, entrance)] = localGeneration;
+      }
+      remaining = cluster.entrances.length;
+    }
+    localOpen.clear(localVisited.length);
+    int targetX = target % width;
+    int targetY = target / width;
+    double heuristicScale = target >= 0 && weightedMap != null ? weightedMap.getMinCost() : 1;
+
+    int sourceLocal = localIndex(cluster, source);
+    localVisited[sourceLocal] = localGeneration;
+    localCost[sourceLocal] = 0;
+    localParent[sourceLocal] = -1;
+    localOpen.insertOrDecrease(sourceLocal, 0);
+
+    while (!localOpen.isEmpty()) {
+      int u = localOpen.poll();
+      int ux = cluster.x + u % cluster.w;
+      int uy = cluster.y + u / cluster.w;
+      if (target >= 0 ? ux == targetX && uy == targetY : localEntrance[u] == localGeneration && --remaining == 0) {
+        return true;
+      }
+      double uCost = localCost[u];
+      int count = neighborsEnumerator.enumerateNeighbors(map, ux, uy, neighbors, neighborCosts);
+      for (int i = 0; i < count; i++) {
+        int vx = neighbors[i] % width;
+        int vy = neighbors[i] / width;
+        if (vx < cluster.x || vy < cluster.y || vx >= cluster.x + cluster.w || vy >= cluster.y + cluster.h) {
+          continue;
+        }
+        int v = (vy - cluster.y) * cluster.w + (vx - cluster.x);
+        double vCost = uCost + (reverse ? moveCost(neighbors[i], uy * width + ux) : neighborCosts[i]);
+        if (localVisited[v] == localGeneration && localCost[v] <= vCost) {
+          continue;
+        }
+        localVisited[v] = localGeneration;
+        localCost[v] = vCost;
+        localParent[v] = u;
+        double h = target >= 0 ? heuristicScale * heuristic.calculate(vx, vy, targetX, targetY) : 0;
+        localOpen.insertOrDecrease(v, vCost + h);
+      }
+    }
+    return target < 0;
+  }
+
+  /**
+   * Returns the cost of moving between two adjacent positions, as given by the built-in enumerators
+   */
+  private double moveCost(int from, int to) {
+    int toX = to % width;
+    int toY = to / width;
+    double step = from % width != toX && from / width != toY ? NeighborsEnumerator.SQRT_2 : 1;
+    return weightedMap != null ? step * weightedMap.getCost(toX, toY) : step;
+  }
+
+  /**
+   * Rebuild the clusters which changed, and number the entrances again
+   */
+  private void rebuild() {
+    if (!dirty) {
+      return;
+    }
+    for (Cluster cluster : clusters) {
+      if (cluster.dirty) {
+        rebuild(cluster);
+        cluster.dirty = false;
+        rebuiltClusters++;
+      }
+    }
+
+    nodeCount = 0;
+    for (int c = 0; c < clusters.length; c++) {
+      clusterFirstNode[c] = nodeCount;
+      nodeCount += clusters[c].entrances.length;
+    }
+    clusterFirstNode[clusters.length] = nodeCount;
+    if (nodeCluster.length < nodeCount) {
+      nodeCluster = new int[nodeCount];
+    }
+    for (int c = 0; c < clusters.length; c++) {
+      Arrays.fill(nodeCluster, clusterFirstNode[c], clusterFirstNode[c + 1], c);
+    }
+    dirty = false;
+  }
+
+  /**
+   * Find the entrances of a cluster, its moves to the other clusters, and the costs between its entrances
+   */
+  private void rebuild(Cluster cluster) {
+    transitionCount = 0;
+    if (cluster.x > 0) {
+      addTransitions(cluster.x, cluster.y, -1, 0, 0, 1, cluster.h);
+    }
+    if (cluster.x + cluster.w < width) {
+      addTransitions(cluster.x + cluster.w - 1, cluster.y, 1, 0, 0, 1, cluster.h);
+    }
+    if (cluster.y > 0) {
+      addTransitions(cluster.x, cluster.y, 0, -1, 1, 0, cluster.w);
+    }
+    if (cluster.y + cluster.h < height) {
+      addTransitions(cluster.x, cluster.y + cluster.h - 1, 0, 1, 1, 0, cluster.w);
+    }
+
+    // Sort the transitions by cell, so the moves of each entrance are grouped
+    long[] sorted = new long[transitionCount];
+    for (int i = 0; i < transitionCount; i++) {
+      sorted[i] = (long) transitionCells[i] << 32 | transitionTargets[i];
+    }
+    Arrays.sort(sorted);
+    int entranceCount = 0;
+    int[] entrances = new int[transitionCount];
+    int[] edgeStarts = new int[transitionCount + 1];
+    int[] edgeTargets = new int[transitionCount];
+    double[] edgeCosts = new double[transitionCount];
+    for (int i = 0; i < transitionCount; i++) {
+      int cell = (int) (sorted[i] >>> 32);
+      if (entranceCount == 0 || entrances[entranceCount - 1] != cell) {
+        entrances[entranceCount++] = cell;
+      }
+      edgeStarts[entranceCount] = i + 1;
+      edgeTargets[i] = (int) sorted[i];
+      edgeCosts[i] = moveCost(cell, edgeTargets[i]);
+    }
+    cluster.entrances = Arrays.copyOf(entrances, entranceCount);
+    cluster.edgeStarts = Arrays.copyOf(edgeStarts, entranceCount + 1);
+    cluster.edgeTargets = edgeTargets;
+    cluster.edgeCosts = edgeCosts;
+
+    cluster.distances = new double[entranceCount * entranceCount];
+    for (int i = 0; i < entranceCount; i++) {
+      searchCluster(cluster, cluster.entrances[i], -1, false);
+      for (int j = 0; j < entranceCount; j++) {
+        int local = localIndex(cluster, cluster.entrances[j]);
+        cluster.distances[i * entranceCount + j] = localVisited[local] == localGeneration ? localCost[local] : Double.POSITIVE_INFINITY;
+      }
+    }
+  }
+
+  /**
+   * Add the transitions along a border of a cluster. The runs of positions traversable on both sides get
+   * a transition in their middle, or one at each end when they are long.
+   *
+   * @param x      The x position of the first position of the border, inside the cluster
+   * @param y      The y position of the first position of the border, inside the cluster
+   * @param outX   The x direction to the other cluster
+   * @param outY   The y direction to the other cluster
+   * @param alongX The x direction along the border
+   * @param alongY The y direction along the border
+   * @param length The number of positions of the border
+   */
+  private void addTransitions(int x, int y, int outX, int outY, int alongX, int alongY, int length) {
+    int runStart = -1;
+    for (int i = 0; i <= length; i++) {
+      boolean open = i < length
+              && map.isTraversable(x + i * alongX, y + i * alongY)
+              && map.isTraversable(x + i * alongX + outX, y + i * alongY + outY);
+      if (open && runStart < 0) {
+        runStart = i;
+      } else if (!open && runStart >= 0) {
+        int runLength = i - runStart;
+        if (runLength < LONG_ENTRANCE) {
+          addTransition(x, y, outX, outY, alongX, alongY, runStart + runLength / 2);
+        } else {
+          addTransition(x, y, outX, outY, alongX, alongY, runStart);
+          addTransition(x, y, outX, outY, alongX, alongY, i - 1);
+        }
+        runStart = -1;
+      }
+    }
+  }
+
+  private void addTransition(int x, int y, int outX, int outY, int alongX, int alongY, int i) {
+    if (transitionCount == transitionCells.length) {
+      transitionCells = Arrays.copyOf(transitionCells, transitionCount * 2);
+      transitionTargets = Arrays.copyOf(transitionTargets, transitionCount * 2);
+    }
+    int cellX = x + i * alongX;
+    int cellY = y + i * alongY;
+    transitionCells[transitionCount] = cellY * width + cellX;
+    transitionTargets[transitionCount] = (cellY + outY) * width + cellX + outX;
+    transitionCount++;
+  }
+
+  private int clusterIndex(int cell) {
+    return (cell / width / clusterSize) * clustersX + (cell % width) / clusterSize;
+  }
+
+  private Cluster clusterOf(int cell) {
+    return clusters[clusterIndex(cell)];
+  }
+
+  private int localIndex(Cluster cluster, int cell) {
+    return (cell / width - cluster.y) * cluster.w + (cell % width - cluster.x);
+  }
+}
@@ -0,0 +1,184 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * An {@link OpenList} implemented as a binary min-heap of node indexes.
+ * The heap slot of each node is remembered, so a node is never in the heap twice and its key
+ * can be decreased in place. The nodes of the same key are ordered by their second key.
+ */
+public final class IndexedBinaryHeap implements OpenList {
+
+  /**
+   * The nodes, in heap order
+   */
+  private int[] nodes = new int[16];
+
+  /**
+   * The key of the node in the same slot
+   */
+  private double[] keys = new double[16];
+
+  /**
+   * The second key of the node in the same slot
+   */
+  private double[] secondKeys = new double[16];
+
+  /**
+   * The slot of each node in the heap, -1 if it is not in the heap
+   */
+  private int[] slots = new int[0];
+
+  private int size = 0;
+
+  public IndexedBinaryHeap() {
+
+  }
+
+  @Override
+  public void clear(int capacity) {
+    if (slots.length < capacity) {
+      slots = new int[capacity];
+      Arrays.fill(slots, -1);
+    } else {
+      for (int i = 0; i < size; i++) {
+        slots[nodes[i]] = -1;
+      }
+    }
+    size = 0;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Tell if a node is in the heap
+   *
+   * @param node The cell index of the node
+   * @return true if the node is in the heap
+   */
+  public boolean contains(int node) {
+    return slots[node] >= 0;
+  }
+
+  @Override
+  public void insertOrDecrease(int node, double key) {
+    insertOrDecrease(node, key, 0);
+  }
+
+  @Override
+  public void insertOrDecrease(int node, double key, double secondKey) {
+    int slot = slots[node];
+    if (slot < 0) {
+      if (size == nodes.length) {
+        nodes = Arrays.copyOf(nodes, size * 2);
+        keys = Arrays.copyOf(keys, size * 2);
+        secondKeys = Arrays.copyOf(secondKeys, size * 2);
+      }
+      slot = size++;
+    }
+    siftUp(slot, node, key, secondKey);
+  }
+
+  @Override
+  public int poll() {
+    int result = nodes[0];
+    slots[result] = -1;
+    int last = --size;
+    if (last > 0) {
+      siftDown(0, nodes[last], keys[last], secondKeys[last]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the node in a slot, the slots from 0 to {@link #size()} - 1 holding the nodes of the heap
+   *
+   * @param slot The slot
+   * @return The cell index of the node
+   */
+  int node(int slot) {
+    return nodes[slot];
+  }
+
+  /**
+   * Returns the lowest key of the heap, which must not be empty
+   *
+   * @return The key of the node {@link #poll()} would return
+   */
+  public double peekKey() {
+    return keys[0];
+  }
+
+  /**
+   * Tell if a node comes before another one, comparing their keys then their second keys
+   */
+  private static boolean less(double key, double secondKey, double otherKey, double otherSecondKey) {
+    return key < otherKey || key == otherKey && secondKey < otherSecondKey;
+  }
+
+  /**
+   * Move a node toward the root until its parent does not come after it
+   *
+   * @param slot      The slot from where the node starts
+   * @param node      The node
+   * @param key       The key of the node
+   * @param secondKey The second key of the node
+   */
+  private void siftUp(int slot, int node, double key, double secondKey) {
+    while (slot > 0) {
+      int parent = (slot - 1) >>> 1;
+      if (!less(key, secondKey, keys[parent], secondKeys[parent])) {
+        break;
+      }
+      move(parent, slot);
+      slot = parent;
+    }
+    place(slot, node, key, secondKey);
+  }
+
+  /**
+   * Move a node toward the leaves until its children do not come before it
+   *
+   * @param slot      The slot from where the node starts
+   * @param node      The node
+   * @param key       The key of the node
+   * @param secondKey The second key of the node
+   */
+  private void siftDown(int slot, int node, double key, double secondKey) {
+    int half = size >>> 1;
+    while (slot < half) {
+      int child = 2 * slot + 1;
+      if (child + 1 < size && less(keys[child + 1], secondKeys[child + 1], keys[child], secondKeys[child])) {
+        child++;
+      }
+      if (!less(keys[child], secondKeys[child], key, secondKey)) {
+        break;
+      }
+      move(child, slot);
+      slot = child;
+    }
+    place(slot, node, key, secondKey);
+  }
+
+  private void move(int from, int to) {
+    nodes[to] = nodes[from];
+    keys[to] = keys[from];
+    secondKeys[to] = secondKeys[from];
+    slots[nodes[to]] = to;
+  }
+
+  private void place(int slot, int node, double key, double secondKey) {
+    nodes[slot] = node;
+    keys[slot] = key;
+    secondKeys[slot] = secondKey;
+    slots[node] = slot;
+  }
+}
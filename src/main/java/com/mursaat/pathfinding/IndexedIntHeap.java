@@ -0,0 +1,119 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * An {@link IntOpenList} implemented as a binary min-heap of node indexes ordered by their integer
+ * estimated cost, then by their second key, then by their cell index. No two nodes compare equal, so the nodes
+ * are always polled in the same order, whatever the order they were added in.
+ */
+final class IndexedIntHeap implements IntOpenList {
+
+  /**
+   * The nodes, in heap order
+   */
+  private int[] nodes = new int[16];
+
+  /**
+   * The estimated cost in the high 32 bits and the second key in the low 32 bits, for the node in the same slot
+   */
+  private long[] keys = new long[16];
+
+  /**
+   * The slot of each node in the heap, -1 if it is not in the heap
+   */
+  private int[] slots = new int[0];
+
+  private int size = 0;
+
+  @Override
+  public void clear(int capacity) {
+    if (slots.length < capacity) {
+      slots = new int[capacity];
+      Arrays.fill(slots, -1);
+    } else {
+      for (int i = 0; i < size; i++) {
+        slots[nodes[i]] = -1;
+      }
+    }
+    size = 0;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void insertOrDecrease(int node, int cost, int secondKey) {
+    int slot = slots[node];
+    if (slot < 0) {
+      if (size == nodes.length) {
+        nodes = Arrays.copyOf(nodes, size * 2);
+        keys = Arrays.copyOf(keys, size * 2);
+      }
+      slot = size++;
+    }
+    siftUp(slot, node, (long) cost << 32 | secondKey);
+  }
+
+  @Override
+  public int poll() {
+    int result = nodes[0];
+    slots[result] = -1;
+    int last = --size;
+    if (last > 0) {
+      siftDown(0, nodes[last], keys[last]);
+    }
+    return result;
+  }
+
+  private static boolean less(long key, int node, long otherKey, int otherNode) {
+    return key < otherKey || key == otherKey && node < otherNode;
+  }
+
+  private void siftUp(int slot, int node, long key) {
+    while (slot > 0) {
+      int parent = (slot - 1) >>> 1;
+      if (!less(key, node, keys[parent], nodes[parent])) {
+        break;
+      }
+      move(parent, slot);
+      slot = parent;
+    }
+    place(slot, node, key);
+  }
+
+  private void siftDown(int slot, int node, long key) {
+    int half = size >>> 1;
+    while (slot < half) {
+      int child = 2 * slot + 1;
+      if (child + 1 < size && less(keys[child + 1], nodes[child + 1], keys[child], nodes[child])) {
+        child++;
+      }
+      if (!less(keys[child], nodes[child], key, node)) {
+        break;
+      }
+      move(child, slot);
+      slot = child;
+    }
+    place(slot, node, key);
+  }
+
+  private void move(int from, int to) {
+    nodes[to] = nodes[from];
+    keys[to] = keys[from];
+    slots[nodes[to]] = to;
+  }
+
+  private void place(int slot, int node, long key) {
+    nodes[slot] = node;
+    keys[slot] = key;
+    slots[node] = slot;
+  }
+}
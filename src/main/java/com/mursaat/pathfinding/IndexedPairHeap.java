@@ -0,0 +1,170 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of node indexes ordered by a pair of keys, the second key breaking the ties of the first one.
+ * Like {@link IndexedBinaryHeap}, the heap slot of each node is remembered, but the keys of a node can
+ * increase as well as decrease, and a node can be removed from anywhere, as {@link DStarLite} needs.
+ */
+final class IndexedPairHeap {
+
+  /**
+   * The nodes, in heap order
+   */
+  private int[] nodes = new int[16];
+
+  /**
+   * The keys of the node in the same slot
+   */
+  private double[] firstKeys = new double[16];
+  private double[] secondKeys = new double[16];
+
+  /**
+   * The slot of each node in the heap, -1 if it is not in the heap
+   */
+  private int[] slots = new int[0];
+
+  private int size = 0;
+
+  /**
+   * Remove all the nodes
+   *
+   * @param capacity The number of cells of the map, every node index will be lower than it
+   */
+  void clear(int capacity) {
+    if (slots.length < capacity) {
+      slots = new int[capacity];
+      Arrays.fill(slots, -1);
+    } else {
+      for (int i = 0; i < size; i++) {
+        slots[nodes[i]] = -1;
+      }
+    }
+    size = 0;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean contains(int node) {
+    return slots[node] >= 0;
+  }
+
+  /**
+   * Add a node, or change its keys if it is already in the heap
+   *
+   * @param node      The cell index of the node
+   * @param firstKey  The first key
+   * @param secondKey The key breaking the ties of the first one
+   */
+  void insertOrUpdate(int node, double firstKey, double secondKey) {
+    int slot = slots[node];
+    if (slot < 0) {
+      if (size == nodes.length) {
+        nodes = Arrays.copyOf(nodes, size * 2);
+        firstKeys = Arrays.copyOf(firstKeys, size * 2);
+        secondKeys = Arrays.copyOf(secondKeys, size * 2);
+      }
+      siftUp(size++, node, firstKey, secondKey);
+    } else if (less(firstKey, secondKey, firstKeys[slot], secondKeys[slot])) {
+      siftUp(slot, node, firstKey, secondKey);
+    } else {
+      siftDown(slot, node, firstKey, secondKey);
+    }
+  }
+
+  /**
+   * Remove a node if it is in the heap
+   *
+   * @param node The cell index of the node
+   */
+  void remove(int node) {
+    int slot = slots[node];
+    if (slot < 0) {
+      return;
+    }
+    slots[node] = -1;
+    int last = --size;
+    if (slot == last) {
+      return;
+    }
+    int lastNode = nodes[last];
+    double firstKey = firstKeys[last];
+    double secondKey = secondKeys[last];
+    if (slot > 0 && less(firstKey, secondKey, firstKeys[(slot - 1) >>> 1], secondKeys[(slot - 1) >>> 1])) {
+      siftUp(slot, lastNode, firstKey, secondKey);
+    } else {
+      siftDown(slot, lastNode, firstKey, secondKey);
+    }
+  }
+
+  /**
+   * Returns the node with the lowest keys, the heap must not be empty
+   */
+  int peek() {
+    return nodes[0];
+  }
+
+  double peekFirstKey() {
+    return firstKeys[0];
+  }
+
+  double peekSecondKey() {
+    return secondKeys[0];
+  }
+
+  /**
+   * Tell if a pair of keys is lower than another one
+   */
+  static boolean less(double firstKey, double secondKey, double otherFirstKey, double otherSecondKey) {
+    return firstKey < otherFirstKey || firstKey == otherFirstKey && secondKey < otherSecondKey;
+  }
+
+  private void siftUp(int slot, int node, double firstKey, double secondKey) {
+    while (slot > 0) {
+      int parent = (slot - 1) >>> 1;
+      if (!less(firstKey, secondKey, firstKeys[parent], secondKeys[parent])) {
+        break;
+      }
+      move(parent, slot);
+      slot = parent;
+    }
+    place(slot, node, firstKey, secondKey);
+  }
+
+  private void siftDown(int slot, int node, double firstKey, double secondKey) {
+    int half = size >>> 1;
+    while (slot < half) {
+      int child = 2 * slot + 1;
+      if (child + 1 < size && less(firstKeys[child + 1], secondKeys[child + 1], firstKeys[child], secondKeys[child])) {
+        child++;
+      }
+      if (!less(firstKeys[child], secondKeys[child], firstKey, secondKey)) {
+        break;
+      }
+      move(child, slot);
+      slot = child;
+    }
+    place(slot, node, firstKey, secondKey);
+  }
+
+  private void move(int from, int to) {
+    nodes[to] = nodes[from];
+    firstKeys[to] = firstKeys[from];
+    secondKeys[to] = secondKeys[from];
+    slots[nodes[to]] = to;
+  }
+
+  private void place(int slot, int node, double firstKey, double secondKey) {
+    nodes[slot] = node;
+    firstKeys[slot] = firstKey;
+    secondKeys[slot] = secondKey;
+    slots[node] = slot;
+  }
+}
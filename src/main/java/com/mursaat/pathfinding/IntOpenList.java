@@ -0,0 +1,36 @@
+package com.mursaat.pathfinding;
+
+/**
+ * The nodes waiting to be expanded by {@link IntegerSearch}, ordered by their integer estimated cost.
+ * Nodes are identified by their cell index (y * width + x). The order of the nodes of the same estimated cost
+ * depends on the implementation, but only on the operations done, never on anything else.
+ */
+interface IntOpenList {
+
+  /**
+   * Remove all the nodes, before starting a new search
+   *
+   * @param capacity The number of cells of the map, every node index will be lower than it
+   */
+  void clear(int capacity);
+
+  boolean isEmpty();
+
+  int size();
+
+  /**
+   * Add a node, or lower its estimated cost if it is already in
+   *
+   * @param node      The cell index of the node
+   * @param cost      The estimated cost of the path passing through the node, not negative
+   * @param secondKey The key ordering the nodes of the same estimated cost, not negative, see {@link TieBreaking}
+   */
+  void insertOrDecrease(int node, int cost, int secondKey);
+
+  /**
+   * Remove the first node
+   *
+   * @return The cell index of the node
+   */
+  int poll();
+}
@@ -0,0 +1,314 @@
+package com.mursaat.pathfinding;
+
+/**
+ * The A* search used by {@link SearchContext} when {@link AStarParams#setIntegerCosts} is set.
+ * An orthogonal move costs {@link #ORTHO_COST} and a diagonal one {@link #DIAGONAL_COST}, multiplied by the cost
+ * of the destination on a {@link WeightedGridMap}, so the costs and the heuristic are integers and the open list
+ * only compares integers. The order of the expanded nodes depends on nothing but the map and the query.
+ * <p>
+ * With {@link DistanceCalculator#OCTILE_DISTANCE} or {@link DistanceCalculator#MANHATTAN_DISTANCE} and
+ * {@link TieBreaking#NONE}, the heuristic is an integer too and the open list is a {@link BucketQueue}, the ties being
+ * broken toward the last added node. Otherwise, it is an {@link IndexedIntHeap}, the ties being broken by the
+ * {@link TieBreaking} of the parameters then by the cell index.
+ */
+final class IntegerSearch {
+
+  /**
+   * The cost of an orthogonal move
+   */
+  static final int ORTHO_COST = 10;
+
+  /**
+   * The cost of a diagonal move, 10 times the square root of 2 rounded down
+   */
+  static final int DIAGONAL_COST = 14;
+
+  /**
+   * Returned by {@link #search} when a cost does not fit in an int, the search must be done with doubles
+   */
+  static final int OVERFLOW = -4;
+
+  /**
+   * The highest cost to come, and the highest heuristic, so their sum always fits in an int
+   */
+  private static final int COST_LIMIT = Integer.MAX_VALUE / 2;
+
+  /**
+   * The context holding the search storage
+   */
+  private final SearchContext context;
+
+  /**
+   * The cost to come on each node, valid when the node is visited by the current search
+   */
+  private int[] cost = new int[0];
+
+  /**
+   * The open list given at creation, or null to choose it for each search
+   */
+  private final IntOpenList fixedOpenList;
+
+  private IndexedIntHeap heap;
+
+  private BucketQueue bucketQueue;
+
+  /**
+   * The state of the current search, kept between two calls of {@link #resume}
+   */
+  private PathFinderMap searchMap;
+  private NeighborsEnumerator searchNeighborsEnumerator;
+  private DistanceCalculator searchHeuristic;
+  private TieBreaking searchTieBreaking;
+  private IntOpenList searchOpenList;
+  private byte[] searchCellCosts;
+  private int searchMinCost;
+  private double searchHeuristicScale;
+  private int searchStart;
+  private int searchGoal;
+
+  private final int[] neighbors = new int[8];
+  private final double[] neighborCosts = new double[8];
+
+  IntegerSearch(SearchContext context) {
+    this(context, null);
+  }
+
+  /**
+   * Create a search always using the same open list, to compare the implementations
+   *
+   * @param context  The context holding the search storage
+   * @param openList The open list, or null to choose it for each search
+   */
+  IntegerSearch(SearchContext context, IntOpenList openList) {
+    this.context = context;
+    this.fixedOpenList = openList;
+  }
+
+  /**
+   * Tell if the costs of a search can be counted with integers
+   *
+   * @param params The parameters used to compute the path
+   * @return true if the movements allowed are supported, and the costs of the positions are integers
+   */
+  static boolean supports(AStarParams params) {
+    NeighborsEnumerator neighborsEnumerator = params.getNeighborsEnumerator();
+    PathFinderMap map = params.getMap();
+    return (neighborsEnumerator == NeighborsEnumerator.ORTHO_NEIGHBORS
+            || neighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            && (!(map instanceof WeightedPathFinderMap) || map instanceof WeightedGridMap);
+  }
+
+  /**
+   * Tell if the costs and the heuristic of a search are integers without being scaled, so the search can be done
+   * with integer costs and return paths of the same cost as with doubles
+   *
+   * @param params The parameters used to compute the path
+   * @return true with orthogonal moves, the manhattan distance, and positions whose costs are integers
+   */
+  static boolean hasIntegralCosts(AStarParams params) {
+    return params.getNeighborsEnumerator() == NeighborsEnumerator.ORTHO_NEIGHBORS
+            && params.getHeuristic() == DistanceCalculator.MANHATTAN_DISTANCE
+            && supports(params);
+  }
+
+  /**
+   * Run the A* loop with integer costs
+   *
+   * @param params The parameters used to compute the path
+   * @param start  The cell index of the start position
+   * @param goal   The cell index of the end position
+   * @return The goal index if it has been reached, {@link SearchContext#BUDGET_EXHAUSTED} if the search stopped
+   * on its budget, {@link #OVERFLOW} if a cost is too high, -1 otherwise
+   */
+  int search(AStarParams params, int start, int goal) {
+    begin(params, start, goal);
+    return resume(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Start a search, the nodes being expanded by {@link #resume}
+   *
+   * @param params The parameters used to compute the path
+   * @param start  The cell index of the start position
+   * @param goal   The cell index of the end position
+   */
+  void begin(AStarParams params, int start, int goal) {
+    PathFinderMap map = params.getMap();
+    searchMap = map;
+    searchNeighborsEnumerator = params.getNeighborsEnumerator();
+    searchHeuristic = params.getHeuristic();
+    searchTieBreaking = params.getTieBreaking();
+    searchCellCosts = map instanceof WeightedGridMap ? ((WeightedGridMap) map).getCosts() : null;
+    searchMinCost = map instanceof WeightedGridMap ? (int) ((WeightedGridMap) map).getMinCost() : 1;
+    boolean diagonal = searchNeighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS;
+    // Every move costs at least this many times its length with doubles, so the scaled heuristic stays admissible
+    searchHeuristicScale = searchMinCost * (diagonal ? DIAGONAL_COST / NeighborsEnumerator.SQRT_2 : ORTHO_COST);
+    searchStart = start;
+    searchGoal = goal;
+    int size = SearchContext.cellCount(map);
+
+    SearchContext c = context;
+    c.prepare(size, 0);
+    c.bestNode = start;
+    c.bestHeuristic = Double.POSITIVE_INFINITY;
+    if (cost.length < size) {
+      cost = new int[size];
+    }
+    searchOpenList = openList(searchHeuristic, searchTieBreaking);
+    searchOpenList.clear(size);
+    c.visited[start] = c.generation;
+    cost[start] = 0;
+    c.parent[start] = -1;
+    searchOpenList.insertOrDecrease(start, 0, 0);
+    c.countPush(false, false);
+  }
+
+  /**
+   * Continue the search started by {@link #begin}
+   *
+   * @param maxExpansions The number of nodes to expand before returning
+   * @return The goal index if it has been reached, {@link SearchContext#IN_PROGRESS} if the search must be resumed
+   * again, {@link SearchContext#BUDGET_EXHAUSTED} if the search stopped on its budget, {@link #OVERFLOW} if a cost
+   * is too high, -1 otherwise
+   */
+  int resume(int maxExpansions) {
+    PathFinderMap map = searchMap;
+    NeighborsEnumerator neighborsEnumerator = searchNeighborsEnumerator;
+    DistanceCalculator heuristic = searchHeuristic;
+    TieBreaking tieBreaking = searchTieBreaking;
+    IntOpenList openList = searchOpenList;
+    byte[] cellCosts = searchCellCosts;
+    int minCost = searchMinCost;
+    double heuristicScale = searchHeuristicScale;
+    int goal = searchGoal;
+    int width = map.getWidth();
+    int endX = goal % width;
+    int endY = goal / width;
+    int startDx = searchStart % width - endX;
+    int startDy = searchStart / width - endY;
+
+    SearchContext c = context;
+    int result = -1;
+    for (int expansions = 0; !openList.isEmpty(); expansions++) {
+      if (expansions == maxExpansions) {
+        return SearchContext.IN_PROGRESS;
+      }
+      int u = openList.poll();
+      c.openNodes--;
+      if (u == goal) {
+        result = u;
+        break;
+      }
+      if (c.isBudgetExhausted()) {
+        result = SearchContext.BUDGET_EXHAUSTED;
+        break;
+      }
+      c.closed[u] = c.generation;
+      c.expandedNodes++;
+
+      int uCost = cost[u];
+      int ux = u % width;
+      int uy = u / width;
+      int count = neighborsEnumerator.enumerateNeighbors(map, ux, uy, neighbors, neighborCosts);
+      c.generatedNodes += count;
+      for (int i = 0; i < count; i++) {
+        int v = neighbors[i];
+        int vx = v % width;
+        int vy = v / width;
+        // The offset of the cell indexes can not tell the moves apart : on a map of width 2, a diagonal move is 1
+        int step = vx == ux || vy == uy ? ORTHO_COST : DIAGONAL_COST;
+        int vCost = uCost + (cellCosts != null ? step * (cellCosts[v] & 0xFF) : step);
+        boolean reached = c.visited[v] == c.generation;
+        if (reached && cost[v] <= vCost) {
+          continue;
+        }
+        if (vCost > COST_LIMIT) {
+          result = OVERFLOW;
+          break;
+        }
+        c.countPush(reached, reached && c.closed[v] == c.generation);
+        c.visited[v] = c.generation;
+        c.closed[v] = 0;
+        cost[v] = vCost;
+        c.parent[v] = u;
+        int h = heuristic(heuristic, heuristicScale, minCost, vx, vy, endX, endY);
+        c.reached(v, h);
+        int secondKey;
+        if (tieBreaking != TieBreaking.CROSS_PRODUCT) {
+          secondKey = h;
+        } else {
+          secondKey = (int) Math.min(SearchContext.crossProduct(vx - endX, vy - endY, startDx, startDy), Integer.MAX_VALUE);
+        }
+        openList.insertOrDecrease(v, vCost + h, secondKey);
+      }
+      if (result == OVERFLOW) {
+        break;
+      }
+    }
+    searchMap = null;
+    searchNeighborsEnumerator = null;
+    searchHeuristic = null;
+    searchTieBreaking = null;
+    searchOpenList = null;
+    searchCellCosts = null;
+    return result;
+  }
+
+  /**
+   * Returns the open list of a search, a bucket queue when the heuristic is an integer and the ties do not matter
+   */
+  private IntOpenList openList(DistanceCalculator heuristic, TieBreaking tieBreaking) {
+    if (fixedOpenList != null) {
+      return fixedOpenList;
+    }
+    if (tieBreaking == TieBreaking.NONE
+            && (heuristic == DistanceCalculator.OCTILE_DISTANCE || heuristic == DistanceCalculator.MANHATTAN_DISTANCE)) {
+      if (bucketQueue == null) {
+        bucketQueue = new BucketQueue();
+      }
+      return bucketQueue;
+    }
+    if (heap == null) {
+      heap = new IndexedIntHeap();
+    }
+    return heap;
+  }
+
+  /**
+   * Returns the heuristic of a position with integer costs
+   */
+  private static int heuristic(DistanceCalculator heuristic, double heuristicScale, int minCost, int x, int y, int endX, int endY) {
+    int dx = Math.abs(endX - x);
+    int dy = Math.abs(endY - y);
+    long h;
+    if (heuristic == DistanceCalculator.OCTILE_DISTANCE) {
+      h = (long) minCost * (ORTHO_COST * Math.max(dx, dy) + (DIAGONAL_COST - ORTHO_COST) * Math.min(dx, dy));
+    } else if (heuristic == DistanceCalculator.MANHATTAN_DISTANCE) {
+      h = (long) minCost * ORTHO_COST * (dx + dy);
+    } else {
+      h = (long) (heuristicScale * heuristic.calculate(x, y, endX, endY));
+    }
+    return (int) Math.min(h, COST_LIMIT);
+  }
+
+  /**
+   * Build the path by going up the parents from the goal
+   *
+   * @param width The width of the map
+   * @param start The cell index of the start position
+   * @param goal  The cell index of the last position of the path
+   * @return The path, without the start position, its cost being the integer cost divided by {@link #ORTHO_COST}
+   */
+  GridPath buildPath(int width, int start, int goal) {
+    int[] parent = context.parent;
+    int length = 0;
+    for (int node = goal; node != start; node = parent[node]) {
+      length++;
+    }
+    int[] cells = new int[length];
+    for (int node = goal; node != start; node = parent[node]) {
+      cells[--length] = node;
+    }
+    return new GridPath(cells, width, cost[goal] / (double) ORTHO_COST);
+  }
+}
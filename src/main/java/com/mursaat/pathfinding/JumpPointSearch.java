@@ -0,0 +1,251 @@
+package com.mursaat.pathfinding;
+
+/**
+ * The Jump Point Search used by {@link SearchContext} when {@link SearchAlgorithm#JUMP_POINT_SEARCH} is selected.
+ * Instead of adding every neighbor in the open list, it scans along straight and diagonal lines and only
+ * adds the jump points, the positions where an optimal path may have to turn.
+ * The parent of a node is the previous jump point, {@link #buildPath} fills the positions in between.
+ * Diagonal movements follow the rule of {@link NeighborsEnumerator#ORTHO_DIAG_NEIGHBORS} : they are only
+ * allowed when both orthogonal positions are traversable.
+ */
+final class JumpPointSearch {
+
+  /**
+   * The context holding the search storage
+   */
+  private final SearchContext context;
+
+  /**
+   * The state of the current search, used by the jumps
+   */
+  private PathFinderMap map;
+  private BitGridMap bitMap;
+  private int width;
+  private int height;
+  private int goalX;
+  private int goalY;
+  private boolean diagonal;
+
+  JumpPointSearch(SearchContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Tell if Jump Point Search can be used with the given parameters
+   *
+   * @param params The parameters used to compute the path
+   * @return true if the movements allowed are supported, and all the positions have the same cost
+   */
+  static boolean supports(AStarParams params) {
+    NeighborsEnumerator neighborsEnumerator = params.getNeighborsEnumerator();
+    return (neighborsEnumerator == NeighborsEnumerator.ORTHO_NEIGHBORS
+            || neighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            && !(params.getMap() instanceof WeightedPathFinderMap);
+  }
+
+  /**
+   * Run the search loop on the jump points
+   *
+   * @param params The parameters used to compute the path
+   * @param start  The cell index of the start position
+   * @param goal   The cell index of the end position
+   * @return The goal index if it has been reached, {@link SearchContext#BUDGET_EXHAUSTED} if the search stopped
+   * on its budget, -1 otherwise
+   */
+  int search(AStarParams params, int start, int goal) {
+    map = params.getMap();
+    bitMap = map instanceof BitGridMap ? (BitGridMap) map : null;
+    width = map.getWidth();
+    height = map.getHeight();
+    goalX = goal % width;
+    goalY = goal / width;
+    diagonal = params.getNeighborsEnumerator() == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS;
+    DistanceCalculator heuristic = params.getHeuristic();
+
+    SearchContext c = context;
+    c.prepare(SearchContext.cellCount(map), 0);
+    c.visited[start] = c.generation;
+    c.cost[start] = 0;
+    c.parent[start] = -1;
+    c.openList.insertOrDecrease(start, 0);
+    c.countPush(false, false);
+
+    int result = -1;
+    while (!c.openList.isEmpty()) {
+      int u = c.openList.poll();
+      c.openNodes--;
+      if (u == goal) {
+        result = u;
+        break;
+      }
+      if (c.isBudgetExhausted()) {
+        result = SearchContext.BUDGET_EXHAUSTED;
+        break;
+      }
+      c.closed[u] = c.generation;
+      c.expandedNodes++;
+
+      int x = u % width;
+      int y = u / width;
+      int p = c.parent[u];
+      if (p < 0) {
+        addSuccessor(heuristic, u, x, y, 1, 0);
+        addSuccessor(heuristic, u, x, y, -1, 0);
+        addSuccessor(heuristic, u, x, y, 0, 1);
+        addSuccessor(heuristic, u, x, y, 0, -1);
+        if (diagonal) {
+          addSuccessor(heuristic, u, x, y, 1, 1);
+          addSuccessor(heuristic, u, x, y, 1, -1);
+          addSuccessor(heuristic, u, x, y, -1, 1);
+          addSuccessor(heuristic, u, x, y, -1, -1);
+        }
+        continue;
+      }
+
+      // Only the neighbors which can not be reached in a better way without passing through u
+      int dx = Integer.signum(x - p % width);
+      int dy = Integer.signum(y - p / width);
+      if (dx != 0 && dy != 0) {
+        addSuccessor(heuristic, u, x, y, dx, 0);
+        addSuccessor(heuristic, u, x, y, 0, dy);
+        addSuccessor(heuristic, u, x, y, dx, dy);
+      } else if (dx != 0) {
+        addSuccessor(heuristic, u, x, y, dx, 0);
+        addSuccessor(heuristic, u, x, y, 0, 1);
+        addSuccessor(heuristic, u, x, y, 0, -1);
+        if (diagonal) {
+          addSuccessor(heuristic, u, x, y, dx, 1);
+          addSuccessor(heuristic, u, x, y, dx, -1);
+        }
+      } else {
+        addSuccessor(heuristic, u, x, y, 0, dy);
+        addSuccessor(heuristic, u, x, y, 1, 0);
+        addSuccessor(heuristic, u, x, y, -1, 0);
+        if (diagonal) {
+          addSuccessor(heuristic, u, x, y, 1, dy);
+          addSuccessor(heuristic, u, x, y, -1, dy);
+        }
+      }
+    }
+    map = null;
+    bitMap = null;
+    return result;
+  }
+
+  /**
+   * Jump from a node in a direction, and add the jump point found in the open list
+   *
+   * @param heuristic The function used to estimate the distance to the end position
+   * @param u         The cell index of the node
+   * @param x         The x position of the node
+   * @param y         The y position of the node
+   * @param dx        The x direction
+   * @param dy        The y direction
+   */
+  private void addSuccessor(DistanceCalculator heuristic, int u, int x, int y, int dx, int dy) {
+    int jumpPoint = jump(x, y, dx, dy);
+    if (jumpPoint < 0) {
+      return;
+    }
+    SearchContext c = context;
+    int jx = jumpPoint % width;
+    int jy = jumpPoint / width;
+    int distX = Math.abs(jx - x);
+    int distY = Math.abs(jy - y);
+    double jumpCost = c.cost[u] + Math.min(distX, distY) * NeighborsEnumerator.SQRT_2 + Math.abs(distX - distY);
+    c.generatedNodes++;
+    boolean reached = c.visited[jumpPoint] == c.generation;
+    if (reached && c.cost[jumpPoint] <= jumpCost) {
+      return;
+    }
+    c.countPush(reached, reached && c.closed[jumpPoint] == c.generation);
+    c.visited[jumpPoint] = c.generation;
+    c.closed[jumpPoint] = 0;
+    c.cost[jumpPoint] = jumpCost;
+    c.parent[jumpPoint] = u;
+    double h = heuristic.calculate(jx, jy, goalX, goalY);
+    c.reached(jumpPoint, h);
+    c.openList.insertOrDecrease(jumpPoint, jumpCost + h);
+  }
+
+  /**
+   * Move from a position in a direction until a jump point is found
+   *
+   * @param x  The x position we come from
+   * @param y  The y position we come from
+   * @param dx The x direction
+   * @param dy The y direction
+   * @return The cell index of the jump point, -1 if there is none in this direction
+   */
+  private int jump(int x, int y, int dx, int dy) {
+    while (true) {
+      if (dx != 0 && dy != 0 && !(isFree(x + dx, y) && isFree(x, y + dy))) {
+        return -1;
+      }
+      x += dx;
+      y += dy;
+      if (!isFree(x, y)) {
+        return -1;
+      }
+      if (x == goalX && y == goalY) {
+        return y * width + x;
+      }
+
+      if (dx != 0 && dy != 0) {
+        // A diagonal stops where a straight line finds a jump point
+        if (jump(x, y, dx, 0) >= 0 || jump(x, y, 0, dy) >= 0) {
+          return y * width + x;
+        }
+      } else if (dx != 0) {
+        // An horizontal line stops when an obstacle behind disappears, giving a forced neighbor
+        if ((isFree(x, y - 1) && !isFree(x - dx, y - 1)) || (isFree(x, y + 1) && !isFree(x - dx, y + 1))) {
+          return y * width + x;
+        }
+      } else {
+        if ((isFree(x - 1, y) && !isFree(x - 1, y - dy)) || (isFree(x + 1, y) && !isFree(x + 1, y - dy))) {
+          return y * width + x;
+        }
+        // Without diagonals, a vertical line stops where an horizontal line finds a jump point
+        if (!diagonal && (jump(x, y, 1, 0) >= 0 || jump(x, y, -1, 0) >= 0)) {
+          return y * width + x;
+        }
+      }
+    }
+  }
+
+  private boolean isFree(int x, int y) {
+    if (x < 0 || y < 0 || x >= width || y >= height) {
+      return false;
+    }
+    return bitMap != null ? bitMap.isTraversable(x, y) : map.isTraversable(x, y);
+  }
+
+  /**
+   * Build the path by going up the jump points from the goal, and adding the positions in between
+   *
+   * @param width The width of the map
+   * @param start The cell index of the start position
+   * @param goal  The cell index of the end position
+   * @return The path, without the start position
+   */
+  GridPath buildPath(int width, int start, int goal) {
+    int[] parent = context.parent;
+    // Each jump moves in a straight line, its number of positions is its longest axis
+    int length = 0;
+    for (int node = goal; node != start; node = parent[node]) {
+      length += Math.max(Math.abs(parent[node] % width - node % width), Math.abs(parent[node] / width - node / width));
+    }
+    int[] cells = new int[length];
+    for (int node = goal; node != start; node = parent[node]) {
+      int x = node % width;
+      int y = node / width;
+      int px = parent[node] % width;
+      int py = parent[node] / width;
+      int step = Integer.signum(py - y) * width + Integer.signum(px - x);
+      for (int cell = node, end = parent[node]; cell != end; cell += step) {
+        cells[--length] = cell;
+      }
+    }
+    return new GridPath(cells, width, context.cost[goal]);
+  }
+}
@@ -0,0 +1,355 @@
+package com.mursaat.pathfinding;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A heuristic knowing the walls of a map, computed from the exact distances between a few landmarks and
+ * every position, the ALT method of Goldberg and Harrenstein.
+ * By the triangle inequality, the distance between two positions is at least the difference of their distances
+ * to any landmark : the heuristic is the largest of these differences. In a maze, it follows the corridors
+ * where the distance calculators go through the walls, and A* expands far less nodes.
+ * <p>
+ * The landmarks are chosen one after the other, each one as far as possible from the previous ones :
+ * building a heuristic costs one Dijkstra search of the whole map per landmark, and 4 bytes per position
+ * per landmark. Build it once with {@link #save}, then {@link #load} it at startup. When the map changes,
+ * the heuristic must be built again.
+ * <p>
+ * The searches must use the map and the movements the heuristic was built with. On a {@link WeightedPathFinderMap},
+ * the heuristic is weaker, since a move and its reverse do not cost the same.
+ * <p>
+ * The file is made of a header of 32 bytes, followed by the cell index (y * width + x) of each landmark as an int,
+ * then by the distances from each landmark to every position as floats, landmark after landmark and row after row.
+ * All the numbers are big-endian.
+ * <pre>
+ * offset  type  content
+ * 0       int   magic number 0x41534C4D ("ASLM")
+ * 4       int   version, 1
+ * 8       int   width
+ * 12      int   height
+ * 16      int   number of landmarks
+ * 20      -     reserved, 0
+ * </pre>
+ */
+public final class LandmarkHeuristic extends DistanceCalculator {
+
+  /**
+   * The magic number starting the files
+   */
+  public static final int MAGIC = 0x41534C4D;
+
+  /**
+   * The version of the format
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * The size of the header, in bytes
+   */
+  private static final int HEADER_SIZE = 32;
+
+  /**
+   * The relative error of a distance stored as a float, removed from the differences so they never
+   * exceed the exact distance
+   */
+  private static final double FLOAT_ERROR = 0x1p-23;
+
+  private final int width;
+
+  private final int height;
+
+  /**
+   * The cell index of each landmark
+   */
+  private final int[] landmarks;
+
+  /**
+   * The distance from each landmark to every position, infinite if the landmark can not be reached
+   */
+  private final float[][] distances;
+
+  /**
+   * Choose the landmarks of a map, and compute their distances to every position
+   *
+   * @param map                 The map of the searches
+   * @param neighborsEnumerator The movements of the searches, which must be symmetric
+   * @param landmarkCount       The number of landmarks, more landmarks giving a better heuristic
+   * @throws IllegalArgumentException If the map has more than Integer.MAX_VALUE cells
+   */
+  public LandmarkHeuristic(PathFinderMap map, NeighborsEnumerator neighborsEnumerator, int landmarkCount) {
+    if (landmarkCount <= 0) {
+      throw new IllegalArgumentException("The number of landmarks must be positive : " + landmarkCount);
+    }
+    this.width = map.getWidth();
+    this.height = map.getHeight();
+    int size = SearchContext.cellCount(map);
+
+    // The first landmark is the farthest position from the first traversable one after the center of the map,
+    // which is most likely in the largest area
+    int seed = -1;
+    for (int i = 0, center = (height / 2) * width + width / 2; i < size && seed < 0; i++) {
+      int cell = (center + i) % size;
+      if (map.isTraversable(cell % width, cell / width)) {
+        seed = cell;
+      }
+    }
+    if (seed < 0) {
+      throw new IllegalArgumentException("The map has no traversable position");
+    }
+    Dijkstra dijkstra = new Dijkstra(map, neighborsEnumerator);
+    float[] nearest = new float[size];
+    dijkstra.run(seed, nearest);
+
+    int[] chosen = new int[landmarkCount];
+    float[][] tables = new float[landmarkCount][];
+    int count = 0;
+    while (count < landmarkCount) {
+      int farthest = farthest(nearest);
+      if (farthest < 0) {
+        break;
+      }
+      chosen[count] = farthest;
+      tables[count] = new float[size];
+      dijkstra.run(farthest, tables[count]);
+      if (count == 0) {
+        Arrays.fill(nearest, Float.POSITIVE_INFINITY);
+      }
+      for (int i = 0; i < size; i++) {
+        nearest[i] = Math.min(nearest[i], tables[count][i]);
+      }
+      count++;
+    }
+    this.landmarks = Arrays.copyOf(chosen, count);
+    this.distances = Arrays.copyOf(tables, count);
+  }
+
+  private LandmarkHeuristic(int width, int height, int[] landmarks, float[][] distances) {
+    this.width = width;
+    this.height = height;
+    this.landmarks = landmarks;
+    this.distances = distances;
+  }
+
+  /**
+   * Returns the reachable position with the largest distance, -1 if every reachable position is a landmark
+   */
+  private static int farthest(float[] nearest) {
+    int farthest = -1;
+    float farthestDistance = 0;
+    for (int i = 0; i < nearest.length; i++) {
+      if (nearest[i] > farthestDistance && nearest[i] != Float.POSITIVE_INFINITY) {
+        farthestDistance = nearest[i];
+        farthest = i;
+      }
+    }
+    return farthest;
+  }
+
+  @Override
+  public double calculate(int x1, int y1, int x2, int y2) {
+    int a = y1 * width + x1;
+    int b = y2 * width + x2;
+    double best = 0;
+    for (float[] table : distances) {
+      float da = table[a];
+      float db = table[b];
+      // A position no landmark reaches gives no bound
+      if (da != Float.POSITIVE_INFINITY && db != Float.POSITIVE_INFINITY) {
+        double bound = Math.abs(da - db) - (da + db) * FLOAT_ERROR;
+        if (bound > best) {
+          best = bound;
+        }
+      }
+    }
+    return best;
+  }
+
+  public int getLandmarkCount() {
+    return landmarks.length;
+  }
+
+  /**
+   * Returns a landmark
+   *
+   * @param i The index of the landmark
+   * @return The position of the landmark
+   */
+  public PathNodePosition getLandmark(int i) {
+    return new PathNodePosition(landmarks[i] % width, landmarks[i] / width);
+  }
+
+  /**
+   * Write the landmarks and their distances in a file
+   *
+   * @param file The file to create
+   * @throws IOException If the file can not be written
+   */
+  public void save(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + 4 * landmarks.length);
+      header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(landmarks.length);
+      header.position(HEADER_SIZE);
+      header.asIntBuffer().put(landmarks);
+      header.position(header.capacity());
+      writeFully(channel, header);
+      ByteBuffer buffer = ByteBuffer.allocate(4 * width * height);
+      for (float[] table : distances) {
+        buffer.clear();
+        buffer.asFloatBuffer().put(table);
+        buffer.position(buffer.capacity());
+        writeFully(channel, buffer);
+      }
+    }
+  }
+
+  /**
+   * Read a heuristic written by {@link #save}
+   *
+   * @param file The file to read
+   * @return The heuristic
+   * @throws IOException If the file can not be read, or is not a landmark file
+   */
+  public static LandmarkHeuristic load(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      readFully(channel, header);
+      if (header.getInt(0) != MAGIC) {
+        throw new IOException("The file is not a landmark file");
+      }
+      if (header.getInt(4) != VERSION) {
+        throw new IOException("Unsupported landmark file version " + header.getInt(4));
+      }
+      int width = header.getInt(8);
+      int height = header.getInt(12);
+      int count = header.getInt(16);
+      if (width <= 0 || height <= 0 || count <= 0 || channel.size() != HEADER_SIZE + 4L * count * (1 + (long) width * height)) {
+        throw new IOException("The size of the landmark file does not match its header");
+      }
+
+      ByteBuffer buffer = ByteBuffer.allocate(4 * count);
+      readFully(channel, buffer);
+      int[] landmarks = new int[count];
+      buffer.asIntBuffer().get(landmarks);
+      buffer = ByteBuffer.allocate(4 * width * height);
+      float[][] distances = new float[count][width * height];
+      for (float[] table : distances) {
+        readFully(channel, buffer);
+        buffer.asFloatBuffer().get(table);
+      }
+      return new LandmarkHeuristic(width, height, landmarks, distances);
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.clear();
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("The landmark file is too short");
+      }
+    }
+    buffer.flip();
+  }
+
+  /**
+   * The Dijkstra search computing the distances of a landmark. On a {@link WeightedPathFinderMap}, a move costs
+   * the position it enters, so going back costs another price : each move is given the lowest of its two costs,
+   * which makes the distances symmetric and never greater than the real ones in either direction.
+   * The distances are divided by the minimum cost, since the searches multiply the heuristic by it.
+   */
+  private static final class Dijkstra {
+
+    private final PathFinderMap map;
+
+    private final WeightedPathFinderMap weightedMap;
+
+    private final NeighborsEnumerator neighborsEnumerator;
+
+    private final double scale;
+
+    private final double[] distances;
+
+    private final IndexedBinaryHeap openList = new IndexedBinaryHeap();
+
+    private final int[] neighbors;
+    private final double[] neighborCosts;
+    private final int[] reverseNeighbors;
+    private final double[] reverseCosts;
+
+    Dijkstra(PathFinderMap map, NeighborsEnumerator neighborsEnumerator) {
+      this.map = map;
+      this.weightedMap = map instanceof WeightedPathFinderMap ? (WeightedPathFinderMap) map : null;
+      this.neighborsEnumerator = neighborsEnumerator;
+      this.scale = weightedMap != null ? weightedMap.getMinCost() : 1;
+      this.distances = new double[SearchContext.cellCount(map)];
+      int maxNeighbors = neighborsEnumerator.getMaxNeighbors();
+      this.neighbors = new int[maxNeighbors];
+      this.neighborCosts = new double[maxNeighbors];
+      this.reverseNeighbors = new int[maxNeighbors];
+      this.reverseCosts = new double[maxNeighbors];
+    }
+
+    /**
+     * Compute the distances between a landmark and every position
+     *
+     * @param landmark The cell index of the landmark
+     * @param table    The array receiving the distances, infinite for the positions which can not be reached
+     */
+    void run(int landmark, float[] table) {
+      int width = map.getWidth();
+      Arrays.fill(distances, Double.POSITIVE_INFINITY);
+      openList.clear(distances.length);
+      distances[landmark] = 0;
+      openList.insertOrDecrease(landmark, 0);
+      while (!openList.isEmpty()) {
+        int u = openList.poll();
+        double uDistance = distances[u];
+        int count = neighborsEnumerator.enumerateNeighbors(map, u % width, u / width, neighbors, neighborCosts);
+        for (int i = 0; i < count; i++) {
+          int v = neighbors[i];
+          double vDistance = uDistance + (weightedMap != null ? Math.min(neighborCosts[i], moveCost(v, u)) : neighborCosts[i]);
+          if (vDistance < distances[v]) {
+            distances[v] = vDistance;
+            openList.insertOrDecrease(v, vDistance);
+          }
+        }
+      }
+      for (int i = 0; i < distances.length; i++) {
+        table[i] = (float) (distances[i] / scale);
+      }
+    }
+
+    /**
+     * Returns the cost of moving from a position to one of its neighbors, infinite if the move is not allowed
+     */
+    private double moveCost(int from, int to) {
+      int width = map.getWidth();
+      int fromX = from % width;
+      int fromY = from / width;
+      int toX = to % width;
+      int toY = to / width;
+      if (neighborsEnumerator == NeighborsEnumerator.ORTHO_NEIGHBORS || neighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS) {
+        double step = fromX != toX && fromY != toY ? NeighborsEnumerator.SQRT_2 : 1;
+        return step * weightedMap.getCost(toX, toY);
+      }
+      int count = neighborsEnumerator.enumerateNeighbors(map, fromX, fromY, reverseNeighbors, reverseCosts);
+      for (int i = 0; i < count; i++) {
+        if (reverseNeighbors[i] == to) {
+          return reverseCosts[i];
+        }
+      }
+      return Double.POSITIVE_INFINITY;
+    }
+  }
+}
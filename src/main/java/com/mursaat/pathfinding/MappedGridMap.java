@@ -0,0 +1,345 @@
+package com.mursaat.pathfinding;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A map read from a file mapped in memory, for maps which do not fit in the heap. A file with a cost section is
+ * opened as a {@link WeightedMappedGridMap}, the other ones as a map without costs.
+ * Opening the file does not read it : the operating system loads the pages when they are accessed,
+ * and shares them between all the processes which open the same file.
+ * <p>
+ * The file is made of a header of 64 bytes, followed by the traversability section and the optional cost section.
+ * All the numbers are big-endian.
+ * <pre>
+ * offset  type  content
+ * 0       int   magic number 0x4153474D ("ASGM")
+ * 4       int   version, 1
+ * 8       int   width
+ * 12      int   height
+ * 16      int   tile size T, a power of two between 8 and 4096
+ * 20      int   flags, bit 0 set if the cost section is present
+ * 24      long  offset of the traversability section
+ * 32      long  offset of the cost section, 0 if there is none
+ * 40      int   minimum cost of the traversable positions, at least 1, 0 if there is no cost section
+ * 44      -     reserved, 0
+ * </pre>
+ * The map is cut in tiles of T x T positions, the tiles on the right and bottom borders being padded.
+ * Both sections store the tiles one after the other, row of tiles by row of tiles.
+ * In the traversability section, a tile takes T * T / 8 bytes : the position (lx, ly) of the tile is the bit
+ * lx % 8 of the byte (ly * T + lx) / 8, set if the position is traversable.
+ * In the cost section, a tile takes T * T bytes : the position (lx, ly) of the tile is the unsigned byte ly * T + lx,
+ * between 1 and 255 for a traversable position and 0 for the other ones.
+ * <p>
+ * Use {@link #write} to create a file, and {@link #open} to load it.
+ */
+public class MappedGridMap implements PathFinderMap {
+
+  /**
+   * The magic number starting the files
+   */
+  public static final int MAGIC = 0x4153474D;
+
+  /**
+   * The version of the format
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * The tile size used when none is given
+   */
+  public static final int DEFAULT_TILE_SIZE = 64;
+
+  /**
+   * The size of the header, in bytes
+   */
+  private static final int HEADER_SIZE = 64;
+
+  /**
+   * The maximum number of bytes of a mapped buffer
+   */
+  private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+  private static final int FLAG_COSTS = 1;
+
+  private final int width;
+
+  private final int height;
+
+  /**
+   * log2 of the tile size
+   */
+  private final int tileShift;
+
+  private final int tileMask;
+
+  /**
+   * The number of tiles in a row of tiles
+   */
+  private final int tilesX;
+
+  /**
+   * The traversability section, split in buffers holding a whole number of tiles
+   */
+  private final MappedByteBuffer[] bitChunks;
+  private final int bitTileBytes;
+  private final long bitTilesPerChunk;
+
+  /**
+   * The cost section, null if there is none
+   */
+  private final MappedByteBuffer[] costChunks;
+  private final int costTileBytes;
+  private final long costTilesPerChunk;
+
+  /**
+   * Map the sections of a file whose header has been checked
+   *
+   * @param channel The file
+   * @param header  The header of the file
+   * @throws IOException If the file is too short for the size of the map
+   */
+  MappedGridMap(FileChannel channel, ByteBuffer header) throws IOException {
+    width = header.getInt(8);
+    height = header.getInt(12);
+    int tileSize = header.getInt(16);
+    checkTileSize(tileSize);
+    int flags = header.getInt(20);
+
+    tileShift = Integer.numberOfTrailingZeros(tileSize);
+    tileMask = tileSize - 1;
+    tilesX = (width + tileMask) >>> tileShift;
+    long tileCount = (long) tilesX * ((height + tileMask) >>> tileShift);
+
+    bitTileBytes = tileSize * tileSize / 8;
+    bitTilesPerChunk = MAX_CHUNK_SIZE / bitTileBytes;
+    bitChunks = mapSection(channel, header.getLong(24), tileCount, bitTileBytes, bitTilesPerChunk);
+
+    costTileBytes = tileSize * tileSize;
+    costTilesPerChunk = MAX_CHUNK_SIZE / costTileBytes;
+    costChunks = (flags & FLAG_COSTS) != 0
+            ? mapSection(channel, header.getLong(32), tileCount, costTileBytes, costTilesPerChunk)
+            : null;
+  }
+
+  /**
+   * Map a section of the file in buffers holding a whole number of tiles
+   */
+  private static MappedByteBuffer[] mapSection(FileChannel channel, long offset, long tileCount, int tileBytes, long tilesPerChunk) throws IOException {
+    if (offset + tileCount * tileBytes > channel.size()) {
+      throw new IOException("The file is too short for the size of the grid map");
+    }
+    MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((tileCount + tilesPerChunk - 1) / tilesPerChunk)];
+    for (int i = 0; i < chunks.length; i++) {
+      long tiles = Math.min(tilesPerChunk, tileCount - i * tilesPerChunk);
+      chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + i * tilesPerChunk * tileBytes, tiles * tileBytes);
+    }
+    return chunks;
+  }
+
+  /**
+   * Open a grid map file. Nothing is read except the header, whatever the size of the map.
+   *
+   * @param file The file written by {@link #write}
+   * @return The map, a {@link WeightedMappedGridMap} if the file has a cost section
+   * @throws IOException If the file can not be read or is not a grid map
+   */
+  public static MappedGridMap open(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0) {
+          throw new IOException("The file is too short to be a grid map");
+        }
+      }
+      header.flip();
+      if (header.getInt(0) != MAGIC) {
+        throw new IOException("The file is not a grid map");
+      }
+      if (header.getInt(4) != VERSION) {
+        throw new IOException("Unsupported grid map version " + header.getInt(4));
+      }
+      if ((header.getInt(20) & FLAG_COSTS) == 0) {
+        return new MappedGridMap(channel, header);
+      }
+      if (header.getInt(40) < 1) {
+        throw new IOException("The minimum cost of a grid map must be at least 1");
+      }
+      return new WeightedMappedGridMap(channel, header, header.getInt(40));
+    }
+  }
+
+  @Override
+  public boolean isTraversable(int x, int y) {
+    long tile = (long) (y >>> tileShift) * tilesX + (x >>> tileShift);
+    int position = ((y & tileMask) << tileShift) | (x & tileMask);
+    int offset = (int) (tile % bitTilesPerChunk) * bitTileBytes + (position >>> 3);
+    return (bitChunks[(int) (tile / bitTilesPerChunk)].get(offset) & (1 << (position & 7))) != 0;
+  }
+
+  /**
+   * Returns the cost stored for a position, the file having a cost section
+   *
+   * @param x The x position
+   * @param y The y position
+   * @return The cost, between 1 and 255 for a traversable position, 0 otherwise
+   */
+  int readCost(int x, int y) {
+    long tile = (long) (y >>> tileShift) * tilesX + (x >>> tileShift);
+    int position = ((y & tileMask) << tileShift) | (x & tileMask);
+    int offset = (int) (tile % costTilesPerChunk) * costTileBytes + position;
+    return costChunks[(int) (tile / costTilesPerChunk)].get(offset) & 0xFF;
+  }
+
+  /**
+   * Tell if the file has a cost section
+   *
+   * @return true if the costs are stored
+   */
+  public boolean hasCosts() {
+    return costChunks != null;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Gives the cost of the positions written by {@link #write}
+   */
+  public interface CostFunction {
+
+    /**
+     * Returns the cost of a position
+     *
+     * @param x The x position
+     * @param y The y position
+     * @return The cost, between 1 and 255 for a traversable position, ignored for the other ones
+     */
+    int getCost(int x, int y);
+  }
+
+  /**
+   * Write a map in a file with the default tile size.
+   * The costs of a weighted map are rounded between 1 and 255 and written in the cost section, other maps are
+   * written without costs.
+   *
+   * @param map  The map to write
+   * @param file The file to create
+   * @throws IOException If the file can not be written
+   */
+  public static void write(PathFinderMap map, File file) throws IOException {
+    CostFunction costs = null;
+    if (map instanceof WeightedPathFinderMap) {
+      final WeightedPathFinderMap weightedMap = (WeightedPathFinderMap) map;
+      costs = new CostFunction() {
+        @Override
+        public int getCost(int x, int y) {
+          return (int) Math.max(1, Math.min(255, Math.round(weightedMap.getCost(x, y))));
+        }
+      };
+    }
+    write(map, costs, DEFAULT_TILE_SIZE, file);
+  }
+
+  /**
+   * Write a map in a file. The map is read tile by tile, so it can be generated on the fly.
+   *
+   * @param map      The map to write
+   * @param costs    The costs of the positions, or null to write no cost section
+   * @param tileSize The tile size, a power of two between 8 and 4096
+   * @param file     The file to create
+   * @throws IOException If the file can not be written
+   * @throws IllegalArgumentException If the cost of a traversable position is not between 1 and 255
+   */
+  public static void write(PathFinderMap map, CostFunction costs, int tileSize, File file) throws IOException {
+    checkTileSize(tileSize);
+    int width = map.getWidth();
+    int height = map.getHeight();
+    int tilesX = (width + tileSize - 1) / tileSize;
+    int tilesY = (height + tileSize - 1) / tileSize;
+    long bitSectionSize = (long) tilesX * tilesY * tileSize * tileSize / 8;
+    int minCost = 255;
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(width);
+      out.writeInt(height);
+      out.writeInt(tileSize);
+      out.writeInt(costs != null ? FLAG_COSTS : 0);
+      out.writeLong(HEADER_SIZE);
+      out.writeLong(costs != null ? HEADER_SIZE + bitSectionSize : 0);
+      // The minimum cost is written once the cost section is done
+      out.write(new byte[HEADER_SIZE - 40]);
+
+      byte[] bitTile = new byte[tileSize * tileSize / 8];
+      for (int ty = 0; ty < tilesY; ty++) {
+        for (int tx = 0; tx < tilesX; tx++) {
+          Arrays.fill(bitTile, (byte) 0);
+          for (int ly = 0, y = ty * tileSize; ly < tileSize && y < height; ly++, y++) {
+            for (int lx = 0, x = tx * tileSize; lx < tileSize && x < width; lx++, x++) {
+              if (map.isTraversable(x, y)) {
+                int position = ly * tileSize + lx;
+                bitTile[position >>> 3] |= 1 << (position & 7);
+              }
+            }
+          }
+          out.write(bitTile);
+        }
+      }
+
+      if (costs != null) {
+        byte[] costTile = new byte[tileSize * tileSize];
+        for (int ty = 0; ty < tilesY; ty++) {
+          for (int tx = 0; tx < tilesX; tx++) {
+            Arrays.fill(costTile, (byte) 0);
+            for (int ly = 0, y = ty * tileSize; ly < tileSize && y < height; ly++, y++) {
+              for (int lx = 0, x = tx * tileSize; lx < tileSize && x < width; lx++, x++) {
+                if (!map.isTraversable(x, y)) {
+                  continue;
+                }
+                int cost = costs.getCost(x, y);
+                if (cost < 1 || cost > 255) {
+                  throw new IllegalArgumentException("The cost of the traversable position " + x + ", " + y
+                          + " must be between 1 and 255 : " + cost);
+                }
+                costTile[ly * tileSize + lx] = (byte) cost;
+                minCost = Math.min(minCost, cost);
+              }
+            }
+            out.write(costTile);
+          }
+        }
+      }
+    }
+
+    if (costs != null) {
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        raf.seek(40);
+        raf.writeInt(minCost);
+      }
+    }
+  }
+
+  private static void checkTileSize(int tileSize) throws IOException {
+    if (tileSize < 8 || tileSize > 4096 || Integer.bitCount(tileSize) != 1) {
+      throw new IOException("Invalid tile size " + tileSize);
+    }
+  }
+}
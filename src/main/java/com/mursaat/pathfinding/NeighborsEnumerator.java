@@ -17,10 +17,144 @@ public abstract class NeighborsEnumerator {
    */
   public abstract List<PathNode> enumerateNeighbors(PathFinderMap map, PathNode node);
 
+  /**
+   * Enumerates all neighbors of a position without allocating anything, used by {@link SearchContext}.
+   * Each neighbor is written as a cell index (y * width + x) with the cost to move to it.
+   * The default implementation relies on {@link #enumerateNeighbors(PathFinderMap, PathNode)},
+   * subclasses should override it to avoid the allocations.
+   *
+   * @param map       The map which describe which positions are accessible
+   * @param x         The x position
+   * @param y         The y position
+   * @param neighbors The array receiving the neighbors cell indexes, at least {@link #getMaxNeighbors()} long
+   * @param costs     The array receiving the cost to move to each neighbor, at least {@link #getMaxNeighbors()} long
+   * @return The number of neighbors written
+   */
+  public int enumerateNeighbors(PathFinderMap map, int x, int y, int[] neighbors, double[] costs) {
+    int width = map.getWidth();
+    int count = 0;
+    for (PathNode neighbor : enumerateNeighbors(map, new PathNode(new PathNodePosition(x, y), 0, 0))) {
+      neighbors[count] = neighbor.pos.y * width + neighbor.pos.x;
+      costs[count] = neighbor.cost;
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the maximum number of neighbors a position can have
+   *
+   * @return The maximum number of neighbors
+   */
+  public int getMaxNeighbors() {
+    return 8;
+  }
+
   public NeighborsEnumerator() {
 
   }
 
+  /**
+   * The bits of the neighborhood mask given by {@link BitGridMap#neighborhood}
+   */
+  private static final int NORTH_WEST = 1;
+  private static final int NORTH = 1 << 1;
+  private static final int NORTH_EAST = 1 << 2;
+  private static final int WEST = 1 << 3;
+  private static final int EAST = 1 << 5;
+  private static final int SOUTH_WEST = 1 << 6;
+  private static final int SOUTH = 1 << 7;
+  private static final int SOUTH_EAST = 1 << 8;
+
+  /**
+   * Write the neighbors from the mask of the traversable positions around a position,
+   * in the same order as the enumerators do
+   *
+   * @param around    The neighborhood mask, as given by {@link BitGridMap#neighborhood}
+   * @param diagonal  true to add the diagonal neighbors, when both orthogonal positions are traversable
+   * @param index     The cell index of the position
+   * @param width     The width of the map
+   * @param neighbors The array receiving the neighbors cell indexes
+   * @param costs     The array receiving the cost to move to each neighbor
+   * @return The number of neighbors written
+   */
+  private static int decodeNeighborhood(int around, boolean diagonal, int index, int width, int[] neighbors, double[] costs) {
+    int count = 0;
+    if ((around & WEST) != 0) {
+      neighbors[count] = index - 1;
+      costs[count++] = 1;
+    }
+    if ((around & EAST) != 0) {
+      neighbors[count] = index + 1;
+      costs[count++] = 1;
+    }
+    if ((around & NORTH) != 0) {
+      neighbors[count] = index - width;
+      costs[count++] = 1;
+    }
+    if ((around & SOUTH) != 0) {
+      neighbors[count] = index + width;
+      costs[count++] = 1;
+    }
+    if (diagonal) {
+      if ((around & (WEST | NORTH | NORTH_WEST)) == (WEST | NORTH | NORTH_WEST)) {
+        neighbors[count] = index - width - 1;
+        costs[count++] = SQRT_2;
+      }
+      if ((around & (WEST | SOUTH | SOUTH_WEST)) == (WEST | SOUTH | SOUTH_WEST)) {
+        neighbors[count] = index + width - 1;
+        costs[count++] = SQRT_2;
+      }
+      if ((around & (EAST | NORTH | NORTH_EAST)) == (EAST | NORTH | NORTH_EAST)) {
+        neighbors[count] = index - width + 1;
+        costs[count++] = SQRT_2;
+      }
+      if ((around & (EAST | SOUTH | SOUTH_EAST)) == (EAST | SOUTH | SOUTH_EAST)) {
+        neighbors[count] = index + width + 1;
+        costs[count++] = SQRT_2;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Multiply the cost of the moves written by the cost of their destination, when the map is weighted
+   *
+   * @param map       The map which describe which positions are accessible
+   * @param count     The number of neighbors written
+   * @param neighbors The neighbors cell indexes
+   * @param costs     The cost to move to each neighbor, updated
+   * @return The number of neighbors written
+   */
+  private static int applyCellCosts(PathFinderMap map, int count, int[] neighbors, double[] costs) {
+    if (map instanceof WeightedGridMap) {
+      byte[] cellCosts = ((WeightedGridMap) map).getCosts();
+      for (int i = 0; i < count; i++) {
+        costs[i] *= cellCosts[neighbors[i]] & 0xFF;
+      }
+    } else if (map instanceof WeightedPathFinderMap) {
+      WeightedPathFinderMap weightedMap = (WeightedPathFinderMap) map;
+      int width = map.getWidth();
+      for (int i = 0; i < count; i++) {
+        costs[i] *= weightedMap.getCost(neighbors[i] % width, neighbors[i] / width);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the cost of a move to a position, multiplied by the cost of the position when the map is weighted
+   *
+   * @param map  The map which describe which positions are accessible
+   * @param x    The x position of the destination
+   * @param y    The y position of the destination
+   * @param step The cost of the move without weight
+   * @return The cost of the move
+   */
+  private static double moveCost(PathFinderMap map, int x, int y, double step) {
+    return map instanceof WeightedPathFinderMap ? step * ((WeightedPathFinderMap) map).getCost(x, y) : step;
+  }
+
   /**
    * Returns the neighbors in these directions : NORTH, SOUTH, EAST, WEST
    */
@@ -31,22 +165,56 @@ public abstract class NeighborsEnumerator {
       PathNodePosition pos = node.pos;
 
       if (pos.x != 0 && map.isTraversable(pos.x - 1, pos.y))
-        neighbors.add(new PathNode(new PathNodePosition(pos.x - 1, pos.y), node.cost + 1, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x - 1, pos.y), node.cost + moveCost(map, pos.x - 1, pos.y, 1), 0));
       if (pos.x != map.getWidth() - 1 && map.isTraversable(pos.x + 1, pos.y))
-        neighbors.add(new PathNode(new PathNodePosition(pos.x + 1, pos.y), node.cost + 1, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x + 1, pos.y), node.cost + moveCost(map, pos.x + 1, pos.y, 1), 0));
       if (pos.y != 0 && map.isTraversable(pos.x, pos.y - 1))
-        neighbors.add(new PathNode(new PathNodePosition(pos.x, pos.y - 1), node.cost + 1, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x, pos.y - 1), node.cost + moveCost(map, pos.x, pos.y - 1, 1), 0));
       if (pos.y != map.getHeight() - 1 && map.isTraversable(pos.x, pos.y + 1))
-        neighbors.add(new PathNode(new PathNodePosition(pos.x, pos.y + 1), node.cost + 1, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x, pos.y + 1), node.cost + moveCost(map, pos.x, pos.y + 1, 1), 0));
 
       return neighbors;
     }
+
+    @Override
+    public int enumerateNeighbors(PathFinderMap map, int x, int y, int[] neighbors, double[] costs) {
+      int width = map.getWidth();
+      if (map instanceof BitGridMap) {
+        return decodeNeighborhood(((BitGridMap) map).neighborhood(x, y), false, y * width + x, width, neighbors, costs);
+      }
+      int index = y * width + x;
+      int count = 0;
+
+      if (x != 0 && map.isTraversable(x - 1, y)) {
+        neighbors[count] = index - 1;
+        costs[count++] = 1;
+      }
+      if (x != width - 1 && map.isTraversable(x + 1, y)) {
+        neighbors[count] = index + 1;
+        costs[count++] = 1;
+      }
+      if (y != 0 && map.isTraversable(x, y - 1)) {
+        neighbors[count] = index - width;
+        costs[count++] = 1;
+      }
+      if (y != map.getHeight() - 1 && map.isTraversable(x, y + 1)) {
+        neighbors[count] = index + width;
+        costs[count++] = 1;
+      }
+
+      return applyCellCosts(map, count, neighbors, costs);
+    }
+
+    @Override
+    public int getMaxNeighbors() {
+      return 4;
+    }
   };
 
   /**
    * The square root of 2, used in {@link NeighborsEnumerator#ORTHO_DIAG_NEIGHBORS}
    */
-  private static final double SQRT_2 = 1.41421356237d;
+  static final double SQRT_2 = 1.41421356237d;
 
   /**
    * Returns the neighbors in these directions : N, S, E, W, NE, NO, SE, SO
@@ -64,33 +232,88 @@ public abstract class NeighborsEnumerator {
       boolean west = false;
 
       if (pos.x != 0 && map.isTraversable(pos.x - 1, pos.y)) {
-        neighbors.add(new PathNode(new PathNodePosition(pos.x - 1, pos.y), node.cost + 1, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x - 1, pos.y), node.cost + moveCost(map, pos.x - 1, pos.y, 1), 0));
         west = true;
       }
       if (pos.x != map.getWidth() - 1 && map.isTraversable(pos.x + 1, pos.y)) {
-        neighbors.add(new PathNode(new PathNodePosition(pos.x + 1, pos.y), node.cost + 1, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x + 1, pos.y), node.cost + moveCost(map, pos.x + 1, pos.y, 1), 0));
         east = true;
       }
       if (pos.y != 0 && map.isTraversable(pos.x, pos.y - 1)) {
-        neighbors.add(new PathNode(new PathNodePosition(pos.x, pos.y - 1), node.cost + 1, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x, pos.y - 1), node.cost + moveCost(map, pos.x, pos.y - 1, 1), 0));
         north = true;
       }
       if (pos.y != map.getHeight() - 1 && map.isTraversable(pos.x, pos.y + 1)) {
-        neighbors.add(new PathNode(new PathNodePosition(pos.x, pos.y + 1), node.cost + 1, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x, pos.y + 1), node.cost + moveCost(map, pos.x, pos.y + 1, 1), 0));
         south = true;
       }
 
       if (west && north && map.isTraversable(pos.x - 1, pos.y - 1))
-        neighbors.add(new PathNode(new PathNodePosition(pos.x - 1, pos.y - 1), node.cost + SQRT_2, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x - 1, pos.y - 1), node.cost + moveCost(map, pos.x - 1, pos.y - 1, SQRT_2), 0));
       if (west && south && map.isTraversable(pos.x - 1, pos.y + 1))
-        neighbors.add(new PathNode(new PathNodePosition(pos.x - 1, pos.y + 1), node.cost + SQRT_2, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x - 1, pos.y + 1), node.cost + moveCost(map, pos.x - 1, pos.y + 1, SQRT_2), 0));
       if (east && north && map.isTraversable(pos.x + 1, pos.y - 1))
-        neighbors.add(new PathNode(new PathNodePosition(pos.x + 1, pos.y - 1), node.cost + SQRT_2, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x + 1, pos.y - 1), node.cost + moveCost(map, pos.x + 1, pos.y - 1, SQRT_2), 0));
       if (east && south && map.isTraversable(pos.x + 1, pos.y + 1))
-        neighbors.add(new PathNode(new PathNodePosition(pos.x + 1, pos.y + 1), node.cost + SQRT_2, 0));
+        neighbors.add(new PathNode(new PathNodePosition(pos.x + 1, pos.y + 1), node.cost + moveCost(map, pos.x + 1, pos.y + 1, SQRT_2), 0));
 
       return neighbors;
     }
+
+    @Override
+    public int enumerateNeighbors(PathFinderMap map, int x, int y, int[] neighbors, double[] costs) {
+      int width = map.getWidth();
+      if (map instanceof BitGridMap) {
+        return decodeNeighborhood(((BitGridMap) map).neighborhood(x, y), true, y * width + x, width, neighbors, costs);
+      }
+      int index = y * width + x;
+      int count = 0;
+
+      boolean north = false;
+      boolean south = false;
+      boolean east = false;
+      boolean west = false;
+
+      if (x != 0 && map.isTraversable(x - 1, y)) {
+        neighbors[count] = index - 1;
+        costs[count++] = 1;
+        west = true;
+      }
+      if (x != width - 1 && map.isTraversable(x + 1, y)) {
+        neighbors[count] = index + 1;
+        costs[count++] = 1;
+        east = true;
+      }
+      if (y != 0 && map.isTraversable(x, y - 1)) {
+        neighbors[count] = index - width;
+        costs[count++] = 1;
+        north = true;
+      }
+      if (y != map.getHeight() - 1 && map.isTraversable(x, y + 1)) {
+        neighbors[count] = index + width;
+        costs[count++] = 1;
+        south = true;
+      }
+
+      if (west && north && map.isTraversable(x - 1, y - 1)) {
+        neighbors[count] = index - width - 1;
+        costs[count++] = SQRT_2;
+      }
+      if (west && south && map.isTraversable(x - 1, y + 1)) {
+        neighbors[count] = index + width - 1;
+        costs[count++] = SQRT_2;
+      }
+      if (east && north && map.isTraversable(x + 1, y - 1)) {
+        neighbors[count] = index - width + 1;
+        costs[count++] = SQRT_2;
+      }
+      if (east && south && map.isTraversable(x + 1, y + 1)) {
+        neighbors[count] = index + width + 1;
+        costs[count++] = SQRT_2;
+      }
+
+      return applyCellCosts(map, count, neighbors, costs);
+    }
   };
 
 }
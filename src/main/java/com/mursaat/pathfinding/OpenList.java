@@ -0,0 +1,58 @@
+package com.mursaat.pathfinding;
+
+/**
+ * The set of nodes waiting to be expanded by {@link SearchContext}, ordered by their estimated cost.
+ * Nodes are identified by their cell index (y * width + x).
+ * Implementations can be given to {@link SearchContext#SearchContext(OpenList)}, to compare them for instance.
+ */
+public interface OpenList {
+
+  /**
+   * Remove all the nodes, before starting a new search
+   *
+   * @param capacity The number of cells of the map, every node index will be lower than it
+   */
+  void clear(int capacity);
+
+  /**
+   * Tell if there is no more node to expand
+   *
+   * @return true if the open list is empty
+   */
+  boolean isEmpty();
+
+  /**
+   * Returns the number of nodes in the open list
+   *
+   * @return The number of nodes
+   */
+  int size();
+
+  /**
+   * Add a node in the open list, or update its key if it is already in
+   * The key of a node already in the open list can only decrease
+   *
+   * @param node The cell index of the node
+   * @param key  The estimated cost of the path passing through the node
+   */
+  void insertOrDecrease(int node, double key);
+
+  /**
+   * Add a node in the open list, or update its keys if it is already in, the nodes of the same key being ordered
+   * by their second key. The open lists which do not override it ignore the second key.
+   *
+   * @param node      The cell index of the node
+   * @param key       The estimated cost of the path passing through the node
+   * @param secondKey The key ordering the nodes of the same estimated cost, see {@link TieBreaking}
+   */
+  default void insertOrDecrease(int node, double key, double secondKey) {
+    insertOrDecrease(node, key);
+  }
+
+  /**
+   * Remove the node with the lowest key from the open list
+   *
+   * @return The cell index of the node
+   */
+  int poll();
+}
@@ -0,0 +1,545 @@
+package com.mursaat.pathfinding;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache in front of {@link AStar#search}, for the queries which are asked again and again.
+ * The paths are keyed on the map, the start and end positions, the neighbors enumerator, the heuristic,
+ * the algorithm, the integer costs, the tie-breaking and the heuristic weight. When no path starts on the requested
+ * position, a cached path to the same end position which goes through it gives its tail, which is a shortest path too.
+ * The tails of the paths found with a heuristic weight or {@link SearchAlgorithm#ANYTIME_A_STAR} are not used,
+ * since they may be further from the shortest paths than the bound of their path.
+ * <p>
+ * The cache does not know when a map changes : {@link #invalidate} must be called after each change, and a path
+ * computed while the map was changed is not kept. The least recently used paths are evicted once the cached
+ * positions exceed the capacity, and a path heavier than the whole capacity is not kept. The maps are only weakly
+ * referenced : the paths of a map which is not used anymore are removed once it is garbage collected.
+ * <p>
+ * The cache can be shared by many threads. It is split in segments, each one with its own lock, chosen by the
+ * start and end positions of the query, so the queries to a popular end position do not wait for each other.
+ * The paths are copied for the caller outside of the locks.
+ */
+public final class PathCache {
+
+  /**
+   * The positions counted for each cached path besides its own positions, for the memory of the entry
+   */
+  private static final int ENTRY_WEIGHT = 8;
+
+  /**
+   * The number of positions of the cached paths above which paths are evicted
+   */
+  private final long capacity;
+
+  private final Segment[] segments;
+
+  /**
+   * The number of positions of the cached paths, in all the segments
+   */
+  private final AtomicLong weight = new AtomicLong();
+
+  /**
+   * The found paths of each end position whose tails can be used, the start position of their key being -1.
+   * The arrays are replaced, never modified, so they are read without lock.
+   */
+  private final ConcurrentHashMap<Key, Entry[]> groups = new ConcurrentHashMap<>();
+
+  /**
+   * The reference of each map, found with a {@link MapLookup}
+   */
+  private final ConcurrentHashMap<Object, MapReference> mapReferences = new ConcurrentHashMap<>();
+
+  /**
+   * The references of the maps which have been garbage collected
+   */
+  private final ReferenceQueue<PathFinderMap> collectedMaps = new ReferenceQueue<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong subPathHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Create a cache with 16 segments
+   *
+   * @param capacity The number of positions of the cached paths above which paths are evicted
+   */
+  public PathCache(int capacity) {
+    this(capacity, 16);
+  }
+
+  /**
+   * Create a cache
+   *
+   * @param capacity     The number of positions of the cached paths above which paths are evicted
+   * @param segmentCount The number of segments, the number of threads which can use the cache at the same time
+   */
+  public PathCache(int capacity, int segmentCount) {
+    if (capacity <= 0 || segmentCount <= 0) {
+      throw new IllegalArgumentException("The capacity and the number of segments must be positive : " + capacity + ", " + segmentCount);
+    }
+    this.capacity = capacity;
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment();
+    }
+  }
+
+  /**
+   * Returns the path of a query from the cache, or compute it with {@link AStar#search} and keep it.
+   * Only the complete results are kept : a path found, or no path when the end position is unreachable.
+   *
+   * @param params The parameters used to compute the path
+   * @return A new LinkedList containing all positions in the shortest path, without the start position
+   * @throws IllegalArgumentException If the map has more than Integer.MAX_VALUE cells
+   */
+  public LinkedList<PathNodePosition> findPath(AStarParams params) {
+    expungeCollectedMaps();
+    PathFinderMap map = params.getMap();
+    // The cells are indexed by an int
+    SearchContext.cellCount(map);
+    int width = map.getWidth();
+    MapReference mapReference = mapReference(map, true);
+    Key key = new Key(mapReference, params.getStartPos().y * width + params.getStartPos().x,
+            params.getEndPos().y * width + params.getEndPos().x, params.getNeighborsEnumerator(), params.getHeuristic(),
+            params.getAlgorithm(), params.hasIntegerCosts(), params.getTieBreaking(), params.getHeuristicWeight());
+    int segmentIndex = segmentIndex(key);
+    Segment segment = segments[segmentIndex];
+
+    Entry entry;
+    synchronized (segment) {
+      entry = segment.entries.get(key);
+    }
+    if (entry != null) {
+      hits.incrementAndGet();
+      return entry.toPath(0, width);
+    }
+    Entry[] group = key.isOptimal() ? groups.get(key.group()) : null;
+    if (group != null) {
+      for (Entry other : group) {
+        int offset = other.removed ? -1 : other.indexOf(key.start);
+        if (offset >= 0) {
+          Segment otherSegment = segments[segmentIndex(other.key)];
+          synchronized (otherSegment) {
+            // Mark the path as recently used
+            otherSegment.entries.get(other.key);
+          }
+          subPathHits.incrementAndGet();
+          return other.toPath(offset, width);
+        }
+      }
+    }
+    long version = mapReference.version.get();
+
+    misses.incrementAndGet();
+    SearchResult result = AStar.search(params);
+    if (result.getStatus() != SearchResult.Status.BUDGET_EXHAUSTED) {
+      entry = new Entry(key, result.isFound() ? toCells(key.start, result.getGridPath()) : null);
+      if (entry.weight() <= capacity) {
+        synchronized (segment) {
+          if (mapReference.version.get() == version) {
+            Entry previous = segment.entries.put(key, entry);
+            if (previous != null) {
+              removed(previous);
+            }
+            added(entry);
+          }
+        }
+        evict(segmentIndex, entry);
+      }
+    }
+    return result.getPath();
+  }
+
+  /**
+   * Tell that a map has changed : its cached paths are removed, and the paths being computed are not kept
+   *
+   * @param map The map which changed
+   */
+  public void invalidate(PathFinderMap map) {
+    expungeCollectedMaps();
+    MapReference mapReference = mapReference(map, false);
+    if (mapReference != null) {
+      mapReference.version.incrementAndGet();
+      removeEntries(mapReference);
+    }
+  }
+
+  /**
+   * Remove all the cached paths
+   */
+  public void clear() {
+    expungeCollectedMaps();
+    for (MapReference mapReference : mapReferences.values()) {
+      mapReference.version.incrementAndGet();
+    }
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        for (Entry entry : segment.entries.values()) {
+          removed(entry);
+        }
+        segment.entries.clear();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of cached queries
+   *
+   * @return The number of queries
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.entries.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of queries answered by a path of the same query
+   *
+   * @return The number of hits
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of queries answered by the tail of a path going through their start position
+   *
+   * @return The number of hits
+   */
+  public long getSubPathHits() {
+    return subPathHits.get();
+  }
+
+  /**
+   * Returns the number of queries which had to be computed
+   *
+   * @return The number of misses
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  private int segmentIndex(Key key) {
+    return (key.hashCode() & 0x7FFFFFFF) % segments.length;
+  }
+
+  /**
+   * Count a path put in the entries of its segment, whose lock is held, and add it to its group
+   */
+  private void added(Entry entry) {
+    weight.addAndGet(entry.weight());
+    if (entry.cells != null && entry.key.isOptimal()) {
+      Key group = entry.key.group();
+      synchronized (groups) {
+        Entry[] paths = groups.get(group);
+        if (paths == null) {
+          paths = new Entry[]{entry};
+        } else {
+          paths = Arrays.copyOf(paths, paths.length + 1);
+          paths[paths.length - 1] = entry;
+        }
+        groups.put(group, paths);
+      }
+    }
+  }
+
+  /**
+   * Forget a path removed from the entries of its segment, whose lock is held
+   */
+  private void removed(Entry entry) {
+    entry.removed = true;
+    weight.addAndGet(-entry.weight());
+    if (entry.cells != null && entry.key.isOptimal()) {
+      Key group = entry.key.group();
+      synchronized (groups) {
+        Entry[] paths = groups.get(group);
+        int index = paths == null ? -1 : Arrays.asList(paths).indexOf(entry);
+        if (index < 0) {
+          return;
+        }
+        if (paths.length == 1) {
+          groups.remove(group);
+        } else {
+          Entry[] remaining = new Entry[paths.length - 1];
+          System.arraycopy(paths, 0, remaining, 0, index);
+          System.arraycopy(paths, index + 1, remaining, index, remaining.length - index);
+          groups.put(group, remaining);
+        }
+      }
+    }
+  }
+
+  /**
+   * Evict the least recently used paths until the cached positions fit in the capacity, from the segment of the
+   * path just added first, then from the next ones
+   *
+   * @param firstSegment The index of the segment of the path just added
+   * @param added        The path just added, which is not evicted
+   */
+  private void evict(int firstSegment, Entry added) {
+    for (int i = 0; i < segments.length && weight.get() > capacity; i++) {
+      Segment segment = segments[(firstSegment + i) % segments.length];
+      synchronized (segment) {
+        Iterator<Entry> eldest = segment.entries.values().iterator();
+        while (weight.get() > capacity && eldest.hasNext()) {
+          Entry evicted = eldest.next();
+          if (evicted != added) {
+            eldest.remove();
+            removed(evicted);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove the cached paths of a map
+   */
+  private void removeEntries(MapReference mapReference) {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        Iterator<Entry> iterator = segment.entries.values().iterator();
+        while (iterator.hasNext()) {
+          Entry entry = iterator.next();
+          if (entry.key.map == mapReference) {
+            iterator.remove();
+            removed(entry);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the reference of a map
+   *
+   * @param map    The map
+   * @param create true to create the reference if the map has none
+   * @return The reference, null if the map has none and it is not created
+   */
+  private MapReference mapReference(PathFinderMap map, boolean create) {
+    MapReference reference = mapReferences.get(new MapLookup(map));
+    if (reference == null && create) {
+      MapReference created = new MapReference(map, collectedMaps);
+      reference = mapReferences.putIfAbsent(created, created);
+      if (reference == null) {
+        reference = created;
+      }
+    }
+    return reference;
+  }
+
+  /**
+   * Remove the references and the paths of the maps which have been garbage collected
+   */
+  private void expungeCollectedMaps() {
+    Reference<? extends PathFinderMap> collected;
+    while ((collected = collectedMaps.poll()) != null) {
+      mapReferences.remove(collected);
+      removeEntries((MapReference) collected);
+    }
+  }
+
+  /**
+   * Returns the cell indexes of a path, starting with its start position
+   */
+  private static int[] toCells(int start, GridPath path) {
+    int[] cells = new int[path.length() + 1];
+    cells[0] = start;
+    for (int i = 0; i < path.length(); i++) {
+      cells[i + 1] = path.getCell(i);
+    }
+    return cells;
+  }
+
+  /**
+   * The cached paths sharing a lock
+   */
+  private static final class Segment {
+
+    /**
+     * The cached paths, the least recently used first
+     */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * A cached result, the cells of the path found or null if the end position is unreachable
+   */
+  private static final class Entry {
+
+    private final Key key;
+
+    private final int[] cells;
+
+    /**
+     * Set once the path is removed from its segment, so the groups read without lock skip it
+     */
+    private volatile boolean removed;
+
+    Entry(Key key, int[] cells) {
+      this.key = key;
+      this.cells = cells;
+    }
+
+    int weight() {
+      return ENTRY_WEIGHT + (cells != null ? cells.length : 0);
+    }
+
+    /**
+     * Returns the index of a cell in the path, -1 if the path does not go through it
+     */
+    int indexOf(int cell) {
+      // The end position is not a start position : its path would be empty, and is not cached
+      for (int i = 0; i < cells.length - 1; i++) {
+        if (cells[i] == cell) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Returns a new path starting after a cell of the path
+     */
+    LinkedList<PathNodePosition> toPath(int offset, int width) {
+      LinkedList<PathNodePosition> path = new LinkedList<>();
+      if (cells != null) {
+        for (int i = offset + 1; i < cells.length; i++) {
+          path.add(new PathNodePosition(cells[i] % width, cells[i] / width));
+        }
+      }
+      return path;
+    }
+  }
+
+  /**
+   * A weak reference to a map, the same one for all the keys of the map, with the number of its invalidations.
+   * Two references are equal if they are the same, or if they still refer to the same map.
+   */
+  private static final class MapReference extends WeakReference<PathFinderMap> {
+
+    private final int hash;
+
+    private final AtomicLong version = new AtomicLong();
+
+    MapReference(PathFinderMap map, ReferenceQueue<PathFinderMap> queue) {
+      super(map, queue);
+      hash = System.identityHashCode(map);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) return true;
+      if (!(o instanceof MapReference)) return false;
+      PathFinderMap map = get();
+      return map != null && map == ((MapReference) o).get();
+    }
+  }
+
+  /**
+   * Find the reference of a map in {@link #mapReferences} without creating one : the maps are compared with the
+   * referent of the references, by identity
+   */
+  private static final class MapLookup {
+
+    private final PathFinderMap map;
+
+    MapLookup(PathFinderMap map) {
+      this.map = map;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(map);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof MapReference && ((MapReference) o).get() == map;
+    }
+  }
+
+  /**
+   * The key of a query, the map being compared by identity
+   */
+  private static final class Key {
+
+    private final MapReference map;
+    private final int start;
+    private final int end;
+    private final NeighborsEnumerator neighborsEnumerator;
+    private final DistanceCalculator heuristic;
+    private final SearchAlgorithm algorithm;
+    private final boolean integerCosts;
+    private final TieBreaking tieBreaking;
+    private final double heuristicWeight;
+
+    Key(MapReference map, int start, int end, NeighborsEnumerator neighborsEnumerator, DistanceCalculator heuristic,
+        SearchAlgorithm algorithm, boolean integerCosts, TieBreaking tieBreaking, double heuristicWeight) {
+      this.map = map;
+      this.start = start;
+      this.end = end;
+      this.neighborsEnumerator = neighborsEnumerator;
+      this.heuristic = heuristic;
+      this.algorithm = algorithm;
+      this.integerCosts = integerCosts;
+      this.tieBreaking = tieBreaking;
+      this.heuristicWeight = heuristicWeight;
+    }
+
+    /**
+     * Tell if the paths of the key are the shortest ones, so their tails are shortest paths too
+     */
+    boolean isOptimal() {
+      return heuristicWeight == 1 && algorithm != SearchAlgorithm.ANYTIME_A_STAR;
+    }
+
+    /**
+     * Returns the key of the paths ending on the same position
+     */
+    Key group() {
+      return new Key(map, -1, end, neighborsEnumerator, heuristic, algorithm, integerCosts, tieBreaking, heuristicWeight);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = map.hashCode();
+      hash = 31 * hash + end;
+      hash = 31 * hash + System.identityHashCode(neighborsEnumerator);
+      hash = 31 * hash + System.identityHashCode(heuristic);
+      hash = 31 * hash + algorithm.ordinal();
+      hash = 31 * hash + tieBreaking.ordinal();
+      hash = 31 * hash + Double.hashCode(heuristicWeight);
+      hash = 2 * hash + (integerCosts ? 1 : 0);
+      return 31 * hash + start;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) return false;
+      Key that = (Key) o;
+      return map == that.map && start == that.start && end == that.end && neighborsEnumerator == that.neighborsEnumerator
+              && heuristic == that.heuristic && algorithm == that.algorithm && integerCosts == that.integerCosts
+              && tieBreaking == that.tieBreaking && heuristicWeight == that.heuristicWeight;
+    }
+  }
+}
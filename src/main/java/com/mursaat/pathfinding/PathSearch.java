@@ -0,0 +1,278 @@
+package com.mursaat.pathfinding;
+
+import java.util.LinkedList;
+
+/**
+ * An A* search run a few nodes at a time, so an expensive search can be spread over several frames.
+ * The open and closed nodes are kept between two calls of {@link #step}, in a {@link SearchContext} which
+ * must not be used by anything else until the search is finished.
+ * The map must not change until the search is finished, and the search is always done with A*,
+ * whatever the algorithm of the parameters, weighted by {@link AStarParams#getHeuristicWeight()}. It is the same
+ * A* as {@link AStar#search} runs, with integer costs when they are asked or when the costs are integers already,
+ * so both return the same path.
+ * Of the budgets of the parameters, only the number of expanded nodes is used : the time spent is decided by the
+ * number of nodes given to each step.
+ * <p>
+ * The flood fill of {@link AStarParams#mustCheckPosSameArea()} could visit the whole map in one step, so it is not
+ * done : only the areas of {@link AStarParams#setConnectedComponents} are checked, and an unreachable end
+ * position is otherwise found by the search itself, a few nodes at a time.
+ *
+ * @see PathSearchScheduler
+ */
+public final class PathSearch {
+
+  /**
+   * The state of a search
+   */
+  public enum Status {
+    /**
+     * The search must be stepped again
+     */
+    IN_PROGRESS,
+    /**
+     * A path to the end position has been found, the shortest one when the heuristic is not weighted
+     */
+    FOUND,
+    /**
+     * There is no path to the end position
+     */
+    UNREACHABLE,
+    /**
+     * The search expanded the number of nodes allowed by its parameters, the path leads to
+     * the position closest to the end position according to the heuristic
+     */
+    BUDGET_EXHAUSTED
+  }
+
+  private final AStarParams params;
+
+  private final int width;
+
+  private final int start;
+
+  private final int goal;
+
+  /**
+   * The storage of the search, null once the search has been released
+   */
+  private SearchContext context;
+
+  private Status status = Status.IN_PROGRESS;
+
+  private boolean started = false;
+
+  /**
+   * Tell if the search is done with integer costs, see {@link SearchContext#usesIntegerSearch}
+   */
+  private boolean integer = false;
+
+  /**
+   * The nodes expanded by the search with integer costs before it was done again with doubles
+   */
+  private int abandonedExpansions = 0;
+
+  private int expandedNodes = 0;
+
+  /**
+   * The result, known once the search is finished
+   */
+  private GridPath path;
+
+  /**
+   * The bound proven for the path found, see {@link SearchResult#getSuboptimalityBound()}
+   */
+  private double bound = 1;
+
+  /**
+   * Create a search with its own storage
+   *
+   * @param params The parameters used to compute the path
+   * @throws IllegalArgumentException If the map has more than Integer.MAX_VALUE cells
+   */
+  public PathSearch(AStarParams params) {
+    this(params, new SearchContext());
+  }
+
+  /**
+   * Create a search using a given storage, which must not be used by anything else until the search is finished
+   *
+   * @param params  The parameters used to compute the path
+   * @param context The storage of the search
+   * @throws IllegalArgumentException If the map has more than Integer.MAX_VALUE cells
+   */
+  public PathSearch(AStarParams params, SearchContext context) {
+    this.params = params;
+    this.context = context;
+    // The cells are indexed by an int
+    SearchContext.cellCount(params.getMap());
+    this.width = params.getMap().getWidth();
+    this.start = params.getStartPos().y * width + params.getStartPos().x;
+    this.goal = params.getEndPos().y * width + params.getEndPos().x;
+  }
+
+  /**
+   * Expand some nodes of the search. The first step also checks if the end position is reachable
+   * when the parameters ask for it, without flood fill.
+   *
+   * @param maxExpansions The number of nodes to expand at most
+   * @return The state of the search after this step
+   */
+  public Status step(int maxExpansions) {
+    if (status != Status.IN_PROGRESS) {
+      return status;
+    }
+    if (context == null) {
+      throw new IllegalStateException("The search has been released before it finished");
+    }
+    if (!started) {
+      started = true;
+      if (!isReachable()) {
+        finish(-1);
+        return status;
+      }
+      context.setBudget(params.getMaxExpandedNodes(), 0);
+      integer = context.usesIntegerSearch(params);
+      if (integer) {
+        context.integerSearch().begin(params, start, goal);
+      } else {
+        context.begin(params, start, goal);
+      }
+    }
+    int result;
+    if (integer) {
+      result = context.integerSearch().resume(maxExpansions);
+      if (result == IntegerSearch.OVERFLOW) {
+        // The costs are too high for ints, the search is done again with doubles
+        integer = false;
+        abandonedExpansions = context.expandedNodes;
+        int spent = abandonedExpansions - expandedNodes;
+        context.begin(params, start, goal);
+        result = context.resume(Math.max(1, maxExpansions - spent));
+      }
+    } else {
+      result = context.resume(maxExpansions);
+    }
+    expandedNodes = abandonedExpansions + context.expandedNodes;
+    if (result != SearchContext.IN_PROGRESS) {
+      finish(result);
+    }
+    return status;
+  }
+
+  /**
+   * Tell if the end position can be reached, as far as it is known without a flood fill
+   *
+   * @return false if the start or the end position is blocked, or if they are in different areas
+   */
+  private boolean isReachable() {
+    PathFinderMap map = params.getMap();
+    PathNodePosition startPos = params.getStartPos();
+    PathNodePosition endPos = params.getEndPos();
+    if (!map.isTraversable(startPos.x, startPos.y)) {
+      return false;
+    }
+    if (!params.mustCheckPosSameArea()) {
+      return true;
+    }
+    ConnectedComponents components = params.getConnectedComponents();
+    if (components != null && components.matches(params)) {
+      return components.areConnected(startPos, endPos);
+    }
+    return map.isTraversable(endPos.x, endPos.y);
+  }
+
+  /**
+   * Keep the result of the search
+   *
+   * @param result The value returned by the search
+   */
+  private void finish(int result) {
+    if (result == -1) {
+      status = Status.UNREACHABLE;
+      path = GridPath.empty(width);
+    } else if (result == SearchContext.BUDGET_EXHAUSTED) {
+      status = Status.BUDGET_EXHAUSTED;
+      path = integer ? context.integerSearch().buildPath(width, start, context.bestNode)
+              : context.buildPath(width, start, context.bestNode);
+    } else if (integer) {
+      status = Status.FOUND;
+      path = context.integerSearch().buildPath(width, start, goal);
+    } else {
+      status = Status.FOUND;
+      path = params.getHeuristicWeight() == 1 ? context.buildPath(width, start, goal)
+              : context.buildPath(params.getMap(), params.getNeighborsEnumerator(), start, goal);
+      bound = context.pathBound;
+    }
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * Tell if the search does not need to be stepped anymore
+   *
+   * @return true if the status is not {@link Status#IN_PROGRESS}
+   */
+  public boolean isFinished() {
+    return status != Status.IN_PROGRESS;
+  }
+
+  /**
+   * Returns the number of nodes expanded so far
+   *
+   * @return The number of nodes expanded
+   */
+  public int getExpandedNodes() {
+    return expandedNodes;
+  }
+
+  /**
+   * Returns the result of the search
+   *
+   * @return The path, and why the search stopped
+   * @throws IllegalStateException if the search is not finished
+   */
+  public SearchResult getResult() {
+    switch (status) {
+      case FOUND:
+        return new SearchResult(SearchResult.Status.FOUND, path, bound);
+      case UNREACHABLE:
+        return new SearchResult(SearchResult.Status.UNREACHABLE, path);
+      case BUDGET_EXHAUSTED:
+        return new SearchResult(SearchResult.Status.BUDGET_EXHAUSTED, path);
+      default:
+        throw new IllegalStateException("The search is not finished");
+    }
+  }
+
+  /**
+   * Returns the path to the position closest to the end position reached so far, so a unit can start moving
+   * before the search is finished. Once the search is finished, returns the path of its result.
+   *
+   * @return The positions of the path, without the start position
+   */
+  public LinkedList<PathNodePosition> getPartialPath() {
+    if (path != null) {
+      return path.toLinkedList();
+    }
+    if (!started || context == null) {
+      return new LinkedList<>();
+    }
+    GridPath partial = integer ? context.integerSearch().buildPath(width, start, context.bestNode)
+            : context.buildPath(width, start, context.bestNode);
+    return partial.toLinkedList();
+  }
+
+  /**
+   * Give back the storage of the search. The result stays available once the search is finished,
+   * otherwise the search can not be stepped anymore.
+   *
+   * @return The storage, or null if it was already released
+   */
+  SearchContext release() {
+    SearchContext released = context;
+    context = null;
+    return released;
+  }
+}
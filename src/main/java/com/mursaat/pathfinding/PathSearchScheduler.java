@@ -0,0 +1,117 @@
+package com.mursaat.pathfinding;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Run many {@link PathSearch} a slice at a time, in turn, without expanding more nodes than a budget each tick.
+ * The storage of the finished searches is reused by the next ones, so the memory used depends on the
+ * number of searches in progress at the same time.
+ * A scheduler is meant to be ticked by a single thread, for example once per frame of a game loop.
+ */
+public final class PathSearchScheduler {
+
+  /**
+   * The number of nodes all the searches can expand during a tick
+   */
+  private final int expansionsPerTick;
+
+  /**
+   * The number of nodes a search expands before the next one gets its turn
+   */
+  private final int expansionsPerSlice;
+
+  private final ArrayDeque<PathSearch> pending = new ArrayDeque<>();
+
+  private final ArrayDeque<SearchContext> idleContexts = new ArrayDeque<>();
+
+  /**
+   * Create a scheduler
+   *
+   * @param expansionsPerTick  The number of nodes all the searches can expand during a tick
+   * @param expansionsPerSlice The number of nodes a search expands before the next one gets its turn
+   */
+  public PathSearchScheduler(int expansionsPerTick, int expansionsPerSlice) {
+    if (expansionsPerTick <= 0 || expansionsPerSlice <= 0) {
+      throw new IllegalArgumentException("The budgets must be positive : " + expansionsPerTick + ", " + expansionsPerSlice);
+    }
+    this.expansionsPerTick = expansionsPerTick;
+    this.expansionsPerSlice = expansionsPerSlice;
+  }
+
+  /**
+   * Add a search, which starts at the next tick
+   *
+   * @param params The parameters used to compute the path
+   * @return The search, to read its result once it is finished
+   */
+  public PathSearch submit(AStarParams params) {
+    SearchContext context = idleContexts.poll();
+    PathSearch search = new PathSearch(params, context != null ? context : new SearchContext());
+    pending.addLast(search);
+    return search;
+  }
+
+  /**
+   * Stop a search which is not finished, it can not be stepped anymore
+   *
+   * @param search The search
+   * @return true if the search was in progress in this scheduler
+   */
+  public boolean cancel(PathSearch search) {
+    if (!pending.remove(search)) {
+      return false;
+    }
+    recycle(search);
+    return true;
+  }
+
+  /**
+   * Step the searches in turn, until the budget of the tick is spent or all of them are finished.
+   * A step which expands no node, like the first one of a search whose end position is known to be unreachable,
+   * counts as one expansion.
+   *
+   * @return The searches which finished during this tick
+   */
+  public List<PathSearch> tick() {
+    List<PathSearch> finished = Collections.emptyList();
+    int budget = expansionsPerTick;
+    while (budget > 0 && !pending.isEmpty()) {
+      PathSearch search = pending.pollFirst();
+      int before = search.getExpandedNodes();
+      PathSearch.Status status = search.step(Math.min(budget, expansionsPerSlice));
+      budget -= Math.max(1, search.getExpandedNodes() - before);
+      if (status == PathSearch.Status.IN_PROGRESS) {
+        pending.addLast(search);
+      } else {
+        if (finished.isEmpty()) {
+          finished = new ArrayList<>();
+        }
+        finished.add(search);
+        recycle(search);
+      }
+    }
+    return finished;
+  }
+
+  /**
+   * Returns the number of searches not finished yet
+   *
+   * @return The number of searches
+   */
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * Keep the storage of a search for the next ones
+   */
+  private void recycle(PathSearch search) {
+    SearchContext context = search.release();
+    if (context != null) {
+      idleContexts.push(context);
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package com.mursaat.pathfinding;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Reduce a path to the positions where it turns, so a unit can move in straight lines between them.
+ * Two positions are joined when the segment between their centers only crosses traversable positions.
+ * When the segment goes exactly through a corner, both positions sharing the corner must be traversable,
+ * as {@link NeighborsEnumerator#ORTHO_DIAG_NEIGHBORS} requires for a diagonal move : a unit never cuts
+ * the corner of a wall.
+ * <p>
+ * The costs of a {@link WeightedPathFinderMap} are ignored, a segment may cross expensive positions the path avoided.
+ */
+public final class PathSmoother {
+
+  private final PathFinderMap map;
+
+  /**
+   * The map when it stores one bit per position, its rows being checked word by word
+   */
+  private final BitGridMap bitMap;
+
+  /**
+   * Create a smoother
+   *
+   * @param map The map which determines where we are able to travel
+   * @throws IllegalArgumentException If the map has more than Integer.MAX_VALUE cells
+   */
+  public PathSmoother(PathFinderMap map) {
+    // The cells are indexed by an int
+    SearchContext.cellCount(map);
+    this.map = map;
+    this.bitMap = map instanceof BitGridMap ? (BitGridMap) map : null;
+  }
+
+  /**
+   * Reduce a path to the positions where it turns
+   *
+   * @param startPos The start position of the path
+   * @param path     The positions of the path without the start position, each one a neighbor of the previous one
+   * @return The positions to go to in straight lines, ending with the last position of the path
+   */
+  public LinkedList<PathNodePosition> smooth(PathNodePosition startPos, List<PathNodePosition> path) {
+    int width = map.getWidth();
+    int[] cells = new int[path.size() + 1];
+    cells[0] = startPos.y * width + startPos.x;
+    int i = 1;
+    for (PathNodePosition pos : path) {
+      cells[i++] = pos.y * width + pos.x;
+    }
+    int count = smooth(cells);
+    LinkedList<PathNodePosition> waypoints = new LinkedList<>();
+    for (i = 1; i < count; i++) {
+      waypoints.addLast(new PathNodePosition(cells[i] % width, cells[i] / width));
+    }
+    return waypoints;
+  }
+
+  /**
+   * Reduce a path to the positions where it turns
+   *
+   * @param startPos The start position of the path
+   * @param path     The path, each position being a neighbor of the previous one
+   * @return The positions to go to in straight lines, its cost being the length of the segments
+   */
+  public GridPath smooth(PathNodePosition startPos, GridPath path) {
+    int width = map.getWidth();
+    int[] cells = new int[path.length() + 1];
+    cells[0] = startPos.y * width + startPos.x;
+    for (int i = 0; i < path.length(); i++) {
+      cells[i + 1] = path.getCell(i);
+    }
+    int count = smooth(cells);
+    int[] waypoints = new int[count - 1];
+    double length = 0;
+    for (int i = 1; i < count; i++) {
+      waypoints[i - 1] = cells[i];
+      length += Math.hypot(cells[i] % width - cells[i - 1] % width, cells[i] / width - cells[i - 1] / width);
+    }
+    return new GridPath(waypoints, width, length);
+  }
+
+  /**
+   * Keep the waypoints at the beginning of an array of cell indexes. From each waypoint, the next one is
+   * searched by doubling the distance along the path while it is visible, then by halving the interval
+   * between the last visible position and the first hidden one, so a long straight path only needs a few checks.
+   *
+   * @param cells The cell indexes of the path, starting with the start position
+   * @return The number of waypoints, the start position included
+   */
+  private int smooth(int[] cells) {
+    int width = map.getWidth();
+    int last = cells.length - 1;
+    int count = 1;
+    int anchor = 0;
+    while (anchor < last) {
+      int ax = cells[anchor] % width;
+      int ay = cells[anchor] / width;
+      // The next position of the path is a neighbor, always visible
+      int visible = anchor + 1;
+      int hidden = last + 1;
+      for (int step = 2; visible < last; step *= 2) {
+        int candidate = Math.min(last, anchor + step);
+        if (!hasLineOfSight(ax, ay, cells[candidate] % width, cells[candidate] / width)) {
+          hidden = candidate;
+          break;
+        }
+        visible = candidate;
+      }
+      while (hidden - visible > 1) {
+        int middle = (visible + hidden) >>> 1;
+        if (hasLineOfSight(ax, ay, cells[middle] % width, cells[middle] / width)) {
+          visible = middle;
+        } else {
+          hidden = middle;
+        }
+      }
+      cells[count++] = cells[visible];
+      anchor = visible;
+    }
+    return count;
+  }
+
+  /**
+   * Tell if a unit can move in a straight line between the centers of two positions. The positions crossed
+   * by the segment are visited row by row, each row being a run of consecutive positions.
+   *
+   * @param x0 The x position where the segment starts
+   * @param y0 The y position where the segment starts
+   * @param x1 The x position where the segment ends
+   * @param y1 The y position where the segment ends
+   * @return true if all the positions crossed by the segment are traversable
+   */
+  public boolean hasLineOfSight(int x0, int y0, int x1, int y1) {
+    int dx = Math.abs(x1 - x0);
+    int dy = Math.abs(y1 - y0);
+    int sx = x1 > x0 ? 1 : -1;
+    int sy = y1 > y0 ? 1 : -1;
+    // error > 0 when the segment leaves the current position by a vertical side, < 0 by a horizontal side
+    int error = dx - dy;
+    int x = x0;
+    int y = y0;
+    int runStart = x0;
+    for (int n = dx + dy; n > 0; ) {
+      if (error > 0) {
+        x += sx;
+        error -= 2 * dy;
+        n--;
+      } else if (error < 0) {
+        if (!isRunTraversable(runStart, x, y)) {
+          return false;
+        }
+        y += sy;
+        runStart = x;
+        error += 2 * dx;
+        n--;
+      } else {
+        // Through a corner : both positions sharing it are crossed
+        if (!isRunTraversable(runStart, x + sx, y)) {
+          return false;
+        }
+        runStart = x;
+        x += sx;
+        y += sy;
+        error += 2 * dx - 2 * dy;
+        n -= 2;
+      }
+    }
+    return isRunTraversable(runStart, x, y);
+  }
+
+  /**
+   * Tell if all the positions of a row between two x positions, both included, are traversable
+   */
+  private boolean isRunTraversable(int xa, int xb, int y) {
+    int from = Math.min(xa, xb);
+    int to = Math.max(xa, xb);
+    if (bitMap != null) {
+      return bitMap.nextBlocked(from, y, to + 1) > to;
+    }
+    for (int x = from; x <= to; x++) {
+      if (!map.isTraversable(x, y)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
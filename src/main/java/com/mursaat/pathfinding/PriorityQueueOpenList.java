@@ -0,0 +1,97 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * An {@link OpenList} backed by a {@link PriorityQueue}, as {@link AStar#findPath} used to work.
+ * A node whose key decreases is added another time, and the outdated entries are skipped when polled.
+ * The nodes of the same key are ordered by their second key.
+ * It is slower than {@link IndexedBinaryHeap}, and is kept to compare against it.
+ */
+public final class PriorityQueueOpenList implements OpenList {
+
+  /**
+   * An entry of the queue
+   */
+  private static final class Entry implements Comparable<Entry> {
+    final int node;
+    final double key;
+    final double secondKey;
+
+    Entry(int node, double key, double secondKey) {
+      this.node = node;
+      this.key = key;
+      this.secondKey = secondKey;
+    }
+
+    @Override
+    public int compareTo(Entry e) {
+      int result = Double.compare(key, e.key);
+      return result != 0 ? result : Double.compare(secondKey, e.secondKey);
+    }
+  }
+
+  private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+  /**
+   * The latest key of each node in the queue, NaN if it is not in the queue
+   */
+  private double[] keys = new double[0];
+
+  private int size = 0;
+
+  public PriorityQueueOpenList() {
+
+  }
+
+  @Override
+  public void clear(int capacity) {
+    if (keys.length < capacity) {
+      keys = new double[capacity];
+      Arrays.fill(keys, Double.NaN);
+    } else {
+      for (Entry entry : queue) {
+        keys[entry.node] = Double.NaN;
+      }
+    }
+    queue.clear();
+    size = 0;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void insertOrDecrease(int node, double key) {
+    insertOrDecrease(node, key, 0);
+  }
+
+  @Override
+  public void insertOrDecrease(int node, double key, double secondKey) {
+    if (Double.isNaN(keys[node])) {
+      size++;
+    }
+    keys[node] = key;
+    queue.add(new Entry(node, key, secondKey));
+  }
+
+  @Override
+  public int poll() {
+    while (true) {
+      Entry entry = queue.poll();
+      if (entry.key == keys[entry.node]) {
+        keys[entry.node] = Double.NaN;
+        size--;
+        return entry.node;
+      }
+    }
+  }
+}
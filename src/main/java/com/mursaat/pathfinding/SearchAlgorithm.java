@@ -0,0 +1,39 @@
+package com.mursaat.pathfinding;
+
+/**
+ * The algorithms which can be used by {@link AStar#findPath}
+ */
+public enum SearchAlgorithm {
+
+  /**
+   * The plain A* algorithm, which works with any {@link NeighborsEnumerator}
+   */
+  A_STAR,
+
+  /**
+   * The @see <a href="https://en.wikipedia.org/wiki/Jump_point_search">Jump Point Search</a> algorithm.
+   * It returns paths of the same cost as A*, but expands far less nodes on open maps.
+   * It only works with {@link NeighborsEnumerator#ORTHO_NEIGHBORS} and {@link NeighborsEnumerator#ORTHO_DIAG_NEIGHBORS},
+   * A* is used instead for the other enumerators.
+   */
+  JUMP_POINT_SEARCH,
+
+  /**
+   * A* run from both the start and the end positions at the same time, until the two searches prove
+   * the best path where they meet is the shortest one. It returns paths of the same cost as A*, and expands
+   * less nodes when the search from the start position would explore a large area before reaching the end.
+   * It only works with {@link NeighborsEnumerator#ORTHO_NEIGHBORS} and {@link NeighborsEnumerator#ORTHO_DIAG_NEIGHBORS},
+   * A* is used instead for the other enumerators.
+   */
+  BIDIRECTIONAL_A_STAR,
+
+  /**
+   * Anytime Repairing A* (ARA*) : a first path is found quickly with the weight of
+   * {@link AStarParams#setHeuristicWeight}, then the search goes on with lower weights, keeping the costs found so
+   * far and only expanding again the nodes whose cost decreased, until the shortest path is proven or the time limit
+   * or the limit of expanded nodes is reached. The best path found is returned, with the bound proven for it.
+   * The weight must be above 1, otherwise the first search already finds the shortest path. Proving the shortest
+   * path takes more expansions than A* does, so it is meant to be used with a limit.
+   */
+  ANYTIME_A_STAR
+}
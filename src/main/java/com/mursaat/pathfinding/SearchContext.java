@@ -0,0 +1,927 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * Holds the storage used by {@link AStar#findPath}, so it can be reused from one search to the next.
+ * All per-node data is kept in flat arrays indexed by y * width + x. A generation stamp tells
+ * which entries belong to the current search, so nothing has to be cleared between two calls.
+ * Once the arrays are large enough for the map, a search only allocates the returned path.
+ * On a map of more than {@link #MAX_DENSE_CELLS} cells, the arrays would not fit in the heap : the A* search and the
+ * flood fill keep the nodes they touch in a hash table instead, see {@link SparseSearch}.
+ * A context must not be shared between threads.
+ */
+public final class SearchContext {
+
+  /**
+   * The stamp of the current search, an entry is valid only if its stamp is equal to it
+   */
+  int generation = 0;
+
+  /**
+   * The generation in which each node has been reached
+   */
+  int[] visited = new int[0];
+
+  /**
+   * The generation in which each node has been closed
+   */
+  int[] closed = new int[0];
+
+  /**
+   * The cost to come on each node
+   */
+  double[] cost = new double[0];
+
+  /**
+   * The cell index of the parent of each node
+   */
+  int[] parent = new int[0];
+
+  /**
+   * The nodes waiting to be expanded
+   */
+  final OpenList openList;
+
+  /**
+   * The number of nodes expanded by the last search
+   */
+  int expandedNodes;
+
+  /**
+   * The counters of the last search, always kept since they only cost an increment,
+   * but only given to the {@link SearchListener} of the parameters
+   */
+  int generatedNodes;
+  int duplicatePushes;
+  int reopenedNodes;
+  int openNodes;
+  int maxOpenNodes;
+  long floodFillCells;
+  long floodFillNanos;
+  long searchNanos;
+  long pathNanos;
+
+  /**
+   * The statistics given to the listeners, filled again after each search
+   */
+  private final SearchStatistics statistics = new SearchStatistics();
+
+  /**
+   * Returned by a search which stopped on its budget
+   */
+  static final int BUDGET_EXHAUSTED = -2;
+
+  /**
+   * Returned by {@link #resume} when the search is not finished
+   */
+  static final int IN_PROGRESS = -3;
+
+  /**
+   * The number of cells above which the searches of {@link #findGridPath} do not use the arrays indexed by cell,
+   * which take about 24 bytes per cell of the map
+   */
+  static final long MAX_DENSE_CELLS = 1L << 26;
+
+  /**
+   * The number of expanded nodes between two reads of the clock, minus one
+   */
+  private static final int DEADLINE_CHECK_MASK = 255;
+
+  /**
+   * The budget of the current search
+   */
+  private int maxExpandedNodes;
+  private boolean hasDeadline;
+  private long deadline;
+
+  /**
+   * The node with the lowest heuristic reached by the current search, where a partial path ends
+   */
+  int bestNode;
+  double bestHeuristic;
+
+  /**
+   * The state of the current A* search, kept between two calls of {@link #resume}
+   */
+  private PathFinderMap searchMap;
+  private NeighborsEnumerator searchNeighborsEnumerator;
+  private DistanceCalculator searchHeuristic;
+  private double searchHeuristicScale;
+  private double searchWeight;
+  private TieBreaking searchTieBreaking;
+  private int searchStart;
+  private int searchGoal;
+
+  /**
+   * The bound proven for the path found by the last call of {@link #resume}, see
+   * {@link SearchResult#getSuboptimalityBound()}
+   */
+  double pathBound;
+
+  /**
+   * The lowest cost plus heuristic of the nodes whose cost decreased after they were expanded by a weighted search,
+   * which are not expanded again
+   */
+  private double inconsistentEstimate;
+
+  /**
+   * Why the last search stopped, and the bound of its path
+   */
+  private SearchResult.Status status;
+  private double suboptimalityBound;
+
+  /**
+   * Buffers receiving the neighbors of the expanded node
+   */
+  private int[] neighbors = new int[8];
+  private double[] neighborCosts = new double[8];
+
+  /**
+   * The stack of runs of the flood fill on a {@link BitGridMap}
+   */
+  private int[] runStack = new int[64];
+
+  /**
+   * The Jump Point Search working on this storage, created when first needed
+   */
+  private JumpPointSearch jumpPointSearch;
+
+  /**
+   * The bidirectional search working on this storage, created when first needed
+   */
+  private BidirectionalSearch bidirectionalSearch;
+
+  /**
+   * The search with integer costs working on this storage, created when first needed
+   */
+  private IntegerSearch integerSearch;
+
+  /**
+   * The anytime search working on this storage, created when first needed
+   */
+  private AnytimeSearch anytimeSearch;
+
+  /**
+   * The search keeping its nodes in a hash table, created when first needed
+   */
+  private SparseSearch sparseSearch;
+
+  public SearchContext() {
+    this(new IndexedBinaryHeap());
+  }
+
+  /**
+   * Create a context using a specific open list implementation
+   *
+   * @param openList The open list used by the searches with double costs, the searches with integer costs
+   *                 using their own open list whatever this one
+   */
+  public SearchContext(OpenList openList) {
+    this.openList = openList;
+  }
+
+  /**
+   * Use A* algorithm to compute the shortest path between two positions, with the same
+   * behaviour as {@link AStar#findPath}
+   *
+   * @param params The parameters used to compute the path
+   * @return A LinkedList containing all positions in the shortest path
+   */
+  public LinkedList<PathNodePosition> findPath(AStarParams params) {
+    return findGridPath(params, params.getConnectedComponents()).toLinkedList();
+  }
+
+  /**
+   * Compute a path with the same behaviour as {@link AStar#findGridPath}
+   *
+   * @param params The parameters used to compute the path
+   * @return The positions of the path without the start position
+   */
+  public GridPath findGridPath(AStarParams params) {
+    return findGridPath(params, params.getConnectedComponents());
+  }
+
+  /**
+   * Compute a path with the same behaviour as {@link AStar#search}
+   *
+   * @param params The parameters used to compute the path
+   * @return The path, and why the search stopped
+   */
+  public SearchResult search(AStarParams params) {
+    GridPath path = findGridPath(params, params.getConnectedComponents());
+    return new SearchResult(status, path, suboptimalityBound);
+  }
+
+  /**
+   * Compute a path, checking if the end position is reachable with the given connected components
+   * instead of the ones of the parameters
+   *
+   * @param params              The parameters used to compute the path
+   * @param connectedComponents The areas of the map, or null
+   * @return A LinkedList containing all positions in the shortest path
+   */
+  LinkedList<PathNodePosition> findPath(AStarParams params, ConnectedComponents connectedComponents) {
+    return findGridPath(params, connectedComponents).toLinkedList();
+  }
+
+  /**
+   * Compute a path, checking if the end position is reachable with the given connected components
+   * instead of the ones of the parameters
+   *
+   * @param params              The parameters used to compute the path
+   * @param connectedComponents The areas of the map, or null
+   * @return The positions of the path without the start position
+   */
+  GridPath findGridPath(AStarParams params, ConnectedComponents connectedComponents) {
+    resetCounters();
+    setBudget(params.getMaxExpandedNodes(), params.getTimeLimitNanos());
+    status = SearchResult.Status.UNREACHABLE;
+    suboptimalityBound = 1;
+    SearchListener listener = params.getSearchListener();
+    if (listener == null) {
+      return findGridPath(params, connectedComponents, false);
+    }
+    long begin = System.nanoTime();
+    GridPath path = findGridPath(params, connectedComponents, true);
+    statistics.record(this, params, path.length(), System.nanoTime() - begin);
+    listener.searchFinished(statistics);
+    return path;
+  }
+
+  /**
+   * Compute a path, measuring the time spent in each phase if asked
+   *
+   * @param params              The parameters used to compute the path
+   * @param connectedComponents The areas of the map, or null
+   * @param timed               true to measure the time spent in each phase
+   * @return The positions of the path without the start position
+   */
+  private GridPath findGridPath(AStarParams params, ConnectedComponents connectedComponents, boolean timed) {
+    PathFinderMap map = params.getMap();
+    PathNodePosition startPos = params.getStartPos();
+    PathNodePosition endPos = params.getEndPos();
+
+    int width = map.getWidth();
+    // If the start position is not traversable, we return an empty path
+    if (!map.isTraversable(startPos.x, startPos.y)) {
+      return GridPath.empty(width);
+    }
+
+    long time = timed ? System.nanoTime() : 0;
+    if (params.mustCheckPosSameArea()) {
+      boolean sameArea = arePosInSameArea(params, connectedComponents);
+      if (timed) {
+        long now = System.nanoTime();
+        floodFillNanos = now - time;
+        time = now;
+      }
+      if (!sameArea) {
+        return GridPath.empty(width);
+      }
+    }
+    if (isLarge(map)) {
+      return findSparsePath(params, timed, time);
+    }
+
+    int start = startPos.y * width + startPos.x;
+    int goal = endPos.y * width + endPos.x;
+    SearchAlgorithm algorithm = SearchAlgorithm.A_STAR;
+    boolean integer = false;
+    int found;
+    bestNode = start;
+    bestHeuristic = Double.POSITIVE_INFINITY;
+    if (params.getAlgorithm() == SearchAlgorithm.JUMP_POINT_SEARCH && JumpPointSearch.supports(params)) {
+      if (jumpPointSearch == null) {
+        jumpPointSearch = new JumpPointSearch(this);
+      }
+      algorithm = SearchAlgorithm.JUMP_POINT_SEARCH;
+      found = jumpPointSearch.search(params, start, goal);
+    } else if (params.getAlgorithm() == SearchAlgorithm.BIDIRECTIONAL_A_STAR && BidirectionalSearch.supports(params)) {
+      if (bidirectionalSearch == null) {
+        bidirectionalSearch = new BidirectionalSearch(this);
+      }
+      algorithm = SearchAlgorithm.BIDIRECTIONAL_A_STAR;
+      found = bidirectionalSearch.search(params, start, goal);
+    } else if (params.getAlgorithm() == SearchAlgorithm.ANYTIME_A_STAR) {
+      if (anytimeSearch == null) {
+        anytimeSearch = new AnytimeSearch(this);
+      }
+      algorithm = SearchAlgorithm.ANYTIME_A_STAR;
+      found = anytimeSearch.search(params, start, goal);
+    } else if (usesIntegerSearch(params)) {
+      found = integerSearch().search(params, start, goal);
+      if (found == IntegerSearch.OVERFLOW) {
+        // The costs are too high for ints, the search is done again with doubles
+        found = search(params, start, goal);
+      } else {
+        integer = true;
+      }
+    } else {
+      found = search(params, start, goal);
+    }
+    if (timed) {
+      long now = System.nanoTime();
+      searchNanos = now - time;
+      time = now;
+    }
+    if (found == -1) {
+      return GridPath.empty(width);
+    }
+
+    GridPath path;
+    if (found == BUDGET_EXHAUSTED) {
+      // The forward parents of every algorithm lead from the start position to the best node
+      status = SearchResult.Status.BUDGET_EXHAUSTED;
+      suboptimalityBound = Double.POSITIVE_INFINITY;
+      if (algorithm == SearchAlgorithm.JUMP_POINT_SEARCH) {
+        path = jumpPointSearch.buildPath(width, start, bestNode);
+      } else if (integer) {
+        path = integerSearch.buildPath(width, start, bestNode);
+      } else {
+        path = buildPath(width, start, bestNode);
+      }
+    } else if (algorithm == SearchAlgorithm.JUMP_POINT_SEARCH) {
+      status = SearchResult.Status.FOUND;
+      path = jumpPointSearch.buildPath(width, start, goal);
+    } else if (algorithm == SearchAlgorithm.BIDIRECTIONAL_A_STAR) {
+      status = SearchResult.Status.FOUND;
+      path = bidirectionalSearch.buildPath(width, start, goal, found);
+    } else if (algorithm == SearchAlgorithm.ANYTIME_A_STAR) {
+      // Once a first path is found, the budget only stops the improvements
+      status = SearchResult.Status.FOUND;
+      path = anytimeSearch.getPath();
+      suboptimalityBound = anytimeSearch.getBound();
+    } else if (integer) {
+      status = SearchResult.Status.FOUND;
+      path = integerSearch.buildPath(width, start, goal);
+    } else {
+      status = SearchResult.Status.FOUND;
+      path = params.getHeuristicWeight() == 1 ? buildPath(width, start, goal)
+              : buildPath(map, params.getNeighborsEnumerator(), start, goal);
+      suboptimalityBound = pathBound;
+    }
+    if (timed) {
+      pathNanos = System.nanoTime() - time;
+    }
+    return path;
+  }
+
+  /**
+   * Compute a path on a map too large for the arrays indexed by cell, with an A* search whatever the algorithm of
+   * the parameters
+   *
+   * @param params The parameters used to compute the path
+   * @param timed  true to measure the time spent in each phase
+   * @param time   The time when the search starts, if timed
+   * @return The positions of the path without the start position
+   */
+  private GridPath findSparsePath(AStarParams params, boolean timed, long time) {
+    int width = params.getMap().getWidth();
+    int found = sparseSearch().search(params);
+    if (timed) {
+      long now = System.nanoTime();
+      searchNanos = now - time;
+      time = now;
+    }
+    if (found == -1) {
+      return GridPath.empty(width);
+    }
+
+    GridPath path;
+    if (found == BUDGET_EXHAUSTED) {
+      status = SearchResult.Status.BUDGET_EXHAUSTED;
+      suboptimalityBound = Double.POSITIVE_INFINITY;
+      path = sparseSearch.buildPath(width, sparseSearch.getBestNode());
+    } else {
+      status = SearchResult.Status.FOUND;
+      path = sparseSearch.buildPath(width, found);
+      suboptimalityBound = sparseSearch.getPathBound();
+    }
+    if (timed) {
+      pathNanos = System.nanoTime() - time;
+    }
+    return path;
+  }
+
+  /**
+   * Tell if a map has more cells than the arrays indexed by cell can hold
+   *
+   * @param map The map
+   * @return true if the map has more than {@link #MAX_DENSE_CELLS} cells
+   */
+  static boolean isLarge(PathFinderMap map) {
+    return (long) map.getWidth() * map.getHeight() > MAX_DENSE_CELLS;
+  }
+
+  /**
+   * Returns the number of cells of a map, checking that its cell indexes (y * width + x) fit in an int
+   *
+   * @param map The map
+   * @return The number of cells
+   * @throws IllegalArgumentException If the map has more than Integer.MAX_VALUE cells
+   */
+  static int cellCount(PathFinderMap map) {
+    long cells = (long) map.getWidth() * map.getHeight();
+    if (cells > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("The map has too many cells to index them by an int : "
+              + map.getWidth() + "x" + map.getHeight());
+    }
+    return (int) cells;
+  }
+
+  /**
+   * Tell if an A* search with these parameters is done with integer costs, by {@link IntegerSearch}
+   *
+   * @param params The parameters used to compute the path
+   * @return true if the costs are asked to be integers, or are integers already without diagonal moves
+   */
+  boolean usesIntegerSearch(AStarParams params) {
+    // Without diagonal moves, the costs are often integers already : the integer search returns the same costs
+    return params.getHeuristicWeight() == 1 && (params.hasIntegerCosts() ? IntegerSearch.supports(params)
+            : IntegerSearch.hasIntegralCosts(params));
+  }
+
+  /**
+   * Returns the search with integer costs working on this storage, created when first needed
+   */
+  IntegerSearch integerSearch() {
+    if (integerSearch == null) {
+      integerSearch = new IntegerSearch(this);
+    }
+    return integerSearch;
+  }
+
+  /**
+   * Returns the search keeping its nodes in a hash table, created when first needed
+   */
+  private SparseSearch sparseSearch() {
+    if (sparseSearch == null) {
+      sparseSearch = new SparseSearch(this);
+    }
+    return sparseSearch;
+  }
+
+  /**
+   * Count a node pushed in the open list by a search
+   *
+   * @param reached true if the node was already reached in this search
+   * @param closed  true if the node was already expanded in this search
+   */
+  void countPush(boolean reached, boolean closed) {
+    if (!reached || closed) {
+      if (closed) {
+        reopenedNodes++;
+      }
+      if (++openNodes > maxOpenNodes) {
+        maxOpenNodes = openNodes;
+      }
+    } else {
+      duplicatePushes++;
+    }
+  }
+
+  /**
+   * Set the budget of the next search
+   *
+   * @param maxExpandedNodes The number of nodes the search can expand
+   * @param timeLimitNanos   The time the search can take from now, 0 if it is not limited
+   */
+  void setBudget(int maxExpandedNodes, long timeLimitNanos) {
+    this.maxExpandedNodes = maxExpandedNodes;
+    hasDeadline = timeLimitNanos > 0;
+    deadline = hasDeadline ? System.nanoTime() + timeLimitNanos : 0;
+  }
+
+  /**
+   * Tell if the current search must stop, the clock being only read every few expanded nodes
+   *
+   * @return true if the limit of expanded nodes or the deadline has been reached
+   */
+  boolean isBudgetExhausted() {
+    return expandedNodes >= maxExpandedNodes
+            || hasDeadline && (expandedNodes & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() - deadline >= 0;
+  }
+
+  /**
+   * Remember a node reached by the current search if it is the closest one to the end position
+   *
+   * @param node      The cell index of the node
+   * @param heuristic The estimated cost to reach the end position from the node
+   */
+  void reached(int node, double heuristic) {
+    if (heuristic < bestHeuristic) {
+      bestHeuristic = heuristic;
+      bestNode = node;
+    }
+  }
+
+  /**
+   * Forget the counters of the previous search
+   */
+  private void resetCounters() {
+    expandedNodes = 0;
+    generatedNodes = 0;
+    duplicatePushes = 0;
+    reopenedNodes = 0;
+    openNodes = 0;
+    maxOpenNodes = 0;
+    floodFillCells = 0;
+    floodFillNanos = 0;
+    searchNanos = 0;
+    pathNanos = 0;
+  }
+
+  /**
+   * Returns the number of nodes expanded by the last search
+   *
+   * @return The number of nodes expanded
+   */
+  int getExpandedNodes() {
+    return expandedNodes;
+  }
+
+  /**
+   * Allow to detect if the start and end positions belong to the same area.
+   * The connected components of the parameters are used when available, otherwise a flood fill
+   * is done from the start position, following the movements allowed by the neighbors enumerator.
+   *
+   * @param params The parameters used to compute the path
+   * @return true if the end position is reachable from the start position
+   */
+  boolean arePosInSameArea(AStarParams params) {
+    return arePosInSameArea(params, params.getConnectedComponents());
+  }
+
+  private boolean arePosInSameArea(AStarParams params, ConnectedComponents connectedComponents) {
+    if (connectedComponents != null && connectedComponents.matches(params)) {
+      return connectedComponents.areConnected(params.getStartPos(), params.getEndPos());
+    }
+
+    PathFinderMap map = params.getMap();
+    NeighborsEnumerator neighborsEnumerator = params.getNeighborsEnumerator();
+    if (isLarge(map)) {
+      return sparseSearch().reaches(params);
+    }
+    if (map instanceof BitGridMap && ConnectedComponents.isOrthoConnected(neighborsEnumerator)) {
+      return arePosInSameArea((BitGridMap) map, params.getStartPos(), params.getEndPos());
+    }
+    if (!map.isTraversable(params.getStartPos().x, params.getStartPos().y)) {
+      return false;
+    }
+    int width = map.getWidth();
+    int start = params.getStartPos().y * width + params.getStartPos().x;
+    int goal = params.getEndPos().y * width + params.getEndPos().x;
+    prepare(cellCount(map), neighborsEnumerator.getMaxNeighbors());
+
+    // The parent array is not used by the flood fill, it holds the stack of positions to visit
+    int[] stack = parent;
+    int stackSize = 0;
+    stack[stackSize++] = start;
+    visited[start] = generation;
+    while (stackSize > 0) {
+      int u = stack[--stackSize];
+      floodFillCells++;
+      if (u == goal) {
+        return true;
+      }
+      int count = neighborsEnumerator.enumerateNeighbors(map, u % width, u / width, neighbors, neighborCosts);
+      for (int i = 0; i < count; i++) {
+        int v = neighbors[i];
+        if (visited[v] != generation) {
+          visited[v] = generation;
+          stack[stackSize++] = v;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Flood fill a bit-packed map by runs of traversable positions, found by scanning the words of each row
+   *
+   * @param map      The map
+   * @param startPos The start position
+   * @param endPos   The end position
+   * @return true if the end position is reachable from the start position with orthogonal movements
+   */
+  private boolean arePosInSameArea(BitGridMap map, PathNodePosition startPos, PathNodePosition endPos) {
+    int width = map.getWidth();
+    int height = map.getHeight();
+    prepare(cellCount(map), 0);
+    if (!map.isTraversable(startPos.x, startPos.y) || !map.isTraversable(endPos.x, endPos.y)) {
+      return false;
+    }
+
+    // The stack holds the cell index where each run starts, and the x position where it ends
+    int stackSize = pushRun(map, startPos.x, startPos.y, 0);
+    while (stackSize > 0) {
+      int end = runStack[--stackSize];
+      int begin = runStack[--stackSize];
+      int y = begin / width;
+      int from = begin % width;
+      if (y == endPos.y && endPos.x >= from && endPos.x < end) {
+        return true;
+      }
+      for (int ny = y - 1; ny <= y + 1; ny += 2) {
+        if (ny < 0 || ny == height) {
+          continue;
+        }
+        int x = map.nextTraversable(from, ny, end);
+        while (x < end) {
+          if (visited[ny * width + x] != generation) {
+            stackSize = pushRun(map, x, ny, stackSize);
+          }
+          x = map.nextTraversable(map.nextBlocked(x, ny, width), ny, end);
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Mark as visited the run of traversable positions containing a position, and push it on the stack
+   *
+   * @param map       The map
+   * @param x         The x position, which must be traversable
+   * @param y         The y position
+   * @param stackSize The size of the stack
+   * @return The new size of the stack
+   */
+  private int pushRun(BitGridMap map, int x, int y, int stackSize) {
+    int width = map.getWidth();
+    int begin = map.runStart(x, y);
+    int end = map.nextBlocked(x, y, width);
+    for (int i = y * width + begin, last = y * width + end; i < last; i++) {
+      visited[i] = generation;
+    }
+    floodFillCells += end - begin;
+    if (stackSize + 2 > runStack.length) {
+      runStack = Arrays.copyOf(runStack, runStack.length * 2);
+    }
+    runStack[stackSize++] = y * width + begin;
+    runStack[stackSize++] = end;
+    return stackSize;
+  }
+
+  /**
+   * Run the A* loop
+   *
+   * @param params The parameters used to compute the path
+   * @param start  The cell index of the start position
+   * @param goal   The cell index of the end position
+   * @return The goal index if it has been reached, {@link #BUDGET_EXHAUSTED} if the search stopped on its budget,
+   * -1 otherwise
+   */
+  private int search(AStarParams params, int start, int goal) {
+    begin(params, start, goal);
+    return resume(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Start an A* search, which runs when {@link #resume} is called
+   *
+   * @param params The parameters used to compute the path
+   * @param start  The cell index of the start position
+   * @param goal   The cell index of the end position
+   */
+  void begin(AStarParams params, int start, int goal) {
+    PathFinderMap map = params.getMap();
+    searchMap = map;
+    searchNeighborsEnumerator = params.getNeighborsEnumerator();
+    searchHeuristic = params.getHeuristic();
+    searchTieBreaking = params.getTieBreaking();
+    searchStart = start;
+    searchGoal = goal;
+    // On a weighted map, the heuristic counts the remaining distance at the lowest cost, so it stays admissible
+    searchHeuristicScale = map instanceof WeightedPathFinderMap ? ((WeightedPathFinderMap) map).getMinCost() : 1;
+    searchWeight = params.getHeuristicWeight();
+    inconsistentEstimate = Double.POSITIVE_INFINITY;
+    bestNode = start;
+    bestHeuristic = Double.POSITIVE_INFINITY;
+
+    prepare(cellCount(map), searchNeighborsEnumerator.getMaxNeighbors());
+
+    visited[start] = generation;
+    cost[start] = 0;
+    parent[start] = -1;
+    openList.insertOrDecrease(start, 0);
+    countPush(false, false);
+  }
+
+  /**
+   * Continue the A* search started by {@link #begin}
+   *
+   * @param maxExpansions The number of nodes to expand before returning
+   * @return The goal index if it has been reached, {@link #IN_PROGRESS} if the search must be resumed again,
+   * {@link #BUDGET_EXHAUSTED} if the search stopped on its budget, -1 otherwise
+   */
+  int resume(int maxExpansions) {
+    PathFinderMap map = searchMap;
+    NeighborsEnumerator neighborsEnumerator = searchNeighborsEnumerator;
+    DistanceCalculator heuristic = searchHeuristic;
+    double heuristicScale = searchHeuristicScale;
+    double weight = searchWeight;
+    TieBreaking tieBreaking = searchTieBreaking;
+    int goal = searchGoal;
+    int width = map.getWidth();
+    int endX = goal % width;
+    int endY = goal / width;
+    int startDx = searchStart % width - endX;
+    int startDy = searchStart / width - endY;
+
+    int result = -1;
+    for (int expansions = 0; !openList.isEmpty(); expansions++) {
+      if (expansions == maxExpansions) {
+        return IN_PROGRESS;
+      }
+      int u = openList.poll();
+      openNodes--;
+      if (u == goal) {
+        result = u;
+        pathBound = weight == 1 ? 1 : bound(cost[u], weight, lowestEstimate(heuristic, heuristicScale, width, endX, endY));
+        break;
+      }
+      if (isBudgetExhausted()) {
+        result = BUDGET_EXHAUSTED;
+        break;
+      }
+      closed[u] = generation;
+      expandedNodes++;
+
+      double uCost = cost[u];
+      int count = neighborsEnumerator.enumerateNeighbors(map, u % width, u / width, neighbors, neighborCosts);
+      generatedNodes += count;
+      for (int i = 0; i < count; i++) {
+        int v = neighbors[i];
+        double vCost = uCost + neighborCosts[i];
+        boolean reached = visited[v] == generation;
+        if (reached && cost[v] <= vCost) {
+          continue;
+        }
+        int vx = v % width;
+        int vy = v / width;
+        double h = heuristicScale * heuristic.calculate(vx, vy, endX, endY);
+        if (weight != 1 && reached && closed[v] == generation) {
+          // Expanding it again could expand its whole subtree again, and the path found stays within the bound
+          cost[v] = vCost;
+          parent[v] = u;
+          inconsistentEstimate = Math.min(inconsistentEstimate, vCost + h);
+          continue;
+        }
+        countPush(reached, reached && closed[v] == generation);
+        visited[v] = generation;
+        closed[v] = 0;
+        cost[v] = vCost;
+        parent[v] = u;
+        reached(v, h);
+        if (tieBreaking == TieBreaking.NONE) {
+          openList.insertOrDecrease(v, vCost + weight * h);
+        } else if (tieBreaking == TieBreaking.HIGHER_G) {
+          openList.insertOrDecrease(v, vCost + weight * h, -vCost);
+        } else {
+          openList.insertOrDecrease(v, vCost + weight * h, crossProduct(vx - endX, vy - endY, startDx, startDy));
+        }
+      }
+    }
+    searchMap = null;
+    searchNeighborsEnumerator = null;
+    searchHeuristic = null;
+    searchTieBreaking = null;
+    return result;
+  }
+
+  /**
+   * Returns the lowest cost plus heuristic of the nodes of the open list and of the nodes not expanded again, which
+   * no path to the end position can cost less than when the heuristic does not overestimate the distances
+   *
+   * @return The lowest estimate, infinite if there is no such node, 0 if the nodes of the open list can not be read
+   */
+  private double lowestEstimate(DistanceCalculator heuristic, double heuristicScale, int width, int endX, int endY) {
+    if (!(openList instanceof IndexedBinaryHeap)) {
+      return 0;
+    }
+    IndexedBinaryHeap heap = (IndexedBinaryHeap) openList;
+    double lowest = inconsistentEstimate;
+    for (int slot = 0; slot < heap.size(); slot++) {
+      int node = heap.node(slot);
+      lowest = Math.min(lowest, cost[node] + heuristicScale * heuristic.calculate(node % width, node / width, endX, endY));
+    }
+    return lowest;
+  }
+
+  /**
+   * Returns the bound proven for a path found by a weighted search
+   *
+   * @param pathCost       The cost of the path
+   * @param weight         The weight of the heuristic
+   * @param lowestEstimate The lowest cost a path to the end position can have
+   * @return The bound, never above the weight
+   */
+  static double bound(double pathCost, double weight, double lowestEstimate) {
+    if (lowestEstimate >= pathCost) {
+      return 1;
+    }
+    return lowestEstimate > 0 ? Math.min(weight, pathCost / lowestEstimate) : weight;
+  }
+
+  /**
+   * Returns how far a position is from the straight line from the start position to the end position
+   *
+   * @param dx      The x vector from the end position to the position
+   * @param dy      The y vector from the end position to the position
+   * @param startDx The x vector from the end position to the start position
+   * @param startDy The y vector from the end position to the start position
+   * @return The absolute value of the cross product of the vectors
+   */
+  static long crossProduct(int dx, int dy, int startDx, int startDy) {
+    return Math.abs((long) dx * startDy - (long) startDx * dy);
+  }
+
+  /**
+   * Build the path by going up the parents from the goal
+   *
+   * @param width The width of the map
+   * @param start The cell index of the start position
+   * @param goal  The cell index of the last position of the path
+   * @return The path, without the start position
+   */
+  GridPath buildPath(int width, int start, int goal) {
+    int length = 0;
+    for (int node = goal; node != start; node = parent[node]) {
+      length++;
+    }
+    int[] cells = new int[length];
+    for (int node = goal; node != start; node = parent[node]) {
+      cells[--length] = node;
+    }
+    return new GridPath(cells, width, cost[goal]);
+  }
+
+  /**
+   * Build the path by going up the parents from the goal, its cost being the sum of the costs of its moves.
+   * In a weighted search, the cost of a node may decrease after its children were reached, so the cost of the path
+   * may be lower than the cost of the goal.
+   *
+   * @param map                 The map
+   * @param neighborsEnumerator The movements allowed
+   * @param start               The cell index of the start position
+   * @param goal                The cell index of the last position of the path
+   * @return The path, without the start position
+   */
+  GridPath buildPath(PathFinderMap map, NeighborsEnumerator neighborsEnumerator, int start, int goal) {
+    int width = map.getWidth();
+    int length = 0;
+    for (int node = goal; node != start; node = parent[node]) {
+      length++;
+    }
+    int[] cells = new int[length];
+    double pathCost = 0;
+    for (int node = goal; node != start; node = parent[node]) {
+      cells[--length] = node;
+      int from = parent[node];
+      int count = neighborsEnumerator.enumerateNeighbors(map, from % width, from / width, neighbors, neighborCosts);
+      for (int i = 0; i < count; i++) {
+        if (neighbors[i] == node) {
+          pathCost += neighborCosts[i];
+          break;
+        }
+      }
+    }
+    return new GridPath(cells, width, pathCost);
+  }
+
+  /**
+   * Start a new generation, and make sure the arrays are large enough
+   *
+   * @param size         The number of cells of the map
+   * @param maxNeighbors The maximum number of neighbors of a node
+   */
+  void prepare(int size, int maxNeighbors) {
+    if (visited.length < size) {
+      visited = new int[size];
+      closed = new int[size];
+      cost = new double[size];
+      parent = new int[size];
+      generation = 0;
+    }
+    if (neighbors.length < maxNeighbors) {
+      neighbors = new int[maxNeighbors];
+      neighborCosts = new double[maxNeighbors];
+    }
+    if (generation == Integer.MAX_VALUE) {
+      Arrays.fill(visited, 0);
+      Arrays.fill(closed, 0);
+      generation = 0;
+    }
+    generation++;
+    openList.clear(size);
+    expandedNodes = 0;
+    generatedNodes = 0;
+    duplicatePushes = 0;
+    reopenedNodes = 0;
+    openNodes = 0;
+    maxOpenNodes = 0;
+  }
+}
@@ -0,0 +1,16 @@
+package com.mursaat.pathfinding;
+
+/**
+ * Receives the statistics of each search done with the parameters it is given to,
+ * see {@link AStarParams#setSearchListener}
+ */
+public interface SearchListener {
+
+  /**
+   * Called by the thread which computed the path, before the path is returned.
+   * The statistics are reused by the next search of this thread, they must be copied to be kept.
+   *
+   * @param statistics The statistics of the search
+   */
+  void searchFinished(SearchStatistics statistics);
+}
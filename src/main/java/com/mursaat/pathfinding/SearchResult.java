@@ -0,0 +1,111 @@
+package com.mursaat.pathfinding;
+
+import java.util.LinkedList;
+
+/**
+ * The result of {@link AStar#search}, telling why the search stopped
+ */
+public final class SearchResult {
+
+  /**
+   * Why a search stopped
+   */
+  public enum Status {
+    /**
+     * A path to the end position has been found, the shortest one unless {@link #getSuboptimalityBound()}
+     * is above 1
+     */
+    FOUND,
+    /**
+     * There is no path to the end position
+     */
+    UNREACHABLE,
+    /**
+     * The search stopped when it reached its limit of expanded nodes or of time, the path leads
+     * to the position closest to the end position according to the heuristic
+     */
+    BUDGET_EXHAUSTED
+  }
+
+  private final Status status;
+
+  private final GridPath gridPath;
+
+  private final double suboptimalityBound;
+
+  /**
+   * The positions of the path in a list, created when first asked
+   */
+  private LinkedList<PathNodePosition> path;
+
+  SearchResult(Status status, GridPath gridPath) {
+    this(status, gridPath, status == Status.BUDGET_EXHAUSTED ? Double.POSITIVE_INFINITY : 1);
+  }
+
+  SearchResult(Status status, GridPath gridPath, double suboptimalityBound) {
+    this.status = status;
+    this.gridPath = gridPath;
+    this.suboptimalityBound = suboptimalityBound;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * Tell if the path leads to the end position
+   *
+   * @return true if the status is {@link Status#FOUND}
+   */
+  public boolean isFound() {
+    return status == Status.FOUND;
+  }
+
+  /**
+   * Returns the path, without the start position.
+   * It is empty if the end position is unreachable, and partial if the budget has been exhausted.
+   *
+   * @return The positions of the path
+   */
+  public LinkedList<PathNodePosition> getPath() {
+    if (path == null) {
+      path = gridPath.toLinkedList();
+    }
+    return path;
+  }
+
+  /**
+   * Returns the path like {@link #getPath}, without creating a list
+   *
+   * @return The positions of the path
+   */
+  public GridPath getGridPath() {
+    return gridPath;
+  }
+
+  /**
+   * Returns the cost of the path
+   *
+   * @return The cost to reach the last position of the path, 0 if the path is empty
+   */
+  public double getCost() {
+    return gridPath.cost();
+  }
+
+  /**
+   * Returns how far from the shortest path the path can be : its cost is at most the bound times the cost
+   * of the shortest path. It is 1 when the path is the shortest one or when there is no path, and above 1 when
+   * the search used {@link AStarParams#setHeuristicWeight} or {@link SearchAlgorithm#ANYTIME_A_STAR}.
+   *
+   * @return The bound, infinite if the budget has been exhausted before reaching the end position
+   */
+  public double getSuboptimalityBound() {
+    return suboptimalityBound;
+  }
+
+  @Override
+  public String toString() {
+    return "SearchResult{status=" + status + ", length=" + gridPath.length() + ", cost=" + gridPath.cost()
+            + ", bound=" + suboptimalityBound + "}";
+  }
+}
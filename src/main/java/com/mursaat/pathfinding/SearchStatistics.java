@@ -0,0 +1,156 @@
+package com.mursaat.pathfinding;
+
+/**
+ * What a search did, given to the {@link SearchListener} of its parameters.
+ * The counters are kept by every search since they only cost an increment, the times are only
+ * measured when a listener is given.
+ */
+public final class SearchStatistics {
+
+  /**
+   * The values which can be read from the statistics
+   */
+  public enum Metric {
+    /**
+     * The number of nodes removed from the open list and expanded
+     */
+    EXPANDED_NODES,
+    /**
+     * The number of successors given by the neighbors enumerator, or the jump points found by Jump Point Search
+     */
+    GENERATED_NODES,
+    /**
+     * The number of nodes already in the open list whose cost decreased, which a queue without
+     * decrease-key would push another time
+     */
+    DUPLICATE_PUSHES,
+    /**
+     * The number of nodes already expanded whose cost decreased, so they are pushed again in the open list
+     */
+    REOPENED_NODES,
+    /**
+     * The largest number of nodes in the open list, or in both open lists of a bidirectional search
+     */
+    MAX_OPEN_LIST_SIZE,
+    /**
+     * The number of positions visited to check if the end position is reachable
+     */
+    FLOOD_FILL_CELLS,
+    /**
+     * The number of positions of the returned path
+     */
+    PATH_LENGTH,
+    /**
+     * The time spent checking if the end position is reachable, in nanoseconds
+     */
+    FLOOD_FILL_NANOS,
+    /**
+     * The time spent in the search, in nanoseconds
+     */
+    SEARCH_NANOS,
+    /**
+     * The time spent building the returned path, in nanoseconds
+     */
+    PATH_NANOS,
+    /**
+     * The time spent in the whole call, in nanoseconds
+     */
+    TOTAL_NANOS
+  }
+
+  private SearchAlgorithm algorithm;
+  private final long[] values = new long[Metric.values().length];
+
+  SearchStatistics() {
+  }
+
+  /**
+   * Copy the counters of the last search of a context
+   */
+  void record(SearchContext context, AStarParams params, int pathLength, long totalNanos) {
+    algorithm = params.getAlgorithm();
+    values[Metric.EXPANDED_NODES.ordinal()] = context.expandedNodes;
+    values[Metric.GENERATED_NODES.ordinal()] = context.generatedNodes;
+    values[Metric.DUPLICATE_PUSHES.ordinal()] = context.duplicatePushes;
+    values[Metric.REOPENED_NODES.ordinal()] = context.reopenedNodes;
+    values[Metric.MAX_OPEN_LIST_SIZE.ordinal()] = context.maxOpenNodes;
+    values[Metric.FLOOD_FILL_CELLS.ordinal()] = context.floodFillCells;
+    values[Metric.PATH_LENGTH.ordinal()] = pathLength;
+    values[Metric.FLOOD_FILL_NANOS.ordinal()] = context.floodFillNanos;
+    values[Metric.SEARCH_NANOS.ordinal()] = context.searchNanos;
+    values[Metric.PATH_NANOS.ordinal()] = context.pathNanos;
+    values[Metric.TOTAL_NANOS.ordinal()] = totalNanos;
+  }
+
+  /**
+   * Returns the algorithm asked by the parameters, A* may have been used instead when it does not support them
+   *
+   * @return The algorithm
+   */
+  public SearchAlgorithm getAlgorithm() {
+    return algorithm;
+  }
+
+  /**
+   * Returns a value of the statistics
+   *
+   * @param metric The value to read
+   * @return The value
+   */
+  public long get(Metric metric) {
+    return values[metric.ordinal()];
+  }
+
+  public long getExpandedNodes() {
+    return get(Metric.EXPANDED_NODES);
+  }
+
+  public long getGeneratedNodes() {
+    return get(Metric.GENERATED_NODES);
+  }
+
+  public long getDuplicatePushes() {
+    return get(Metric.DUPLICATE_PUSHES);
+  }
+
+  public long getReopenedNodes() {
+    return get(Metric.REOPENED_NODES);
+  }
+
+  public long getMaxOpenListSize() {
+    return get(Metric.MAX_OPEN_LIST_SIZE);
+  }
+
+  public long getFloodFillCells() {
+    return get(Metric.FLOOD_FILL_CELLS);
+  }
+
+  public long getPathLength() {
+    return get(Metric.PATH_LENGTH);
+  }
+
+  public long getFloodFillNanos() {
+    return get(Metric.FLOOD_FILL_NANOS);
+  }
+
+  public long getSearchNanos() {
+    return get(Metric.SEARCH_NANOS);
+  }
+
+  public long getPathNanos() {
+    return get(Metric.PATH_NANOS);
+  }
+
+  public long getTotalNanos() {
+    return get(Metric.TOTAL_NANOS);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("SearchStatistics{algorithm=").append(algorithm);
+    for (Metric metric : Metric.values()) {
+      builder.append(", ").append(metric).append('=').append(values[metric.ordinal()]);
+    }
+    return builder.append('}').toString();
+  }
+}
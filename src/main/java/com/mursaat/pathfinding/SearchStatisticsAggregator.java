@@ -0,0 +1,154 @@
+package com.mursaat.pathfinding;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link SearchListener} gathering the statistics of many searches in histograms, to be exported to a
+ * metrics system. It can be shared by the searches of several threads, for example with {@link AStar#findPaths}.
+ * <p>
+ * Each metric has a histogram of {@link #BUCKET_COUNT} buckets : bucket 0 counts the searches where the
+ * value was 0, and bucket i the ones where it was between 2^(i-1) and 2^i - 1.
+ */
+public final class SearchStatisticsAggregator implements SearchListener {
+
+  /**
+   * The number of buckets of each histogram
+   */
+  public static final int BUCKET_COUNT = 64;
+
+  private static final SearchStatistics.Metric[] METRICS = SearchStatistics.Metric.values();
+
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLongArray buckets = new AtomicLongArray(METRICS.length * BUCKET_COUNT);
+  private final AtomicLongArray sums = new AtomicLongArray(METRICS.length);
+  private final AtomicLongArray maximums = new AtomicLongArray(METRICS.length);
+
+  @Override
+  public void searchFinished(SearchStatistics statistics) {
+    for (SearchStatistics.Metric metric : METRICS) {
+      long value = Math.max(0, statistics.get(metric));
+      int index = metric.ordinal();
+      buckets.incrementAndGet(index * BUCKET_COUNT + bucketOf(value));
+      sums.addAndGet(index, value);
+      long max = maximums.get(index);
+      while (value > max && !maximums.compareAndSet(index, max, value)) {
+        max = maximums.get(index);
+      }
+    }
+    count.incrementAndGet();
+  }
+
+  /**
+   * Returns the bucket where a value is counted
+   *
+   * @param value The value, not negative
+   * @return The bucket
+   */
+  public static int bucketOf(long value) {
+    return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+  }
+
+  /**
+   * Returns the largest value counted by a bucket
+   *
+   * @param bucket The bucket
+   * @return The largest value of the bucket
+   */
+  public static long getBucketUpperBound(int bucket) {
+    return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+
+  /**
+   * Returns the number of searches recorded
+   *
+   * @return The number of searches
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Returns the histogram of a metric
+   *
+   * @param metric The metric
+   * @return The number of searches counted by each bucket
+   */
+  public long[] getHistogram(SearchStatistics.Metric metric) {
+    long[] histogram = new long[BUCKET_COUNT];
+    int offset = metric.ordinal() * BUCKET_COUNT;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      histogram[i] = buckets.get(offset + i);
+    }
+    return histogram;
+  }
+
+  /**
+   * Returns the sum of the values of a metric over all the searches
+   *
+   * @param metric The metric
+   * @return The sum
+   */
+  public long getSum(SearchStatistics.Metric metric) {
+    return sums.get(metric.ordinal());
+  }
+
+  /**
+   * Returns the largest value of a metric
+   *
+   * @param metric The metric
+   * @return The largest value, 0 if no search has been recorded
+   */
+  public long getMax(SearchStatistics.Metric metric) {
+    return maximums.get(metric.ordinal());
+  }
+
+  /**
+   * Returns the mean value of a metric
+   *
+   * @param metric The metric
+   * @return The mean value, 0 if no search has been recorded
+   */
+  public double getMean(SearchStatistics.Metric metric) {
+    long searches = count.get();
+    return searches == 0 ? 0 : (double) getSum(metric) / searches;
+  }
+
+  /**
+   * Returns an upper bound of a percentile of a metric, taken from its histogram
+   *
+   * @param metric     The metric
+   * @param percentile The percentile, between 0 and 100
+   * @return The largest value of the bucket holding the percentile, never above the largest value recorded
+   */
+  public long getPercentile(SearchStatistics.Metric metric, double percentile) {
+    long[] histogram = getHistogram(metric);
+    long total = 0;
+    for (long bucketCount : histogram) {
+      total += bucketCount;
+    }
+    long rank = (long) Math.ceil(total * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += histogram[i];
+      if (seen >= rank && seen > 0) {
+        return Math.min(getBucketUpperBound(i), getMax(metric));
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Forget all the searches recorded
+   */
+  public void reset() {
+    for (int i = 0; i < buckets.length(); i++) {
+      buckets.set(i, 0);
+    }
+    for (int i = 0; i < METRICS.length; i++) {
+      sums.set(i, 0);
+      maximums.set(i, 0);
+    }
+    count.set(0);
+  }
+}
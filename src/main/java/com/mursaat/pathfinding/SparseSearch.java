@@ -0,0 +1,397 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * The A* search used by {@link SearchContext} on the maps having more than {@link SearchContext#MAX_DENSE_CELLS}
+ * cells, such as a large {@link MappedGridMap}, where arrays indexed by cell would not fit in the heap.
+ * The nodes touched by the search are numbered in the order they are reached, and a hash table gives the number of
+ * the node of a cell index, a long y * width + x. The storage grows with the number of nodes touched, whatever
+ * the size of the map.
+ * <p>
+ * The neighbors are given by {@link NeighborsEnumerator#enumerateNeighbors(PathFinderMap, PathNode)}, which does not
+ * compute cell indexes, and the costs are doubles.
+ */
+final class SparseSearch {
+
+  /**
+   * The number of the node in a slot of the hash table is the value of the slot minus one, 0 being an empty slot
+   */
+  private static final int EMPTY = 0;
+
+  /**
+   * The multiplier of the Fibonacci hashing of the cell indexes
+   */
+  private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  /**
+   * The context holding the counters and the budget of the search
+   */
+  private final SearchContext context;
+
+  /**
+   * The hash table of the nodes, twice as large as the number of nodes at least
+   */
+  private int[] table = new int[128];
+  private int tableShift = 64 - 7;
+
+  /**
+   * The data of each node, indexed by its number
+   */
+  private long[] cells = new long[64];
+  private double[] costs = new double[64];
+  private int[] parents = new int[64];
+  private boolean[] closed = new boolean[64];
+
+  /**
+   * The slot of each node in the heap, -1 if it is not in the heap
+   */
+  private int[] heapSlots = new int[64];
+  private int nodeCount;
+
+  /**
+   * The open list, a binary min-heap of node numbers ordered by their keys then their second keys
+   */
+  private int[] heap = new int[64];
+  private double[] heapKeys = new double[64];
+  private double[] heapSecondKeys = new double[64];
+  private int heapSize;
+
+  /**
+   * The node with the lowest heuristic reached by the last search, where a partial path ends
+   */
+  private int bestNode;
+
+  /**
+   * The bound proven for the path found by the last search, see {@link SearchResult#getSuboptimalityBound()}
+   */
+  private double pathBound;
+
+  SparseSearch(SearchContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Run the A* loop between the start and end positions of the parameters
+   *
+   * @param params The parameters used to compute the path
+   * @return The number of the end node if it has been reached, {@link SearchContext#BUDGET_EXHAUSTED} if the search
+   * stopped on its budget, -1 otherwise
+   */
+  int search(AStarParams params) {
+    PathFinderMap map = params.getMap();
+    NeighborsEnumerator neighborsEnumerator = params.getNeighborsEnumerator();
+    DistanceCalculator heuristic = params.getHeuristic();
+    TieBreaking tieBreaking = params.getTieBreaking();
+    double weight = params.getHeuristicWeight();
+    // On a weighted map, the heuristic counts the remaining distance at the lowest cost, so it stays admissible
+    double heuristicScale = map instanceof WeightedPathFinderMap ? ((WeightedPathFinderMap) map).getMinCost() : 1;
+    long width = map.getWidth();
+    PathNodePosition startPos = params.getStartPos();
+    int endX = params.getEndPos().x;
+    int endY = params.getEndPos().y;
+    long goal = endY * width + endX;
+    int startDx = startPos.x - endX;
+    int startDy = startPos.y - endY;
+    // The lowest cost plus heuristic of the nodes whose cost decreased after they were expanded by a weighted search,
+    // which are not expanded again
+    double inconsistentEstimate = Double.POSITIVE_INFINITY;
+    double bestHeuristic = Double.POSITIVE_INFINITY;
+
+    clear();
+    int start = add(startPos.y * width + startPos.x, 0, -1);
+    bestNode = start;
+    push(start, 0, 0);
+    context.countPush(false, false);
+
+    SearchContext c = context;
+    while (heapSize > 0) {
+      int u = poll();
+      c.openNodes--;
+      if (cells[u] == goal) {
+        pathBound = weight == 1 ? 1
+                : SearchContext.bound(costs[u], weight, Math.min(inconsistentEstimate, lowestEstimate(heuristic, heuristicScale, width, endX, endY)));
+        return u;
+      }
+      if (c.isBudgetExhausted()) {
+        return SearchContext.BUDGET_EXHAUSTED;
+      }
+      closed[u] = true;
+      c.expandedNodes++;
+
+      double uCost = costs[u];
+      PathNode node = new PathNode(new PathNodePosition((int) (cells[u] % width), (int) (cells[u] / width)), uCost, 0);
+      for (PathNode neighbor : neighborsEnumerator.enumerateNeighbors(map, node)) {
+        c.generatedNodes++;
+        int vx = neighbor.pos.x;
+        int vy = neighbor.pos.y;
+        double vCost = neighbor.cost;
+        int v = find(vy * width + vx);
+        boolean reached = v >= 0;
+        if (reached && costs[v] <= vCost) {
+          continue;
+        }
+        double h = heuristicScale * heuristic.calculate(vx, vy, endX, endY);
+        if (weight != 1 && reached && closed[v]) {
+          // Expanding it again could expand its whole subtree again, and the path found stays within the bound
+          inconsistentEstimate = Math.min(inconsistentEstimate, vCost + h);
+          continue;
+        }
+        c.countPush(reached, reached && closed[v]);
+        if (reached) {
+          closed[v] = false;
+          costs[v] = vCost;
+          parents[v] = u;
+        } else {
+          v = add(vy * width + vx, vCost, u);
+        }
+        if (h < bestHeuristic) {
+          bestHeuristic = h;
+          bestNode = v;
+        }
+        if (tieBreaking == TieBreaking.NONE) {
+          push(v, vCost + weight * h, 0);
+        } else if (tieBreaking == TieBreaking.HIGHER_G) {
+          push(v, vCost + weight * h, -vCost);
+        } else {
+          push(v, vCost + weight * h, SearchContext.crossProduct(vx - endX, vy - endY, startDx, startDy));
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Tell if the end position is reachable from the start position, following the movements allowed by the
+   * neighbors enumerator. The positions closest to the end position are visited first, so the search usually
+   * stops long before the area of the start position is filled.
+   *
+   * @param params The parameters used to compute the path
+   * @return true if the end position is reachable from the start position
+   */
+  boolean reaches(AStarParams params) {
+    PathFinderMap map = params.getMap();
+    NeighborsEnumerator neighborsEnumerator = params.getNeighborsEnumerator();
+    DistanceCalculator heuristic = params.getHeuristic();
+    long width = map.getWidth();
+    PathNodePosition startPos = params.getStartPos();
+    int endX = params.getEndPos().x;
+    int endY = params.getEndPos().y;
+    long goal = endY * width + endX;
+    if (!map.isTraversable(startPos.x, startPos.y)) {
+      return false;
+    }
+
+    clear();
+    push(add(startPos.y * width + startPos.x, 0, -1), 0, 0);
+    while (heapSize > 0) {
+      int u = poll();
+      context.floodFillCells++;
+      if (cells[u] == goal) {
+        return true;
+      }
+      PathNode node = new PathNode(new PathNodePosition((int) (cells[u] % width), (int) (cells[u] / width)), 0, 0);
+      for (PathNode neighbor : neighborsEnumerator.enumerateNeighbors(map, node)) {
+        long v = neighbor.pos.y * width + neighbor.pos.x;
+        if (find(v) < 0) {
+          push(add(v, 0, u), heuristic.calculate(neighbor.pos.x, neighbor.pos.y, endX, endY), 0);
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the node with the lowest heuristic reached by the last search
+   *
+   * @return The number of the node
+   */
+  int getBestNode() {
+    return bestNode;
+  }
+
+  /**
+   * Returns the bound proven for the path found by the last search
+   *
+   * @return The bound, 1 if the path is the shortest one
+   */
+  double getPathBound() {
+    return pathBound;
+  }
+
+  /**
+   * Build the path by going up the parents from a node of the last search
+   *
+   * @param width The width of the map
+   * @param last  The number of the last node of the path
+   * @return The path, without the start position
+   */
+  GridPath buildPath(int width, int last) {
+    int length = 0;
+    for (int node = last; parents[node] >= 0; node = parents[node]) {
+      length++;
+    }
+    int[] positions = new int[2 * length];
+    for (int node = last; parents[node] >= 0; node = parents[node]) {
+      length--;
+      positions[2 * length] = (int) (cells[node] % width);
+      positions[2 * length + 1] = (int) (cells[node] / width);
+    }
+    return GridPath.ofPositions(positions, width, costs[last]);
+  }
+
+  /**
+   * Returns the lowest cost plus heuristic of the nodes of the open list
+   */
+  private double lowestEstimate(DistanceCalculator heuristic, double heuristicScale, long width, int endX, int endY) {
+    double lowest = Double.POSITIVE_INFINITY;
+    for (int slot = 0; slot < heapSize; slot++) {
+      int node = heap[slot];
+      lowest = Math.min(lowest, costs[node]
+              + heuristicScale * heuristic.calculate((int) (cells[node] % width), (int) (cells[node] / width), endX, endY));
+    }
+    return lowest;
+  }
+
+  /**
+   * Forget the nodes of the previous search
+   */
+  private void clear() {
+    Arrays.fill(table, EMPTY);
+    nodeCount = 0;
+    heapSize = 0;
+  }
+
+  /**
+   * Returns the slot of the hash table where a cell index is, or the empty slot where it would be added
+   */
+  private int slot(long cell) {
+    int mask = table.length - 1;
+    int slot = (int) ((cell * HASH_MULTIPLIER) >>> tableShift);
+    while (table[slot] != EMPTY && cells[table[slot] - 1] != cell) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Returns the number of the node of a cell index
+   *
+   * @param cell The cell index
+   * @return The number of the node, -1 if it has not been reached by the current search
+   */
+  private int find(long cell) {
+    return table[slot(cell)] - 1;
+  }
+
+  /**
+   * Add a node which has not been reached by the current search
+   *
+   * @param cell   The cell index of the node
+   * @param cost   The cost to come on the node
+   * @param parent The number of the parent of the node, -1 for the start node
+   * @return The number of the node
+   */
+  private int add(long cell, double cost, int parent) {
+    if (nodeCount == cells.length) {
+      int capacity = nodeCount * 2;
+      cells = Arrays.copyOf(cells, capacity);
+      costs = Arrays.copyOf(costs, capacity);
+      parents = Arrays.copyOf(parents, capacity);
+      closed = Arrays.copyOf(closed, capacity);
+      heapSlots = Arrays.copyOf(heapSlots, capacity);
+    }
+    if (2 * (nodeCount + 1) > table.length) {
+      rehash();
+    }
+    int node = nodeCount++;
+    cells[node] = cell;
+    costs[node] = cost;
+    parents[node] = parent;
+    closed[node] = false;
+    heapSlots[node] = -1;
+    table[slot(cell)] = node + 1;
+    return node;
+  }
+
+  /**
+   * Double the size of the hash table, and add the nodes again
+   */
+  private void rehash() {
+    table = new int[table.length * 2];
+    tableShift--;
+    for (int node = 0; node < nodeCount; node++) {
+      table[slot(cells[node])] = node + 1;
+    }
+  }
+
+  /**
+   * Add a node to the open list, or decrease its keys if it is already in it
+   */
+  private void push(int node, double key, double secondKey) {
+    int slot = heapSlots[node];
+    if (slot < 0) {
+      if (heapSize == heap.length) {
+        heap = Arrays.copyOf(heap, heapSize * 2);
+        heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+        heapSecondKeys = Arrays.copyOf(heapSecondKeys, heapSize * 2);
+      }
+      slot = heapSize++;
+    }
+    while (slot > 0) {
+      int parent = (slot - 1) >>> 1;
+      if (!less(key, secondKey, heapKeys[parent], heapSecondKeys[parent])) {
+        break;
+      }
+      set(slot, heap[parent], heapKeys[parent], heapSecondKeys[parent]);
+      slot = parent;
+    }
+    set(slot, node, key, secondKey);
+  }
+
+  /**
+   * Remove the node of the open list which comes first
+   */
+  private int poll() {
+    int result = heap[0];
+    heapSlots[result] = -1;
+    int last = --heapSize;
+    if (last == 0) {
+      return result;
+    }
+    int node = heap[last];
+    double key = heapKeys[last];
+    double secondKey = heapSecondKeys[last];
+    int slot = 0;
+    while (true) {
+      int child = 2 * slot + 1;
+      if (child >= last) {
+        break;
+      }
+      if (child + 1 < last && less(heapKeys[child + 1], heapSecondKeys[child + 1], heapKeys[child], heapSecondKeys[child])) {
+        child++;
+      }
+      if (!less(heapKeys[child], heapSecondKeys[child], key, secondKey)) {
+        break;
+      }
+      set(slot, heap[child], heapKeys[child], heapSecondKeys[child]);
+      slot = child;
+    }
+    set(slot, node, key, secondKey);
+    return result;
+  }
+
+  private void set(int slot, int node, double key, double secondKey) {
+    heap[slot] = node;
+    heapKeys[slot] = key;
+    heapSecondKeys[slot] = secondKey;
+    heapSlots[node] = slot;
+  }
+
+  /**
+   * Tell if a node comes before another one, comparing their keys then their second keys
+   */
+  private static boolean less(double key, double secondKey, double otherKey, double otherSecondKey) {
+    return key < otherKey || key == otherKey && secondKey < otherSecondKey;
+  }
+}
@@ -0,0 +1,37 @@
+package com.mursaat.pathfinding;
+
+/**
+ * Choose which node {@link SearchAlgorithm#A_STAR} expands first among the nodes of the same estimated cost.
+ * On open maps, a large part of the nodes have the same estimated cost, and expanding them in a bad order
+ * explores a whole plateau instead of going straight to the end position. The costs of the paths found do not
+ * depend on it, only their shape and the number of nodes expanded.
+ * <p>
+ * Whatever the policy, the open lists of the library do not depend on anything but the operations done on them,
+ * so a query is always expanded in the same order, on every machine. With {@link AStarParams#setIntegerCosts}, the
+ * costs are compared exactly and the nodes still tied are expanded by increasing cell index, or the last added
+ * first in the bucket queue. With doubles, two paths mixing orthogonal and diagonal moves in a different order may
+ * cost a little more or less than each other, so their nodes are rarely tied : the policy matters most with
+ * {@link NeighborsEnumerator#ORTHO_NEIGHBORS} or with integer costs.
+ */
+public enum TieBreaking {
+
+  /**
+   * No preference, the open list breaks the ties : the bucket queue of the integer costs prefers the last added
+   * node, the heap of the integer costs the lowest heuristic, and {@link IndexedBinaryHeap} depends on the order
+   * of the operations done on it
+   */
+  NONE,
+
+  /**
+   * Prefer the node with the highest cost to come, the deepest one. Since the estimated costs are equal,
+   * it is also the node with the lowest heuristic, the closest one to the end position.
+   */
+  HIGHER_G,
+
+  /**
+   * Prefer the node closest to the straight line from the start position to the end position, measured by the
+   * cross product of the vectors from the end position to the node and to the start position. The path found
+   * follows the straight line where it can, and less nodes are expanded around it.
+   */
+  CROSS_PRODUCT
+}
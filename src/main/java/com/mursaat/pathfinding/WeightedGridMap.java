@@ -0,0 +1,137 @@
+package com.mursaat.pathfinding;
+
+/**
+ * A {@link WeightedPathFinderMap} storing the cost of each position in a byte, from 1 to 255,
+ * a cost of 0 meaning the position is not traversable.
+ * The built-in enumerators read the array directly, so a search on it is almost as fast as without costs.
+ */
+public final class WeightedGridMap implements WeightedPathFinderMap {
+
+  /**
+   * The cost of the positions which are not traversable
+   */
+  public static final int BLOCKED = 0;
+
+  /**
+   * The highest cost a position can have
+   */
+  public static final int MAX_COST = 255;
+
+  private final int width;
+
+  private final int height;
+
+  /**
+   * The unsigned cost of each position, at index y * width + x
+   */
+  private final byte[] costs;
+
+  /**
+   * The number of positions having each cost, to know the minimum cost without scanning the map
+   */
+  private final int[] costCounts = new int[MAX_COST + 1];
+
+  /**
+   * Create a map where no position is traversable
+   *
+   * @param width  The width of the map
+   * @param height The height of the map
+   */
+  public WeightedGridMap(int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.costs = new byte[width * height];
+    costCounts[BLOCKED] = costs.length;
+  }
+
+  /**
+   * Create a copy of a map. The costs of a weighted map are rounded, the traversable positions of
+   * other maps get a cost of 1.
+   *
+   * @param map The map to copy
+   */
+  public WeightedGridMap(PathFinderMap map) {
+    this(map.getWidth(), map.getHeight());
+    WeightedPathFinderMap weighted = map instanceof WeightedPathFinderMap ? (WeightedPathFinderMap) map : null;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        if (map.isTraversable(x, y)) {
+          setCost(x, y, weighted != null ? (int) Math.max(1, Math.min(MAX_COST, Math.round(weighted.getCost(x, y)))) : 1);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isTraversable(int x, int y) {
+    return costs[y * width + x] != BLOCKED;
+  }
+
+  @Override
+  public double getCost(int x, int y) {
+    return costs[y * width + x] & 0xFF;
+  }
+
+  @Override
+  public double getMinCost() {
+    for (int cost = 1; cost <= MAX_COST; cost++) {
+      if (costCounts[cost] != 0) {
+        return cost;
+      }
+    }
+    return 1;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Change the cost of a position
+   *
+   * @param x    The x position
+   * @param y    The y position
+   * @param cost The cost, from 1 to 255, or {@link #BLOCKED}
+   */
+  public void setCost(int x, int y, int cost) {
+    if (cost < BLOCKED || cost > MAX_COST) {
+      throw new IllegalArgumentException("The cost must be between " + BLOCKED + " and " + MAX_COST);
+    }
+    int index = y * width + x;
+    costCounts[costs[index] & 0xFF]--;
+    costCounts[cost]++;
+    costs[index] = (byte) cost;
+  }
+
+  /**
+   * Change the cost of all the positions of a rectangle
+   *
+   * @param x    The x position of the rectangle
+   * @param y    The y position of the rectangle
+   * @param w    The width of the rectangle
+   * @param h    The height of the rectangle
+   * @param cost The cost, from 1 to 255, or {@link #BLOCKED}
+   */
+  public void fillRect(int x, int y, int w, int h, int cost) {
+    for (int row = y; row < y + h; row++) {
+      for (int column = x; column < x + w; column++) {
+        setCost(column, row, cost);
+      }
+    }
+  }
+
+  /**
+   * Returns the costs of the positions, without copying them
+   *
+   * @return The unsigned costs, at index y * width + x
+   */
+  byte[] getCosts() {
+    return costs;
+  }
+}
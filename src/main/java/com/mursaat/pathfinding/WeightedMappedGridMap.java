@@ -0,0 +1,39 @@
+package com.mursaat.pathfinding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link MappedGridMap} whose file has a cost section, returned by {@link MappedGridMap#open} for these files.
+ * The maps without costs are not weighted, so they keep the searches which need a map without costs.
+ */
+public final class WeightedMappedGridMap extends MappedGridMap implements WeightedPathFinderMap {
+
+  /**
+   * The minimum cost of the traversable positions
+   */
+  private final int minCost;
+
+  WeightedMappedGridMap(FileChannel channel, ByteBuffer header, int minCost) throws IOException {
+    super(channel, header);
+    this.minCost = minCost;
+  }
+
+  /**
+   * Returns the cost stored for a position
+   *
+   * @param x The x position
+   * @param y The y position
+   * @return The cost, between 1 and 255 for a traversable position, 0 otherwise
+   */
+  @Override
+  public double getCost(int x, int y) {
+    return readCost(x, y);
+  }
+
+  @Override
+  public double getMinCost() {
+    return minCost;
+  }
+}
@@ -0,0 +1,26 @@
+package com.mursaat.pathfinding;
+
+/**
+ * A {@link PathFinderMap} where the positions have a cost, to prefer some terrains over others.
+ * With the built-in enumerators, moving to a position costs the usual step cost (1, or the square root of 2
+ * in diagonal) multiplied by the cost of the position, and the heuristic is multiplied by {@link #getMinCost()}
+ * so it never overestimates the remaining cost.
+ */
+public interface WeightedPathFinderMap extends PathFinderMap {
+
+  /**
+   * Returns the cost of moving to a position, for a step of length 1
+   *
+   * @param x The x position
+   * @param y The y position
+   * @return The cost of the position, only meaningful if the position is traversable
+   */
+  double getCost(int x, int y);
+
+  /**
+   * Returns a lower bound of the cost of the traversable positions
+   *
+   * @return The minimum cost
+   */
+  double getMinCost();
+}
@@ -4,7 +4,15 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 
@@ -212,4 +220,68 @@ public class AStarTest {
     params1.setEndPos(new PathNodePosition(49, 49));
     AStar.findPath(params1);
   }
-}
\ No newline at end of file
+
+  /**
+   * Test {@link AStar#findPaths(Collection, ForkJoinPool)} and {@link AStar#findPaths(Collection, Executor, int)}
+   * give the same paths as {@link AStar#findPath(AStarParams)}, in the same order
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testFindPaths() throws Exception {
+    BitGridMap map = new BitGridMap(60, 60);
+    map.fillRect(0, 0, 60, 60, true);
+    Random random = new Random(43);
+    for (int i = 0; i < 900; i++) {
+      map.setTraversable(random.nextInt(60), random.nextInt(60), false);
+    }
+    List<AStarParams> queries = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      PathFinderMap queryMap = i % 10 == 0 ? map1 : map;
+      queries.add(new AStarParams(queryMap,
+              new PathNodePosition(random.nextInt(queryMap.getWidth()), random.nextInt(queryMap.getHeight())),
+              new PathNodePosition(random.nextInt(queryMap.getWidth()), random.nextInt(queryMap.getHeight())))
+              .setNeighborsEnumerator(i % 3 == 0 ? NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS : NeighborsEnumerator.ORTHO_NEIGHBORS));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      List<LinkedList<PathNodePosition>> poolPaths = AStar.findPaths(queries, pool);
+      List<LinkedList<PathNodePosition>> executorPaths = AStar.findPaths(queries, executor, 8);
+      assertEquals("There must be one path per query", queries.size(), poolPaths.size());
+      assertEquals("There must be one path per query", queries.size(), executorPaths.size());
+      for (int i = 0; i < queries.size(); i++) {
+        LinkedList<PathNodePosition> expected = AStar.findPath(queries.get(i));
+        assertEquals("The paths must be in the order of the queries", expected, poolPaths.get(i));
+        assertEquals("The paths must be in the order of the queries", expected, executorPaths.get(i));
+      }
+    } finally {
+      pool.shutdown();
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Test a batch with more chunks than processors does not keep more idle search storages than processors
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testIdleContextsBound() throws Exception {
+    List<AStarParams> queries = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      queries.add(new AStarParams(map1, new PathNodePosition(0, 0), new PathNodePosition(i % 50, 49)));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(64);
+    try {
+      for (int i = 0; i < 3; i++) {
+        AStar.findPaths(queries, executor, 64);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertTrue("The idle search storages must not be more than the processors",
+            AStar.idleContexts() <= Runtime.getRuntime().availableProcessors());
+  }
+}
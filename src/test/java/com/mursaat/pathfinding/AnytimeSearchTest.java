@@ -0,0 +1,159 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link AnytimeSearch} and the weighted A* of {@link SearchContext}
+ */
+public class AnytimeSearchTest {
+
+  private BitGridMap map;
+
+  private PathNodePosition startPos;
+
+  private PathNodePosition endPos;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    Random random = new Random(25);
+    map = new BitGridMap(120, 90);
+    for (int y = 0; y < 90; y++) {
+      for (int x = 0; x < 120; x++) {
+        map.setTraversable(x, y, random.nextInt(4) != 0);
+      }
+    }
+    startPos = new PathNodePosition(2, 3);
+    endPos = new PathNodePosition(115, 85);
+    map.setTraversable(startPos.x, startPos.y, true);
+    map.setTraversable(endPos.x, endPos.y, true);
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map = null;
+    startPos = null;
+    endPos = null;
+  }
+
+  private AStarParams params(PathNodePosition startPos, PathNodePosition endPos) {
+    return new AStarParams(map, startPos, endPos)
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setHeuristic(DistanceCalculator.OCTILE_DISTANCE);
+  }
+
+  /**
+   * Test weighted A* returns a path within the weight of the shortest one, with a bound between both
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testWeightedAStar() throws Exception {
+    Random random = new Random(7);
+    SearchContext context = new SearchContext();
+    for (int i = 0; i < 50; i++) {
+      PathNodePosition from = new PathNodePosition(random.nextInt(120), random.nextInt(90));
+      PathNodePosition to = new PathNodePosition(random.nextInt(120), random.nextInt(90));
+      SearchResult optimal = context.search(params(from, to));
+      if (!optimal.isFound()) {
+        continue;
+      }
+      assertEquals("The bound of A* must be 1", 1, optimal.getSuboptimalityBound(), 0);
+      for (double weight : new double[]{1.2, 1.5, 3}) {
+        SearchResult result = context.search(params(from, to).setHeuristicWeight(weight));
+        assertTrue("The path must be found", result.isFound());
+        double ratio = result.getCost() / optimal.getCost();
+        assertTrue("The bound must not be above the weight", result.getSuboptimalityBound() <= weight);
+        assertTrue("The bound must hold", ratio <= result.getSuboptimalityBound() + 1e-9);
+        assertEquals("The cost must be the sum of the moves", TestPaths.cost(map, from, result.getPath()), result.getCost(), 1e-9);
+      }
+    }
+  }
+
+  /**
+   * Test a higher weight expands less nodes on a long query
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testExpandedNodes() throws Exception {
+    SearchContext context = new SearchContext();
+    context.search(params(startPos, endPos));
+    int expandedNodes = context.getExpandedNodes();
+    context.search(params(startPos, endPos).setHeuristicWeight(2));
+    assertTrue("Weighted A* must expand less nodes", context.getExpandedNodes() < expandedNodes);
+  }
+
+  /**
+   * Test ARA* without budget proves the shortest path, of the cost found by the reference search
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testAnytimeOptimal() throws Exception {
+    SearchContext context = new SearchContext();
+    SearchResult optimal = context.search(params(startPos, endPos));
+    SearchResult result = context.search(params(startPos, endPos)
+            .setAlgorithm(SearchAlgorithm.ANYTIME_A_STAR)
+            .setHeuristicWeight(3));
+    assertEquals("The path must be found", SearchResult.Status.FOUND, result.getStatus());
+    assertEquals("The path must be the shortest one", optimal.getCost(), result.getCost(), 1e-9);
+    assertEquals("The path must be the shortest one", TestPaths.shortestCost(map, startPos, endPos, true), result.getCost(), 1e-9);
+    assertEquals("The bound must be 1", 1, result.getSuboptimalityBound(), 0);
+    assertEquals("The cost must be the sum of the moves", TestPaths.cost(map, startPos, result.getPath()), result.getCost(), 1e-9);
+  }
+
+  /**
+   * Test ARA* stopped by its budget returns the best path found so far, with a bound which holds
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testAnytimeBudget() throws Exception {
+    SearchContext context = new SearchContext();
+    SearchResult optimal = context.search(params(startPos, endPos));
+    context.search(params(startPos, endPos).setHeuristicWeight(3));
+    int firstPathNodes = context.getExpandedNodes();
+
+    SearchResult result = context.search(params(startPos, endPos)
+            .setAlgorithm(SearchAlgorithm.ANYTIME_A_STAR)
+            .setHeuristicWeight(3)
+            .setMaxExpandedNodes(firstPathNodes + 50));
+    assertEquals("The first path must be kept", SearchResult.Status.FOUND, result.getStatus());
+    assertTrue("The bound must not be above the weight", result.getSuboptimalityBound() <= 3);
+    assertTrue("The bound must hold", result.getCost() / optimal.getCost() <= result.getSuboptimalityBound() + 1e-9);
+    assertEquals("The cost must be the sum of the moves", TestPaths.cost(map, startPos, result.getPath()), result.getCost(), 1e-9);
+
+    result = context.search(params(startPos, endPos)
+            .setAlgorithm(SearchAlgorithm.ANYTIME_A_STAR)
+            .setHeuristicWeight(3)
+            .setMaxExpandedNodes(5));
+    assertEquals("Without path, the budget must be exhausted", SearchResult.Status.BUDGET_EXHAUSTED, result.getStatus());
+    assertTrue("No bound must be known", Double.isInfinite(result.getSuboptimalityBound()));
+  }
+
+  /**
+   * Test the weights below 1 are refused
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testWeightBelowOne() throws Exception {
+    params(startPos, endPos).setHeuristicWeight(0.5);
+  }
+}
@@ -0,0 +1,146 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link BidirectionalSearch}
+ */
+public class BidirectionalSearchTest {
+
+  private WeightedGridMap weightedMap;
+
+  private BitGridMap maze;
+
+  private SearchContext context;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    Random random = new Random(61);
+    weightedMap = new WeightedGridMap(60, 60);
+    for (int y = 0; y < 60; y++) {
+      for (int x = 0; x < 60; x++) {
+        weightedMap.setCost(x, y, random.nextInt(4) == 0 ? WeightedGridMap.BLOCKED : 1 + random.nextInt(4));
+      }
+    }
+
+    // A maze of 40 x 40 rooms carved by a depth first search, with a few walls removed to add loops
+    int rooms = 40;
+    maze = new BitGridMap(rooms * 2 + 1, rooms * 2 + 1);
+    boolean[] carved = new boolean[rooms * rooms];
+    int[] stack = new int[rooms * rooms];
+    int stackSize = 0;
+    stack[stackSize++] = 0;
+    carved[0] = true;
+    maze.setTraversable(1, 1, true);
+    int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    while (stackSize > 0) {
+      int room = stack[stackSize - 1];
+      int x = room % rooms;
+      int y = room / rooms;
+      int first = random.nextInt(4);
+      boolean moved = false;
+      for (int i = 0; i < 4 && !moved; i++) {
+        int[] direction = directions[(first + i) % 4];
+        int nx = x + direction[0];
+        int ny = y + direction[1];
+        if (nx >= 0 && ny >= 0 && nx < rooms && ny < rooms && !carved[ny * rooms + nx]) {
+          carved[ny * rooms + nx] = true;
+          maze.setTraversable(2 * nx + 1, 2 * ny + 1, true);
+          maze.setTraversable(x + nx + 1, y + ny + 1, true);
+          stack[stackSize++] = ny * rooms + nx;
+          moved = true;
+        }
+      }
+      if (!moved) {
+        stackSize--;
+      }
+    }
+    for (int i = 0; i < 100; i++) {
+      maze.setTraversable(1 + random.nextInt(rooms * 2 - 1), 1 + random.nextInt(rooms * 2 - 1), true);
+    }
+
+    context = new SearchContext();
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    weightedMap = null;
+    maze = null;
+    context = null;
+  }
+
+  /**
+   * Test the bidirectional search returns paths of the same cost as A* and as the reference search, on a weighted map
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSameCostAsAStar() throws Exception {
+    Random random = new Random(67);
+    for (NeighborsEnumerator neighborsEnumerator : new NeighborsEnumerator[]{NeighborsEnumerator.ORTHO_NEIGHBORS, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS}) {
+      DistanceCalculator heuristic = neighborsEnumerator == NeighborsEnumerator.ORTHO_NEIGHBORS
+              ? DistanceCalculator.MANHATTAN_DISTANCE : DistanceCalculator.EUCLIDEAN_DISTANCE;
+      for (int i = 0; i < 100; i++) {
+        PathNodePosition startPos = new PathNodePosition(random.nextInt(60), random.nextInt(60));
+        PathNodePosition endPos = new PathNodePosition(random.nextInt(60), random.nextInt(60));
+        AStarParams params = new AStarParams(weightedMap, startPos, endPos)
+                .setNeighborsEnumerator(neighborsEnumerator)
+                .setHeuristic(heuristic);
+
+        LinkedList<PathNodePosition> expectedPositions = context.findPath(params);
+        LinkedList<PathNodePosition> positions = context.findPath(params.setAlgorithm(SearchAlgorithm.BIDIRECTIONAL_A_STAR));
+
+        assertEquals("The bidirectional search must find a path when A* does", expectedPositions.isEmpty(), positions.isEmpty());
+        assertEquals("The bidirectional search must return a path of the same cost as A*",
+                TestPaths.cost(weightedMap, startPos, expectedPositions), TestPaths.cost(weightedMap, startPos, positions), 0.0001);
+        double shortestCost = TestPaths.shortestCost(weightedMap, startPos, endPos,
+                neighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS);
+        assertEquals("The bidirectional search must find a path when there is one",
+                Double.isInfinite(shortestCost) || startPos.equals(endPos), positions.isEmpty());
+        if (!positions.isEmpty()) {
+          assertEquals("The bidirectional search must return the shortest path", shortestCost,
+                  TestPaths.cost(weightedMap, startPos, positions), 1e-9);
+          assertEquals("The path must end on the end position", endPos, positions.getLast());
+        }
+      }
+    }
+  }
+
+  /**
+   * Test the bidirectional search expands less nodes than A* from one corner of a maze to the other
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testExpandedNodes() throws Exception {
+    for (NeighborsEnumerator neighborsEnumerator : new NeighborsEnumerator[]{NeighborsEnumerator.ORTHO_NEIGHBORS, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS}) {
+      AStarParams params = new AStarParams(maze, new PathNodePosition(1, 1), new PathNodePosition(79, 79))
+              .setNeighborsEnumerator(neighborsEnumerator)
+              .setMustCheckPosSameArea(false);
+
+      int expectedLength = context.findPath(params).size();
+      int expandedNodes = context.getExpandedNodes();
+      LinkedList<PathNodePosition> positions = context.findPath(params.setAlgorithm(SearchAlgorithm.BIDIRECTIONAL_A_STAR));
+
+      assertEquals("The path must have the same length as with A*", expectedLength, positions.size());
+      assertTrue("The bidirectional search must expand less nodes than A* in a maze", context.getExpandedNodes() < expandedNodes);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link BitGridMap}
+ */
+public class BitGridMapTest {
+
+  private boolean[][] cells;
+
+  private PathFinderMap arrayMap;
+
+  private BitGridMap bitMap;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    cells = new boolean[70][150];
+    Random random = new Random(13);
+    for (boolean[] row : cells) {
+      for (int x = 0; x < row.length; x++) {
+        row[x] = random.nextInt(4) != 0;
+      }
+    }
+
+    arrayMap = new PathFinderMap() {
+      @Override
+      public boolean isTraversable(int x, int y) {
+        return cells[y][x];
+      }
+
+      @Override
+      public int getWidth() {
+        return cells[0].length;
+      }
+
+      @Override
+      public int getHeight() {
+        return cells.length;
+      }
+    };
+
+    bitMap = new BitGridMap(150, 70);
+    bitMap.loadRect(0, 0, cells);
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    cells = null;
+    arrayMap = null;
+    bitMap = null;
+  }
+
+  /**
+   * Test {@link BitGridMap#loadRect(int, int, boolean[][])} and {@link BitGridMap#BitGridMap(PathFinderMap)}
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testLoad() throws Exception {
+    BitGridMap copy = new BitGridMap(arrayMap);
+    long count = 0;
+    for (int y = 0; y < 70; y++) {
+      for (int x = 0; x < 150; x++) {
+        assertEquals("The position is not the one loaded", cells[y][x], bitMap.isTraversable(x, y));
+        assertEquals("The position is not the one copied", cells[y][x], copy.isTraversable(x, y));
+        if (cells[y][x]) {
+          count++;
+        }
+      }
+    }
+    assertEquals("The number of traversable positions is not correct", count, bitMap.countTraversable());
+  }
+
+  /**
+   * Test {@link BitGridMap#fillRect(int, int, int, int, boolean)} and {@link BitGridMap#isRectTraversable(int, int, int, int)}
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testRect() throws Exception {
+    bitMap.fillRect(60, 10, 70, 20, true);
+    assertTrue("The filled rectangle must be traversable", bitMap.isRectTraversable(60, 10, 70, 20));
+    assertTrue("A part of the filled rectangle must be traversable", bitMap.isRectTraversable(64, 12, 1, 3));
+
+    bitMap.fillRect(63, 15, 66, 1, false);
+    assertFalse("The rectangle is not traversable anymore", bitMap.isRectTraversable(60, 10, 70, 20));
+    assertTrue("The positions before the cleared row must not change", bitMap.isTraversable(62, 15));
+    assertFalse("The cleared row must not be traversable", bitMap.isTraversable(63, 15));
+    assertFalse("The cleared row must not be traversable", bitMap.isTraversable(128, 15));
+    assertTrue("The positions after the cleared row must not change", bitMap.isTraversable(129, 15));
+    assertTrue("The other rows must not change", bitMap.isRectTraversable(60, 16, 70, 14));
+  }
+
+  /**
+   * Test the enumerators and the flood fill give the same results as with a map backed by an array
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSameResults() throws Exception {
+    int[] expectedNeighbors = new int[8];
+    int[] neighbors = new int[8];
+    double[] costs = new double[8];
+    for (NeighborsEnumerator neighborsEnumerator : new NeighborsEnumerator[]{NeighborsEnumerator.ORTHO_NEIGHBORS, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS}) {
+      for (int y = 0; y < 70; y++) {
+        for (int x = 0; x < 150; x++) {
+          int expectedCount = neighborsEnumerator.enumerateNeighbors(arrayMap, x, y, expectedNeighbors, costs);
+          int count = neighborsEnumerator.enumerateNeighbors(bitMap, x, y, neighbors, costs);
+          assertEquals("The number of neighbors must be the same", expectedCount, count);
+          for (int i = 0; i < count; i++) {
+            assertEquals("The neighbors must be the same", expectedNeighbors[i], neighbors[i]);
+          }
+        }
+      }
+    }
+
+    Random random = new Random(17);
+    SearchContext context = new SearchContext();
+    ConnectedComponents components = new ConnectedComponents(bitMap, NeighborsEnumerator.ORTHO_NEIGHBORS);
+    for (int i = 0; i < 200; i++) {
+      PathNodePosition startPos = new PathNodePosition(random.nextInt(150), random.nextInt(70));
+      PathNodePosition endPos = new PathNodePosition(random.nextInt(150), random.nextInt(70));
+      AStarParams params = new AStarParams(arrayMap, startPos, endPos);
+      boolean expected = context.arePosInSameArea(params);
+      assertEquals("The flood fill must give the same result", expected, context.arePosInSameArea(params.setMap(bitMap)));
+      assertEquals("The connected components must give the same result", expected, components.areConnected(startPos, endPos));
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link BucketQueue}
+ */
+public class BucketQueueTest {
+
+  private BucketQueue queue;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    queue = new BucketQueue();
+    queue.clear(10000);
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    queue = null;
+  }
+
+  /**
+   * Test {@link BucketQueue#poll()} returns the node of lowest cost, the last added or decreased one among the same
+   * cost, while the nodes are added and decreased as a search does, with ranges of costs larger than the ring
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testOrder() throws Exception {
+    Random random = new Random(42);
+    int nodes = 2000;
+    int[] costs = new int[nodes];
+    int[] times = new int[nodes];
+    boolean[] queued = new boolean[nodes];
+    int time = 0;
+    int next = 0;
+    int polled = 100;
+    for (; next < 50; next++) {
+      costs[next] = polled + random.nextInt(30);
+      times[next] = time++;
+      queued[next] = true;
+      queue.insertOrDecrease(next, costs[next], 0);
+    }
+    while (!queue.isEmpty()) {
+      int node = queue.poll();
+      assertTrue("A polled node must have been added", queued[node]);
+      for (int other = 0; other < next; other++) {
+        if (queued[other] && other != node) {
+          assertTrue("The node of lowest cost must be polled", costs[node] <= costs[other]);
+          assertTrue("The last added node must be polled among the same cost", costs[node] < costs[other] || times[node] > times[other]);
+        }
+      }
+      queued[node] = false;
+      polled = costs[node];
+
+      for (int i = 0; i < 3 && next < nodes; i++, next++) {
+        costs[next] = polled + random.nextInt(random.nextInt(10) == 0 ? 2000 : 30);
+        times[next] = time++;
+        queued[next] = true;
+        queue.insertOrDecrease(next, costs[next], 0);
+      }
+      int decreased = random.nextInt(next);
+      if (queued[decreased] && costs[decreased] > polled) {
+        costs[decreased] = polled + random.nextInt(costs[decreased] - polled);
+        times[decreased] = time++;
+        queue.insertOrDecrease(decreased, costs[decreased], 0);
+      }
+    }
+    assertEquals("All the nodes must be polled", nodes, next);
+  }
+
+  /**
+   * Test {@link BucketQueue#insertOrDecrease} moves a node without adding it twice, and the ties are broken
+   * toward the last added node
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testDecreaseKey() throws Exception {
+    queue.insertOrDecrease(1, 10, 0);
+    queue.insertOrDecrease(2, 5, 0);
+    queue.insertOrDecrease(3, 5, 0);
+    queue.insertOrDecrease(4, 700, 0);
+    queue.insertOrDecrease(1, 5, 0);
+
+    assertEquals("A node must not be added twice", 4, queue.size());
+    assertEquals("The last added node must be polled first", 1, queue.poll());
+    assertEquals("This node is not the one expected", 3, queue.poll());
+    assertEquals("This node is not the one expected", 2, queue.poll());
+
+    // A cost lower than the first bucket, as an inconsistent heuristic gives
+    queue.insertOrDecrease(5, 2, 0);
+    assertEquals("The lowest cost must be polled first", 5, queue.poll());
+    assertEquals("This node is not the one expected", 4, queue.poll());
+    assertTrue("The queue must be empty", queue.isEmpty());
+
+    queue.insertOrDecrease(6, 1, 0);
+    queue.clear(10000);
+    assertTrue("The queue must be empty after clear", queue.isEmpty());
+    queue.insertOrDecrease(6, 3, 0);
+    assertEquals("A node must be added again after clear", 1, queue.size());
+  }
+}
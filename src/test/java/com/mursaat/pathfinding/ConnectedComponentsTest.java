@@ -0,0 +1,210 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link ConnectedComponents}
+ */
+public class ConnectedComponentsTest {
+
+  private PathFinderMap map1;
+  private PathFinderMap randomMap;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    map1 = new PathFinderMap() {
+
+      final int WALL = 1;
+      final int FLOOR = 0;
+
+      int[][] grid = new int[][]{
+              {FLOOR, FLOOR, WALL, FLOOR},
+              {FLOOR, FLOOR, WALL, FLOOR},
+              {WALL, WALL, FLOOR, WALL},
+              {FLOOR, WALL, FLOOR, FLOOR},
+      };
+
+      @Override
+      public boolean isTraversable(int x, int y) {
+        return grid[y][x] == FLOOR;
+      }
+
+      @Override
+      public int getWidth() {
+        return grid[0].length;
+      }
+
+      @Override
+      public int getHeight() {
+        return grid.length;
+      }
+    };
+
+    randomMap = new PathFinderMap() {
+
+      boolean[][] walls = new boolean[40][50];
+
+      {
+        Random random = new Random(11);
+        for (boolean[] row : walls) {
+          for (int x = 0; x < row.length; x++) {
+            row[x] = random.nextInt(5) < 2;
+          }
+        }
+      }
+
+      @Override
+      public boolean isTraversable(int x, int y) {
+        return !walls[y][x];
+      }
+
+      @Override
+      public int getWidth() {
+        return walls[0].length;
+      }
+
+      @Override
+      public int getHeight() {
+        return walls.length;
+      }
+    };
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map1 = null;
+    randomMap = null;
+  }
+
+  /**
+   * Test {@link ConnectedComponents#areConnected(PathNodePosition, PathNodePosition)}
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testAreConnected() throws Exception {
+    ConnectedComponents components = new ConnectedComponents(map1, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS);
+
+    assertEquals("The number of areas is not the one expected", 4, components.getComponentCount());
+    assertTrue("These positions should be connected", components.areConnected(new PathNodePosition(0, 0), new PathNodePosition(1, 1)));
+    assertTrue("These positions should be connected", components.areConnected(new PathNodePosition(2, 2), new PathNodePosition(3, 3)));
+    assertFalse("Diagonal movements can not pass between two walls", components.areConnected(new PathNodePosition(1, 1), new PathNodePosition(2, 2)));
+    assertFalse("These positions should not be connected", components.areConnected(new PathNodePosition(0, 0), new PathNodePosition(3, 0)));
+    assertFalse("A wall is not connected to anything", components.areConnected(new PathNodePosition(2, 0), new PathNodePosition(2, 0)));
+    assertEquals("A wall has no label", ConnectedComponents.NO_LABEL, components.getLabel(2, 0));
+  }
+
+  /**
+   * Test the labels given with a custom {@link NeighborsEnumerator} are the same as the orthogonal ones
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testCustomNeighborsEnumerator() throws Exception {
+    NeighborsEnumerator custom = new NeighborsEnumerator() {
+      @Override
+      public List<PathNode> enumerateNeighbors(PathFinderMap map, PathNode node) {
+        return NeighborsEnumerator.ORTHO_NEIGHBORS.enumerateNeighbors(map, node);
+      }
+    };
+    ConnectedComponents expected = new ConnectedComponents(randomMap, NeighborsEnumerator.ORTHO_NEIGHBORS);
+    ConnectedComponents components = new ConnectedComponents(randomMap, custom);
+
+    assertEquals("The number of areas must be the same", expected.getComponentCount(), components.getComponentCount());
+    Random random = new Random(5);
+    for (int i = 0; i < 2000; i++) {
+      PathNodePosition pos1 = new PathNodePosition(random.nextInt(50), random.nextInt(40));
+      PathNodePosition pos2 = new PathNodePosition(random.nextInt(50), random.nextInt(40));
+      assertEquals("The areas must be the same", expected.areConnected(pos1, pos2), components.areConnected(pos1, pos2));
+    }
+  }
+
+  /**
+   * Test {@link ConnectedComponents#setTraversable(int, int, boolean)} gives the same areas as labelling the map again
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSetTraversable() throws Exception {
+    final boolean[][] walls = new boolean[30][30];
+    PathFinderMap map = new PathFinderMap() {
+      @Override
+      public boolean isTraversable(int x, int y) {
+        return !walls[y][x];
+      }
+
+      @Override
+      public int getWidth() {
+        return 30;
+      }
+
+      @Override
+      public int getHeight() {
+        return 30;
+      }
+    };
+    ConnectedComponents components = new ConnectedComponents(map, NeighborsEnumerator.ORTHO_NEIGHBORS);
+
+    // Build a wall splitting the map, then open a door in it
+    for (int y = 0; y < 30; y++) {
+      walls[y][10] = true;
+      components.setTraversable(10, y, false);
+    }
+    assertEquals("The wall must split the map in two areas", 2, components.getComponentCount());
+    assertFalse("These positions should not be connected", components.areConnected(new PathNodePosition(0, 0), new PathNodePosition(29, 29)));
+
+    walls[15][10] = false;
+    components.setTraversable(10, 15, true);
+    assertEquals("The door must merge the two areas", 1, components.getComponentCount());
+    assertTrue("These positions should be connected", components.areConnected(new PathNodePosition(0, 0), new PathNodePosition(29, 29)));
+
+    // Random changes must give the same areas as a new labelling
+    Random random = new Random(9);
+    for (int i = 0; i < 2000; i++) {
+      int x = random.nextInt(30);
+      int y = random.nextInt(30);
+      walls[y][x] = random.nextInt(3) == 0;
+      components.setTraversable(x, y, !walls[y][x]);
+    }
+    ConnectedComponents expected = new ConnectedComponents(map, NeighborsEnumerator.ORTHO_NEIGHBORS);
+    assertEquals("The number of areas must be the same", expected.getComponentCount(), components.getComponentCount());
+    for (int i = 0; i < 2000; i++) {
+      PathNodePosition pos1 = new PathNodePosition(random.nextInt(30), random.nextInt(30));
+      PathNodePosition pos2 = new PathNodePosition(random.nextInt(30), random.nextInt(30));
+      assertEquals("The areas must be the same", expected.areConnected(pos1, pos2), components.areConnected(pos1, pos2));
+    }
+  }
+
+  /**
+   * Test {@link AStar#findPath(AStarParams)} uses the connected components
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testFindPath() throws Exception {
+    AStarParams params = new AStarParams(map1, new PathNodePosition(0, 0), new PathNodePosition(3, 3))
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setConnectedComponents(new ConnectedComponents(map1, NeighborsEnumerator.ORTHO_NEIGHBORS));
+    assertTrue("findPath() must returns empty array when unreachable position is given", AStar.findPath(params).isEmpty());
+
+    params.setStartPos(new PathNodePosition(2, 2));
+    assertEquals("findPath() must find the path in the same area", 2, AStar.findPath(params).size());
+  }
+}
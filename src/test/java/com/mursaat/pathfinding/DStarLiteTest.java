@@ -0,0 +1,144 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link DStarLite}
+ */
+public class DStarLiteTest {
+
+  private WeightedGridMap map;
+
+  private PathNodePosition goal;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    map = new WeightedGridMap(50, 40);
+    Random random = new Random(61);
+    for (int y = 0; y < 40; y++) {
+      for (int x = 0; x < 50; x++) {
+        map.setCost(x, y, random.nextInt(4) == 0 ? WeightedGridMap.BLOCKED : 1 + random.nextInt(3));
+      }
+    }
+    goal = new PathNodePosition(45, 35);
+    map.setCost(goal.x, goal.y, 1);
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map = null;
+    goal = null;
+  }
+
+  /**
+   * Test {@link DStarLite#replan} returns a path of the same cost as A* and as the reference search while the unit
+   * moves and the map changes
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testReplan() throws Exception {
+    for (NeighborsEnumerator neighborsEnumerator : new NeighborsEnumerator[]{NeighborsEnumerator.ORTHO_NEIGHBORS, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS}) {
+      Random random = new Random(67);
+      PathNodePosition startPos = new PathNodePosition(2, 3);
+      map.setCost(startPos.x, startPos.y, 1);
+      DStarLite dStarLite = new DStarLite(map, neighborsEnumerator, DistanceCalculator.EUCLIDEAN_DISTANCE, startPos, goal);
+      for (int i = 0; i < 200; i++) {
+        int x = random.nextInt(50);
+        int y = random.nextInt(40);
+        map.setCost(x, y, random.nextInt(3) == 0 ? WeightedGridMap.BLOCKED : 1 + random.nextInt(3));
+        if (random.nextInt(3) == 0) {
+          startPos = new PathNodePosition(random.nextInt(50), random.nextInt(40));
+        }
+        LinkedList<PathNodePosition> path = dStarLite.replan(startPos, Collections.singletonList(new PathNodePosition(x, y)));
+
+        AStarParams params = new AStarParams(map, startPos, goal)
+                .setNeighborsEnumerator(neighborsEnumerator).setHeuristic(DistanceCalculator.EUCLIDEAN_DISTANCE);
+        LinkedList<PathNodePosition> expected = AStar.findPath(params);
+        assertEquals("The path must be found when A* finds one", expected.isEmpty(), path.isEmpty());
+        if (!expected.isEmpty()) {
+          double shortestCost = TestPaths.shortestCost(map, startPos, goal, neighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS);
+          assertEquals("The path must have the cost of the path of A*", TestPaths.cost(map, startPos, expected), TestPaths.cost(map, startPos, path), 1e-9);
+          assertEquals("The path must have the cost of the shortest path", shortestCost, TestPaths.cost(map, startPos, path), 1e-9);
+          assertEquals("The cost must be the one of the path", TestPaths.cost(map, startPos, path), dStarLite.getCost(), 1e-9);
+          assertEquals("The path must end on the goal", goal, path.getLast());
+        }
+      }
+    }
+  }
+
+  /**
+   * Test a small change near the unit is repaired without searching again from scratch
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testReplanExpandsLess() throws Exception {
+    BitGridMap open = new BitGridMap(200, 200);
+    open.fillRect(0, 0, 200, 200, true);
+    open.fillRect(100, 20, 1, 180, false);
+    PathNodePosition startPos = new PathNodePosition(10, 190);
+    PathNodePosition end = new PathNodePosition(190, 190);
+    DStarLite dStarLite = new DStarLite(open, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS, DistanceCalculator.EUCLIDEAN_DISTANCE, startPos, end);
+    LinkedList<PathNodePosition> path = dStarLite.getPath();
+    int initialExpandedNodes = dStarLite.getExpandedNodes();
+    assertFalse("The path must be found", path.isEmpty());
+
+    for (int i = 0; i < 5; i++) {
+      startPos = path.removeFirst();
+    }
+    PathNodePosition blocked = path.get(5);
+    open.setTraversable(blocked.x, blocked.y, false);
+    path = dStarLite.replan(startPos, Collections.singletonList(blocked));
+    assertFalse("The path must avoid the new wall", path.contains(blocked));
+    assertTrue("The repair must expand far less positions than the first search",
+            dStarLite.getExpandedNodes() * 10 < initialExpandedNodes);
+
+    AStarParams params = new AStarParams(open, startPos, end)
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS).setHeuristic(DistanceCalculator.EUCLIDEAN_DISTANCE);
+    assertEquals("The path must have the cost of the shortest path", TestPaths.cost(open, startPos, AStar.findPath(params)), TestPaths.cost(open, startPos, path), 1e-9);
+  }
+
+  /**
+   * Test the path is empty while the goal is walled off, and found again once a wall is removed
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testUnreachable() throws Exception {
+    PathNodePosition startPos = new PathNodePosition(2, 3);
+    map.setCost(startPos.x, startPos.y, 1);
+    map.fillRect(40, 30, 10, 10, 1);
+    DStarLite dStarLite = new DStarLite(map, NeighborsEnumerator.ORTHO_NEIGHBORS, DistanceCalculator.MANHATTAN_DISTANCE, startPos, goal);
+    assertFalse("The path must be found", dStarLite.getPath().isEmpty());
+
+    map.fillRect(40, 30, 1, 10, WeightedGridMap.BLOCKED);
+    map.fillRect(40, 30, 10, 1, WeightedGridMap.BLOCKED);
+    dStarLite.invalidate(40, 30, 10, 10);
+    assertTrue("The path must be empty when the goal is unreachable", dStarLite.getPath().isEmpty());
+    assertTrue("The cost must be infinite when the goal is unreachable", Double.isInfinite(dStarLite.getCost()));
+
+    map.setCost(40, 35, 1);
+    dStarLite.invalidate(40, 35, 1, 1);
+    LinkedList<PathNodePosition> path = dStarLite.getPath();
+    assertTrue("The path must go through the opening", path.contains(new PathNodePosition(40, 35)));
+  }
+}
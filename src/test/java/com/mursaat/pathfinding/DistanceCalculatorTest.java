@@ -75,4 +75,15 @@ public class DistanceCalculatorTest {
     assertEquals("This distance is not correct", 6.082762, DistanceCalculator.EUCLIDEAN_DISTANCE.calculate(pos2, pos3), 0.01);
   }
 
-}
\ No newline at end of file
+  /**
+   * Test {@link DistanceCalculator#OCTILE_DISTANCE}
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testOctileDistance() throws Exception {
+    assertEquals("This distance is not correct", 0, DistanceCalculator.OCTILE_DISTANCE.calculate(pos1, pos1), 0.01);
+    assertEquals("This distance is not correct", 6.828427, DistanceCalculator.OCTILE_DISTANCE.calculate(pos1, pos2), 0.01);
+    assertEquals("This distance is not correct", 6.414214, DistanceCalculator.OCTILE_DISTANCE.calculate(pos2, pos3), 0.01);
+  }
+}
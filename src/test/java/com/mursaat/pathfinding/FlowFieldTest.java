@@ -0,0 +1,111 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link FlowField}
+ */
+public class FlowFieldTest {
+
+  private WeightedGridMap map;
+
+  private List<PathNodePosition> goals;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    map = new WeightedGridMap(50, 40);
+    Random random = new Random(47);
+    for (int y = 0; y < 40; y++) {
+      for (int x = 0; x < 50; x++) {
+        map.setCost(x, y, random.nextInt(4) == 0 ? WeightedGridMap.BLOCKED : 1 + random.nextInt(3));
+      }
+    }
+    goals = Arrays.asList(new PathNodePosition(5, 5), new PathNodePosition(40, 30));
+    for (PathNodePosition goal : goals) {
+      map.setCost(goal.x, goal.y, 1);
+    }
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map = null;
+    goals = null;
+  }
+
+  /**
+   * Test the cost of the field is the cost of the shortest path to the nearest goal, and the path follows it
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testDistances() throws Exception {
+    FlowField field = new FlowField(map, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS, goals);
+    Random random = new Random(53);
+    for (int i = 0; i < 100; i++) {
+      PathNodePosition startPos = new PathNodePosition(random.nextInt(50), random.nextInt(40));
+      double expected = Double.POSITIVE_INFINITY;
+      for (PathNodePosition goal : goals) {
+        expected = Math.min(expected, TestPaths.shortestCost(map, startPos, goal, true));
+      }
+      assertEquals("The cost must be the one of the shortest path", expected, field.getDistance(startPos.x, startPos.y), 1e-9);
+      assertEquals("A goal must be reachable when there is a path", !Double.isInfinite(expected), field.isReachable(startPos.x, startPos.y));
+
+      LinkedList<PathNodePosition> path = field.getPath(startPos);
+      if (!Double.isInfinite(expected) && expected > 0) {
+        assertEquals("The path must have the cost of the field", expected, TestPaths.cost(map, startPos, path), 1e-9);
+        assertTrue("The path must end on a goal", goals.contains(path.getLast()));
+        assertEquals("The next step must be the first position of the path", path.getFirst(), field.getNextStep(startPos.x, startPos.y));
+      } else {
+        assertTrue("The path must be empty", path.isEmpty());
+        assertNull("There must be no next step", field.getNextStep(startPos.x, startPos.y));
+      }
+    }
+  }
+
+  /**
+   * Test {@link FlowField#invalidate} gives the same field as computing it again
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testInvalidate() throws Exception {
+    for (NeighborsEnumerator neighborsEnumerator : new NeighborsEnumerator[]{NeighborsEnumerator.ORTHO_NEIGHBORS, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS}) {
+      FlowField field = new FlowField(map, neighborsEnumerator, goals);
+      Random random = new Random(59);
+      for (int i = 0; i < 100; i++) {
+        int x = random.nextInt(50);
+        int y = random.nextInt(40);
+        int w = 1 + random.nextInt(4);
+        int h = 1 + random.nextInt(4);
+        map.fillRect(x, y, Math.min(w, 50 - x), Math.min(h, 40 - y), random.nextInt(3) == 0 ? WeightedGridMap.BLOCKED : 1 + random.nextInt(3));
+        field.invalidate(x, y, Math.min(w, 50 - x), Math.min(h, 40 - y));
+
+        FlowField expected = new FlowField(map, neighborsEnumerator, goals);
+        for (int cy = 0; cy < 40; cy++) {
+          for (int cx = 0; cx < 50; cx++) {
+            assertEquals("The repaired field must be the same as a new one", expected.getDistance(cx, cy), field.getDistance(cx, cy), 1e-9);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link GridPath}
+ */
+public class GridPathTest {
+
+  private BitGridMap map;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    map = new BitGridMap(80, 60);
+    map.fillRect(0, 0, 80, 60, true);
+    Random random = new Random(89);
+    for (int i = 0; i < 800; i++) {
+      map.setTraversable(random.nextInt(80), random.nextInt(60), false);
+    }
+    map.setTraversable(2, 2, true);
+    map.setTraversable(75, 55, true);
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map = null;
+  }
+
+  /**
+   * Test {@link AStar#findGridPath} returns the positions of {@link AStar#findPath} with every algorithm
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSamePositions() throws Exception {
+    for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+      for (NeighborsEnumerator neighborsEnumerator : new NeighborsEnumerator[]{NeighborsEnumerator.ORTHO_NEIGHBORS, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS}) {
+        AStarParams params = new AStarParams(map, new PathNodePosition(2, 2), new PathNodePosition(75, 55))
+                .setNeighborsEnumerator(neighborsEnumerator).setHeuristic(DistanceCalculator.EUCLIDEAN_DISTANCE).setAlgorithm(algorithm);
+        LinkedList<PathNodePosition> expected = AStar.findPath(params);
+        GridPath path = AStar.findGridPath(params);
+        assertFalse("The path must be found", path.isEmpty());
+        assertEquals("The path must have the length of the list", expected.size(), path.length());
+        assertEquals("The list adapter must give the same positions", expected, path.toLinkedList());
+        assertEquals("The cost must be the one of the search", AStar.search(params).getCost(), path.cost(), 1e-9);
+
+        Iterator<PathNodePosition> iterator = path.iterator();
+        for (int i = 0; i < path.length(); i++) {
+          PathNodePosition pos = expected.get(i);
+          assertEquals("This position is not the one expected", pos, path.get(i));
+          assertEquals("This x position is not the one expected", pos.x, path.getX(i));
+          assertEquals("This y position is not the one expected", pos.y, path.getY(i));
+          assertEquals("This cell is not the one expected", pos.y * 80 + pos.x, path.getCell(i));
+          assertEquals("The iterator must give the positions in order", pos, iterator.next());
+        }
+        assertFalse("The iterator must end with the path", iterator.hasNext());
+      }
+    }
+  }
+
+  /**
+   * Test the path is empty when the end position is unreachable, and partial when the budget is exhausted
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testEmptyAndPartial() throws Exception {
+    map.fillRect(70, 50, 10, 1, false);
+    map.fillRect(70, 50, 1, 10, false);
+    AStarParams params = new AStarParams(map, new PathNodePosition(2, 2), new PathNodePosition(75, 55));
+    GridPath path = AStar.findGridPath(params);
+    assertTrue("The path must be empty when the end position is unreachable", path.isEmpty());
+    assertEquals("The cost of an empty path must be 0", 0, path.cost(), 0);
+    assertFalse("The iterator of an empty path must be empty", path.iterator().hasNext());
+
+    params.setMustCheckPosSameArea(false).setMaxExpandedNodes(50);
+    SearchResult result = AStar.search(params);
+    assertEquals("The budget must be exhausted", SearchResult.Status.BUDGET_EXHAUSTED, result.getStatus());
+    assertEquals("The list must be the positions of the grid path", result.getGridPath().toLinkedList(), result.getPath());
+    assertSame("The list must be created once", result.getPath(), result.getPath());
+    assertEquals("The cost must be the one of the partial path", result.getCost(), result.getGridPath().cost(), 0);
+  }
+}
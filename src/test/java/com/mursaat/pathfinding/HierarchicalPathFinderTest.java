@@ -0,0 +1,109 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link HierarchicalPathFinder}
+ */
+public class HierarchicalPathFinderTest {
+
+  private BitGridMap map;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    map = new BitGridMap(100, 80);
+    map.fillRect(0, 0, 100, 80, true);
+    Random random = new Random(37);
+    for (int i = 0; i < 2000; i++) {
+      map.setTraversable(random.nextInt(100), random.nextInt(80), false);
+    }
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map = null;
+  }
+
+  /**
+   * Test {@link HierarchicalPathFinder#findPath} finds a valid path whenever A* finds one
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testFindPath() throws Exception {
+    HierarchicalPathFinder finder = new HierarchicalPathFinder(map, NeighborsEnumerator.ORTHO_NEIGHBORS, 16);
+    Random random = new Random(41);
+    for (int i = 0; i < 200; i++) {
+      PathNodePosition startPos = new PathNodePosition(random.nextInt(100), random.nextInt(80));
+      PathNodePosition endPos = new PathNodePosition(random.nextInt(100), random.nextInt(80));
+      int expected = AStar.findPath(new AStarParams(map, startPos, endPos)).size();
+      HierarchicalPath path = finder.findPath(startPos, endPos);
+
+      boolean reachable = expected > 0 || (startPos.equals(endPos) && map.isTraversable(startPos.x, startPos.y));
+      assertEquals("The path must be found when A* finds one", reachable, path.isFound());
+      if (!reachable) {
+        continue;
+      }
+      assertTrue("The path can not be shorter than the shortest one", path.getPath().size() >= expected);
+      assertEquals("The refined cost must be the number of moves", path.getPath().size(), path.getRefinedCost(), 1e-9);
+      assertEquals("The refined cost must be the abstract cost", path.getAbstractCost(), path.getRefinedCost(), 1e-9);
+
+      PathNodePosition previous = startPos;
+      for (PathNodePosition pos : path.getPath()) {
+        assertEquals("The positions of the path must be adjacent", 1, Math.abs(pos.x - previous.x) + Math.abs(pos.y - previous.y));
+        assertTrue("The positions of the path must be traversable", map.isTraversable(pos.x, pos.y));
+        previous = pos;
+      }
+      assertEquals("The path must end on the end position", endPos, previous);
+    }
+  }
+
+  /**
+   * Test {@link HierarchicalPathFinder#invalidate} only rebuilds the clusters touching the change
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testInvalidate() throws Exception {
+    BitGridMap open = new BitGridMap(64, 64);
+    open.fillRect(0, 0, 64, 64, true);
+    HierarchicalPathFinder finder = new HierarchicalPathFinder(open, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS, 16);
+    int rebuilt = finder.getRebuiltClusters();
+    assertEquals("All the clusters must be built once", 16, rebuilt);
+
+    // A change inside a cluster only rebuilds it
+    open.setTraversable(24, 24, false);
+    finder.invalidate(24, 24, 1, 1);
+    assertTrue("The path must be found", finder.findPath(new PathNodePosition(0, 0), new PathNodePosition(63, 63)).isFound());
+    assertEquals("Only the changed cluster must be rebuilt", rebuilt + 1, finder.getRebuiltClusters());
+
+    // A wall closing the right part of the map, with a change on a border rebuilding the clusters on both sides
+    open.fillRect(32, 0, 1, 64, false);
+    finder.invalidate(32, 0, 1, 64);
+    assertFalse("The wall must close the path", finder.findPath(new PathNodePosition(0, 0), new PathNodePosition(63, 63)).isFound());
+    assertEquals("The clusters on both sides of the wall must be rebuilt", rebuilt + 1 + 8, finder.getRebuiltClusters());
+
+    open.setTraversable(32, 40, true);
+    finder.invalidate(32, 40, 1, 1);
+    HierarchicalPath path = finder.findPath(new PathNodePosition(0, 0), new PathNodePosition(63, 63));
+    assertTrue("The door must open the path", path.isFound());
+    assertTrue("The path must go through the door", path.getPath().contains(new PathNodePosition(32, 40)));
+    assertEquals("The abstract cost must be the refined cost", path.getAbstractCost(), path.getRefinedCost(), 1e-9);
+  }
+}
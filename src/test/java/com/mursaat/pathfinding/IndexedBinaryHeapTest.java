@@ -0,0 +1,115 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link IndexedBinaryHeap}
+ */
+public class IndexedBinaryHeapTest {
+
+  private IndexedBinaryHeap heap;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    heap = new IndexedBinaryHeap();
+    heap.clear(100);
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    heap = null;
+  }
+
+  /**
+   * Test {@link IndexedBinaryHeap#poll()} returns the nodes ordered by key
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testPoll() throws Exception {
+    Random random = new Random(42);
+    double[] keys = new double[100];
+    for (int node = 0; node < 100; node++) {
+      keys[node] = random.nextInt(50);
+      heap.insertOrDecrease(node, keys[node]);
+    }
+    assertEquals("All the nodes must be in the heap", 100, heap.size());
+
+    double previousKey = Double.NEGATIVE_INFINITY;
+    while (!heap.isEmpty()) {
+      int node = heap.poll();
+      assertFalse("A polled node must not be in the heap anymore", heap.contains(node));
+      assertTrue("The nodes must be polled ordered by key", previousKey <= keys[node]);
+      previousKey = keys[node];
+    }
+  }
+
+  /**
+   * Test {@link IndexedBinaryHeap#insertOrDecrease(int, double)} does not add a node twice
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testDecreaseKey() throws Exception {
+    heap.insertOrDecrease(1, 10);
+    heap.insertOrDecrease(2, 5);
+    heap.insertOrDecrease(3, 7);
+    heap.insertOrDecrease(1, 2);
+
+    assertEquals("A node must not be added twice", 3, heap.size());
+    assertEquals("The decreased node must be polled first", 1, heap.poll());
+    assertEquals("This node is not the one expected", 2, heap.poll());
+    assertEquals("This node is not the one expected", 3, heap.poll());
+    assertTrue("The heap must be empty", heap.isEmpty());
+
+    heap.insertOrDecrease(4, 1);
+    heap.clear(100);
+    assertTrue("The heap must be empty after clear", heap.isEmpty());
+    assertFalse("A node must not be in the heap after clear", heap.contains(4));
+  }
+
+  /**
+   * Test {@link IndexedBinaryHeap#insertOrDecrease(int, double, double)} orders the nodes of the same key by their
+   * second key
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSecondKey() throws Exception {
+    Random random = new Random(7);
+    double[] keys = new double[100];
+    double[] secondKeys = new double[100];
+    for (int node = 0; node < 100; node++) {
+      keys[node] = random.nextInt(5);
+      secondKeys[node] = random.nextInt(20);
+      heap.insertOrDecrease(node, keys[node], secondKeys[node]);
+    }
+    heap.insertOrDecrease(42, -1, 3);
+
+    assertEquals("The decreased node must be polled first", 42, heap.poll());
+    int previous = heap.poll();
+    while (!heap.isEmpty()) {
+      int node = heap.poll();
+      boolean ordered = keys[previous] < keys[node]
+              || keys[previous] == keys[node] && secondKeys[previous] <= secondKeys[node];
+      assertTrue("The nodes must be polled ordered by key then by second key", ordered);
+      previous = node;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link IndexedIntHeap}
+ */
+public class IndexedIntHeapTest {
+
+  private IndexedIntHeap heap;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    heap = new IndexedIntHeap();
+    heap.clear(100);
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    heap = null;
+  }
+
+  /**
+   * Test {@link IndexedIntHeap#poll()} returns the nodes ordered by cost, then by heuristic, then by cell index
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testOrder() throws Exception {
+    Random random = new Random(42);
+    int[] costs = new int[100];
+    int[] heuristics = new int[100];
+    for (int i = 0; i < 100; i++) {
+      // Added in a random order, with many ties
+      int node = (i * 37) % 100;
+      costs[node] = random.nextInt(5);
+      heuristics[node] = random.nextInt(3);
+      heap.insertOrDecrease(node, costs[node], heuristics[node]);
+    }
+    assertEquals("All the nodes must be in the heap", 100, heap.size());
+
+    int previous = heap.poll();
+    while (!heap.isEmpty()) {
+      int node = heap.poll();
+      boolean ordered = costs[previous] < costs[node]
+              || costs[previous] == costs[node] && (heuristics[previous] < heuristics[node]
+              || heuristics[previous] == heuristics[node] && previous < node);
+      assertTrue("The nodes must be polled ordered by cost, heuristic and cell index", ordered);
+      previous = node;
+    }
+  }
+
+  /**
+   * Test {@link IndexedIntHeap#insertOrDecrease} does not add a node twice
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testDecreaseKey() throws Exception {
+    heap.insertOrDecrease(1, 10, 0);
+    heap.insertOrDecrease(2, 5, 0);
+    heap.insertOrDecrease(3, 5, 1);
+    heap.insertOrDecrease(1, 5, 0);
+
+    assertEquals("A node must not be added twice", 3, heap.size());
+    assertEquals("The lowest cell index must be polled first", 1, heap.poll());
+    assertEquals("This node is not the one expected", 2, heap.poll());
+    assertEquals("This node is not the one expected", 3, heap.poll());
+    assertTrue("The heap must be empty", heap.isEmpty());
+  }
+}
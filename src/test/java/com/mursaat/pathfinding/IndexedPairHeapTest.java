@@ -0,0 +1,74 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link IndexedPairHeap}
+ */
+public class IndexedPairHeapTest {
+
+  private IndexedPairHeap heap;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    heap = new IndexedPairHeap();
+    heap.clear(100);
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    heap = null;
+  }
+
+  /**
+   * Test the nodes are ordered by both keys while their keys go up and down and nodes are removed
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testOrder() throws Exception {
+    Random random = new Random(71);
+    double[] firstKeys = new double[100];
+    double[] secondKeys = new double[100];
+    for (int i = 0; i < 1000; i++) {
+      int node = random.nextInt(100);
+      if (random.nextInt(4) == 0) {
+        heap.remove(node);
+        assertFalse("A removed node must not be in the heap anymore", heap.contains(node));
+      } else {
+        firstKeys[node] = random.nextInt(10);
+        secondKeys[node] = random.nextInt(10);
+        heap.insertOrUpdate(node, firstKeys[node], secondKeys[node]);
+      }
+    }
+
+    double previousFirstKey = Double.NEGATIVE_INFINITY;
+    double previousSecondKey = Double.NEGATIVE_INFINITY;
+    while (!heap.isEmpty()) {
+      int node = heap.peek();
+      assertEquals("The first key must be the one of the node", firstKeys[node], heap.peekFirstKey(), 0);
+      assertEquals("The second key must be the one of the node", secondKeys[node], heap.peekSecondKey(), 0);
+      assertFalse("The nodes must be ordered by both keys",
+              IndexedPairHeap.less(firstKeys[node], secondKeys[node], previousFirstKey, previousSecondKey));
+      previousFirstKey = firstKeys[node];
+      previousSecondKey = secondKeys[node];
+      heap.remove(node);
+    }
+  }
+}
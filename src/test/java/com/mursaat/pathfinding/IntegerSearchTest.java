@@ -0,0 +1,269 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link IntegerSearch}
+ */
+public class IntegerSearchTest {
+
+  private WeightedGridMap weightedMap;
+
+  private BitGridMap bitMap;
+
+  /**
+   * A heuristic which never guides the search
+   */
+  private DistanceCalculator zero;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    Random random = new Random(61);
+    weightedMap = new WeightedGridMap(60, 50);
+    bitMap = new BitGridMap(60, 50);
+    for (int y = 0; y < 50; y++) {
+      for (int x = 0; x < 60; x++) {
+        weightedMap.setCost(x, y, random.nextInt(4) == 0 ? WeightedGridMap.BLOCKED : 2 + random.nextInt(4));
+        bitMap.setTraversable(x, y, random.nextInt(5) != 0);
+      }
+    }
+
+    zero = new DistanceCalculator() {
+      @Override
+      public double calculate(int x1, int y1, int x2, int y2) {
+        return 0;
+      }
+    };
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    weightedMap = null;
+    bitMap = null;
+    zero = null;
+  }
+
+  /**
+   * Test the paths found with integer costs are the shortest ones for these costs, whatever the heuristic, against
+   * the reference search with the same costs
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testShortestPath() throws Exception {
+    SearchContext context = new SearchContext();
+    Random random = new Random(67);
+    DistanceCalculator[] heuristics = {DistanceCalculator.OCTILE_DISTANCE, DistanceCalculator.EUCLIDEAN_DISTANCE, zero};
+    for (PathFinderMap map : new PathFinderMap[]{weightedMap, bitMap}) {
+      for (int i = 0; i < 100; i++) {
+        PathNodePosition startPos = new PathNodePosition(random.nextInt(60), random.nextInt(50));
+        PathNodePosition endPos = new PathNodePosition(random.nextInt(60), random.nextInt(50));
+        double expected = TestPaths.shortestIntegerCost(map, startPos, endPos, true);
+        for (DistanceCalculator heuristic : heuristics) {
+          AStarParams params = new AStarParams(map, startPos, endPos)
+                  .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+                  .setHeuristic(heuristic)
+                  .setIntegerCosts(true);
+          SearchResult result = context.search(params);
+
+          assertEquals("The path must be found when there is one", !Double.isInfinite(expected), result.isFound());
+          if (result.isFound()) {
+            assertEquals("The path must have the cost of the shortest path", expected, result.getCost(), 1e-6);
+            assertEquals("The cost must be the one of the path", TestPaths.integerCost(map, startPos, result.getPath()), result.getCost(), 1e-6);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Test the paths found with integer costs and orthogonal moves have the same cost as with doubles
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testOrthogonal() throws Exception {
+    SearchContext context = new SearchContext();
+    Random random = new Random(71);
+    for (int i = 0; i < 100; i++) {
+      AStarParams params = new AStarParams(weightedMap, new PathNodePosition(random.nextInt(60), random.nextInt(50)),
+              new PathNodePosition(random.nextInt(60), random.nextInt(50)));
+      double expected = context.search(params).getCost();
+      assertEquals("The path must have the same cost as with doubles", expected, context.search(params.setIntegerCosts(true)).getCost(), 1e-9);
+    }
+  }
+
+  /**
+   * Test the integer search is chosen by the parameters, whatever the open list of the context : when asked, and
+   * without being asked for orthogonal moves and the manhattan distance
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testOpenListChoice() throws Exception {
+    SearchContext heapContext = new SearchContext();
+    SearchContext queueContext = new SearchContext(new PriorityQueueOpenList());
+    AStarParams params = new AStarParams(weightedMap, new PathNodePosition(0, 0), new PathNodePosition(59, 49));
+    assertTrue("Integral costs must use integers", heapContext.usesIntegerSearch(params));
+    assertTrue("Integral costs must use integers", queueContext.usesIntegerSearch(params));
+    assertEquals("Both contexts must find the same path", heapContext.search(params).getPath(),
+            queueContext.search(params).getPath());
+
+    params.setHeuristic(DistanceCalculator.EUCLIDEAN_DISTANCE);
+    assertFalse("Integer costs must not be used unless asked", heapContext.usesIntegerSearch(params));
+    assertFalse("Integer costs must not be used unless asked", queueContext.usesIntegerSearch(params));
+    assertEquals("Both open lists must find the same cost", heapContext.search(params).getCost(),
+            queueContext.search(params).getCost(), 1e-9);
+
+    params.setIntegerCosts(true);
+    assertTrue("Integer costs must be used when asked", heapContext.usesIntegerSearch(params));
+    assertTrue("Integer costs must be used when asked", queueContext.usesIntegerSearch(params));
+    assertEquals("Both contexts must find the same path", heapContext.search(params).getPath(),
+            queueContext.search(params).getPath());
+  }
+
+  /**
+   * Test {@link AStar#findPath} with the default orthogonal moves and manhattan distance goes through the integer
+   * search, which expands the same nodes as when it is asked and far less than the search with doubles on an
+   * open map
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testAutomaticSelection() throws Exception {
+    BitGridMap open = new BitGridMap(200, 200);
+    open.fillRect(0, 0, 200, 200, true);
+    SearchStatisticsAggregator statistics = new SearchStatisticsAggregator();
+    AStarParams params = new AStarParams(open, new PathNodePosition(10, 20), new PathNodePosition(180, 150))
+            .setSearchListener(statistics);
+    LinkedList<PathNodePosition> path = AStar.findPath(params);
+    long expandedNodes = statistics.getSum(SearchStatistics.Metric.EXPANDED_NODES);
+
+    LinkedList<PathNodePosition> integerPath = new SearchContext().findPath(params.setIntegerCosts(true));
+    assertEquals("The path must be the one of the integer search", integerPath, path);
+    assertEquals("The nodes expanded must be the ones of the integer search", expandedNodes,
+            statistics.getSum(SearchStatistics.Metric.EXPANDED_NODES) - expandedNodes);
+
+    // The same distance, not known to be integral, makes the search use doubles
+    long before = statistics.getSum(SearchStatistics.Metric.EXPANDED_NODES);
+    AStar.findPath(params.setIntegerCosts(false).setHeuristic(new DistanceCalculator() {
+      @Override
+      public double calculate(int x1, int y1, int x2, int y2) {
+        return DistanceCalculator.MANHATTAN_DISTANCE.calculate(x1, y1, x2, y2);
+      }
+    }));
+    assertTrue("The search with doubles must expand more nodes",
+            statistics.getSum(SearchStatistics.Metric.EXPANDED_NODES) - before > 2 * expandedNodes);
+  }
+
+  /**
+   * Test the same query always expands the same nodes and returns the same path, even from another context
+   * after other searches
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testDeterministic() throws Exception {
+    BitGridMap open = new BitGridMap(200, 200);
+    open.fillRect(0, 0, 200, 200, true);
+    open.fillRect(100, 20, 1, 160, false);
+    AStarParams params = new AStarParams(open, new PathNodePosition(10, 100), new PathNodePosition(190, 101))
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setHeuristic(DistanceCalculator.OCTILE_DISTANCE)
+            .setIntegerCosts(true);
+
+    SearchContext context = new SearchContext();
+    GridPath path = context.findGridPath(params);
+    int expandedNodes = context.getExpandedNodes();
+
+    SearchContext other = new SearchContext();
+    other.findGridPath(new AStarParams(open, new PathNodePosition(190, 190), new PathNodePosition(0, 0)).setIntegerCosts(true));
+    GridPath otherPath = other.findGridPath(params);
+
+    assertEquals("The same number of nodes must be expanded", expandedNodes, other.getExpandedNodes());
+    assertEquals("The paths must have the same length", path.length(), otherPath.length());
+    for (int i = 0; i < path.length(); i++) {
+      assertEquals("The paths must go through the same positions", path.getCell(i), otherPath.getCell(i));
+    }
+  }
+
+  /**
+   * Test a search stopped on its budget returns a partial path
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testBudget() throws Exception {
+    BitGridMap open = new BitGridMap(200, 200);
+    open.fillRect(0, 0, 200, 200, true);
+    SearchResult result = new SearchContext().search(new AStarParams(open, new PathNodePosition(0, 0), new PathNodePosition(199, 199))
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setHeuristic(DistanceCalculator.OCTILE_DISTANCE)
+            .setIntegerCosts(true)
+            .setMaxExpandedNodes(50));
+
+    assertEquals("The search must stop on its budget", SearchResult.Status.BUDGET_EXHAUSTED, result.getStatus());
+    assertFalse("The partial path must not be empty", result.getGridPath().isEmpty());
+  }
+
+  /**
+   * Test the moves are told apart on maps of width 1 and 2, where the offset of a diagonal move between two cell
+   * indexes is the one of an orthogonal move
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testNarrowMaps() throws Exception {
+    BitGridMap map = new BitGridMap(2, 8);
+    map.fillRect(0, 0, 2, 8, true);
+    AStarParams params = new AStarParams(map, new PathNodePosition(1, 0), new PathNodePosition(0, 1))
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setHeuristic(DistanceCalculator.OCTILE_DISTANCE)
+            .setIntegerCosts(true);
+    assertEquals("A diagonal move must cost 1.4", 1.4, AStar.search(params).getCost(), 1e-9);
+    params.setEndPos(new PathNodePosition(0, 5));
+    assertEquals("The path must cost 4 orthogonal moves and a diagonal one", 5.4, AStar.search(params).getCost(), 1e-9);
+
+    Random random = new Random(12);
+    SearchContext context = new SearchContext();
+    for (int width = 1; width <= 2; width++) {
+      map = new BitGridMap(width, 40);
+      for (int i = 0; i < 200; i++) {
+        for (int y = 0; y < 40; y++) {
+          for (int x = 0; x < width; x++) {
+            map.setTraversable(x, y, random.nextInt(6) != 0);
+          }
+        }
+        PathNodePosition startPos = new PathNodePosition(random.nextInt(width), random.nextInt(40));
+        PathNodePosition endPos = new PathNodePosition(random.nextInt(width), random.nextInt(40));
+        double expected = TestPaths.shortestIntegerCost(map, startPos, endPos, true);
+        GridPath path = context.findGridPath(new AStarParams(map, startPos, endPos)
+                .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+                .setHeuristic(DistanceCalculator.OCTILE_DISTANCE)
+                .setIntegerCosts(true));
+        assertEquals("The path must be found when there is one", Double.isInfinite(expected) || startPos.equals(endPos), path.isEmpty());
+        if (!path.isEmpty()) {
+          assertEquals("The cost must be the one of the shortest path", expected, path.cost(), 1e-9);
+        }
+        assertEquals("The cost must be the sum of the moves", TestPaths.integerCost(map, startPos, path.toLinkedList()), path.cost(), 1e-9);
+      }
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link JumpPointSearch}
+ */
+public class JumpPointSearchTest {
+
+  private PathFinderMap randomMap;
+  private PathFinderMap openMap;
+
+  private SearchContext context;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    randomMap = new PathFinderMap() {
+
+      boolean[][] walls = new boolean[60][60];
+
+      {
+        Random random = new Random(7);
+        for (boolean[] row : walls) {
+          for (int x = 0; x < row.length; x++) {
+            row[x] = random.nextInt(4) == 0;
+          }
+        }
+      }
+
+      @Override
+      public boolean isTraversable(int x, int y) {
+        return !walls[y][x];
+      }
+
+      @Override
+      public int getWidth() {
+        return walls[0].length;
+      }
+
+      @Override
+      public int getHeight() {
+        return walls.length;
+      }
+    };
+
+    openMap = new PathFinderMap() {
+
+      @Override
+      public boolean isTraversable(int x, int y) {
+        return true;
+      }
+
+      @Override
+      public int getWidth() {
+        return 200;
+      }
+
+      @Override
+      public int getHeight() {
+        return 200;
+      }
+    };
+
+    context = new SearchContext();
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    randomMap = null;
+    openMap = null;
+    context = null;
+  }
+
+  /**
+   * Test Jump Point Search returns paths of the same cost as A* and as the reference search, with each position
+   * next to the previous one
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSameCostAsAStar() throws Exception {
+    Random random = new Random(3);
+    for (NeighborsEnumerator neighborsEnumerator : new NeighborsEnumerator[]{NeighborsEnumerator.ORTHO_NEIGHBORS, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS}) {
+      for (int i = 0; i < 100; i++) {
+        PathNodePosition startPos = new PathNodePosition(random.nextInt(60), random.nextInt(60));
+        PathNodePosition endPos = new PathNodePosition(random.nextInt(60), random.nextInt(60));
+        AStarParams params = new AStarParams(randomMap, startPos, endPos)
+                .setNeighborsEnumerator(neighborsEnumerator)
+                .setHeuristic(DistanceCalculator.EUCLIDEAN_DISTANCE);
+
+        LinkedList<PathNodePosition> expectedPositions = context.findPath(params);
+        LinkedList<PathNodePosition> positions = context.findPath(params.setAlgorithm(SearchAlgorithm.JUMP_POINT_SEARCH));
+
+        assertEquals("Jump Point Search must find a path when A* does", expectedPositions.isEmpty(), positions.isEmpty());
+        assertEquals("Jump Point Search must return a path of the same cost as A*",
+                TestPaths.cost(randomMap, startPos, expectedPositions), TestPaths.cost(randomMap, startPos, positions), 0.0001);
+        double shortestCost = TestPaths.shortestCost(randomMap, startPos, endPos,
+                neighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS);
+        assertEquals("Jump Point Search must find a path when there is one",
+                Double.isInfinite(shortestCost) || startPos.equals(endPos), positions.isEmpty());
+        if (!positions.isEmpty()) {
+          assertEquals("Jump Point Search must return the shortest path", shortestCost, TestPaths.cost(randomMap, startPos, positions), 1e-9);
+        }
+      }
+    }
+  }
+
+  /**
+   * Test Jump Point Search expands less nodes than A* on an open map
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testExpandedNodes() throws Exception {
+    AStarParams params = new AStarParams(openMap, new PathNodePosition(0, 0), new PathNodePosition(199, 150));
+
+    context.findPath(params);
+    int expandedNodes = context.getExpandedNodes();
+    LinkedList<PathNodePosition> positions = context.findPath(params.setAlgorithm(SearchAlgorithm.JUMP_POINT_SEARCH));
+
+    assertEquals("The path returned by Jump Point Search does not have the expected length", 349, positions.size());
+    assertTrue("Jump Point Search must expand at least 10 times less nodes than A*", context.getExpandedNodes() * 10 < expandedNodes);
+  }
+}
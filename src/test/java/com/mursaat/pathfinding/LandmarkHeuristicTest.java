@@ -0,0 +1,212 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link LandmarkHeuristic}
+ */
+public class LandmarkHeuristicTest {
+
+  private WeightedGridMap weightedMap;
+
+  private BitGridMap maze;
+
+  private SearchContext context;
+
+  private File file;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    Random random = new Random(61);
+    weightedMap = new WeightedGridMap(50, 40);
+    for (int y = 0; y < 40; y++) {
+      for (int x = 0; x < 50; x++) {
+        weightedMap.setCost(x, y, random.nextInt(4) == 0 ? WeightedGridMap.BLOCKED : 2 + random.nextInt(4));
+      }
+    }
+
+    // A maze of 30 x 30 rooms carved by a depth first search, with a few walls removed to add loops
+    int rooms = 30;
+    maze = new BitGridMap(rooms * 2 + 1, rooms * 2 + 1);
+    boolean[] carved = new boolean[rooms * rooms];
+    int[] stack = new int[rooms * rooms];
+    int stackSize = 0;
+    stack[stackSize++] = 0;
+    carved[0] = true;
+    maze.setTraversable(1, 1, true);
+    int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    while (stackSize > 0) {
+      int room = stack[stackSize - 1];
+      int x = room % rooms;
+      int y = room / rooms;
+      int first = random.nextInt(4);
+      boolean moved = false;
+      for (int i = 0; i < 4 && !moved; i++) {
+        int[] direction = directions[(first + i) % 4];
+        int nx = x + direction[0];
+        int ny = y + direction[1];
+        if (nx >= 0 && ny >= 0 && nx < rooms && ny < rooms && !carved[ny * rooms + nx]) {
+          carved[ny * rooms + nx] = true;
+          maze.setTraversable(2 * nx + 1, 2 * ny + 1, true);
+          maze.setTraversable(x + nx + 1, y + ny + 1, true);
+          stack[stackSize++] = ny * rooms + nx;
+          moved = true;
+        }
+      }
+      if (!moved) {
+        stackSize--;
+      }
+    }
+    for (int i = 0; i < 40; i++) {
+      maze.setTraversable(1 + random.nextInt(rooms * 2 - 1), 1 + random.nextInt(rooms * 2 - 1), true);
+    }
+
+    context = new SearchContext();
+    file = File.createTempFile("landmarks", ".alt");
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    weightedMap = null;
+    maze = null;
+    context = null;
+    file.delete();
+    file = null;
+  }
+
+  /**
+   * Test the heuristic never exceeds the distance between two positions, on a weighted map
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testAdmissible() throws Exception {
+    for (NeighborsEnumerator neighborsEnumerator : new NeighborsEnumerator[]{NeighborsEnumerator.ORTHO_NEIGHBORS, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS}) {
+      LandmarkHeuristic heuristic = new LandmarkHeuristic(weightedMap, neighborsEnumerator, 6);
+      assertEquals("All the landmarks must be chosen", 6, heuristic.getLandmarkCount());
+      Random random = new Random(67);
+      for (int i = 0; i < 20; i++) {
+        PathNodePosition goal = new PathNodePosition(random.nextInt(50), random.nextInt(40));
+        FlowField field = new FlowField(weightedMap, neighborsEnumerator, goal);
+        for (int y = 0; y < 40; y++) {
+          for (int x = 0; x < 50; x++) {
+            if (field.isReachable(x, y)) {
+              assertTrue("The heuristic must not exceed the distance",
+                      heuristic.calculate(x, y, goal.x, goal.y) * weightedMap.getMinCost() <= field.getDistance(x, y));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Test A* with the heuristic returns paths of the same cost as with the euclidean distance
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSameCostAsAStar() throws Exception {
+    Random random = new Random(71);
+    for (NeighborsEnumerator neighborsEnumerator : new NeighborsEnumerator[]{NeighborsEnumerator.ORTHO_NEIGHBORS, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS}) {
+      LandmarkHeuristic heuristic = new LandmarkHeuristic(weightedMap, neighborsEnumerator, 4);
+      for (int i = 0; i < 100; i++) {
+        PathNodePosition startPos = new PathNodePosition(random.nextInt(50), random.nextInt(40));
+        PathNodePosition endPos = new PathNodePosition(random.nextInt(50), random.nextInt(40));
+        AStarParams params = new AStarParams(weightedMap, startPos, endPos)
+                .setNeighborsEnumerator(neighborsEnumerator)
+                .setHeuristic(DistanceCalculator.EUCLIDEAN_DISTANCE);
+
+        SearchResult expected = context.search(params);
+        SearchResult result = context.search(params.setHeuristic(heuristic));
+
+        assertEquals("The path must be found when A* finds one", expected.isFound(), result.isFound());
+        assertEquals("The path must have the cost of the shortest path", expected.getCost(), result.getCost(), 1e-9);
+      }
+    }
+  }
+
+  /**
+   * Test A* with the heuristic expands less nodes than with the euclidean distance in a maze
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testExpandedNodes() throws Exception {
+    LandmarkHeuristic heuristic = new LandmarkHeuristic(maze, NeighborsEnumerator.ORTHO_NEIGHBORS, 8);
+    AStarParams params = new AStarParams(maze, new PathNodePosition(1, 1), new PathNodePosition(59, 59))
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_NEIGHBORS)
+            .setHeuristic(DistanceCalculator.EUCLIDEAN_DISTANCE)
+            .setMustCheckPosSameArea(false);
+
+    int expectedLength = context.findPath(params).size();
+    int expandedNodes = context.getExpandedNodes();
+    int length = context.findPath(params.setHeuristic(heuristic)).size();
+
+    assertEquals("The path must have the same length as with the euclidean distance", expectedLength, length);
+    assertTrue("The landmarks must expand less nodes than the euclidean distance in a maze", context.getExpandedNodes() < expandedNodes);
+  }
+
+  /**
+   * Test a heuristic written with {@link LandmarkHeuristic#save} is the same once loaded
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSaveLoad() throws Exception {
+    LandmarkHeuristic heuristic = new LandmarkHeuristic(maze, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS, 5);
+    heuristic.save(file);
+    LandmarkHeuristic loaded = LandmarkHeuristic.load(file);
+
+    assertEquals("The number of landmarks must be the same", heuristic.getLandmarkCount(), loaded.getLandmarkCount());
+    for (int i = 0; i < heuristic.getLandmarkCount(); i++) {
+      assertEquals("The landmarks must be the same", heuristic.getLandmark(i), loaded.getLandmark(i));
+    }
+    Random random = new Random(73);
+    for (int i = 0; i < 1000; i++) {
+      int x1 = random.nextInt(61);
+      int y1 = random.nextInt(61);
+      int x2 = random.nextInt(61);
+      int y2 = random.nextInt(61);
+      assertEquals("The heuristic must be the same", heuristic.calculate(x1, y1, x2, y2), loaded.calculate(x1, y1, x2, y2), 0);
+    }
+  }
+
+  /**
+   * Test {@link LandmarkHeuristic#load} refuses a file which is not a landmark file
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testInvalidFile() throws Exception {
+    new LandmarkHeuristic(maze, NeighborsEnumerator.ORTHO_NEIGHBORS, 2).save(file);
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.writeInt(0);
+    }
+    try {
+      LandmarkHeuristic.load(file);
+      fail("load() must refuse a file without the magic number");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+}
@@ -0,0 +1,267 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link MappedGridMap}
+ */
+public class MappedGridMapTest {
+
+  private BitGridMap bitMap;
+
+  private File file;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    // A size which is not a multiple of the tile size, to have padded tiles
+    bitMap = new BitGridMap(100, 75);
+    Random random = new Random(21);
+    for (int y = 0; y < 75; y++) {
+      for (int x = 0; x < 100; x++) {
+        bitMap.setTraversable(x, y, random.nextInt(4) != 0);
+      }
+    }
+    file = File.createTempFile("map", ".grid");
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    bitMap = null;
+    file.delete();
+    file = null;
+  }
+
+  /**
+   * Test a map written with {@link MappedGridMap#write} is the same once opened
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testWriteOpen() throws Exception {
+    MappedGridMap.write(bitMap, new MappedGridMap.CostFunction() {
+      @Override
+      public int getCost(int x, int y) {
+        return 1 + (x + y) % 255;
+      }
+    }, 16, file);
+    MappedGridMap mappedMap = MappedGridMap.open(file);
+    assertTrue("A map with costs must be weighted", mappedMap instanceof WeightedMappedGridMap);
+    WeightedMappedGridMap map = (WeightedMappedGridMap) mappedMap;
+
+    assertEquals("The width must be the one written", 100, map.getWidth());
+    assertEquals("The height must be the one written", 75, map.getHeight());
+    assertTrue("The costs must be written", map.hasCosts());
+    int minCost = 255;
+    for (int y = 0; y < 75; y++) {
+      for (int x = 0; x < 100; x++) {
+        assertEquals("The position must be the one written", bitMap.isTraversable(x, y), map.isTraversable(x, y));
+        if (bitMap.isTraversable(x, y)) {
+          assertEquals("The cost must be the one written", 1 + (x + y) % 255, map.getCost(x, y), 0);
+          minCost = Math.min(minCost, 1 + (x + y) % 255);
+        } else {
+          assertEquals("A blocked position must cost 0", 0, map.getCost(x, y), 0);
+        }
+      }
+    }
+    assertEquals("The minimum cost must be the one of the traversable positions", minCost, map.getMinCost(), 0);
+
+    MappedGridMap.write(bitMap, file);
+    assertFalse("The costs must not be written", MappedGridMap.open(file).hasCosts());
+    assertFalse("A map without costs must not be weighted", MappedGridMap.open(file) instanceof WeightedPathFinderMap);
+  }
+
+  /**
+   * Test a map without costs keeps the searches which need a map without costs
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSearchesWithoutCosts() throws Exception {
+    MappedGridMap.write(bitMap, file);
+    AStarParams params = new AStarParams(MappedGridMap.open(file), new PathNodePosition(0, 0), new PathNodePosition(99, 74))
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setAlgorithm(SearchAlgorithm.JUMP_POINT_SEARCH);
+    assertTrue("Jump Point Search must support a map without costs", JumpPointSearch.supports(params));
+    assertTrue("The integer search must support a map without costs", IntegerSearch.supports(params));
+  }
+
+  /**
+   * Test a traversable position can not cost 0, nor a file have a minimum cost of 0
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testZeroCost() throws Exception {
+    final int blockedX = 3;
+    bitMap.setTraversable(blockedX, 0, false);
+    MappedGridMap.write(bitMap, new MappedGridMap.CostFunction() {
+      @Override
+      public int getCost(int x, int y) {
+        return x == blockedX && y == 0 ? 0 : 2;
+      }
+    }, 16, file);
+    assertEquals("A blocked position must be allowed to cost 0", 2, ((WeightedMappedGridMap) MappedGridMap.open(file)).getMinCost(), 0);
+
+    bitMap.setTraversable(blockedX, 0, true);
+    try {
+      MappedGridMap.write(bitMap, new MappedGridMap.CostFunction() {
+        @Override
+        public int getCost(int x, int y) {
+          return x == blockedX && y == 0 ? 0 : 2;
+        }
+      }, 16, file);
+      fail("write() must refuse a traversable position of cost 0");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    MappedGridMap.write(bitMap, new MappedGridMap.CostFunction() {
+      @Override
+      public int getCost(int x, int y) {
+        return 2;
+      }
+    }, 16, file);
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(40);
+      raf.writeInt(0);
+    }
+    try {
+      MappedGridMap.open(file);
+      fail("open() must refuse a minimum cost of 0");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Test the paths found on a mapped map are the same as on the original map
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testFindPath() throws Exception {
+    MappedGridMap.write(bitMap, file);
+    MappedGridMap map = MappedGridMap.open(file);
+
+    Random random = new Random(23);
+    for (int i = 0; i < 100; i++) {
+      PathNodePosition startPos = new PathNodePosition(random.nextInt(100), random.nextInt(75));
+      PathNodePosition endPos = new PathNodePosition(random.nextInt(100), random.nextInt(75));
+      AStarParams params = new AStarParams(bitMap, startPos, endPos)
+              .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS);
+      int expected = AStar.findPath(params).size();
+      assertEquals("The path must have the same length", expected, AStar.findPath(params.setMap(map)).size());
+    }
+  }
+
+  /**
+   * Test a path is found on a map whose cell indexes do not fit in an int, without allocating arrays for its cells
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testLargeMap() throws Exception {
+    final int size = 50000;
+    final int tileSize = 4096;
+    final int tilesX = (size + tileSize - 1) / tileSize;
+    final int bandY = 45100;
+    // A band of random obstacles where y * width + x is above Integer.MAX_VALUE, every other position is blocked
+    BitGridMap band = new BitGridMap(tileSize, 100);
+    Random random = new Random(25);
+    for (int y = 0; y < 100; y++) {
+      for (int x = 0; x < tileSize; x++) {
+        band.setTraversable(x, y, y == 0 || random.nextInt(5) != 0);
+      }
+    }
+    band.setTraversable(10, 10, true);
+    band.setTraversable(4000, 90, true);
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.writeInt(MappedGridMap.MAGIC);
+      raf.writeInt(MappedGridMap.VERSION);
+      raf.writeInt(size);
+      raf.writeInt(size);
+      raf.writeInt(tileSize);
+      raf.writeInt(0);
+      raf.writeLong(64);
+      // The file is sparse, only the rows of the band are written
+      raf.setLength(64 + (long) tilesX * tilesX * tileSize * tileSize / 8);
+      long tile = 64 + (long) (bandY / tileSize) * tilesX * tileSize * tileSize / 8;
+      for (int y = 0; y < 100; y++) {
+        byte[] row = new byte[tileSize / 8];
+        for (int x = 0; x < tileSize; x++) {
+          if (band.isTraversable(x, y)) {
+            row[x >>> 3] |= 1 << (x & 7);
+          }
+        }
+        raf.seek(tile + (long) ((bandY + y) % tileSize) * tileSize / 8);
+        raf.write(row);
+      }
+    }
+    MappedGridMap map = MappedGridMap.open(file);
+    assertTrue("The cell indexes of the map must not fit in an int", (long) size * size > Integer.MAX_VALUE);
+
+    PathNodePosition startPos = new PathNodePosition(10, bandY + 10);
+    PathNodePosition endPos = new PathNodePosition(4000, bandY + 90);
+    double expected = TestPaths.shortestCost(band, new PathNodePosition(10, 10), new PathNodePosition(4000, 90), true);
+    assertFalse("The end position must be reachable", Double.isInfinite(expected));
+
+    AStarParams params = new AStarParams(map, startPos, endPos)
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setHeuristic(DistanceCalculator.OCTILE_DISTANCE);
+    GridPath path = AStar.findGridPath(params);
+    assertFalse("A path must be found", path.isEmpty());
+    assertEquals("The path must end on the end position", endPos, path.get(path.length() - 1));
+    assertEquals("The path must be the shortest one", expected, path.cost(), 1e-6);
+    assertEquals("The cost must be the one of the positions", path.cost(), TestPaths.cost(map, startPos, path), 1e-6);
+    assertEquals("The list must hold the same positions", path.length(), AStar.findPath(params).size());
+
+    // The flood fill only visits the positions of the band, none of them leading to the end position
+    PathNodePosition blockedPos = new PathNodePosition(size - 1, size - 1);
+    assertTrue("The search must not reach a blocked position", AStar.findGridPath(params.setEndPos(blockedPos)).isEmpty());
+
+    try {
+      new PathSearch(params);
+      fail("A search storing its nodes by cell index must refuse the map");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Test a file which is not a map is refused
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testInvalidFile() throws Exception {
+    MappedGridMap.write(bitMap, file);
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.writeInt(0);
+    }
+    try {
+      MappedGridMap.open(file);
+      fail("open() must refuse a file without the magic number");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link PathCache}
+ */
+public class PathCacheTest {
+
+  private BitGridMap map;
+
+  private PathCache cache;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    map = new BitGridMap(60, 60);
+    map.fillRect(0, 0, 60, 60, true);
+    Random random = new Random(73);
+    for (int i = 0; i < 600; i++) {
+      map.setTraversable(random.nextInt(60), random.nextInt(60), false);
+    }
+    map.setTraversable(1, 1, true);
+    map.setTraversable(55, 50, true);
+    cache = new PathCache(100000, 4);
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map = null;
+    cache = null;
+  }
+
+  /**
+   * Test a query asked again is answered by the cache, with a path the caller can modify
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testHit() throws Exception {
+    AStarParams params = params(new PathNodePosition(1, 1), new PathNodePosition(55, 50));
+    LinkedList<PathNodePosition> expected = AStar.findPath(params);
+    LinkedList<PathNodePosition> path = cache.findPath(params);
+    assertEquals("The path must be the one of A*", expected, path);
+    assertEquals("The first query must be a miss", 1, cache.getMisses());
+
+    path.clear();
+    assertEquals("The cached path must not be modified by the caller", expected, cache.findPath(params));
+    assertEquals("The second query must be a hit", 1, cache.getHits());
+    assertEquals("The query must be cached once", 1, cache.size());
+  }
+
+  /**
+   * Test a query starting on a cached path to the same end position is answered by its tail
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSubPath() throws Exception {
+    PathNodePosition end = new PathNodePosition(55, 50);
+    LinkedList<PathNodePosition> path = cache.findPath(params(new PathNodePosition(1, 1), end));
+    PathNodePosition middle = path.get(path.size() / 2);
+
+    LinkedList<PathNodePosition> tail = cache.findPath(params(middle, end));
+    assertEquals("The query must be answered by the cached path", 1, cache.getSubPathHits());
+    assertEquals("The tail must have the length of the shortest path", AStar.findPath(params(middle, end)).size(), tail.size());
+    assertEquals("The tail must be the end of the cached path", path.subList(path.size() / 2 + 1, path.size()), tail);
+  }
+
+  /**
+   * Test the paths of a map are not used anymore once it is invalidated
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testInvalidate() throws Exception {
+    AStarParams params = params(new PathNodePosition(1, 1), new PathNodePosition(55, 50));
+    LinkedList<PathNodePosition> path = cache.findPath(params);
+    PathNodePosition blocked = path.get(10);
+    map.setTraversable(blocked.x, blocked.y, false);
+    cache.invalidate(map);
+    assertEquals("The paths of the map must be removed", 0, cache.size());
+
+    path = cache.findPath(params);
+    assertFalse("The path must avoid the new wall", path.contains(blocked));
+    assertEquals("The query must be computed again", 2, cache.getMisses());
+
+    map.fillRect(50, 45, 10, 1, false);
+    map.fillRect(50, 45, 1, 15, false);
+    cache.invalidate(map);
+    assertTrue("The path must be empty when the end position is unreachable", cache.findPath(params).isEmpty());
+    assertTrue("The unreachable end position must be cached", cache.findPath(params).isEmpty());
+    assertEquals("The unreachable end position must be a hit", 1, cache.getHits());
+  }
+
+  /**
+   * Test the least recently used paths are evicted once the capacity is reached
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testEviction() throws Exception {
+    cache = new PathCache(300, 1);
+    Random random = new Random(79);
+    for (int i = 0; i < 50; i++) {
+      PathNodePosition start = new PathNodePosition(random.nextInt(60), random.nextInt(60));
+      PathNodePosition end = new PathNodePosition(random.nextInt(60), random.nextInt(60));
+      assertEquals("The path must be the one of A*", AStar.findPath(params(start, end)), cache.findPath(params(start, end)));
+    }
+    assertTrue("The cache must not keep all the paths", cache.size() < 50);
+
+    AStarParams params = params(new PathNodePosition(1, 1), new PathNodePosition(55, 50));
+    cache.findPath(params);
+    cache.findPath(params);
+    assertEquals("The last query must still be cached", 1, cache.getHits());
+  }
+
+  /**
+   * Test the capacity is shared by the segments : a small cache keeps the paths which fit in it, and does not
+   * keep the paths heavier than the whole capacity
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSmallCapacity() throws Exception {
+    map.fillRect(0, 0, 10, 1, true);
+    cache = new PathCache(16);
+    AStarParams params = params(new PathNodePosition(0, 0), new PathNodePosition(6, 0));
+    assertEquals("The path must be the one of A*", AStar.findPath(params), cache.findPath(params));
+    cache.findPath(params);
+    assertEquals("A path fitting in the capacity must be cached", 1, cache.getHits());
+
+    params = params(new PathNodePosition(1, 1), new PathNodePosition(55, 50));
+    assertEquals("The path must be the one of A*", AStar.findPath(params), cache.findPath(params));
+    assertEquals("A path heavier than the capacity must not be cached", 1, cache.size());
+    cache.findPath(params);
+    assertEquals("A path heavier than the capacity must be computed again", 3, cache.getMisses());
+  }
+
+  /**
+   * Test the cache does not keep a map which is not used anymore, nor its paths
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testCollectedMap() throws Exception {
+    BitGridMap other = new BitGridMap(20, 20);
+    other.fillRect(0, 0, 20, 20, true);
+    cache.findPath(new AStarParams(other, new PathNodePosition(0, 0), new PathNodePosition(19, 19)));
+    assertEquals("The path must be cached", 1, cache.size());
+
+    WeakReference<BitGridMap> reference = new WeakReference<>(other);
+    other = null;
+    for (int i = 0; i < 100 && (reference.get() != null || cache.size() > 0); i++) {
+      System.gc();
+      Thread.sleep(10);
+      cache.invalidate(map);
+    }
+    assertNull("The cache must not keep the map", reference.get());
+    assertEquals("The paths of the map must be removed", 0, cache.size());
+  }
+
+  /**
+   * Test the cache can be shared by several threads
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testConcurrentQueries() throws Exception {
+    final List<AStarParams> queries = new ArrayList<>();
+    Random random = new Random(83);
+    for (int i = 0; i < 20; i++) {
+      queries.add(params(new PathNodePosition(random.nextInt(60), random.nextInt(60)), new PathNodePosition(55, 50)));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int thread = 0; thread < 4; thread++) {
+        results.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() throws Exception {
+            boolean same = true;
+            for (int round = 0; round < 10; round++) {
+              for (AStarParams query : queries) {
+                same &= AStar.findPath(query).size() == cache.findPath(query).size();
+              }
+            }
+            return same;
+          }
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue("The cached paths must have the length of the shortest paths", result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals("All the queries must be counted", 800, cache.getHits() + cache.getSubPathHits() + cache.getMisses());
+  }
+
+  private AStarParams params(PathNodePosition start, PathNodePosition end) {
+    return new AStarParams(map, start, end).setNeighborsEnumerator(NeighborsEnumerator.ORTHO_NEIGHBORS);
+  }
+}
@@ -0,0 +1,243 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link PathSearch} and {@link PathSearchScheduler}
+ */
+public class PathSearchTest {
+
+  private BitGridMap map;
+
+  private SearchContext context;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    Random random = new Random(16);
+    map = new BitGridMap(100, 100);
+    for (int y = 0; y < 100; y++) {
+      for (int x = 0; x < 100; x++) {
+        map.setTraversable(x, y, random.nextInt(4) != 0);
+      }
+    }
+    map.fillRect(0, 0, 2, 2, true);
+    map.fillRect(98, 98, 2, 2, true);
+    context = new SearchContext();
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map = null;
+    context = null;
+  }
+
+  /**
+   * Test that a search stepped a few nodes at a time finds the same path as a search run at once
+   */
+  @Test
+  public void testStep() {
+    AStarParams params = new AStarParams(map, new PathNodePosition(0, 0), new PathNodePosition(99, 99))
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setHeuristic(DistanceCalculator.CHEBYSHEV_DISTANCE);
+    SearchResult expected = context.search(params);
+    assertTrue("The end position must be reachable", expected.isFound());
+
+    PathSearch search = new PathSearch(params);
+    assertEquals("The partial path must be empty before the first step", 0, search.getPartialPath().size());
+    int steps = 0;
+    int expanded = 0;
+    while (search.step(10) == PathSearch.Status.IN_PROGRESS) {
+      steps++;
+      assertTrue("No more nodes than asked must be expanded", search.getExpandedNodes() - expanded <= 10);
+      expanded = search.getExpandedNodes();
+      assertFalse("The search must not be finished", search.isFinished());
+    }
+    assertTrue("The search must take several steps", steps > 5);
+    assertEquals("The path must be found", PathSearch.Status.FOUND, search.getStatus());
+    assertEquals("The path must be the same", expected.getPath(), search.getResult().getPath());
+    assertEquals("The cost must be the same", expected.getCost(), search.getResult().getCost(), 0.000001);
+    assertEquals("Stepping a finished search must do nothing", PathSearch.Status.FOUND, search.step(10));
+  }
+
+  /**
+   * Test the path given while the search is in progress
+   */
+  @Test
+  public void testPartialPath() {
+    AStarParams params = new AStarParams(map, new PathNodePosition(0, 0), new PathNodePosition(99, 99));
+    PathSearch search = new PathSearch(params, context);
+    assertEquals("The search must be in progress", PathSearch.Status.IN_PROGRESS, search.step(50));
+    LinkedList<PathNodePosition> partial = search.getPartialPath();
+    assertFalse("A partial path must be given", partial.isEmpty());
+    PathNodePosition previous = params.getStartPos();
+    for (PathNodePosition pos : partial) {
+      assertEquals("The partial path must only move to neighbors", 1, Math.abs(pos.x - previous.x) + Math.abs(pos.y - previous.y));
+      previous = pos;
+    }
+
+    try {
+      search.getResult();
+      fail("The result must not be given before the search is finished");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Test the searches which stop without reaching the end position
+   */
+  @Test
+  public void testNotFound() {
+    map.fillRect(50, 0, 1, 100, false);
+    AStarParams params = new AStarParams(map, new PathNodePosition(0, 0), new PathNodePosition(99, 99));
+    params.setConnectedComponents(new ConnectedComponents(map, params.getNeighborsEnumerator()));
+    PathSearch search = new PathSearch(params);
+    assertEquals("The areas must find the end position unreachable", PathSearch.Status.UNREACHABLE, search.step(1));
+    assertEquals("No node must be expanded", 0, search.getExpandedNodes());
+    params.setConnectedComponents(null);
+
+    search = new PathSearch(params.setMustCheckPosSameArea(false));
+    while (search.step(100) == PathSearch.Status.IN_PROGRESS) {
+      assertTrue("The search must stop", search.getExpandedNodes() <= 10000);
+    }
+    assertEquals("The search must find the end position unreachable", PathSearch.Status.UNREACHABLE, search.getStatus());
+    assertTrue("The path must be empty", search.getResult().getPath().isEmpty());
+
+    search = new PathSearch(params.setMaxExpandedNodes(250));
+    while (search.step(100) == PathSearch.Status.IN_PROGRESS) {
+      assertTrue("The search must stop", search.getExpandedNodes() <= 250);
+    }
+    assertEquals("The budget must be exhausted", PathSearch.Status.BUDGET_EXHAUSTED, search.getStatus());
+    assertFalse("A partial path must be given", search.getResult().getPath().isEmpty());
+  }
+
+  /**
+   * Test the first step does not flood fill the area of the start position, so a search toward an unreachable end
+   * position stays within the budget of each step
+   */
+  @Test
+  public void testNoFloodFill() {
+    map.fillRect(50, 0, 1, 100, false);
+    AStarParams params = new AStarParams(map, new PathNodePosition(0, 0), new PathNodePosition(99, 99));
+    PathSearch search = new PathSearch(params, context);
+    assertEquals("The search must be in progress", PathSearch.Status.IN_PROGRESS, search.step(10));
+    assertEquals("No position must be visited by a flood fill", 0, context.floodFillCells);
+    assertTrue("No more nodes than asked must be expanded", search.getExpandedNodes() <= 10);
+    while (search.step(10) == PathSearch.Status.IN_PROGRESS) {
+      assertEquals("No position must be visited by a flood fill", 0, context.floodFillCells);
+    }
+    assertEquals("The search must find the end position unreachable", PathSearch.Status.UNREACHABLE, search.getStatus());
+
+    map.setTraversable(99, 99, false);
+    search = new PathSearch(params);
+    assertEquals("A blocked end position must be unreachable", PathSearch.Status.UNREACHABLE, search.step(1));
+    assertEquals("No node must be expanded", 0, search.getExpandedNodes());
+  }
+
+  /**
+   * Test a stepped search returns the same path as {@link AStar#search}, which searches with integer costs when
+   * the costs are integers already or when they are asked to be
+   */
+  @Test
+  public void testSameSearch() {
+    Random random = new Random(8);
+    for (int i = 0; i < 100; i++) {
+      AStarParams params = new AStarParams(map,
+              new PathNodePosition(random.nextInt(100), random.nextInt(100)),
+              new PathNodePosition(random.nextInt(100), random.nextInt(100)));
+      if (i % 3 == 1) {
+        params.setHeuristic(DistanceCalculator.EUCLIDEAN_DISTANCE);
+      } else if (i % 3 == 2) {
+        params.setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+                .setHeuristic(DistanceCalculator.OCTILE_DISTANCE)
+                .setIntegerCosts(true);
+      }
+      SearchResult expected = context.search(params);
+      PathSearch search = new PathSearch(params, context);
+      while (search.step(30) == PathSearch.Status.IN_PROGRESS) {
+        assertTrue("The search must stop", search.getExpandedNodes() <= 10000);
+      }
+      SearchResult result = search.getResult();
+      assertEquals("The status must be the same", expected.getStatus(), result.getStatus());
+      assertEquals("The path must be the same", expected.getPath(), result.getPath());
+      assertEquals("The cost must be the same", expected.getCost(), result.getCost(), 0.000001);
+    }
+  }
+
+  /**
+   * Test that a released search can not be stepped
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testRelease() {
+    PathSearch search = new PathSearch(new AStarParams(map, new PathNodePosition(0, 0), new PathNodePosition(99, 99)));
+    search.step(1);
+    search.release();
+    search.step(1);
+  }
+
+  /**
+   * Test that the scheduler runs all the searches without going over its budget
+   */
+  @Test
+  public void testScheduler() {
+    PathSearchScheduler scheduler = new PathSearchScheduler(500, 40);
+    Random random = new Random(3);
+    List<AStarParams> queries = new ArrayList<>();
+    List<PathSearch> searches = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      AStarParams params = new AStarParams(map,
+              new PathNodePosition(random.nextInt(100), random.nextInt(100)),
+              new PathNodePosition(random.nextInt(100), random.nextInt(100)));
+      queries.add(params);
+      searches.add(scheduler.submit(params));
+    }
+    PathSearch cancelled = searches.get(0);
+    assertTrue("A pending search must be cancelled", scheduler.cancel(cancelled));
+    assertFalse("A search must only be cancelled once", scheduler.cancel(cancelled));
+    assertEquals("The cancelled search must not be pending", 199, scheduler.getPendingCount());
+
+    int ticks = 0;
+    int finishedCount = 0;
+    while (scheduler.getPendingCount() > 0) {
+      long before = 0;
+      for (PathSearch search : searches) {
+        before += search.getExpandedNodes();
+      }
+      finishedCount += scheduler.tick().size();
+      long after = 0;
+      for (PathSearch search : searches) {
+        after += search.getExpandedNodes();
+      }
+      assertTrue("No more nodes than the budget must be expanded in a tick", after - before <= 500);
+      ticks++;
+    }
+    assertEquals("Each search must finish once", 199, finishedCount);
+    assertTrue("The searches must be spread over several ticks", ticks > 1);
+
+    for (int i = 1; i < searches.size(); i++) {
+      SearchResult expected = context.search(queries.get(i));
+      SearchResult result = searches.get(i).getResult();
+      assertEquals("The status must be the same", expected.getStatus(), result.getStatus());
+      assertEquals("The cost must be the same", expected.getCost(), result.getCost(), 0.000001);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link PathSmoother}
+ */
+public class PathSmootherTest {
+
+  private BitGridMap map;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    map = new BitGridMap(100, 30);
+    map.fillRect(0, 0, 100, 30, true);
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map = null;
+  }
+
+  /**
+   * Test the line of sight is blocked by walls and by the corners of walls
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testLineOfSight() throws Exception {
+    PathSmoother smoother = new PathSmoother(map);
+    assertTrue("A free row must be visible", smoother.hasLineOfSight(0, 5, 99, 5));
+    assertTrue("A position must see itself", smoother.hasLineOfSight(3, 3, 3, 3));
+
+    map.setTraversable(70, 5, false);
+    assertFalse("A wall on the row must hide the end of the row", smoother.hasLineOfSight(0, 5, 99, 5));
+    assertFalse("The line of sight must be symmetric", smoother.hasLineOfSight(99, 5, 0, 5));
+    assertTrue("The wall must not hide the row below", smoother.hasLineOfSight(0, 6, 99, 6));
+
+    // The diagonal from (10, 10) to (11, 11) goes through the corner of (11, 10) and (10, 11)
+    map.setTraversable(11, 10, false);
+    assertFalse("A diagonal must not cut the corner of a wall", smoother.hasLineOfSight(10, 10, 11, 11));
+    assertFalse("A diagonal must not cut the corner of a wall", smoother.hasLineOfSight(9, 9, 12, 12));
+    assertTrue("A segment passing by the wall must be visible", smoother.hasLineOfSight(10, 11, 12, 12));
+  }
+
+  /**
+   * Test the line of sight read word by word is the same as the one read position by position
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testBitGridMapSameAsOtherMaps() throws Exception {
+    Random random = new Random(97);
+    for (int i = 0; i < 300; i++) {
+      map.setTraversable(random.nextInt(100), random.nextInt(30), false);
+    }
+    PathFinderMap other = new PathFinderMap() {
+      @Override
+      public boolean isTraversable(int x, int y) {
+        return map.isTraversable(x, y);
+      }
+
+      @Override
+      public int getWidth() {
+        return 100;
+      }
+
+      @Override
+      public int getHeight() {
+        return 30;
+      }
+    };
+    PathSmoother bits = new PathSmoother(map);
+    PathSmoother positions = new PathSmoother(other);
+    for (int i = 0; i < 2000; i++) {
+      int x0 = random.nextInt(100);
+      int y0 = random.nextInt(30);
+      int x1 = random.nextInt(100);
+      int y1 = random.nextInt(30);
+      assertEquals("The line of sight must not depend on the map storage",
+              positions.hasLineOfSight(x0, y0, x1, y1), bits.hasLineOfSight(x0, y0, x1, y1));
+    }
+  }
+
+  /**
+   * Test a path is reduced to the positions where it turns, each one visible from the previous one
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSmooth() throws Exception {
+    map.fillRect(50, 0, 2, 25, false);
+    PathNodePosition startPos = new PathNodePosition(5, 5);
+    PathNodePosition endPos = new PathNodePosition(95, 5);
+    AStarParams params = new AStarParams(map, startPos, endPos).setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setHeuristic(DistanceCalculator.EUCLIDEAN_DISTANCE);
+    LinkedList<PathNodePosition> path = AStar.findPath(params);
+    PathSmoother smoother = new PathSmoother(map);
+    LinkedList<PathNodePosition> waypoints = smoother.smooth(startPos, path);
+
+    assertTrue("The path around the wall must keep only a few waypoints", waypoints.size() <= 3);
+    assertEquals("The waypoints must end on the end position", endPos, waypoints.getLast());
+    PathNodePosition previous = startPos;
+    for (PathNodePosition waypoint : waypoints) {
+      assertTrue("Each waypoint must be visible from the previous one", smoother.hasLineOfSight(previous.x, previous.y, waypoint.x, waypoint.y));
+      previous = waypoint;
+    }
+
+    GridPath smoothed = smoother.smooth(startPos, AStar.findGridPath(params));
+    assertEquals("The grid path must be reduced to the same waypoints", waypoints, smoothed.toLinkedList());
+    assertTrue("The segments must be shorter than the grid path", smoothed.cost() < AStar.findGridPath(params).cost());
+    assertTrue("An empty path must stay empty", smoother.smooth(startPos, new LinkedList<PathNodePosition>()).isEmpty());
+  }
+}
@@ -0,0 +1,123 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link SearchContext}
+ */
+public class SearchContextTest {
+
+  private PathFinderMap smallMap;
+  private PathFinderMap bigMap;
+
+  private SearchContext context;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    smallMap = new PathFinderMap() {
+
+      final int WALL = 1;
+      final int FLOOR = 0;
+
+      int[][] grid = new int[][]{
+              {FLOOR, WALL, FLOOR},
+              {FLOOR, WALL, FLOOR},
+              {FLOOR, FLOOR, FLOOR}
+      };
+
+      @Override
+      public boolean isTraversable(int x, int y) {
+        return grid[y][x] == FLOOR;
+      }
+
+      @Override
+      public int getWidth() {
+        return grid[0].length;
+      }
+
+      @Override
+      public int getHeight() {
+        return grid.length;
+      }
+    };
+
+    bigMap = new PathFinderMap() {
+
+      @Override
+      public boolean isTraversable(int x, int y) {
+        return x != 20 || y == 39;
+      }
+
+      @Override
+      public int getWidth() {
+        return 40;
+      }
+
+      @Override
+      public int getHeight() {
+        return 40;
+      }
+    };
+
+    context = new SearchContext();
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    smallMap = null;
+    bigMap = null;
+    context = null;
+  }
+
+  /**
+   * Test that {@link SearchContext#findPath(AStarParams)} gives the same results when reused on different maps
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testFindPathReused() throws Exception {
+    AStarParams smallParams = new AStarParams(smallMap, new PathNodePosition(0, 0), new PathNodePosition(2, 0));
+    AStarParams bigParams = new AStarParams(bigMap, new PathNodePosition(0, 0), new PathNodePosition(39, 0))
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setHeuristic(DistanceCalculator.EUCLIDEAN_DISTANCE);
+
+    LinkedList<PathNodePosition> expectedPositions = new LinkedList<>();
+    expectedPositions.add(new PathNodePosition(0, 1));
+    expectedPositions.add(new PathNodePosition(0, 2));
+    expectedPositions.add(new PathNodePosition(1, 2));
+    expectedPositions.add(new PathNodePosition(2, 2));
+    expectedPositions.add(new PathNodePosition(2, 1));
+    expectedPositions.add(new PathNodePosition(2, 0));
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals("The path returned by findPath() is not the one expected", expectedPositions, context.findPath(smallParams));
+
+      LinkedList<PathNodePosition> positions = context.findPath(bigParams);
+      assertEquals("The path returned by findPath() does not have the expected length", 80, positions.size());
+      assertEquals("The path returned by findPath() does not go through the hole", new PathNodePosition(20, 39), positions.get(39));
+      assertEquals("The path returned by findPath() must be the same as AStar.findPath()", AStar.findPath(bigParams), positions);
+    }
+
+    smallParams.setEndPos(new PathNodePosition(1, 0));
+    assertTrue("findPath() must returns empty array when unreachable position is given", context.findPath(smallParams).isEmpty());
+
+    smallParams.setEndPos(new PathNodePosition(0, 0));
+    assertTrue("findPath() must returns empty array when the end position is the start position", context.findPath(smallParams).isEmpty());
+  }
+}
@@ -0,0 +1,123 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link SearchResult} and the budgets of {@link AStarParams}
+ */
+public class SearchResultTest {
+
+  private BitGridMap map;
+
+  private SearchContext context;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    // A map of pillars where a wall closes the right side, the pillars giving many jump points
+    map = new BitGridMap(1000, 1000);
+    map.fillRect(0, 0, 1000, 1000, true);
+    for (int y = 2; y < 1000; y += 5) {
+      for (int x = 3; x < 1000; x += 7) {
+        map.setTraversable(x, y, false);
+      }
+    }
+    map.fillRect(900, 0, 1, 1000, false);
+    context = new SearchContext();
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map = null;
+    context = null;
+  }
+
+  /**
+   * Test the result of a search without budget
+   */
+  @Test
+  public void testFound() {
+    AStarParams params = new AStarParams(map, new PathNodePosition(0, 0), new PathNodePosition(10, 5));
+    SearchResult result = context.search(params);
+    assertEquals("The path must be found", SearchResult.Status.FOUND, result.getStatus());
+    assertTrue("The path must be found", result.isFound());
+    assertEquals("The path must have the length of the shortest path", 15, result.getPath().size());
+    assertEquals("The cost must be the one of the shortest path", 15, result.getCost(), 0.000001);
+
+    params.setEndPos(new PathNodePosition(950, 0));
+    assertEquals("The end position must be unreachable", SearchResult.Status.UNREACHABLE, context.search(params).getStatus());
+    assertTrue("The path must be empty", context.search(params).getPath().isEmpty());
+  }
+
+  /**
+   * Test the limit of expanded nodes
+   */
+  @Test
+  public void testMaxExpandedNodes() {
+    AStarParams params = new AStarParams(map, new PathNodePosition(500, 500), new PathNodePosition(950, 500))
+            .setMustCheckPosSameArea(false)
+            .setMaxExpandedNodes(20);
+    for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+      SearchResult result = context.search(params.setAlgorithm(algorithm));
+      assertEquals("The budget must be exhausted with " + algorithm, SearchResult.Status.BUDGET_EXHAUSTED, result.getStatus());
+      assertTrue("No more nodes than the budget must be expanded", context.getExpandedNodes() <= 20);
+
+      LinkedList<PathNodePosition> path = result.getPath();
+      assertFalse("A partial path must be given with " + algorithm, path.isEmpty());
+      PathNodePosition previous = params.getStartPos();
+      for (PathNodePosition pos : path) {
+        assertTrue("The partial path must only move to neighbors",
+                Math.abs(pos.x - previous.x) <= 1 && Math.abs(pos.y - previous.y) <= 1);
+        assertTrue("The partial path must only move on traversable positions", map.isTraversable(pos.x, pos.y));
+        previous = pos;
+      }
+      assertTrue("The partial path must move toward the end position with " + algorithm, previous.x > 500);
+      assertEquals("The cost must be the one of the partial path", path.size(), result.getCost(), 0.000001);
+      assertEquals("findPath must return the same path", path, context.findPath(params));
+    }
+
+    params.setMaxExpandedNodes(Integer.MAX_VALUE).setEndPos(new PathNodePosition(510, 500));
+    assertEquals("A large budget must not stop the search", SearchResult.Status.FOUND, context.search(params).getStatus());
+  }
+
+  /**
+   * Test the time limit, the end position being unreachable on a map large enough to take much longer
+   */
+  @Test(timeout = 2000)
+  public void testTimeLimit() {
+    BitGridMap bigMap = new BitGridMap(2000, 2000);
+    bigMap.fillRect(0, 0, 2000, 2000, true);
+    bigMap.fillRect(1500, 0, 1, 2000, false);
+    AStarParams params = new AStarParams(bigMap, new PathNodePosition(0, 0), new PathNodePosition(1999, 1999))
+            .setMustCheckPosSameArea(false);
+    // Allocate the storage of the context first, so the time limit is spent searching
+    context.search(params.setMaxExpandedNodes(1));
+    SearchResult result = context.search(params.setMaxExpandedNodes(Integer.MAX_VALUE).setTimeLimit(20, TimeUnit.MILLISECONDS));
+    assertEquals("The budget must be exhausted", SearchResult.Status.BUDGET_EXHAUSTED, result.getStatus());
+    assertFalse("A partial path must be given", result.getPath().isEmpty());
+  }
+
+  /**
+   * Test that negative budgets are refused
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeBudget() {
+    new AStarParams(map, new PathNodePosition(0, 0), new PathNodePosition(1, 1)).setMaxExpandedNodes(-1);
+  }
+}
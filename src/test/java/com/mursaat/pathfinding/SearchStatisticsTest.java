@@ -0,0 +1,156 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link SearchStatistics} and {@link SearchStatisticsAggregator}
+ */
+public class SearchStatisticsTest {
+
+  private BitGridMap map;
+
+  private SearchContext context;
+
+  private List<String> received;
+
+  private SearchListener listener;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    // An open map with a wall, open at its bottom
+    map = new BitGridMap(40, 40);
+    map.fillRect(0, 0, 40, 40, true);
+    map.fillRect(20, 0, 1, 39, false);
+    context = new SearchContext();
+    received = new ArrayList<>();
+    listener = new SearchListener() {
+      @Override
+      public void searchFinished(SearchStatistics statistics) {
+        received.add(statistics.toString());
+      }
+    };
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map = null;
+    context = null;
+    received = null;
+    listener = null;
+  }
+
+  /**
+   * Test the statistics given to the listener
+   */
+  @Test
+  public void testListener() {
+    final SearchStatistics[] last = new SearchStatistics[1];
+    AStarParams params = new AStarParams(map, new PathNodePosition(0, 0), new PathNodePosition(39, 0))
+            .setSearchListener(new SearchListener() {
+              @Override
+              public void searchFinished(SearchStatistics statistics) {
+                last[0] = statistics;
+              }
+            });
+    LinkedList<PathNodePosition> path = context.findPath(params);
+    SearchStatistics statistics = last[0];
+
+    assertNotNull("The listener must be called", statistics);
+    assertEquals("The algorithm must be given", SearchAlgorithm.A_STAR, statistics.getAlgorithm());
+    assertEquals("The expanded nodes must be counted", context.getExpandedNodes(), statistics.getExpandedNodes());
+    assertEquals("The path length must be given", path.size(), statistics.getPathLength());
+    assertTrue("The flood fill must visit positions", statistics.getFloodFillCells() > 0);
+    assertTrue("More nodes must be generated than expanded", statistics.getGeneratedNodes() > statistics.getExpandedNodes());
+    assertTrue("The open list must have held nodes", statistics.getMaxOpenListSize() > 0);
+    assertEquals("No node must be reopened with a consistent heuristic", 0, statistics.getReopenedNodes());
+    assertTrue("The phases must not take longer than the call",
+            statistics.getFloodFillNanos() + statistics.getSearchNanos() + statistics.getPathNanos() <= statistics.getTotalNanos());
+
+    // The counters of the previous search must not leak in a search which stops early
+    context.findPath(params.setEndPos(new PathNodePosition(20, 0)));
+    assertEquals("Nothing must be expanded when the end position is not reachable", 0, last[0].getExpandedNodes());
+    assertEquals("The path must be empty", 0, last[0].getPathLength());
+
+    params.setEndPos(new PathNodePosition(39, 0)).setMustCheckPosSameArea(false);
+    for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+      context.findPath(params.setAlgorithm(algorithm));
+      assertEquals("The algorithm must be given", algorithm, last[0].getAlgorithm());
+      assertEquals("The flood fill must not be counted when it is not done", 0, last[0].getFloodFillCells());
+      assertTrue("Nodes must be expanded with " + algorithm, last[0].getExpandedNodes() > 0);
+      assertEquals("The path length must be the same with " + algorithm, path.size(), last[0].getPathLength());
+    }
+  }
+
+  /**
+   * Test that no listener is called when none is given
+   */
+  @Test
+  public void testNoListener() {
+    AStarParams params = new AStarParams(map, new PathNodePosition(0, 0), new PathNodePosition(39, 0));
+    context.findPath(params);
+    assertTrue("No listener must be called", received.isEmpty());
+    context.findPath(params.setSearchListener(listener));
+    assertEquals("The listener must be called once", 1, received.size());
+  }
+
+  /**
+   * Test the histograms of the aggregator
+   */
+  @Test
+  public void testAggregator() {
+    SearchStatisticsAggregator aggregator = new SearchStatisticsAggregator();
+    List<AStarParams> queries = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      queries.add(new AStarParams(map, new PathNodePosition(i % 20, 0), new PathNodePosition(39, i % 39))
+              .setSearchListener(aggregator));
+    }
+    List<LinkedList<PathNodePosition>> paths = AStar.findPaths(queries);
+
+    assertEquals("Each search must be recorded", 50, aggregator.getCount());
+    long lengths = 0;
+    long maxLength = 0;
+    for (LinkedList<PathNodePosition> path : paths) {
+      lengths += path.size();
+      maxLength = Math.max(maxLength, path.size());
+    }
+    assertEquals("The sum must be the sum of the values", lengths, aggregator.getSum(SearchStatistics.Metric.PATH_LENGTH));
+    assertEquals("The max must be the largest value", maxLength, aggregator.getMax(SearchStatistics.Metric.PATH_LENGTH));
+
+    long[] histogram = aggregator.getHistogram(SearchStatistics.Metric.PATH_LENGTH);
+    long total = 0;
+    for (int i = 0; i < histogram.length; i++) {
+      total += histogram[i];
+    }
+    assertEquals("The histogram must count each search", 50, total);
+    assertTrue("The bucket of the max must be used", histogram[SearchStatisticsAggregator.bucketOf(maxLength)] > 0);
+    assertEquals("The 100th percentile must be the max", maxLength,
+            aggregator.getPercentile(SearchStatistics.Metric.PATH_LENGTH, 100));
+
+    assertEquals("Bucket 0 must only hold 0", 0, SearchStatisticsAggregator.getBucketUpperBound(0));
+    assertEquals("1 must be in bucket 1", 1, SearchStatisticsAggregator.bucketOf(1));
+    assertEquals("4 to 7 must be in bucket 3", 3, SearchStatisticsAggregator.bucketOf(7));
+    assertEquals("Bucket 3 must end at 7", 7, SearchStatisticsAggregator.getBucketUpperBound(3));
+
+    aggregator.reset();
+    assertEquals("The searches must be forgotten", 0, aggregator.getCount());
+    assertEquals("The sums must be forgotten", 0, aggregator.getSum(SearchStatistics.Metric.PATH_LENGTH));
+  }
+}
@@ -0,0 +1,146 @@
+package com.mursaat.pathfinding;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The costs of the paths checked by the tests, and a reference search written apart from the library, to check
+ * the searches against it
+ */
+final class TestPaths {
+
+  private TestPaths() {
+  }
+
+  /**
+   * Returns the cost of a path, each move costing its length multiplied by the cost of its destination on a
+   * {@link WeightedPathFinderMap}, checking that each position is traversable and next to the previous one
+   *
+   * @param map      The map of the path
+   * @param startPos The start position, not in the path
+   * @param path     The positions of the path
+   * @return The cost of the path
+   */
+  static double cost(PathFinderMap map, PathNodePosition startPos, Iterable<PathNodePosition> path) {
+    return cost(map, startPos, path, 1, NeighborsEnumerator.SQRT_2);
+  }
+
+  /**
+   * Returns the cost of a path counted with the integer costs of {@link IntegerSearch}, divided by
+   * {@link IntegerSearch#ORTHO_COST}, checking each move like {@link #cost(PathFinderMap, PathNodePosition, Iterable)}
+   *
+   * @param map      The map of the path
+   * @param startPos The start position, not in the path
+   * @param path     The positions of the path
+   * @return The integer cost of the path divided by 10
+   */
+  static double integerCost(PathFinderMap map, PathNodePosition startPos, Iterable<PathNodePosition> path) {
+    // The sums of integers are exact with doubles, the division is done once
+    return cost(map, startPos, path, IntegerSearch.ORTHO_COST, IntegerSearch.DIAGONAL_COST) / IntegerSearch.ORTHO_COST;
+  }
+
+  private static double cost(PathFinderMap map, PathNodePosition startPos, Iterable<PathNodePosition> path,
+                             double orthoCost, double diagonalCost) {
+    double total = 0;
+    PathNodePosition previous = startPos;
+    for (PathNodePosition pos : path) {
+      int dx = Math.abs(pos.x - previous.x);
+      int dy = Math.abs(pos.y - previous.y);
+      assertTrue("Each position must be next to the previous one", dx <= 1 && dy <= 1 && dx + dy > 0);
+      assertTrue("Each position must be traversable", map.isTraversable(pos.x, pos.y));
+      total += (dx + dy == 2 ? diagonalCost : orthoCost) * positionCost(map, pos.x, pos.y);
+      previous = pos;
+    }
+    return total;
+  }
+
+  /**
+   * Returns the cost of the shortest path between two positions, found by Dijkstra's algorithm over a
+   * {@link PriorityQueue}, sharing no code with the searches of the library. The moves are the ones of
+   * {@link NeighborsEnumerator#ORTHO_NEIGHBORS}, or of {@link NeighborsEnumerator#ORTHO_DIAG_NEIGHBORS} where a
+   * diagonal move needs both positions next to it traversable.
+   *
+   * @param map      The map searched
+   * @param startPos The start position
+   * @param endPos   The end position
+   * @param diagonal true to allow the diagonal moves
+   * @return The cost of the shortest path, or infinity when the end position can not be reached
+   */
+  static double shortestCost(PathFinderMap map, PathNodePosition startPos, PathNodePosition endPos, boolean diagonal) {
+    return shortestCost(map, startPos, endPos, diagonal, 1, NeighborsEnumerator.SQRT_2);
+  }
+
+  /**
+   * Returns the cost of the shortest path like {@link #shortestCost(PathFinderMap, PathNodePosition, PathNodePosition, boolean)},
+   * with the integer costs of {@link IntegerSearch} divided by {@link IntegerSearch#ORTHO_COST}
+   *
+   * @param map      The map searched
+   * @param startPos The start position
+   * @param endPos   The end position
+   * @param diagonal true to allow the diagonal moves
+   * @return The integer cost of the shortest path divided by 10, or infinity when the end position can not be reached
+   */
+  static double shortestIntegerCost(PathFinderMap map, PathNodePosition startPos, PathNodePosition endPos, boolean diagonal) {
+    return shortestCost(map, startPos, endPos, diagonal, IntegerSearch.ORTHO_COST, IntegerSearch.DIAGONAL_COST)
+            / IntegerSearch.ORTHO_COST;
+  }
+
+  private static double shortestCost(PathFinderMap map, PathNodePosition startPos, PathNodePosition endPos,
+                                     boolean diagonal, double orthoCost, double diagonalCost) {
+    int width = map.getWidth();
+    int height = map.getHeight();
+    if (!map.isTraversable(startPos.x, startPos.y) || !map.isTraversable(endPos.x, endPos.y)) {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    double[] costs = new double[width * height];
+    Arrays.fill(costs, Double.POSITIVE_INFINITY);
+    PriorityQueue<double[]> queue = new PriorityQueue<>(16, new Comparator<double[]>() {
+      @Override
+      public int compare(double[] a, double[] b) {
+        return Double.compare(a[0], b[0]);
+      }
+    });
+    costs[startPos.y * width + startPos.x] = 0;
+    queue.add(new double[]{0, startPos.x, startPos.y});
+    while (!queue.isEmpty()) {
+      double[] node = queue.poll();
+      int x = (int) node[1];
+      int y = (int) node[2];
+      if (node[0] > costs[y * width + x]) {
+        continue;
+      }
+      if (x == endPos.x && y == endPos.y) {
+        return node[0];
+      }
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dx = -1; dx <= 1; dx++) {
+          int nx = x + dx;
+          int ny = y + dy;
+          boolean diagonalMove = dx != 0 && dy != 0;
+          if ((dx == 0 && dy == 0) || (diagonalMove && !diagonal)
+                  || nx < 0 || ny < 0 || nx >= width || ny >= height || !map.isTraversable(nx, ny)
+                  || (diagonalMove && (!map.isTraversable(nx, y) || !map.isTraversable(x, ny)))) {
+            continue;
+          }
+          double cost = node[0] + (diagonalMove ? diagonalCost : orthoCost) * positionCost(map, nx, ny);
+          if (cost < costs[ny * width + nx]) {
+            costs[ny * width + nx] = cost;
+            queue.add(new double[]{cost, nx, ny});
+          }
+        }
+      }
+    }
+    return Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Returns the cost of a position, 1 on a map without costs
+   */
+  private static double positionCost(PathFinderMap map, int x, int y) {
+    return map instanceof WeightedPathFinderMap ? ((WeightedPathFinderMap) map).getCost(x, y) : 1;
+  }
+}
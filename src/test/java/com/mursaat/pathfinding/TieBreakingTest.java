@@ -0,0 +1,164 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link TieBreaking}
+ */
+public class TieBreakingTest {
+
+  private BitGridMap randomMap;
+
+  private BitGridMap openMap;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    Random random = new Random(24);
+    randomMap = new BitGridMap(80, 60);
+    for (int y = 0; y < 60; y++) {
+      for (int x = 0; x < 80; x++) {
+        randomMap.setTraversable(x, y, random.nextInt(4) != 0);
+      }
+    }
+    openMap = new BitGridMap(150, 150);
+    openMap.fillRect(0, 0, 150, 150, true);
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    randomMap = null;
+    openMap = null;
+  }
+
+  /**
+   * Test every policy returns paths of the same cost, with doubles and with integers
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testSameCost() throws Exception {
+    Random random = new Random(3);
+    SearchContext context = new SearchContext();
+    for (int i = 0; i < 100; i++) {
+      PathNodePosition startPos = new PathNodePosition(random.nextInt(80), random.nextInt(60));
+      PathNodePosition endPos = new PathNodePosition(random.nextInt(80), random.nextInt(60));
+      AStarParams params = new AStarParams(randomMap, startPos, endPos)
+              .setNeighborsEnumerator(i % 2 == 0 ? NeighborsEnumerator.ORTHO_NEIGHBORS : NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+              .setHeuristic(i % 2 == 0 ? DistanceCalculator.MANHATTAN_DISTANCE : DistanceCalculator.OCTILE_DISTANCE)
+              .setIntegerCosts(i % 4 == 1);
+      GridPath expected = context.findGridPath(params.setTieBreaking(TieBreaking.NONE));
+      for (TieBreaking tieBreaking : TieBreaking.values()) {
+        GridPath path = context.findGridPath(params.setTieBreaking(tieBreaking));
+        assertEquals("The path must be found whatever the policy", expected.isEmpty(), path.isEmpty());
+        assertEquals("The cost must not depend on the policy", expected.cost(), path.cost(), 1e-9);
+      }
+    }
+  }
+
+  /**
+   * Test on an open map, the policies go straight to the end position where an open list breaking the ties
+   * in any order explores the plateau of the nodes of the same estimated cost
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testExpandedNodes() throws Exception {
+    // The manhattan distance through another instance, so the search uses doubles and the open list of the context
+    AStarParams params = new AStarParams(openMap, new PathNodePosition(10, 20), new PathNodePosition(140, 120))
+            .setHeuristic(new DistanceCalculator() {
+              @Override
+              public double calculate(int x1, int y1, int x2, int y2) {
+                return DistanceCalculator.MANHATTAN_DISTANCE.calculate(x1, y1, x2, y2);
+              }
+            })
+            .setMustCheckPosSameArea(false);
+    SearchContext context = new SearchContext(new PriorityQueueOpenList());
+
+    GridPath path = context.findGridPath(params.setTieBreaking(TieBreaking.NONE));
+    int expandedNodes = context.getExpandedNodes();
+    assertEquals("The path must be the shortest one", 230, path.cost(), 1e-9);
+    assertTrue("Without policy, the plateau must be explored", expandedNodes > 10 * path.length());
+
+    for (TieBreaking tieBreaking : new TieBreaking[]{TieBreaking.HIGHER_G, TieBreaking.CROSS_PRODUCT}) {
+      path = context.findGridPath(params.setTieBreaking(tieBreaking));
+      assertEquals("The path must be the shortest one", 230, path.cost(), 1e-9);
+      assertEquals("Only the positions of the path must be expanded", path.length(), context.getExpandedNodes());
+    }
+  }
+
+  /**
+   * Test {@link TieBreaking#CROSS_PRODUCT} keeps the path along the straight line to the end position
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testCrossProduct() throws Exception {
+    PathNodePosition startPos = new PathNodePosition(10, 20);
+    PathNodePosition endPos = new PathNodePosition(140, 120);
+    GridPath path = new SearchContext().findGridPath(new AStarParams(openMap, startPos, endPos)
+            .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+            .setHeuristic(DistanceCalculator.OCTILE_DISTANCE)
+            .setIntegerCosts(true)
+            .setTieBreaking(TieBreaking.CROSS_PRODUCT));
+
+    int startDx = startPos.x - endPos.x;
+    int startDy = startPos.y - endPos.y;
+    double length = Math.sqrt(startDx * startDx + startDy * startDy);
+    for (int i = 0; i < path.length(); i++) {
+      double distance = SearchContext.crossProduct(path.getX(i) - endPos.x, path.getY(i) - endPos.y, startDx, startDy) / length;
+      assertTrue("The path must stay next to the straight line", distance < 1.5);
+    }
+  }
+
+  /**
+   * Test the same query expands the same nodes and returns the same path with every policy, even from another
+   * context after other searches
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testDeterministic() throws Exception {
+    for (TieBreaking tieBreaking : TieBreaking.values()) {
+      for (boolean integerCosts : new boolean[]{false, true}) {
+        AStarParams params = new AStarParams(randomMap, new PathNodePosition(2, 3), new PathNodePosition(77, 58))
+                .setNeighborsEnumerator(NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS)
+                .setHeuristic(DistanceCalculator.OCTILE_DISTANCE)
+                .setIntegerCosts(integerCosts)
+                .setTieBreaking(tieBreaking);
+        randomMap.setTraversable(2, 3, true);
+        randomMap.setTraversable(77, 58, true);
+
+        SearchContext context = new SearchContext();
+        GridPath path = context.findGridPath(params);
+        int expandedNodes = context.getExpandedNodes();
+
+        SearchContext other = new SearchContext();
+        other.findGridPath(new AStarParams(randomMap, new PathNodePosition(70, 50), new PathNodePosition(0, 0)));
+        GridPath otherPath = other.findGridPath(params);
+
+        assertFalse("The path must be found", path.isEmpty());
+        assertEquals("The same number of nodes must be expanded", expandedNodes, other.getExpandedNodes());
+        assertEquals("The paths must have the same length", path.length(), otherPath.length());
+        for (int i = 0; i < path.length(); i++) {
+          assertEquals("The paths must go through the same positions", path.getCell(i), otherPath.getCell(i));
+        }
+      }
+    }
+  }
+}
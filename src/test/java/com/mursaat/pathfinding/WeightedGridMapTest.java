@@ -0,0 +1,111 @@
+package com.mursaat.pathfinding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link WeightedGridMap} and the search on weighted maps
+ */
+public class WeightedGridMapTest {
+
+  private WeightedGridMap map;
+
+  /**
+   * Create all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    map = new WeightedGridMap(60, 40);
+    Random random = new Random(29);
+    for (int y = 0; y < 40; y++) {
+      for (int x = 0; x < 60; x++) {
+        map.setCost(x, y, random.nextInt(5) == 0 ? WeightedGridMap.BLOCKED : 2 + random.nextInt(4));
+      }
+    }
+  }
+
+  /**
+   * Force destroy all the objects used by the tests
+   *
+   * @throws Exception JUnit exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    map = null;
+  }
+
+  /**
+   * Test {@link WeightedGridMap#setCost(int, int, int)} and {@link WeightedGridMap#getMinCost()}
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testCosts() throws Exception {
+    assertEquals("The minimum cost is not the one expected", 2, map.getMinCost(), 0);
+    assertFalse("A blocked position must not be traversable", new WeightedGridMap(3, 3).isTraversable(1, 1));
+
+    map.setCost(7, 8, 1);
+    assertEquals("The cost must be the one given", 1, map.getCost(7, 8), 0);
+    assertEquals("The minimum cost must follow the changes", 1, map.getMinCost(), 0);
+    map.setCost(7, 8, WeightedGridMap.MAX_COST);
+    assertEquals("The minimum cost must follow the changes", 2, map.getMinCost(), 0);
+
+    map.fillRect(0, 0, 60, 40, 7);
+    assertEquals("The minimum cost must follow the changes", 7, map.getMinCost(), 0);
+    assertTrue("The positions must be traversable", map.isTraversable(59, 39));
+  }
+
+  /**
+   * Test the paths found on a weighted map have the cost of the reference search, with the heuristic scaled by the
+   * minimum cost
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testFindPath() throws Exception {
+    Random random = new Random(31);
+    SearchContext context = new SearchContext();
+    for (NeighborsEnumerator neighborsEnumerator : new NeighborsEnumerator[]{NeighborsEnumerator.ORTHO_NEIGHBORS, NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS}) {
+      DistanceCalculator heuristic = neighborsEnumerator == NeighborsEnumerator.ORTHO_NEIGHBORS
+              ? DistanceCalculator.MANHATTAN_DISTANCE : DistanceCalculator.EUCLIDEAN_DISTANCE;
+      for (int i = 0; i < 100; i++) {
+        PathNodePosition startPos = new PathNodePosition(random.nextInt(60), random.nextInt(40));
+        PathNodePosition endPos = new PathNodePosition(random.nextInt(60), random.nextInt(40));
+        AStarParams params = new AStarParams(map, startPos, endPos).setNeighborsEnumerator(neighborsEnumerator);
+        double expected = TestPaths.shortestCost(map, startPos, endPos, neighborsEnumerator == NeighborsEnumerator.ORTHO_DIAG_NEIGHBORS);
+        for (SearchAlgorithm algorithm : new SearchAlgorithm[]{SearchAlgorithm.A_STAR, SearchAlgorithm.JUMP_POINT_SEARCH}) {
+          LinkedList<PathNodePosition> path = context.findPath(params.setHeuristic(heuristic).setAlgorithm(algorithm));
+          assertEquals("The path must be found when there is one", Double.isInfinite(expected) || startPos.equals(endPos), path.isEmpty());
+          if (!path.isEmpty()) {
+            assertEquals("The path must have the optimal cost", expected, TestPaths.cost(map, startPos, path), 1e-9);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Test a path avoids the expensive positions when there is a cheaper way around
+   *
+   * @throws Exception JUnit exception
+   */
+  @Test
+  public void testAvoidExpensive() throws Exception {
+    WeightedGridMap swamp = new WeightedGridMap(10, 5);
+    swamp.fillRect(0, 0, 10, 5, 1);
+    swamp.fillRect(3, 0, 4, 4, 50);
+    LinkedList<PathNodePosition> path = AStar.findPath(new AStarParams(swamp, new PathNodePosition(0, 0), new PathNodePosition(9, 0)));
+    assertEquals("The path must go around the swamp", 17, path.size());
+    for (PathNodePosition pos : path) {
+      assertEquals("The path must not cross the swamp", 1, swamp.getCost(pos.x, pos.y), 0);
+    }
+  }
+}